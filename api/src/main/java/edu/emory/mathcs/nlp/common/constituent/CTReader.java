@@ -15,40 +15,52 @@
  */
 package edu.emory.mathcs.nlp.common.constituent;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.LineNumberReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
-import java.util.StringTokenizer;
 
 import edu.emory.mathcs.nlp.common.constant.StringConst;
 import edu.emory.mathcs.nlp.common.treebank.CTTag;
 
 /**
  * Constituent tree reader.
+ * The brackets are parsed character by character from a buffer, where only the tags and the word-forms are created as strings.
  * @see CTTree 
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
 public class CTReader
 {
-	private LineNumberReader f_reader;
-	private Deque<String>    d_tokens;
+	static private final int BUFFER_SIZE = 1 << 16;
+	static private final int EOF  = -1;
+	static private final int LRB  =  0;
+	static private final int RRB  =  1;
+	static private final int WORD =  2;
+	
+	private Reader f_reader;
+	/** The characters in {@code [position, limit)} are not read yet. */
+	private char[] buffer;
+	private int    position;
+	private int    limit;
+	/** The line number of the last token (starting at 1). */
+	private int    line_number;
+	/** {@code true} if the last character is {@code '\r'}, which makes a line break together with the next {@code '\n'}. */
+	private boolean carriage_return;
+	/** The last token if it is {@link #WORD}. */
+	private String word;
 	
 	public CTReader() {}
 	
-	/** @param in internally wrapped by {@code new LineNumberReader(new InputStreamReader(new BufferedInputStream(in)))}}. */
+	/** @param in internally wrapped by {@code new InputStreamReader(in)}. */
 	public CTReader(InputStream in)
 	{
 		open(in);
 	}
 	
-	/** @param in internally wrapped by {@code new LineNumberReader(new InputStreamReader(new BufferedInputStream(in)))}}. */
+	/** @param in internally wrapped by {@code new InputStreamReader(in)}. */
 	public void open(InputStream in)
 	{
 		open(in, "UTF-8");
@@ -58,8 +70,11 @@ public class CTReader
 	{
 		try
 		{
-			f_reader = new LineNumberReader(new InputStreamReader(new BufferedInputStream(in), charsetName));
-			d_tokens = new ArrayDeque<String>();
+			f_reader = new InputStreamReader(in, charsetName);
+			buffer   = new char[BUFFER_SIZE];
+			position = limit = 0;
+			line_number = 1;
+			carriage_return = false;
 		}
 		catch (UnsupportedEncodingException e) {e.printStackTrace();}
 	}
@@ -96,42 +111,42 @@ public class CTReader
 	 */
 	public CTTree nextTree()
 	{
-		String token = nextToken(), tags;
+		int token = nextToken();
 		
-		if (token == null)
+		if (token == EOF)
 			return null;
 		
-		if (!token.equals(StringConst.LRB))
+		if (token != LRB)
 		{
-			System.err.println("Error: \""+token+"\" found, \"(\" expected - line "+f_reader.getLineNumber());
+			System.err.println("Error: \""+toString(token)+"\" found, \"(\" expected - line "+line_number);
 			return null;
 		}
 		
-		int nBrackets = 1, startLine = f_reader.getLineNumber();
+		int nBrackets = 1, startLine = line_number;
 		CTNode root = new CTNode(CTTag.TOP, null);
 		CTNode curr = root, node;
 		
-		while ((token = nextToken()) != null)
+		while ((token = nextToken()) != EOF)
 		{
-			if (nBrackets == 1 && token.equals(CTTag.TOP))
-				continue;
-			
-			if (token.equals(StringConst.LRB))
+			if (token == LRB)
 			{
-				tags = nextToken();
-				node = new CTNode(tags);
+				node = new CTNode(toString(nextToken()));
 				curr.addChild(node);
 				curr = node;
 				nBrackets++;
 			}
-			else if (token.equals(StringConst.RRB))
+			else if (token == RRB)
 			{
 				curr = curr.getParent();
 				nBrackets--;
 			}
+			else if (nBrackets == 1 && word.equals(CTTag.TOP))
+			{
+				continue;
+			}
 			else
 			{
-				curr.setWordForm(token);
+				curr.setWordForm(word);
 			}
 			
 			if (nBrackets == 0)
@@ -162,37 +177,97 @@ public class CTReader
 		
 		return tree;
 	}
+	
+//	=================================== TOKENS ===================================
 
-	/** Called by {@link #nextTree()}. */
-	private String nextToken()
+	/**
+	 * Called by {@link #nextTree()}.
+	 * Tokens are separated by brackets and whitespaces; the string of a {@link #WORD} token is saved in {@link #word}.
+	 * @return {@link #LRB}, {@link #RRB}, {@link #WORD}, or {@link #EOF}.
+	 */
+	private int nextToken()
 	{
-		if (d_tokens.isEmpty())
+		StringBuilder build = null;
+		int begin;
+		char c;
+		
+		while (true)
 		{
-			String line = null;
-			
-			try
+			if (position == limit && !fill()) return EOF;
+			if ((c = buffer[position]) > ' ') break;
+			countLine(c);
+			position++;
+		}
+		
+		carriage_return = false;
+		if (c == '(') {position++; return LRB;}
+		if (c == ')') {position++; return RRB;}
+		
+		for (begin=position; ; position++)
+		{
+			if (position == limit)
 			{
-				line = f_reader.readLine();
+				// the word continues in the next buffer
+				if (build == null) build = new StringBuilder();
+				build.append(buffer, begin, position - begin);
+				fill();
+				begin = position;
+				if (position == limit) break;
 			}
-			catch (IOException e) {e.printStackTrace();}
-
-			if (line == null)
-				return null;
-			
-			line = line.trim();
-			if (line.isEmpty())
-				return nextToken();
-			
-			StringTokenizer tok = new StringTokenizer(line, "() \t\n\r\f", true);
-			String str;
 			
-			while (tok.hasMoreTokens())
-			{
-				str = tok.nextToken().trim();
-				if (!str.isEmpty()) d_tokens.add(str);
-			}
+			c = buffer[position];
+			if (c <= ' ' || c == '(' || c == ')') break;
 		}
 		
-		return d_tokens.pop();
+		if (build == null)
+			word = new String(buffer, begin, position - begin);
+		else
+			word = build.append(buffer, begin, position - begin).toString();
+		
+		return WORD;
+	}
+	
+	/** Counts {@code "\n"}, {@code "\r"}, and {@code "\r\n"} as line breaks. */
+	private void countLine(char c)
+	{
+		if (c == '\r')
+		{
+			line_number++;
+			carriage_return = true;
+		}
+		else
+		{
+			if (c == '\n' && !carriage_return) line_number++;
+			carriage_return = false;
+		}
+	}
+	
+	/** @return {@code true} if more characters are read into the buffer. */
+	private boolean fill()
+	{
+		int n = 0;
+		position = limit = 0;
+		
+		try
+		{
+			while ((n = f_reader.read(buffer)) == 0);
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		if (n <= 0) return false;
+		limit = n;
+		return true;
+	}
+	
+	/** @return the string of the token; {@code null} if {@link #EOF}. */
+	private String toString(int token)
+	{
+		switch (token)
+		{
+		case LRB : return StringConst.LRB;
+		case RRB : return StringConst.RRB;
+		case WORD: return word;
+		default  : return null;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -35,6 +35,7 @@ import edu.emory.mathcs.nlp.component.template.feature.Field;
 import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
 import edu.emory.mathcs.nlp.component.template.node.NLPNode;
 import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.component.template.util.FrozenModel;
 import edu.emory.mathcs.nlp.component.template.util.NLPFlag;
 import edu.emory.mathcs.nlp.component.tokenizer.EnglishTokenizer;
 import edu.emory.mathcs.nlp.component.tokenizer.Tokenizer;
@@ -93,6 +94,19 @@ public class NLPUtils
 	@SuppressWarnings("unchecked")
 	static public <N extends AbstractNLPNode<N>,S extends NLPState<N>>NLPComponent<N> getComponent(String pathname)
 	{
+		if (FrozenModel.isFrozen(pathname))
+		{
+			try
+			{
+				return FrozenModel.read(pathname);
+			}
+			catch (Exception e)
+			{
+				NLPUtils.LOG.error("Failed to read component " + pathname, e);
+				throw new RuntimeException(e);
+			}
+		}
+		
 		try (ObjectInputStream oin = IOUtils.createArtifactObjectInputStream(pathname)) {
 			OnlineComponent<N,S> component;
 			component = (OnlineComponent<N,S>)oin.readObject();
@@ -216,7 +230,7 @@ public class NLPUtils
 
     /**
      * Create a component from an object in a file system. Throw exceptions
-     * for errors reading the data.
+     * for errors reading the data. Frozen models (see {@link FrozenModel}) are memory-mapped.
      * @param pathname the object's location.
      * @param <N> The type of NLP node that this component processes.
      * @param <S> State manager type.
@@ -224,6 +238,9 @@ public class NLPUtils
      */
     @SuppressWarnings("unchecked")
     static public <N extends AbstractNLPNode<N>, S extends NLPState<N>> NLPComponent<N> getComponent(Path pathname) throws IOException, ClassNotFoundException {
+        if (FrozenModel.isFrozen(pathname.toString())) {
+            return FrozenModel.read(pathname);
+        }
         try (ObjectInputStream oin = IOUtils.createArtifactObjectInputStream(pathname)) {
             OnlineComponent<N, S> component;
             component = (OnlineComponent<N, S>) oin.readObject();
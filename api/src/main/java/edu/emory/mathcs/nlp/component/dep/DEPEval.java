@@ -43,6 +43,13 @@ public class DEPEval implements Eval
 		las = uas = total = 0;
 	}
 	
+	@Override
+	public void merge(Eval eval)
+	{
+		DEPEval e = (DEPEval)eval;
+		add(e.las, e.uas, e.total);
+	}
+	
 	public int total()
 	{
 		return total;
@@ -21,7 +21,10 @@ import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -30,12 +33,16 @@ public class DEPLabelCandidate<N extends AbstractNLPNode<N>> implements Serializ
 {
 	private static final long serialVersionUID = 5579863219050051216L;
 	
-	private IntSet X_SHIFT;
-	private IntSet NO_X;
-	private IntSet NO_SHIFT_OR_PASS;
-	private IntSet NOT_NO_REDUCE;
-	private IntSet LEFT_ARC;
-	private IntSet RIGHT_ARC;
+	// copy-on-write so that the sets can be read while other training threads add labels
+	private volatile IntSet X_SHIFT;
+	private volatile IntSet NO_X;
+	private volatile IntSet NO_SHIFT_OR_PASS;
+	private volatile IntSet NOT_NO_REDUCE;
+	private volatile IntSet LEFT_ARC;
+	private volatile IntSet RIGHT_ARC;
+	
+	// the sets as sorted arrays that restrict the labels to score (see OnlineOptimizer#scores(FeatureVector, int[])); null if empty
+	private transient volatile int[][] arrays;
 	
 	public DEPLabelCandidate()
 	{
@@ -45,27 +52,49 @@ public class DEPLabelCandidate<N extends AbstractNLPNode<N>> implements Serializ
 		NOT_NO_REDUCE    = new IntOpenHashSet();
 		LEFT_ARC         = new IntOpenHashSet();
 		RIGHT_ARC        = new IntOpenHashSet();
+		initArrays();
 	}
 
 	public void add(String label, int index)
 	{
-		DEPLabel lb = new DEPLabel(label);
-		
-		if (lb.isList(DEPState.LIST_SHIFT))
-			X_SHIFT.add(index);
+		if (contains(index)) return;
 		
-		if (lb.isArc(DEPState.ARC_LEFT))
-			LEFT_ARC.add(index);
-		else if (lb.isArc(DEPState.ARC_RIGHT))
-			RIGHT_ARC.add(index);
-		else
+		synchronized (this)
 		{
-			NO_X.add(index);
-			if (!lb.isList(DEPState.LIST_REDUCE)) NO_SHIFT_OR_PASS.add(index);
+			if (contains(index)) return;
+			DEPLabel lb = new DEPLabel(label);
+			
+			if (lb.isList(DEPState.LIST_SHIFT))
+				X_SHIFT = add(X_SHIFT, index);
+			
+			if (lb.isArc(DEPState.ARC_LEFT))
+				LEFT_ARC = add(LEFT_ARC, index);
+			else if (lb.isArc(DEPState.ARC_RIGHT))
+				RIGHT_ARC = add(RIGHT_ARC, index);
+			else
+			{
+				if (!lb.isList(DEPState.LIST_REDUCE)) NO_SHIFT_OR_PASS = add(NO_SHIFT_OR_PASS, index);
+				NO_X = add(NO_X, index);
+			}
+			
+			if (!(lb.isArc(DEPState.ARC_NO) && lb.isList(DEPState.LIST_REDUCE)))
+				NOT_NO_REDUCE = add(NOT_NO_REDUCE, index);
+			
+			initArrays();
 		}
-		
-		if (!(lb.isArc(DEPState.ARC_NO) && lb.isList(DEPState.LIST_REDUCE)))
-			NOT_NO_REDUCE.add(index);
+	}
+	
+	/** @return true if the label index has been added; every label is either a left-arc, a right-arc, or a no-arc. */
+	private boolean contains(int index)
+	{
+		return LEFT_ARC.contains(index) || RIGHT_ARC.contains(index) || NO_X.contains(index);
+	}
+	
+	private IntSet add(IntSet set, int index)
+	{
+		IntSet nset = new IntOpenHashSet(set);
+		nset.add(index);
+		return nset;
 	}
 	
 	public IntSet get(N stack, N input)
@@ -85,6 +114,29 @@ public class DEPLabelCandidate<N extends AbstractNLPNode<N>> implements Serializ
 		return null;
 	}
 	
+	/**
+	 * @return the same labels as {@link #get(AbstractNLPNode, AbstractNLPNode)} in a sorted array;
+	 * {@code null} if any label can be predicted, where {@link #getLabelIndices(AbstractNLPNode, AbstractNLPNode, float[])} takes the argmax of all labels.
+	 */
+	public int[] getArray(N stack, N input)
+	{
+		int[][] a = arrays;
+		
+		if (stack.getID() == 0)
+			return a[0];
+		
+		if (stack.isDescendantOf(input))
+			return a[1];
+		
+		if (input.isDescendantOf(stack))
+			return stack.hasDependencyHead() ? a[1] : a[2];
+		
+		if (!stack.hasDependencyHead())
+			return a[3];
+
+		return null;
+	}
+	
 	public int[] getLabelIndices(N stack, N input, float[] scores)
 	{
 		IntSet candidates = get(stack, input);
@@ -101,6 +153,18 @@ public class DEPLabelCandidate<N extends AbstractNLPNode<N>> implements Serializ
 		return RIGHT_ARC;
 	}
 	
+	/** @return {@link #getLeftArcs()} in a sorted array; {@code null} if there is no left-arc. */
+	public int[] getLeftArcArray()
+	{
+		return arrays[4];
+	}
+	
+	/** @return {@link #getRightArcs()} in a sorted array; {@code null} if there is no right-arc. */
+	public int[] getRightArcArray()
+	{
+		return arrays[5];
+	}
+	
 	public void remap(Int2IntMap map)
 	{
 		X_SHIFT          = remap(map, X_SHIFT);
@@ -109,6 +173,7 @@ public class DEPLabelCandidate<N extends AbstractNLPNode<N>> implements Serializ
 		NOT_NO_REDUCE    = remap(map, NOT_NO_REDUCE);
 		LEFT_ARC         = remap(map, LEFT_ARC);
 		RIGHT_ARC        = remap(map, RIGHT_ARC);
+		initArrays();
 	}
 	
 	private IntSet remap(Int2IntMap map, IntSet set)
@@ -123,4 +188,23 @@ public class DEPLabelCandidate<N extends AbstractNLPNode<N>> implements Serializ
 		
 		return nset;
 	}
+	
+	private void initArrays()
+	{
+		arrays = new int[][]{toArray(X_SHIFT), toArray(NO_X), toArray(NO_SHIFT_OR_PASS), toArray(NOT_NO_REDUCE), toArray(LEFT_ARC), toArray(RIGHT_ARC)};
+	}
+	
+	private int[] toArray(IntSet set)
+	{
+		if (set.isEmpty()) return null;
+		int[] array = set.toIntArray();
+		Arrays.sort(array);
+		return array;
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		initArrays();
+	}
 }
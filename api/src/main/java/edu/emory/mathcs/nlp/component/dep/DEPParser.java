@@ -77,6 +77,12 @@ public class DEPParser<N extends AbstractNLPNode<N>> extends OnlineComponent<N,D
 		return label_candidates.getLabelIndices(state.getStack(), state.getInput(), scores);
 	}
 	
+	@Override
+	protected int[] getCandidateLabels(DEPState<N> state)
+	{
+		return label_candidates.getArray(state.getStack(), state.getInput());
+	}
+	
 	public DEPLabelCandidate<N> getLabelCandidates()
 	{
 		return label_candidates;
@@ -112,6 +118,7 @@ public class DEPParser<N extends AbstractNLPNode<N>> extends OnlineComponent<N,D
 	void processHeadless(DEPState<N> state, DEPTriple max, N[] nodes, int currID, int dir)
 	{
 		IntSet labels = (dir > 0) ? label_candidates.getLeftArcs() : label_candidates.getRightArcs();
+		int[] candidates = (dir > 0) ? label_candidates.getLeftArcArray() : label_candidates.getRightArcArray();
 		N head, node = nodes[currID];
 		int yhat, window = 0;
 		float[] scores;
@@ -128,7 +135,7 @@ public class DEPParser<N extends AbstractNLPNode<N>> extends OnlineComponent<N,D
 				else			state.reset(headID, currID);
 				
 				x = feature_template.createFeatureVector(state, isTrain());
-				scores = optimizer.scores(x);
+				scores = optimizer.scores(x, candidates);
 				yhat = MLUtils.argmax(scores, labels);
 				if (max.score < scores[yhat]) max.set(headID, yhat, scores[yhat]);	
 			}
@@ -31,7 +31,6 @@ import org.w3c.dom.Element;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
@@ -63,10 +62,9 @@ public class DOCFeatureTemplate<N extends AbstractNLPNode<N>, S extends DOCState
 	}
 	
 	@Override
-	public SparseVector createSparseVector(S state, boolean isTrain)
+	protected SparseVector createSparseVector(S state, boolean isTrain, SparseVector x)
 	{
 		Collection<ObjectFloatPair<String>> t;
-		SparseVector x = new SparseVector();
 		int i, type = 0;
 		
 		for (i=0; i<feature_list.size(); i++,type++)
@@ -166,7 +164,7 @@ public class DOCFeatureTemplate<N extends AbstractNLPNode<N>, S extends DOCState
 	protected Object2FloatMap<String> getBagOfClusters(S state, boolean stopwords)
 	{
 		Object2FloatMap<String> map = new Object2FloatOpenHashMap<>();
-		Set<String> clusters;
+		List<String> clusters;
 		
 		for (N[] nodes : state.getDocument(stopwords))
 		{
@@ -192,7 +190,7 @@ public class DOCFeatureTemplate<N extends AbstractNLPNode<N>, S extends DOCState
 	
 	public float[] getEmbeddings(S state, boolean average)
 	{
-		float[] w, v = null;
+		float[] w = null, v = null;
 		int count = 0;
 		N node;
 		
@@ -204,8 +202,13 @@ public class DOCFeatureTemplate<N extends AbstractNLPNode<N>, S extends DOCState
 				
 				if (!node.isStopWord() && node.hasWordEmbedding())
 				{
-					w = node.getWordEmbedding();
-					if (v == null) v = new float[w.length];
+					if (v == null)
+					{
+						v = new float[node.getWordEmbeddingSize()];
+						w = new float[v.length];
+					}
+					
+					node.copyWordEmbedding(w, 0);
 					MathUtils.add(v, w);
 					count++;
 				}
@@ -17,6 +17,7 @@ package edu.emory.mathcs.nlp.component.it;
 
 import edu.emory.mathcs.nlp.common.util.MathUtils;
 import edu.emory.mathcs.nlp.component.template.eval.AccuracyEval;
+import edu.emory.mathcs.nlp.component.template.eval.Eval;
 
 import java.util.Arrays;
 import java.util.stream.IntStream;
@@ -59,6 +60,20 @@ public class ItEval extends AccuracyEval
 		}
 	}
 	
+	@Override
+	public void merge(Eval eval)
+	{
+		super.merge(eval);
+		ItEval e = (ItEval)eval;
+		
+		for (int i=0; i<corrects.length; i++)
+		{
+			precisions[i] += e.precisions[i];
+			recalls   [i] += e.recalls   [i];
+			corrects  [i] += e.corrects  [i];
+		}
+	}
+	
 	@Override
 	public String toString()
 	{
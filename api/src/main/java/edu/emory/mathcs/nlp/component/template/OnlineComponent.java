@@ -26,9 +26,11 @@ import edu.emory.mathcs.nlp.learning.optimization.OnlineOptimizer;
 import edu.emory.mathcs.nlp.learning.util.FeatureVector;
 import edu.emory.mathcs.nlp.learning.util.Instance;
 import edu.emory.mathcs.nlp.learning.util.MLUtils;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
 
 import java.io.InputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -46,6 +48,8 @@ public abstract class OnlineComponent<N extends AbstractNLPNode<N>, S extends NL
 	protected transient NLPConfig<N>   config;
 	protected transient NLPFlag        flag;
 	protected transient Eval           eval;
+	/** Evaluators of the threads that decode at the same time; see {@link #setThreadEval(Eval)}. */
+	private transient volatile ThreadLocal<Eval> thread_eval;
 
 //	============================== CONSTRUCTORS ==============================
 	
@@ -108,6 +112,25 @@ public abstract class OnlineComponent<N extends AbstractNLPNode<N>, S extends NL
 		this.eval = eval;
 	}
 	
+	/**
+	 * Lets the current thread accumulate its evaluation in the specific evaluator instead of {@link #getEval()},
+	 * so that multiple threads can evaluate at the same time and merge their evaluators afterwards (see {@link Eval#merge(Eval)}).
+	 * @param eval if {@code null}, the current thread uses {@link #getEval()} again.
+	 */
+	public void setThreadEval(Eval eval)
+	{
+		if (thread_eval == null)
+		{
+			synchronized (this)
+			{
+				if (thread_eval == null) thread_eval = new ThreadLocal<>();
+			}
+		}
+		
+		if (eval != null) thread_eval.set(eval);
+		else thread_eval.remove();
+	}
+	
 	public NLPFlag getFlag()
 	{
 		return flag;
@@ -183,8 +206,25 @@ public abstract class OnlineComponent<N extends AbstractNLPNode<N>, S extends NL
 	/** Process the sequence of the nodes given the state. */
 	public S process(S state)
 	{
-		if (!isDecode() && !state.saveOracle()) return state;
+		transit(state);
+		return state;
+	}
+	
+	/**
+	 * Processes the sentence the same way as {@link #process(AbstractNLPNode[])}.
+	 * @return the number of transitions made to process the sentence.
+	 */
+	public int processTransitions(N[] nodes)
+	{
+		return transit(initState(nodes));
+	}
+	
+	/** @return the number of transitions made from the state until it terminates. */
+	protected int transit(S state)
+	{
+		if (!isDecode() && !state.saveOracle()) return 0;
 		int[] top2 = {0,-1};
+		int count = 0;
 		Instance instance;
 		FeatureVector x;
 		float[] scores;
@@ -192,7 +232,7 @@ public abstract class OnlineComponent<N extends AbstractNLPNode<N>, S extends NL
 
 		while (!state.isTerminate())
 		{
-			x = feature_template.createFeatureVector(state, isTrain());
+			x = createFeatureVector(state);
 			
 			if (isTrain())
 			{
@@ -205,20 +245,118 @@ public abstract class OnlineComponent<N extends AbstractNLPNode<N>, S extends NL
 			}
 			else
 			{
-				scores = optimizer.scores(x);
+				scores = optimizer.scores(x, getCandidateLabels(state));
 				top2 = getPrediction(state, scores);
 			}
 			
 			state.next(optimizer.getLabelMap(), top2, scores);
+			count++;
 		}
 		
 		if (isDecode() || isEvaluate())
 		{
 			postProcess(state);
-			if (isEvaluate()) state.evaluate(eval);
+			if (isEvaluate()) evaluate(state);
 		}
 		
-		return state;
+		return count;
+	}
+	
+	/**
+	 * Features are added to the feature map during training, which is not thread-safe;
+	 * concurrent training threads (see {@link OnlineOptimizer#isConcurrentTraining()}) take turns unless feature hashing is used.
+	 */
+	protected FeatureVector createFeatureVector(S state)
+	{
+		if (isTrain() && optimizer.isConcurrentTraining() && !feature_template.isFeatureHashing())
+		{
+			synchronized (feature_template)
+			{
+				return feature_template.createFeatureVector(state, true);
+			}
+		}
+		
+		return feature_template.createFeatureVector(state, isTrain());
+	}
+	
+	/**
+	 * Decodes the sentences in lock-step, where the current states of all unfinished sentences are scored in one batch per transition
+	 * (see {@link OnlineOptimizer#scores(List)}); the predictions are the same as processing the sentences one at a time up to floating-point rounding.
+	 * Sentences are processed one at a time during training or if this component is document-based.
+	 * @return the number of transitions made to process each sentence (see {@link #processTransitions(AbstractNLPNode[])}).
+	 */
+	public int[] processBatch(List<N[]> sentences)
+	{
+		int[] transitions = new int[sentences.size()];
+		int i, j;
+		
+		if (isTrain() || document_based)
+		{
+			for (i=0; i<transitions.length; i++) transitions[i] = processTransitions(sentences.get(i));
+			return transitions;
+		}
+		
+		List<S> states = new ArrayList<>(sentences.size());
+		List<S> active = new ArrayList<>(sentences.size());
+		int[] indices = new int[sentences.size()];
+		S state;
+		
+		for (i=0; i<transitions.length; i++)
+		{
+			state = initState(sentences.get(i));
+			if (!isDecode() && !state.saveOracle()) continue;
+			states.add(state);
+			
+			if (!state.isTerminate())
+			{
+				indices[active.size()] = i;
+				active.add(state);
+			}
+		}
+		
+		List<FeatureVector> xs = new ArrayList<>(active.size());
+		SparseVector[] buffers = new SparseVector[active.size()];
+		int[][] labels = new int[active.size()][];
+		float[][] scores;
+		
+		for (i=0; i<buffers.length; i++)
+			buffers[i] = new SparseVector();
+		
+		while (!active.isEmpty())
+		{
+			xs.clear();
+			
+			for (i=0; i<active.size(); i++)
+			{
+				xs.add(feature_template.createFeatureVector(active.get(i), buffers[i]));
+				labels[i] = getCandidateLabels(active.get(i));
+			}
+			
+			scores = optimizer.scores(xs, labels);
+			
+			for (i=0,j=0; i<active.size(); i++)
+			{
+				state = active.get(i);
+				state.next(optimizer.getLabelMap(), getPrediction(state, scores[i]), scores[i]);
+				transitions[indices[i]]++;
+				
+				if (!state.isTerminate())
+				{
+					indices[j] = indices[i];
+					active.set(j++, state);
+				}
+			}
+			
+			active.subList(j, active.size()).clear();
+		}
+		
+		for (S s : states)
+		{
+			postProcess(s);
+			if (isEvaluate()) evaluate(s);
+		}
+		
+		return transitions;
 	}
 	
 //	============================== HELPERS ==============================
@@ -228,8 +366,25 @@ public abstract class OnlineComponent<N extends AbstractNLPNode<N>, S extends NL
 		return MLUtils.argmax2(scores);
 	}
 	
+	/**
+	 * Only the candidate labels are scored during decoding and evaluation (see {@link OnlineOptimizer#scores(FeatureVector, int[])});
+	 * override this method together with {@link #getPrediction(NLPState, float[])} if the prediction is restricted to a subset of labels.
+	 * @return the indices of the labels that can be predicted for the state; {@code null} if all labels can be predicted.
+	 */
+	protected int[] getCandidateLabels(S state)
+	{
+		return null;
+	}
+	
 	protected void putLabel(String label, int index) {}
 	
+	protected void evaluate(S state)
+	{
+		ThreadLocal<Eval> local = thread_eval;
+		Eval e = (local != null) ? local.get() : null;
+		state.evaluate(e != null ? e : eval);
+	}
+	
 	/** @return the processing state for the input nodes. */
 	protected abstract S initState(N[] nodes);
 	
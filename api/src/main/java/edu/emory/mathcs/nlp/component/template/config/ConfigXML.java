@@ -49,12 +49,14 @@ public interface ConfigXML
 	String MAX_EPOCH			= "max_epoch";
 	String BATCH_SIZE			= "batch_size";
 	String FEATURE_CUTOFF		= "feature_cutoff";
+	String FEATURE_HASH			= "feature_hash";
 	String LEARNING_RATE		= "learning_rate";
 	String BIAS					= "bias";
 	String L1_REGULARIZATION	= "l1_regularization";
 	
 	String DECAYING_RATE		= "decaying_rate";
 	String THREAD_SIZE			= "thread_size";
+	String CORPUS_CACHE			= "corpus_cache";
 	
 //	========================== LOCALLY OPTIMAL LEARNING to SEARCH ==========================
 	
@@ -125,12 +125,19 @@ public class NLPConfig<N extends AbstractNLPNode<N>> implements ConfigXML
 		Element eLOLS = XMLUtils.getFirstElementByTagName(eOptimizer, LOLS);
 		
 		int     feautureCutoff = XMLUtils.getIntegerTextContentFromFirstElementByTagName(eOptimizer, FEATURE_CUTOFF);
+		int     featureHash    = XMLUtils.getIntegerTextContentFromFirstElementByTagName(eOptimizer, FEATURE_HASH);
 		int     batchSize      = XMLUtils.getIntegerTextContentFromFirstElementByTagName(eOptimizer, BATCH_SIZE);
+		int     threadSize     = XMLUtils.getIntegerTextContentFromFirstElementByTagName(eOptimizer, THREAD_SIZE);
+		boolean corpusCache    = XMLUtils.getBooleanTextContentFromFirstElementByTagName(eOptimizer, CORPUS_CACHE);
 		int     maxEpoch       = XMLUtils.getIntegerTextContentFromFirstElementByTagName(eOptimizer, MAX_EPOCH);
 		float   learningRate   = XMLUtils.getFloatTextContentFromFirstElementByTagName  (eOptimizer, LEARNING_RATE);
 		float   decayingRate   = XMLUtils.getFloatTextContentFromFirstElementByTagName  (eOptimizer, DECAYING_RATE);
 		float   bias           = XMLUtils.getFloatTextContentFromFirstElementByTagName  (eOptimizer, BIAS);
 		float   l1             = XMLUtils.getFloatTextContentFromFirstElementByTagName  (eOptimizer, L1_REGULARIZATION);
+		
+		// the bucket 0 is reserved for the bias, so a single bucket leaves no bucket for the features
+		if (featureHash == 1)
+			throw new IllegalArgumentException("The feature hash size must be 0 (no hashing) or at least 2: "+featureHash);
 
 		// locally optimal learning to search
 		double decaying;
@@ -153,7 +160,10 @@ public class NLPConfig<N extends AbstractNLPNode<N>> implements ConfigXML
 		HyperParameter hp = new HyperParameter();
 		
 		hp.setFeature_cutoff(feautureCutoff);
+		hp.setFeatureHashSize(featureHash);
 		hp.setBatchSize(batchSize);
+		hp.setThreadSize(threadSize);
+		hp.setCorpusCache(corpusCache);
 		hp.setMaxEpochs(maxEpoch);
 		hp.setLearningRate(learningRate);
 		hp.setDecayingRate(decayingRate);
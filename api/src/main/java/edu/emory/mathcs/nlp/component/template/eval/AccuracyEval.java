@@ -52,6 +52,13 @@ public class AccuracyEval implements Eval
 		correct = total = 0;
 	}
 	
+	@Override
+	public void merge(Eval eval)
+	{
+		AccuracyEval e = (AccuracyEval)eval;
+		add(e.correct, e.total);
+	}
+	
 	@Override
 	public double score()
 	{
@@ -22,4 +22,6 @@ public interface Eval
 {
 	void   clear();
 	double score();
+	/** Adds the counts of the other evaluator of the same type to this evaluator. */
+	void   merge(Eval eval);
 }
@@ -59,6 +59,13 @@ public class F1Eval implements Eval
 		correct = total_system = total_oracle = 0;
 	}
 	
+	@Override
+	public void merge(Eval eval)
+	{
+		F1Eval e = (F1Eval)eval;
+		add(e.correct, e.total_system, e.total_oracle);
+	}
+	
 	@Override
 	public double score()
 	{
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.feature;
+
+import java.util.function.Function;
+
+import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+
+/**
+ * A feature item compiled into a function that reads its value from a node.
+ * The field and the attribute of the item are resolved once by {@link #compile(FeatureItem)},
+ * so that the extraction does not switch on the field or unbox the attribute per call.
+ * @see FeatureTemplate#getFeature(edu.emory.mathcs.nlp.component.template.state.NLPState, FeatureItem, AbstractNLPNode)
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class FeatureExtractor<N extends AbstractNLPNode<N>>
+{
+	static public final int VALUE  = 0;
+	static public final int PREFIX = 1;
+	static public final int SUFFIX = 2;
+	
+	private final FeatureItem        item;
+	private final Function<N,String> function;
+	private final int                type;
+	/** The length of the prefix or the suffix. */
+	private final int                length;
+	
+	public FeatureExtractor(FeatureItem item, Function<N,String> function, int type, int length)
+	{
+		this.item     = item;
+		this.function = function;
+		this.type     = type;
+		this.length   = length;
+	}
+	
+	static public <N extends AbstractNLPNode<N>>FeatureExtractor<N> compile(FeatureItem item)
+	{
+		switch (item.field)
+		{
+		case prefix: return affix(item, PREFIX);
+		case suffix: return affix(item, SUFFIX);
+		default    : return new FeatureExtractor<N>(item, getFunction(item), VALUE, 0);
+		}
+	}
+	
+	static private <N extends AbstractNLPNode<N>>FeatureExtractor<N> affix(FeatureItem item, int type)
+	{
+		final int n = (Integer)item.attribute;
+		Function<N,String> f;
+		
+		if (type == PREFIX)
+			f = node -> {String s = node.getWordFormSimplifiedLowercase(); return (n < s.length()) ? s.substring(0, n) : null;};
+		else
+			f = node -> {String s = node.getWordFormSimplifiedLowercase(); return (n < s.length()) ? s.substring(s.length()-n) : null;};
+		
+		return new FeatureExtractor<N>(item, f, type, n);
+	}
+	
+	/** @see AbstractNLPNode#getValue(Field). */
+	static private <N extends AbstractNLPNode<N>>Function<N,String> getFunction(FeatureItem item)
+	{
+		switch (item.field)
+		{
+		case word_form: return N::getWordForm;
+		case word_form_lowercase: return N::getWordFormLowercase;
+		case word_form_simplified: return N::getWordFormSimplified;
+		case word_form_undigitalized: return N::getWordFormUndigitalized;
+		case word_form_simplified_lowercase: return N::getWordFormSimplifiedLowercase;
+		case word_shape: return N::getWordShape;
+		case word_shape_lowercase: return N::getWordShapeLowercase;
+		case lemma: return N::getLemma;
+		case part_of_speech_tag: return N::getPartOfSpeechTag;
+		case named_entity_tag: return N::getNamedEntityTag;
+		case dependency_label: return N::getDependencyLabel;
+		case ambiguity_classes: return N::getAmbiguityClasses;
+		case named_entity_gazetteers: return N::getNamedEntityGazetteers;
+		case feats:
+			final String key = (String)item.attribute;
+			return node -> node.getFeat(key);
+		case valency:
+			final Direction direction = (Direction)item.attribute;
+			return node -> node.getValency(direction);
+		default: return node -> null;
+		}
+	}
+	
+	/** @return the value of the feature from the node if exists; otherwise, {@code null}. */
+	public String apply(N node)
+	{
+		return function.apply(node);
+	}
+	
+	public FeatureItem getFeatureItem()
+	{
+		return item;
+	}
+	
+	/** @return {@link #VALUE}, {@link #PREFIX}, or {@link #SUFFIX}. */
+	public int getType()
+	{
+		return type;
+	}
+	
+	/** @return the length of the prefix or the suffix; otherwise, {@code 0}. */
+	public int getLength()
+	{
+		return length;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return item.toString();
+	}
+}
@@ -47,6 +47,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -63,14 +64,27 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 	protected FeatureMap            feature_map;
 	protected int                   cutoff;
 	
+	/** The number of buckets for feature hashing; if {@code 0}, features are indexed by {@link #feature_map}. */
+	protected int                   hash_size;
+	/** The number of occurrences of each bucket during training; shared by the training threads. */
+	protected transient volatile AtomicIntegerArray hash_count;
+	
+	/** {@link #feature_list} compiled by {@link #compile()}; reset whenever a feature is added. */
+	protected transient volatile FeatureExtractor<N>[][] feature_extractors;
+	
+	/** Sparse vectors reused by the decoding threads; see {@link #createSparseVector(NLPState, boolean)}. */
+	static private final ThreadLocal<SparseVector> SCRATCH_VECTOR = ThreadLocal.withInitial(SparseVector::new);
+	
 	public FeatureTemplate(Element eFeatures, HyperParameter hp)
 	{
 		feature_list    = new ArrayList<>();
 		feature_set     = new ArrayList<>();
 		word_embeddings = new ArrayList<>();
 
+		hash_size       = hp.getFeatureHashSize();
 		feature_count   = new Object2IntOpenHashMap<String>();
-		feature_map     = new FeatureMap();
+		feature_map     = isFeatureHashing() ? null : new FeatureMap();
+		hash_count      = createHashCount();
 		
 		setCutoff(hp.getFeature_cutoff());
 		init(eFeatures);
@@ -187,6 +201,7 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 	public void add(FeatureItem... items)
 	{
 		feature_list.add(items);
+		feature_extractors = null;
 	}
 	
 	public void addSet(FeatureItem items)
@@ -201,7 +216,28 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 	
 	public int getSparseFeatureSize()
 	{
-		return feature_map.size();
+		return isFeatureHashing() ? hash_size : feature_map.size();
+	}
+	
+	public FeatureMap getFeatureMap()
+	{
+		return feature_map;
+	}
+	
+	public void setFeatureMap(FeatureMap map)
+	{
+		feature_map = map;
+	}
+	
+	/** @return {@code true} if features are hashed into {@link #getHashSize()} buckets instead of indexed by the feature map. */
+	public boolean isFeatureHashing()
+	{
+		return hash_size > 0;
+	}
+	
+	public int getHashSize()
+	{
+		return hash_size;
 	}
 	
 	public int getTemplateSize()
@@ -222,11 +258,13 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 	public void clearFeatureCount()
 	{
 		feature_count.clear();
+		hash_count = createHashCount();
 	}
 	
 	public void initFeatureCount()
 	{
 		feature_count = new Object2IntOpenHashMap<String>();
+		hash_count = createHashCount();
 	}
 	
 //	============================== EXTRACTOR ==============================
@@ -236,9 +274,30 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 		return new FeatureVector(createSparseVector(state, isTrain), createDenseVector(state));
 	}
 	
+	/**
+	 * Creates a feature vector for decoding whose sparse features are filled into the specific vector,
+	 * so that vectors of several states can be kept at once (e.g., for batch scoring).
+	 * @param x cleared before it is filled.
+	 */
+	public FeatureVector createFeatureVector(S state, SparseVector x)
+	{
+		x.clear();
+		return new FeatureVector(createSparseVector(state, false, x), createDenseVector(state));
+	}
+	
+	/**
+	 * During decoding, the returned vector is a per-thread scratch vector that is cleared and refilled by the next call in the same thread;
+	 * it must not be kept after the scores are computed.
+	 */
 	public SparseVector createSparseVector(S state, boolean isTrain)
 	{
-		SparseVector x = new SparseVector();
+		return createSparseVector(state, isTrain, createEmptySparseVector(isTrain));
+	}
+	
+	/** Adds the sparse features of the state to the vector. */
+	protected SparseVector createSparseVector(S state, boolean isTrain, SparseVector x)
+	{
+		FeatureExtractor<N>[][] extractors = getFeatureExtractors();
 		Collection<String> t;
 		int i, type = 0;
 		String f;
@@ -249,22 +308,76 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 			if (t != null) for (String s : t) add(x, type, s, 1, isTrain);
 		}
 		
-		for (i=0; i<feature_list.size(); i++,type++)
+		for (i=0; i<extractors.length; i++,type++)
 		{
-			f = getFeature(state, feature_list.get(i));
-			add(x, type, f, 1, isTrain);
+			if (isFeatureHashing())
+				add(x, getHashIndex(state, type, extractors[i], isTrain), 1);
+			else
+			{
+				f = getFeature(state, extractors[i]);
+				add(x, type, f, 1, isTrain);
+			}
 		}
 		
 		return x;
 	}
 	
+//	============================== COMPILATION ==============================
+	
+	/** @return {@link #feature_list} compiled into extractors, which is compiled on the first call after loading or adding features. */
+	public FeatureExtractor<N>[][] getFeatureExtractors()
+	{
+		FeatureExtractor<N>[][] extractors = feature_extractors;
+		if (extractors == null) feature_extractors = extractors = compile();
+		return extractors;
+	}
+	
+	/** Compiles each feature item in {@link #feature_list} using {@link #compile(FeatureItem)}. */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	protected FeatureExtractor<N>[][] compile()
+	{
+		FeatureExtractor<N>[][] extractors = new FeatureExtractor[feature_list.size()][];
+		FeatureItem[] items;
+		
+		for (int i=0; i<extractors.length; i++)
+		{
+			items = feature_list.get(i);
+			extractors[i] = new FeatureExtractor[items.length];
+			for (int j=0; j<items.length; j++) extractors[i][j] = compile(items[j]);
+		}
+		
+		return extractors;
+	}
+	
+	/** Subclasses that override {@link #getFeature(NLPState, FeatureItem, AbstractNLPNode)} must override this method as well. */
+	protected FeatureExtractor<N> compile(FeatureItem item)
+	{
+		return FeatureExtractor.compile(item);
+	}
+	
+	/** @return a new vector for training, where instances may be kept in mini-batches; otherwise, the cleared scratch vector of this thread. */
+	protected SparseVector createEmptySparseVector(boolean isTrain)
+	{
+		if (isTrain) return new SparseVector();
+		SparseVector x = SCRATCH_VECTOR.get();
+		x.clear();
+		return x;
+	}
+	
+	protected void add(SparseVector x, int index, float weight)
+	{
+		if (index > 0) x.add(index, weight);
+	}
+	
 	protected void add(SparseVector x, int type, String value, float weight, boolean isTrain)
 	{
 		if (value != null)
 		{
 			int index;
 			
-			if (isTrain)
+			if (isFeatureHashing())
+				index = getHashIndex(hash(hashSeed(type), value, 0, value.length()), isTrain);
+			else if (isTrain)
 				index = FastUtils.increment(feature_count, type+value) > cutoff ? feature_map.add(type, value) : -1;
 			else
 				index = feature_map.index(type, value);
@@ -273,6 +386,119 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 		}
 	}
 	
+//	============================== FEATURE HASHING ==============================
+	
+	static private final long FNV_OFFSET = 0xcbf29ce484222325L;
+	static private final long FNV_PRIME  = 0x100000001b3L;
+	
+	/**
+	 * Hashes the joined values of the feature items without creating the joined string.
+	 * @return the bucket index of the feature if exists; otherwise, {@code -1}.
+	 */
+	protected int getHashIndex(S state, int type, FeatureExtractor<N>[] extractors, boolean isTrain)
+	{
+		long h = hashSeed(type);
+		FeatureExtractor<N> e;
+		String f;
+		int i, n;
+		N node;
+		
+		for (i=0; i<extractors.length; i++)
+		{
+			e = extractors[i];
+			node = state.getNode(e.getFeatureItem());
+			if (node == null) return -1;
+			if (i > 0) h = hash(h, '_');
+			
+			switch (e.getType())
+			{
+			case FeatureExtractor.PREFIX:
+				f = node.getWordFormSimplifiedLowercase();
+				n = e.getLength();
+				if (n >= f.length()) return -1;
+				h = hash(h, f, 0, n);
+				break;
+			case FeatureExtractor.SUFFIX:
+				f = node.getWordFormSimplifiedLowercase();
+				n = e.getLength();
+				if (n >= f.length()) return -1;
+				h = hash(h, f, f.length()-n, f.length());
+				break;
+			default:
+				f = e.apply(node);
+				if (f == null) return -1;
+				h = hash(h, f, 0, f.length());
+			}
+		}
+		
+		return getHashIndex(h, isTrain);
+	}
+	
+	/**
+	 * @param h the hash value of the feature.
+	 * @return the bucket index of the feature in [1, {@link #hash_size}), where 0 is reserved for the bias;
+	 * {@code -1} if the feature has not passed the cutoff during training.
+	 */
+	protected int getHashIndex(long h, boolean isTrain)
+	{
+		int index = 1 + (int)Long.remainderUnsigned(mix(h), hash_size - 1);
+		
+		if (isTrain && cutoff > 0)
+		{
+			if (getHashCount().incrementAndGet(index) <= cutoff) return -1;
+		}
+		
+		return index;
+	}
+	
+	/** @return {@link #hash_count}, which is allocated here if the template has been deserialized. */
+	private AtomicIntegerArray getHashCount()
+	{
+		AtomicIntegerArray count = hash_count;
+		if (count != null) return count;
+		
+		synchronized (this)
+		{
+			if (hash_count == null) hash_count = createHashCount();
+			return hash_count;
+		}
+	}
+	
+	private AtomicIntegerArray createHashCount()
+	{
+		return isFeatureHashing() ? new AtomicIntegerArray(hash_size) : null;
+	}
+	
+	protected long hashSeed(int type)
+	{
+		return (FNV_OFFSET ^ type) * FNV_PRIME;
+	}
+	
+	/** 64-bit FNV-1a over the characters in [{@code beginIndex}, {@code endIndex}) of the string. */
+	protected long hash(long h, String s, int beginIndex, int endIndex)
+	{
+		for (int i=beginIndex; i<endIndex; i++)
+			h = hash(h, s.charAt(i));
+		
+		return h;
+	}
+	
+	protected long hash(long h, char c)
+	{
+		return (h ^ c) * FNV_PRIME;
+	}
+	
+	/** The finalizer of MurmurHash3 that spreads FNV bits across the lower bits used for the bucket index. */
+	protected long mix(long h)
+	{
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
 //	============================== SINGLE FEATURES ==============================
 	
 	/** Called by {@link #extractFeatures()}. */
@@ -297,6 +523,30 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 		}
 	}
 	
+	/** @return the joined values of the compiled feature items if all exist; otherwise, {@code null}. */
+	protected String getFeature(S state, FeatureExtractor<N>[] extractors)
+	{
+		if (extractors.length == 1) return getFeature(state, extractors[0]);
+		StringBuilder build = new StringBuilder();
+		String f;
+		
+		for (int i=0; i<extractors.length; i++)
+		{
+			f = getFeature(state, extractors[i]);
+			if (f == null) return null;
+			if (i > 0) build.append('_');
+			build.append(f);
+		}
+		
+		return build.toString();
+	}
+	
+	protected String getFeature(S state, FeatureExtractor<N> extractor)
+	{
+		N node = state.getNode(extractor.getFeatureItem());
+		return (node == null) ? null : extractor.apply(node);
+	}
+	
 	protected String getFeature(S state, FeatureItem item)
 	{
 		N node = state.getNode(item);
@@ -491,9 +741,9 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 	public float[] getEmbeddings(S state)
 	{
 		if (word_embeddings == null || word_embeddings.isEmpty()) return null;
-		float[] w, v = null;
+		float[] v = null;
+		int i = -1, d;
 		N node;
-		int i = -1;
 		
 		for (FeatureItem item : word_embeddings)
 		{
@@ -502,9 +752,9 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 			
 			if (node != null && node.hasWordEmbedding())
 			{
-				w = node.getWordEmbedding();
-				if (v == null) v = new float[w.length * word_embeddings.size()];
-				System.arraycopy(w, 0, v, w.length*i, w.length);
+				d = node.getWordEmbeddingSize();
+				if (v == null) v = new float[d * word_embeddings.size()];
+				node.copyWordEmbedding(v, d*i);
 			}
 		}
 		
@@ -529,8 +779,12 @@ public class FeatureTemplate<N extends AbstractNLPNode<N>, S extends NLPState<N>
 	
 //	============================== REDUCTION ==============================
 	
+	/** @throws UnsupportedOperationException if features are hashed, where buckets cannot be remapped. */
 	public int reduce(WeightVector weights, float threshold)
 	{
+		if (isFeatureHashing())
+			throw new UnsupportedOperationException("Feature reduction is not supported with feature hashing.");
+		
 		final int L = weights.getLabelSize();
 		final int F = weights.getSparseWeightVector().getFeatureSize();
 		
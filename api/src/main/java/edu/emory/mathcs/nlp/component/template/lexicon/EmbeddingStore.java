@@ -0,0 +1,343 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Word embeddings stored as one contiguous matrix, where each row is the embedding of a word in the vocabulary.
+ * The matrix is either memory-mapped from a file written by {@link Writer} so that it stays off the heap and
+ * is shared by all processes mapping the same file, or copied to the heap from a resource that is not a file (see {@link #open(String)})
+ * or from a map of embeddings (see {@link #create(Map)}).
+ * The file consists of the header ({@link #MAGIC}, dimension, size), the matrix, and the vocabulary.
+ * This object is immutable so that it can be shared by multiple threads.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class EmbeddingStore
+{
+	static public final String EXTENSION = "emb";
+	static public final int    MAGIC = 0x4E4C4542;
+	static private final int   HEADER_SIZE = 12;
+	
+	private Object2IntMap<String> vocabulary;
+	private String[]              words;
+	private FloatBuffer[]         chunks;
+	private int                   rows_per_chunk;
+	private int                   dimension;
+	
+	private EmbeddingStore(String[] words, int dimension)
+	{
+		this.words      = words;
+		this.dimension  = dimension;
+		rows_per_chunk  = Math.max(1, Integer.MAX_VALUE / (Float.BYTES * Math.max(1, dimension)));
+		chunks          = new FloatBuffer[(words.length + rows_per_chunk - 1) / rows_per_chunk];
+		vocabulary      = new Object2IntOpenHashMap<>(words.length);
+		vocabulary.defaultReturnValue(-1);
+		for (int i=0; i<words.length; i++) vocabulary.put(words[i], i);
+	}
+	
+//	=================================== CREATE ===================================
+	
+	/**
+	 * Opens the embedding store written by {@link Writer} from a URL, the classpath, or the file system.
+	 * Stores in files are memory-mapped (see {@link #open(Path)}); stores inside archives or at other URLs are copied to the heap (see {@link #open(ByteBuffer)}).
+	 */
+	static public EmbeddingStore open(String pathname) throws IOException
+	{
+		URL url = null;
+		
+		if (pathname.contains(":"))
+		{
+			try
+			{
+				url = new URL(pathname);
+			}
+			catch (MalformedURLException e) {}	// e.g., a Windows path
+		}
+		
+		if (url == null) url = Thread.currentThread().getContextClassLoader().getResource(pathname);
+		if (url == null) return open(Paths.get(pathname));
+		
+		try
+		{
+			if ("file".equals(url.getProtocol())) return open(Paths.get(url.toURI()));
+		}
+		catch (URISyntaxException | IllegalArgumentException e) {}
+		
+		try (InputStream in = url.openStream())
+		{
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			byte[] b = new byte[1 << 16];
+			int count;
+			
+			while ((count = in.read(b)) != -1)
+				bout.write(b, 0, count);
+			
+			return open(ByteBuffer.wrap(bout.toByteArray()));
+		}
+	}
+	
+	/** @return the embedding store memory-mapped from the file written by {@link Writer}. */
+	static public EmbeddingStore open(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0);
+			((Buffer)header).flip();
+			
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+				throw new IOException("Not an embedding file: "+path);
+			
+			int dimension = header.getInt();
+			int size      = header.getInt();
+			long matrix   = (long)size * dimension * Float.BYTES;
+			
+			// the vocabulary follows the matrix
+			channel.position(HEADER_SIZE + matrix);
+			String[] words = readVocabulary(Channels.newInputStream(channel), size);
+			EmbeddingStore store = new EmbeddingStore(words, dimension);
+			long chunkSize = (long)store.rows_per_chunk * dimension * Float.BYTES;
+			
+			for (int i=0; i<store.chunks.length; i++)
+			{
+				long offset = i * chunkSize;
+				store.chunks[i] = channel.map(MapMode.READ_ONLY, HEADER_SIZE + offset, Math.min(chunkSize, matrix - offset)).asFloatBuffer();
+			}
+			
+			return store;
+		}
+	}
+	
+	/** @return the embedding store whose matrix is read from the buffer holding the content of a file written by {@link Writer}. */
+	static public EmbeddingStore open(ByteBuffer buffer) throws IOException
+	{
+		ByteBuffer b = buffer.duplicate();
+		
+		if (b.remaining() < HEADER_SIZE || b.getInt() != MAGIC)
+			throw new IOException("Not an embedding file");
+		
+		int dimension = b.getInt();
+		int size      = b.getInt();
+		long matrix   = (long)size * dimension * Float.BYTES;
+		int begin     = b.position();
+		
+		if (b.remaining() < matrix)
+			throw new IOException("Truncated embedding file: "+b.remaining()+" < "+matrix);
+		
+		// the vocabulary follows the matrix
+		((Buffer)b).position(begin + (int)matrix);
+		byte[] bytes = new byte[b.remaining()];
+		b.get(bytes);
+		String[] words = readVocabulary(new ByteArrayInputStream(bytes), size);
+		EmbeddingStore store = new EmbeddingStore(words, dimension);
+		int chunkSize = store.rows_per_chunk * dimension * Float.BYTES;
+		
+		for (int i=0; i<store.chunks.length; i++)
+		{
+			int offset = begin + i * chunkSize;
+			((Buffer)b).limit(Math.min(offset + chunkSize, begin + (int)matrix)).position(offset);
+			store.chunks[i] = b.slice().asFloatBuffer();
+		}
+		
+		return store;
+	}
+	
+	static private String[] readVocabulary(InputStream stream, int size) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+		String[] words = new String[size];
+		for (int i=0; i<size; i++) words[i] = in.readUTF();
+		return words;
+	}
+	
+	/** @return the embedding store whose matrix is copied from the map of embeddings to the heap. */
+	static public EmbeddingStore create(Map<String,float[]> map)
+	{
+		String[] words = new String[map.size()];
+		int i = 0, dimension = 0;
+		
+		for (Entry<String,float[]> e : map.entrySet())
+		{
+			words[i++] = e.getKey();
+			dimension = e.getValue().length;
+		}
+		
+		EmbeddingStore store = new EmbeddingStore(words, dimension);
+		
+		for (int c=0; c<store.chunks.length; c++)
+		{
+			int begin = c * store.rows_per_chunk, end = Math.min(words.length, begin + store.rows_per_chunk);
+			float[] matrix = new float[(end - begin) * dimension];
+			
+			for (i=begin; i<end; i++)
+				System.arraycopy(map.get(words[i]), 0, matrix, (i - begin) * dimension, dimension);
+			
+			store.chunks[c] = FloatBuffer.wrap(matrix);
+		}
+		
+		return store;
+	}
+	
+//	=================================== GETTERS ===================================
+	
+	/** @return the row ID of the word if exists; otherwise, {@code -1}. */
+	public int getID(String word)
+	{
+		return word != null ? vocabulary.getInt(word) : -1;
+	}
+	
+	public String getWord(int id)
+	{
+		return words[id];
+	}
+	
+	/** @return the vocabulary shared by this store, which must not be modified. */
+	public Object2IntMap<String> getVocabulary()
+	{
+		return vocabulary;
+	}
+	
+	/** @return the number of words. */
+	public int size()
+	{
+		return words.length;
+	}
+	
+	public int getDimension()
+	{
+		return dimension;
+	}
+	
+	/** Copies the embedding of the row ID to {@code dest[offset, offset + dimension)}. */
+	public void copy(int id, float[] dest, int offset)
+	{
+		FloatBuffer chunk = chunks[id / rows_per_chunk];
+		int begin = (id % rows_per_chunk) * dimension;
+		
+		for (int j=0; j<dimension; j++)
+			dest[offset+j] = chunk.get(begin+j);
+	}
+	
+	/** Adds the embedding of the row ID to {@code dest[0, dimension)}. */
+	public void add(int id, float[] dest)
+	{
+		FloatBuffer chunk = chunks[id / rows_per_chunk];
+		int begin = (id % rows_per_chunk) * dimension;
+		
+		for (int j=0; j<dimension; j++)
+			dest[j] += chunk.get(begin+j);
+	}
+	
+	/** @return a copy of the embedding of the row ID. */
+	public float[] get(int id)
+	{
+		float[] v = new float[dimension];
+		copy(id, v, 0);
+		return v;
+	}
+	
+//	=================================== WRITER ===================================
+	
+	/** Writes embeddings one at a time so that the whole matrix is never held in memory. */
+	static public class Writer implements Closeable
+	{
+		private String           filename;
+		private DataOutputStream out;
+		private List<String>     words;
+		private int              dimension;
+		
+		public Writer(String filename, int dimension) throws IOException
+		{
+			this.filename  = filename;
+			this.dimension = dimension;
+			words = new ArrayList<>();
+			out   = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(dimension);
+			out.writeInt(0);	// the size is written when closed
+		}
+		
+		public void add(String word, float[] embedding) throws IOException
+		{
+			if (embedding.length != dimension)
+				throw new IllegalArgumentException("Mismatch between the dimension ("+dimension+") and the embedding of "+word+" ("+embedding.length+")");
+			
+			for (float f : embedding) out.writeFloat(f);
+			words.add(word);
+		}
+		
+		/** @return the number of embeddings written so far. */
+		public int size()
+		{
+			return words.size();
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			for (String word : words) out.writeUTF(word);
+			out.close();
+			
+			try (RandomAccessFile file = new RandomAccessFile(filename, "rw"))
+			{
+				file.seek(HEADER_SIZE - Integer.BYTES);
+				file.writeInt(words.size());
+			}
+		}
+	}
+	
+	/** Writes the map of embeddings to the file that can be opened by {@link #open(String)}. */
+	static public void write(Map<String,float[]> map, String filename) throws IOException
+	{
+		int dimension = map.isEmpty() ? 0 : map.values().iterator().next().length;
+		
+		try (Writer writer = new Writer(filename, dimension))
+		{
+			for (Entry<String,float[]> e : map.entrySet())
+				writer.add(e.getKey(), e.getValue());
+		}
+	}
+}
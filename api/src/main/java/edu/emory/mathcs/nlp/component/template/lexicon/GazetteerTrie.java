@@ -0,0 +1,292 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import edu.emory.mathcs.nlp.common.collection.tree.PrefixNode;
+import edu.emory.mathcs.nlp.common.collection.tree.PrefixTree;
+import edu.emory.mathcs.nlp.common.collection.tuple.ObjectIntIntTriple;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Gazetteers compiled from a {@link PrefixTree} into a static trie over token IDs.
+ * The states are numbered in the breadth-first order so that the children of each state take consecutive IDs,
+ * sorted by their token IDs, and every per-state property is an {@code int} array indexed by the state ID.
+ * The entity types of each entry are stored as a bitset shared by all entries with the same types.
+ * {@link #getAll(Object[], int, Function)} finds all entries in one left-to-right pass using the failure and output links
+ * of the Aho-Corasick algorithm; this object is immutable so that it can be shared by multiple threads.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class GazetteerTrie implements Serializable
+{
+	private static final long serialVersionUID = 2209640562262417532L;
+	static private final int ROOT = 0;
+	
+	/** Token ID to token. */
+	private String[] tokens;
+	/** Type ID to entity type. */
+	private String[] types;
+	/** Bitsets of type IDs. */
+	private int[][]  type_sets;
+	
+	/** The children of state {@code s} are the states in {@code [first_child[s], first_child[s+1])}. */
+	private int[] first_child;
+	/** The token ID of the edge to each state. */
+	private int[] label;
+	/** The longest proper suffix of each state that is also a state. */
+	private int[] fail;
+	/** The closest state on the failure chain that ends an entry; {@code -1} if none. */
+	private int[] output;
+	/** The number of tokens from the root. */
+	private int[] depth;
+	/** The index of the type set if the state ends an entry; otherwise, {@code -1}. */
+	private int[] value;
+	
+	private transient Object2IntMap<String> token_map;
+	private transient String[][]            type_arrays;
+	
+	private GazetteerTrie() {}
+	
+//	=================================== COMPILE ===================================
+	
+	static public GazetteerTrie compile(PrefixTree<String,Set<String>> tree)
+	{
+		GazetteerTrie trie = new GazetteerTrie();
+		trie.build(tree.getRoot());
+		trie.init();
+		return trie;
+	}
+	
+	private void build(PrefixNode<String,Set<String>> root)
+	{
+		Object2IntMap<String> tokenMap = new Object2IntOpenHashMap<>();
+		Map<BitSet,Integer> setMap = new HashMap<>();
+		List<PrefixNode<String,Set<String>>> nodes = new ArrayList<>();
+		IntArrayList firsts = new IntArrayList();
+		IntArrayList labels = new IntArrayList();
+		int s, t, c, f, g, size;
+		
+		types = collect(root, tokenMap);
+		nodes .add(root);
+		labels.add(-1);
+		
+		// states in the breadth-first order
+		for (s=0; s<nodes.size(); s++)
+		{
+			List<Entry<String,PrefixNode<String,Set<String>>>> entries = new ArrayList<>(nodes.get(s).entrySet());
+			Collections.sort(entries, (e1, e2) -> Integer.compare(tokenMap.getInt(e1.getKey()), tokenMap.getInt(e2.getKey())));
+			firsts.add(nodes.size());
+			
+			for (Entry<String,PrefixNode<String,Set<String>>> e : entries)
+			{
+				nodes .add(e.getValue());
+				labels.add(tokenMap.getInt(e.getKey()));
+			}
+		}
+		
+		size = nodes.size();
+		firsts.add(size);
+		first_child = firsts.toIntArray();
+		label  = labels.toIntArray();
+		fail   = new int[size];
+		output = new int[size];
+		depth  = new int[size];
+		value  = new int[size];
+		output[ROOT] = -1;
+		value [ROOT] = getTypeSet(root, setMap);
+		
+		for (s=0; s<size; s++)
+		{
+			for (t=first_child[s]; t<first_child[s+1]; t++)
+			{
+				c = label[t];
+				depth[t] = depth[s] + 1;
+				value[t] = getTypeSet(nodes.get(t), setMap);
+				
+				// the states on the failure chain are shallower so their links are already set
+				if (s == ROOT)
+					f = ROOT;
+				else
+				{
+					for (g=fail[s]; (f = getChild(g, c)) < 0 && g != ROOT; g=fail[g]);
+					if (f < 0) f = ROOT;
+				}
+				
+				fail  [t] = f;
+				output[t] = value[f] >= 0 ? f : output[f];
+			}
+		}
+		
+		tokens = new String[tokenMap.size()];
+		for (Object2IntMap.Entry<String> e : tokenMap.object2IntEntrySet()) tokens[e.getIntValue()] = e.getKey();
+		
+		type_sets = new int[setMap.size()][];
+		for (Entry<BitSet,Integer> e : setMap.entrySet()) type_sets[e.getValue()] = toIntArray(e.getKey());
+	}
+	
+	/**
+	 * Assigns an ID to every token in the tree, where the children of the root take the IDs {@code [0, root.size())}
+	 * so that the child of the root is found by the token ID without searching (see {@link #getChild(int, int)}).
+	 * @return the sorted list of entity types.
+	 */
+	private String[] collect(PrefixNode<String,Set<String>> root, Object2IntMap<String> tokenMap)
+	{
+		List<PrefixNode<String,Set<String>>> stack = new ArrayList<>();
+		Set<String> set = new TreeSet<>();
+		for (String token : root.keySet()) tokenMap.put(token, tokenMap.size());
+		stack.add(root);
+		
+		while (!stack.isEmpty())
+		{
+			PrefixNode<String,Set<String>> node = stack.remove(stack.size()-1);
+			if (node.hasValue()) set.addAll(node.getValue());
+			
+			for (Entry<String,PrefixNode<String,Set<String>>> e : node.entrySet())
+			{
+				if (!tokenMap.containsKey(e.getKey())) tokenMap.put(e.getKey(), tokenMap.size());
+				stack.add(e.getValue());
+			}
+		}
+		
+		return set.toArray(new String[set.size()]);
+	}
+	
+	private int getTypeSet(PrefixNode<String,Set<String>> node, Map<BitSet,Integer> setMap)
+	{
+		if (!node.hasValue()) return -1;
+		BitSet bits = new BitSet();
+		for (String type : node.getValue()) bits.set(Arrays.binarySearch(types, type));
+		return setMap.computeIfAbsent(bits, k -> setMap.size());
+	}
+	
+	private int[] toIntArray(BitSet bits)
+	{
+		int[] words = new int[(types.length + 31) / 32];
+		for (int i=bits.nextSetBit(0); i>=0; i=bits.nextSetBit(i+1)) words[i / 32] |= 1 << (i % 32);
+		return words;
+	}
+	
+//	=================================== SEARCH ===================================
+	
+	/** @return the child state of the state for the token ID if exists; otherwise, {@code -1}. */
+	private int getChild(int state, int token)
+	{
+		if (state == ROOT) return token < first_child[1] - first_child[0] ? first_child[0] + token : -1;
+		int t = Arrays.binarySearch(label, first_child[state], first_child[state+1], token);
+		return t < 0 ? -1 : t;
+	}
+	
+	/** @return the ID of the token if it appears in any entry; otherwise, {@code -1}. */
+	public int getTokenID(String token)
+	{
+		return token_map.getInt(token);
+	}
+	
+	/**
+	 * Finds the longest entry beginning at each position, which is the same as
+	 * {@link PrefixTree#getAll(Object[], int, Function, boolean, boolean)} without removing subsets or overlaps.
+	 * @param beginIndex inclusive.
+	 * @return the list of (entity types, first index, last index (inclusive)) sorted by the first indices.
+	 */
+	public <A>List<ObjectIntIntTriple<String[]>> getAll(A[] array, int beginIndex, Function<A,String> f)
+	{
+		if (array.length <= beginIndex) return Collections.emptyList();
+		int[] lastIndex = new int[array.length];
+		int[] typeSet   = new int[array.length];
+		int i, c, t, o, state = ROOT, count = 0;
+		Arrays.fill(lastIndex, -1);
+		
+		for (i=beginIndex; i<array.length; i++)
+		{
+			if ((c = getTokenID(f.apply(array[i]))) < 0)
+			{
+				state = ROOT;
+				continue;
+			}
+			
+			while ((t = getChild(state, c)) < 0 && state != ROOT)
+				state = fail[state];
+			
+			if (t < 0) continue;
+			state = t;
+			
+			// entries found later from the same position are longer
+			for (o = value[state] >= 0 ? state : output[state]; o >= 0; o = output[o])
+			{
+				t = i - depth[o] + 1;
+				if (lastIndex[t] < 0) count++;
+				lastIndex[t] = i;
+				typeSet  [t] = value[o];
+			}
+		}
+		
+		List<ObjectIntIntTriple<String[]>> list = new ArrayList<>(count);
+		
+		for (i=beginIndex; i<array.length; i++)
+			if (lastIndex[i] >= 0) list.add(new ObjectIntIntTriple<>(type_arrays[typeSet[i]], i, lastIndex[i]));
+		
+		return list;
+	}
+	
+	/** @return the number of states in this trie. */
+	public int size()
+	{
+		return label.length;
+	}
+	
+//	=================================== SERIALIZATION ===================================
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		init();
+	}
+	
+	private void init()
+	{
+		token_map = new Object2IntOpenHashMap<>(tokens.length);
+		token_map.defaultReturnValue(-1);
+		for (int i=0; i<tokens.length; i++) token_map.put(tokens[i], i);
+		
+		type_arrays = new String[type_sets.length][];
+		
+		for (int i=0; i<type_sets.length; i++)
+		{
+			List<String> list = new ArrayList<>();
+			
+			for (int j=0; j<types.length; j++)
+				if ((type_sets[i][j / 32] & (1 << (j % 32))) != 0) list.add(types[j]);
+			
+			type_arrays[i] = list.toArray(new String[list.size()]);
+		}
+	}
+}
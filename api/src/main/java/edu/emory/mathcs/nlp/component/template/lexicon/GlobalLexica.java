@@ -17,6 +17,7 @@ package edu.emory.mathcs.nlp.component.template.lexicon;
 
 import edu.emory.mathcs.nlp.common.collection.tree.PrefixTree;
 import edu.emory.mathcs.nlp.common.collection.tuple.ObjectIntIntTriple;
+import edu.emory.mathcs.nlp.common.constant.StringConst;
 import edu.emory.mathcs.nlp.common.util.IOUtils;
 import edu.emory.mathcs.nlp.common.util.XMLUtils;
 import edu.emory.mathcs.nlp.component.template.NLPComponent;
@@ -30,6 +31,7 @@ import org.w3c.dom.Element;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,10 +60,12 @@ public class GlobalLexica<N extends AbstractNLPNode<N>> implements NLPComponent<
 //	protected Pair<Set<String>,Field>                    stop_words;
 	
 	protected GlobalLexicon<Map<String,List<String>>>       ambiguity_classes;
-	protected GlobalLexicon<Map<String,Set<String>>>        word_clusters;	
-	protected GlobalLexicon<Map<String,float[]>>            word_embeddings;
-	protected GlobalLexicon<PrefixTree<String,Set<String>>> named_entity_gazetteers;
+	protected GlobalLexicon<WordClusterStore>               word_clusters;	
+	protected GlobalLexicon<EmbeddingStore>                 word_embeddings;
+	protected GlobalLexicon<GazetteerTrie>                  named_entity_gazetteers;
 	protected GlobalLexicon<Set<String>>                    stop_words;
+	/** Compiled from the per-token lexica when first needed; reset whenever any of them is changed. */
+	protected volatile LexiconBundle[]                      lexicon_bundles;
 	
 //	=================================== CONSTRUCTOR ===================================
 
@@ -95,6 +99,7 @@ public class GlobalLexica<N extends AbstractNLPNode<N>> implements NLPComponent<
 		setWordEmbeddings       (getGlobalLexicon(eLexica, "word_embeddings"        , "Loading word embeddings"));
 		setNamedEntityGazetteers(getGlobalLexicon(eLexica, "named_entity_gazetteers", "Loading named entity gazetteers"));
 		setStopWords            (getGlobalLexicon(eLexica, "stop_words"             , "Loading stop words"));
+		getLexiconBundles();
 	}
 	
 	protected <T>GlobalLexicon<T> getGlobalLexicon(Element eLexica, String tag, String message)
@@ -114,11 +119,25 @@ public class GlobalLexica<N extends AbstractNLPNode<N>> implements NLPComponent<
 		String name = XMLUtils.getTrimmedAttribute(element, NAME);
 		T lexicon = null;
 		
-		try(ObjectInputStream oin = IOUtils.createArtifactObjectInputStream(path))
+		if (path.endsWith(StringConst.PERIOD + EmbeddingStore.EXTENSION))
 		{
-			lexicon = (T)oin.readObject();
+			try
+			{
+				lexicon = (T)EmbeddingStore.open(path);
+			}
+			catch (IOException e)
+			{
+				throw new IllegalStateException("Cannot open the embedding store: "+path, e);
+			}
+		}
+		else
+		{
+			try(ObjectInputStream oin = IOUtils.createArtifactObjectInputStream(path))
+			{
+				lexicon = (T)oin.readObject();
+			}
+			catch (Exception e) {e.printStackTrace();}
 		}
-		catch (Exception e) {e.printStackTrace();}
 
 		return new GlobalLexicon<>(lexicon, field, name);
 	}
@@ -150,36 +169,57 @@ public class GlobalLexica<N extends AbstractNLPNode<N>> implements NLPComponent<
 	public void setAmbiguityClasses(GlobalLexicon<Map<String,List<String>>> classes)
 	{
 		ambiguity_classes = classes;
+		lexicon_bundles   = null;
 	}
 	
-	public GlobalLexicon<Map<String,Set<String>>> getWordClusters()
+	public GlobalLexicon<WordClusterStore> getWordClusters()
 	{
 		return word_clusters;
 	}
 	
-	public void setWordClusters(GlobalLexicon<Map<String,Set<String>>> p)
+	/**
+	 * @param clusters either a {@link WordClusterStore} or a {@link Map} of prefix sets (legacy lexica),
+	 * which is converted into a {@link WordClusterStore} (see {@link WordClusterStore#createFromPrefixes(Map)}).
+	 */
+	@SuppressWarnings("unchecked")
+	public void setWordClusters(GlobalLexicon<?> clusters)
 	{
-		word_clusters = p;
+		if (clusters != null && clusters.getLexicon() instanceof Map)
+			clusters = new GlobalLexicon<>(WordClusterStore.createFromPrefixes((Map<String,Set<String>>)clusters.getLexicon()), clusters.getField(), clusters.getName());
+		
+		word_clusters   = (GlobalLexicon<WordClusterStore>)clusters;
+		lexicon_bundles = null;
 	}
 	
-	public GlobalLexicon<Map<String,float[]>> getWordEmbeddings() 
+	public GlobalLexicon<EmbeddingStore> getWordEmbeddings() 
 	{
 		return word_embeddings;
 	}
 	
-	public void setWordEmbeddings(GlobalLexicon<Map<String,float[]>> embeddings) 
+	/** @param embeddings either an {@link EmbeddingStore} or a {@link Map} of word embeddings, which is copied into an {@link EmbeddingStore}. */
+	@SuppressWarnings("unchecked")
+	public void setWordEmbeddings(GlobalLexicon<?> embeddings) 
 	{
-		word_embeddings = embeddings;
+		if (embeddings != null && embeddings.getLexicon() instanceof Map)
+			embeddings = new GlobalLexicon<>(EmbeddingStore.create((Map<String,float[]>)embeddings.getLexicon()), embeddings.getField(), embeddings.getName());
+		
+		word_embeddings = (GlobalLexicon<EmbeddingStore>)embeddings;
+		lexicon_bundles = null;
 	}
 	
-	public GlobalLexicon<PrefixTree<String,Set<String>>> getNamedEntityGazetteers()
+	public GlobalLexicon<GazetteerTrie> getNamedEntityGazetteers()
 	{
 		return named_entity_gazetteers;
 	}
 	
-	public void setNamedEntityGazetteers(GlobalLexicon<PrefixTree<String,Set<String>>> gazetteers)
+	/** @param gazetteers either a {@link GazetteerTrie} or a {@link PrefixTree}, which is compiled into a {@link GazetteerTrie}. */
+	@SuppressWarnings("unchecked")
+	public void setNamedEntityGazetteers(GlobalLexicon<?> gazetteers)
 	{
-		named_entity_gazetteers = gazetteers;
+		if (gazetteers != null && gazetteers.getLexicon() instanceof PrefixTree)
+			gazetteers = new GlobalLexicon<>(GazetteerTrie.compile((PrefixTree<String,Set<String>>)gazetteers.getLexicon()), gazetteers.getField(), gazetteers.getName());
+		
+		named_entity_gazetteers = (GlobalLexicon<GazetteerTrie>)gazetteers;
 	}
 	
 	public GlobalLexicon<Set<String>> getStopWords()
@@ -189,7 +229,50 @@ public class GlobalLexica<N extends AbstractNLPNode<N>> implements NLPComponent<
 	
 	public void setStopWords(GlobalLexicon<Set<String>> stopwords)
 	{
-		stop_words = stopwords;
+		stop_words      = stopwords;
+		lexicon_bundles = null;
+	}
+	
+	/** @return the ambiguity classes, word clusters, word embeddings, and stop words compiled into one bundle per field. */
+	public LexiconBundle[] getLexiconBundles()
+	{
+		LexiconBundle[] bundles = lexicon_bundles;
+		if (bundles != null) return bundles;
+		
+		synchronized (this)
+		{
+			if (lexicon_bundles == null) lexicon_bundles = createLexiconBundles();
+			return lexicon_bundles;
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	protected LexiconBundle[] createLexiconBundles()
+	{
+		GlobalLexicon<?>[] lexica = {ambiguity_classes, word_clusters, word_embeddings, stop_words};
+		Set<Field> fields = new LinkedHashSet<>();
+		
+		for (GlobalLexicon<?> lexicon : lexica)
+			if (lexicon != null) fields.add(lexicon.getField());
+		
+		LexiconBundle[] bundles = new LexiconBundle[fields.size()];
+		int i = 0;
+		
+		for (Field field : fields)
+		{
+			Map<String,List<String>> classes    = (Map<String,List<String>>)getLexicon(ambiguity_classes, field);
+			WordClusterStore         clusters   = (WordClusterStore)        getLexicon(word_clusters    , field);
+			EmbeddingStore           embeddings = (EmbeddingStore)          getLexicon(word_embeddings  , field);
+			Set<String>              stopwords  = (Set<String>)             getLexicon(stop_words       , field);
+			bundles[i++] = new LexiconBundle(field, classes, clusters, embeddings, stopwords);
+		}
+		
+		return bundles;
+	}
+	
+	private Object getLexicon(GlobalLexicon<?> lexicon, Field field)
+	{
+		return (lexicon != null && lexicon.getField() == field) ? lexicon.getLexicon() : null;
 	}
 	
 //	=================================== PROCESS ===================================
@@ -204,11 +287,33 @@ public class GlobalLexica<N extends AbstractNLPNode<N>> implements NLPComponent<
 	@Override
 	public void process(N[] nodes)
 	{
-		processAmbiguityClasses(nodes);
-		processWordClusters(nodes);
-		processWordEmbeddings(nodes);
+		processLexiconBundles(nodes);
 		processNamedEntityGazetteers(nodes);
-		processStopWords(nodes);
+	}
+	
+	/** Looks up each node once per field for the ambiguity classes, word clusters, word embeddings, and stop words. */
+	public void processLexiconBundles(N[] nodes)
+	{
+		LexiconBundle[] bundles = getLexiconBundles();
+		LexiconBundle bundle;
+		int id;
+		N node;
+		
+		for (int i=1; i<nodes.length; i++)
+		{
+			node = nodes[i];
+			
+			for (int b=0; b<bundles.length; b++)
+			{
+				bundle = bundles[b];
+				id = bundle.getID(getKey(node, bundle.getField()));
+				
+				if (bundle.hasAmbiguityClasses()) node.setAmbiguityClasses(bundle.getAmbiguityClasses(id));
+				if (bundle.hasWordClusters())     node.setWordClusters    (bundle.getWordClusters    (id));
+				if (bundle.hasWordEmbeddings())   node.setWordEmbedding   (bundle.getWordEmbeddings(), bundle.getEmbeddingID(id));
+				if (bundle.hasStopWords())        node.setStopWord        (bundle.isStopWord         (id));
+			}
+		}
 	}
 	
 	public void processAmbiguityClasses(N[] nodes)
@@ -228,37 +333,35 @@ public class GlobalLexica<N extends AbstractNLPNode<N>> implements NLPComponent<
 	public void processWordClusters(N[] nodes)
 	{
 		if (word_clusters == null) return;
-		Set<String> set;
+		WordClusterStore store = word_clusters.getLexicon();
 		N node;
 		
 		for (int i=1; i<nodes.length; i++)
 		{
 			node = nodes[i];
-			set  = word_clusters.getLexicon().get(getKey(node, word_clusters.getField()));
-			node.setWordClusters(set);
+			node.setWordClusters(store.getPrefixes(getKey(node, word_clusters.getField())));
 		}
 	}
 	
 	public void processWordEmbeddings(N[] nodes)
 	{
 		if (word_embeddings == null) return;
-		float[] embedding;
+		EmbeddingStore store = word_embeddings.getLexicon();
 		N node;
 		
 		for (int i=1; i<nodes.length; i++)
 		{
 			node = nodes[i];
-			embedding = word_embeddings.getLexicon().get(getKey(node, word_embeddings.getField()));
-			node.setWordEmbedding(embedding);
+			node.setWordEmbedding(store, store.getID(getKey(node, word_embeddings.getField())));
 		}
 	}
 	
 	public void processNamedEntityGazetteers(N[] nodes)
 	{
 		if (named_entity_gazetteers == null) return;
-		List<ObjectIntIntTriple<Set<String>>> list = named_entity_gazetteers.getLexicon().getAll(nodes, 1, n -> getKey(n, named_entity_gazetteers.getField()), false, false);
+		List<ObjectIntIntTriple<String[]>> list = named_entity_gazetteers.getLexicon().getAll(nodes, 1, n -> getKey(n, named_entity_gazetteers.getField()));
 		
-		for (ObjectIntIntTriple<Set<String>> t : list)
+		for (ObjectIntIntTriple<String[]> t : list)
 		{
 			for (String tag : t.o) 
 			{
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import edu.emory.mathcs.nlp.component.template.feature.Field;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The per-token lexica in {@link GlobalLexica} that use the same field, compiled into one vocabulary.
+ * Each form in any of the lexica is mapped to an ID and every lexicon is stored as an array indexed by the ID,
+ * so a token costs one hash lookup regardless of the number of lexica.
+ * This object is immutable so that it can be shared by multiple threads.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LexiconBundle
+{
+	private Field                 field;
+	private Object2IntMap<String> vocabulary;
+	private List<String>[]        ambiguity_classes;
+	private List<String>[]        word_clusters;
+	private EmbeddingStore        word_embeddings;
+	private boolean[]             stop_words;
+	
+	/**
+	 * Each lexicon is either {@code null} or uses the specific field.
+	 * The words in the embedding store take the same IDs as their rows in the store,
+	 * and the vocabulary of the store is shared if there is no other lexicon.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public LexiconBundle(Field field, Map<String,List<String>> ambiguityClasses, WordClusterStore wordClusters, EmbeddingStore wordEmbeddings, Set<String> stopWords)
+	{
+		this.field = field;
+		word_embeddings = wordEmbeddings;
+		
+		if (wordEmbeddings != null && ambiguityClasses == null && wordClusters == null && stopWords == null)
+			vocabulary = wordEmbeddings.getVocabulary();
+		else
+		{
+			vocabulary = new Object2IntOpenHashMap<>();
+			vocabulary.defaultReturnValue(-1);
+			
+			if (wordEmbeddings != null)
+				for (int i=0; i<wordEmbeddings.size(); i++) vocabulary.put(wordEmbeddings.getWord(i), i);
+			
+			if (ambiguityClasses != null) add(ambiguityClasses.keySet());
+			if (wordClusters     != null) for (int i=0; i<wordClusters.size(); i++) add(wordClusters.getWord(i));
+			if (stopWords        != null) add(stopWords);
+		}
+		
+		int size = vocabulary.size();
+		
+		if (ambiguityClasses != null)
+		{
+			ambiguity_classes = new List[size];
+			for (Map.Entry<String,List<String>> e : ambiguityClasses.entrySet()) ambiguity_classes[getID(e.getKey())] = e.getValue();
+		}
+		
+		if (wordClusters != null)
+		{
+			word_clusters = new List[size];
+			for (int i=0; i<wordClusters.size(); i++) word_clusters[getID(wordClusters.getWord(i))] = wordClusters.getPrefixes(wordClusters.getPath(i));
+		}
+		
+		if (stopWords != null)
+		{
+			stop_words = new boolean[size];
+			for (String s : stopWords) stop_words[getID(s)] = true;
+		}
+	}
+	
+	private void add(Set<String> keys)
+	{
+		for (String key : keys) add(key);
+	}
+	
+	private void add(String key)
+	{
+		if (!vocabulary.containsKey(key)) vocabulary.put(key, vocabulary.size());
+	}
+	
+	public Field getField()
+	{
+		return field;
+	}
+	
+	/** @return the ID of the form if it appears in any lexicon; otherwise, {@code -1}. */
+	public int getID(String form)
+	{
+		return form != null ? vocabulary.getInt(form) : -1;
+	}
+	
+	/** @return the number of forms in the vocabulary. */
+	public int size()
+	{
+		return vocabulary.size();
+	}
+	
+	public boolean hasAmbiguityClasses()
+	{
+		return ambiguity_classes != null;
+	}
+	
+	public boolean hasWordClusters()
+	{
+		return word_clusters != null;
+	}
+	
+	public boolean hasWordEmbeddings()
+	{
+		return word_embeddings != null;
+	}
+	
+	public boolean hasStopWords()
+	{
+		return stop_words != null;
+	}
+	
+	/** @param id the ID from {@link #getID(String)}. */
+	public List<String> getAmbiguityClasses(int id)
+	{
+		return id >= 0 ? ambiguity_classes[id] : null;
+	}
+	
+	/** @param id the ID from {@link #getID(String)}; the list is shared by all words in the same cluster (see {@link WordClusterStore#getPrefixes(long)}). */
+	public List<String> getWordClusters(int id)
+	{
+		return id >= 0 ? word_clusters[id] : null;
+	}
+	
+	public EmbeddingStore getWordEmbeddings()
+	{
+		return word_embeddings;
+	}
+	
+	/**
+	 * @param id the ID from {@link #getID(String)}.
+	 * @return the row ID in {@link #getWordEmbeddings()} if exists; otherwise, {@code -1}.
+	 */
+	public int getEmbeddingID(int id)
+	{
+		return id < word_embeddings.size() ? id : -1;
+	}
+	
+	/** @param id the ID from {@link #getID(String)}. */
+	public boolean isStopWord(int id)
+	{
+		return id >= 0 && stop_words[id];
+	}
+}
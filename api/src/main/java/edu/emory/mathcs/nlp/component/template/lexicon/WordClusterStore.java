@@ -0,0 +1,275 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Brown clusters stored as one bit path per word, where the path is packed into a {@code long} whose highest set bit is a sentinel
+ * followed by the bits of the path (e.g., {@code "0110"} is {@code 0b10110}) so that the length is implied by the position of the sentinel.
+ * The features of a word are the prefixes of its path in every even length and the path itself (see {@link #getPrefixes(long)}),
+ * which are compiled once per distinct path and shared by all words in the same cluster.
+ * The words are sorted by their paths then by themselves, and serialized once per cluster following its path so that the file compresses well.
+ * This object is immutable so that it can be shared by multiple threads.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class WordClusterStore implements Serializable
+{
+	private static final long serialVersionUID = -7307016429342582049L;
+	/** The maximum number of bits in a path. */
+	static public final int MAX_LENGTH = 62;
+	
+	private transient String[] words;
+	/** The packed path of each word. */
+	private transient long[]   paths;
+	
+	private transient Object2IntMap<String>        vocabulary;
+	private transient Long2ObjectMap<List<String>> prefixes;
+	
+	private WordClusterStore(String[] words, long[] paths)
+	{
+		Integer[] order = new Integer[words.length];
+		for (int i=0; i<order.length; i++) order[i] = i;
+		Arrays.sort(order, (i, j) -> paths[i] != paths[j] ? Long.compare(paths[i], paths[j]) : words[i].compareTo(words[j]));
+		
+		this.words = new String[words.length];
+		this.paths = new long  [paths.length];
+		
+		for (int i=0; i<order.length; i++)
+		{
+			this.words[i] = words[order[i]];
+			this.paths[i] = paths[order[i]];
+		}
+		
+		init();
+	}
+	
+//	=================================== CREATE ===================================
+	
+	/** @param map word -> path in bits (e.g., {@code "0110"}). */
+	static public WordClusterStore create(Map<String,String> map)
+	{
+		String[] words = new String[map.size()];
+		long[]   paths = new long  [map.size()];
+		int i = 0;
+		
+		for (Entry<String,String> e : map.entrySet())
+		{
+			words[i] = e.getKey();
+			paths[i] = toPath(e.getValue());
+			i++;
+		}
+		
+		return new WordClusterStore(words, paths);
+	}
+	
+	/**
+	 * Converts the legacy lexicon where each word maps to the set of its prefix features, whose longest element is the path.
+	 * @throws IllegalArgumentException if any element in a set is not a prefix of the longest one.
+	 */
+	static public WordClusterStore createFromPrefixes(Map<String,Set<String>> map)
+	{
+		String[] words = new String[map.size()];
+		long[]   paths = new long  [map.size()];
+		String path;
+		int i = 0;
+		
+		for (Entry<String,Set<String>> e : map.entrySet())
+		{
+			path = "";
+			
+			for (String s : e.getValue())
+				if (path.length() < s.length()) path = s;
+			
+			for (String s : e.getValue())
+				if (!path.startsWith(s)) throw new IllegalArgumentException("Not a prefix of \""+path+"\": "+s);
+			
+			words[i] = e.getKey();
+			paths[i] = toPath(path);
+			i++;
+		}
+		
+		return new WordClusterStore(words, paths);
+	}
+	
+	private void init()
+	{
+		vocabulary = new Object2IntOpenHashMap<>(words.length);
+		vocabulary.defaultReturnValue(-1);
+		for (int i=0; i<words.length; i++) vocabulary.put(words[i], i);
+		
+		Long2ObjectMap<String> strings = new Long2ObjectOpenHashMap<>();
+		prefixes = new Long2ObjectOpenHashMap<>();
+		
+		for (long path : paths)
+		{
+			if (prefixes.containsKey(path)) continue;
+			int n, len = getLength(path);
+			List<String> list = new ArrayList<>(len / 2 + 1);
+			
+			for (n=2; n<len; n+=2)
+				list.add(strings.computeIfAbsent(getPrefix(path, n), WordClusterStore::toString));
+			
+			list.add(strings.computeIfAbsent(path, WordClusterStore::toString));
+			prefixes.put(path, Collections.unmodifiableList(list));
+		}
+	}
+	
+//	=================================== GETTERS ===================================
+	
+	/** @return the ID of the word if exists; otherwise, {@code -1}. */
+	public int getID(String word)
+	{
+		return word != null ? vocabulary.getInt(word) : -1;
+	}
+	
+	public String getWord(int id)
+	{
+		return words[id];
+	}
+	
+	/** @return the packed path of the word (see {@link #getID(String)}). */
+	public long getPath(int id)
+	{
+		return paths[id];
+	}
+	
+	/** @return the prefix features of the word if exists; otherwise, {@code null}. */
+	public List<String> getPrefixes(String word)
+	{
+		int id = getID(word);
+		return id >= 0 ? getPrefixes(paths[id]) : null;
+	}
+	
+	/** @return the prefixes of the packed path in every even length and the path itself, from the shortest; shared by all words with the path. */
+	public List<String> getPrefixes(long path)
+	{
+		return prefixes.get(path);
+	}
+	
+	/** @return the number of words. */
+	public int size()
+	{
+		return words.length;
+	}
+	
+	/** @return the number of distinct paths. */
+	public int getClusterSize()
+	{
+		return prefixes.size();
+	}
+	
+//	=================================== PATHS ===================================
+	
+	/** @return the number of bits in the packed path. */
+	static public int getLength(long path)
+	{
+		return 63 - Long.numberOfLeadingZeros(path);
+	}
+	
+	/** @return the packed prefix of the packed path in the specific length. */
+	static public long getPrefix(long path, int length)
+	{
+		return path >>> (getLength(path) - length);
+	}
+	
+	/** @return the packed path of the bit string (e.g., {@code "0110"} -> {@code 0b10110}). */
+	static public long toPath(String bits)
+	{
+		if (bits.isEmpty() || bits.length() > MAX_LENGTH)
+			throw new IllegalArgumentException("The length of a path must be in [1, "+MAX_LENGTH+"]: "+bits);
+		
+		long path = 1;
+		
+		for (int i=0; i<bits.length(); i++)
+		{
+			switch (bits.charAt(i))
+			{
+			case '0': path <<= 1; break;
+			case '1': path = (path << 1) | 1; break;
+			default : throw new IllegalArgumentException("Not a bit string: "+bits);
+			}
+		}
+		
+		return path;
+	}
+	
+	/** @return the bit string of the packed path (e.g., {@code 0b10110} -> {@code "0110"}). */
+	static public String toString(long path)
+	{
+		return Long.toBinaryString(path).substring(1);
+	}
+	
+//	=================================== SERIALIZATION ===================================
+	
+	/** Writes the number of words, then each cluster as its path, the number of its words, and the words. */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		out.writeInt(words.length);
+		int i, j;
+		
+		for (i=0; i<words.length; i=j)
+		{
+			for (j=i+1; j<words.length && paths[j] == paths[i]; j++);
+			out.writeLong(paths[i]);
+			out.writeInt(j - i);
+			for (; i<j; i++) out.writeUTF(words[i]);
+		}
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		int i = 0, j, size = in.readInt();
+		words = new String[size];
+		paths = new long  [size];
+		
+		while (i < size)
+		{
+			long path = in.readLong();
+			
+			for (j=i+in.readInt(); i<j; i++)
+			{
+				paths[i] = path;
+				words[i] = in.readUTF();
+			}
+		}
+		
+		init();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "word clusters: "+size()+" words, "+getClusterSize()+" clusters";
+	}
+}
@@ -38,6 +38,7 @@ import edu.emory.mathcs.nlp.common.util.StringUtils;
 import edu.emory.mathcs.nlp.component.dep.DEPArc;
 import edu.emory.mathcs.nlp.component.template.feature.Direction;
 import edu.emory.mathcs.nlp.component.template.feature.Field;
+import edu.emory.mathcs.nlp.component.template.lexicon.EmbeddingStore;
 import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
@@ -66,7 +67,7 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 	protected int start_offset;
 	protected int end_offset;
     
-	// inferred fields
+	// inferred fields (the normalized word forms are computed on the first access; see WordFormCache)
 	public int dependent_id;
 	protected String word_form_lowercase;
 	protected String word_form_simplified;
@@ -77,9 +78,12 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 	// lexica
 	protected Set<String>  named_entity_gazetteers;
 	protected List<String> ambiguity_classes;
-	protected Set<String>  word_clusters;
+	protected List<String> word_clusters;
 	protected float[]      word_embedding;
+	protected int          embedding_id;
 	protected boolean      stop_word;
+	/** The store of the word embedding if it is not in {@link #word_embedding}. */
+	protected transient EmbeddingStore embedding_store;
 	
 	public abstract N self();
 	
@@ -158,33 +162,37 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 	
 	public String getWordFormLowercase()
 	{
+		if (word_form_lowercase == null && word_form != null) word_form_lowercase = WordFormCache.get(word_form, WordFormCache.LOWERCASE);
 		return word_form_lowercase;
 	}
 	
 	/** @see StringUtils#toSimplifiedForm(String). */
 	public String getWordFormSimplified()
 	{
+		if (word_form_simplified == null && word_form != null) word_form_simplified = WordFormCache.get(word_form, WordFormCache.SIMPLIFIED);
 		return word_form_simplified;
 	}
 	
 	public String getWordFormSimplifiedLowercase()
 	{
+		if (word_form_simplified_lowercase == null && word_form != null) word_form_simplified_lowercase = WordFormCache.get(word_form, WordFormCache.SIMPLIFIED_LOWERCASE);
 		return word_form_simplified_lowercase;
 	}
 	
 	public String getWordFormUndigitalized()
 	{
+		if (word_form_undigitalized == null && word_form != null) word_form_undigitalized = WordFormCache.get(word_form, WordFormCache.UNDIGITALIZED);
 		return word_form_undigitalized;
 	}
 	
 	public String getWordShape()
 	{
-		return StringUtils.getShape(word_form_simplified, 2);
+		return StringUtils.getShape(getWordFormSimplified(), 2);
 	}
 	
 	public String getWordShapeLowercase()
 	{
-		return StringUtils.getShape(word_form_simplified_lowercase, 2);
+		return StringUtils.getShape(getWordFormSimplifiedLowercase(), 2);
 	}
 	
 	public String getLemma()
@@ -234,14 +242,32 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 		}
 	}
 	
-	public Set<String> getWordClusters()
+	public List<String> getWordClusters()
 	{
 		return word_clusters;
 	}
 	
+	/** @return the word embedding; a copy if it is in an {@link EmbeddingStore} (see {@link #copyWordEmbedding(float[], int)}). */
 	public float[] getWordEmbedding()
 	{
-		return word_embedding;
+		return (word_embedding == null && embedding_store != null) ? embedding_store.get(embedding_id) : word_embedding;
+	}
+	
+	/** @return the dimension of the word embedding if exists; otherwise, {@code 0}. */
+	public int getWordEmbeddingSize()
+	{
+		if (word_embedding  != null) return word_embedding.length;
+		if (embedding_store != null) return embedding_store.getDimension();
+		return 0;
+	}
+	
+	/** Copies the word embedding to {@code dest[offset, offset + getWordEmbeddingSize())}. */
+	public void copyWordEmbedding(float[] dest, int offset)
+	{
+		if (word_embedding != null)
+			System.arraycopy(word_embedding, 0, dest, offset, word_embedding.length);
+		else if (embedding_store != null)
+			embedding_store.copy(embedding_id, dest, offset);
 	}
 	
 	public String getAmbiguityClass(int index)
@@ -300,10 +326,10 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 	public void setWordForm(String form)
 	{
 		word_form                      = form;
-		word_form_lowercase            = StringUtils.toLowerCase(word_form);
-		word_form_simplified           = StringUtils.toSimplifiedForm(form);
-		word_form_undigitalized        = StringUtils.toUndigitalizedForm(form);
-		word_form_simplified_lowercase = StringUtils.toLowerCase(word_form_simplified);
+		word_form_lowercase            = null;
+		word_form_simplified           = null;
+		word_form_undigitalized        = null;
+		word_form_simplified_lowercase = null;
 	}
 	
 	public void setLemma(String lemma)
@@ -351,14 +377,23 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 		ambiguity_classes = classes;
 	}
 	
-	public void setWordClusters(Set<String> clusters)
+	public void setWordClusters(List<String> clusters)
 	{
 		word_clusters = clusters;
 	}
 	
 	public void setWordEmbedding(float[] embedding)
 	{
-		word_embedding = embedding;
+		word_embedding  = embedding;
+		embedding_store = null;
+	}
+	
+	/** @param id the row ID of the word embedding in the store; {@code -1} if none. */
+	public void setWordEmbedding(EmbeddingStore store, int id)
+	{
+		word_embedding  = null;
+		embedding_store = (id >= 0) ? store : null;
+		embedding_id    = id;
 	}
 	
 	public void setNamedEntityGazetteers(Set<String> gazetteers)
@@ -393,7 +428,7 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 	
 	public boolean isSimplifiedWordForm(String form)
 	{
-		return form.equals(word_form_simplified);
+		return form.equals(getWordFormSimplified());
 	}
 	
 	public boolean isLemma(String lemma)
@@ -428,7 +463,7 @@ public abstract class AbstractNLPNode<N extends AbstractNLPNode<N>> implements S
 	
 	public boolean hasWordEmbedding()
 	{
-		return word_embedding != null;
+		return word_embedding != null || embedding_store != null;
 	}
 	
 //	============================== DEPENDENCY GETTERS ==============================
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.node;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.emory.mathcs.nlp.common.util.StringUtils;
+
+/**
+ * Normalized forms of word forms shared by all nodes in all threads.
+ * Each raw form maps to an array of its normalized forms, where each form is computed on the first request;
+ * two threads may compute the same form at the same time, which is harmless because the result is the same immutable string.
+ * The cache is cleared once it reaches its capacity so that the memory stays bounded while frequent forms are soon cached again.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class WordFormCache
+{
+	static public final int LOWERCASE            = 0;
+	static public final int SIMPLIFIED           = 1;
+	static public final int UNDIGITALIZED        = 2;
+	static public final int SIMPLIFIED_LOWERCASE = 3;
+	static public final int DEFAULT_CAPACITY     = 1 << 18;
+	
+	static private final ConcurrentHashMap<String,String[]> cache = new ConcurrentHashMap<>();
+	static private volatile int capacity = DEFAULT_CAPACITY;
+	
+	private WordFormCache() {}
+	
+	/**
+	 * @param form the raw word form.
+	 * @param type {@link #LOWERCASE}, {@link #SIMPLIFIED}, {@link #UNDIGITALIZED}, or {@link #SIMPLIFIED_LOWERCASE}.
+	 * @return the normalized form of the raw form.
+	 */
+	static public String get(String form, int type)
+	{
+		String[] forms = cache.get(form);
+		
+		if (forms == null)
+		{
+			if (cache.size() >= capacity) cache.clear();
+			String[] prev = cache.putIfAbsent(form, forms = new String[SIMPLIFIED_LOWERCASE+1]);
+			if (prev != null) forms = prev;
+		}
+		
+		String s = forms[type];
+		if (s == null) forms[type] = s = normalize(form, type, forms);
+		return s;
+	}
+	
+	static private String normalize(String form, int type, String[] forms)
+	{
+		switch (type)
+		{
+		case LOWERCASE           : return StringUtils.toLowerCase(form);
+		case SIMPLIFIED          : return StringUtils.toSimplifiedForm(form);
+		case UNDIGITALIZED       : return StringUtils.toUndigitalizedForm(form);
+		case SIMPLIFIED_LOWERCASE:
+			String simplified = forms[SIMPLIFIED];
+			if (simplified == null) forms[SIMPLIFIED] = simplified = StringUtils.toSimplifiedForm(form);
+			return StringUtils.toLowerCase(simplified);
+		default: throw new IllegalArgumentException("Invalid normalization type: "+type);
+		}
+	}
+	
+	/** Sets the maximum number of raw forms to be cached, and clears the cache. */
+	static public void setCapacity(int capacity)
+	{
+		WordFormCache.capacity = capacity;
+		cache.clear();
+	}
+	
+	/** @return the number of raw forms currently cached. */
+	static public int size()
+	{
+		return cache.size();
+	}
+	
+	static public void clear()
+	{
+		cache.clear();
+	}
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.reader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * Sentences in the TSV format compiled into a binary file that is read without parsing the text
+ * (e.g., by {@link TSVReader#open(TSVCache)} on every training epoch).
+ * Every distinct value in the columns is stored once in the string table, and each sentence is stored as
+ * the number of tokens ({@code n}), the number of columns ({@code c}), and the string IDs of the values column by column ({@code c * n}).
+ * The file consists of the header ({@link #MAGIC}, the size of the string table, the size of the sentences in bytes),
+ * the sentences, and the string table, where the sentences are memory-mapped.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class TSVCache
+{
+	static public final String EXTENSION = "tsvc";
+	static public final int    MAGIC = 0x4E4C5443;
+	static private final int   HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+	
+	private String[]  strings;
+	private IntBuffer sentences;
+	
+	private TSVCache(String[] strings, IntBuffer sentences)
+	{
+		this.strings   = strings;
+		this.sentences = sentences;
+	}
+	
+//	=================================== COMPILE ===================================
+	
+	/**
+	 * Reads the sentences from the input stream using the TSV reader and writes them to the file.
+	 * @return the number of sentences written.
+	 */
+	static public <N extends AbstractNLPNode<N>>int compile(TSVReader<N> reader, InputStream in, String filename) throws IOException
+	{
+		Object2IntMap<String> stringMap = new Object2IntOpenHashMap<>();
+		int j, n, c, count = 0;
+		List<String[]> rows;
+		long size = 0;
+		
+		stringMap.defaultReturnValue(-1);
+		reader.open(in);
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16)))
+		{
+			// the header is written when all sentences are written
+			out.write(new byte[HEADER_SIZE]);
+			
+			while ((rows = reader.readRows()) != null)
+			{
+				n = rows.size();
+				c = 0;
+				for (String[] row : rows) c = Math.max(c, row.length);
+				out.writeInt(n);
+				out.writeInt(c);
+				
+				for (j=0; j<c; j++)
+					for (String[] row : rows)
+						out.writeInt(j < row.length ? getID(stringMap, row[j]) : -1);
+				
+				size += Integer.BYTES * (2L + (long)c * n);
+				count++;
+			}
+			
+			String[] strings = new String[stringMap.size()];
+			for (Object2IntMap.Entry<String> e : stringMap.object2IntEntrySet()) strings[e.getIntValue()] = e.getKey();
+			for (String s : strings) out.writeUTF(s);
+		}
+		finally
+		{
+			reader.close();
+		}
+		
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw"))
+		{
+			file.writeInt(MAGIC);
+			file.writeInt(stringMap.size());
+			file.writeLong(size);
+		}
+		
+		return count;
+	}
+	
+	static private int getID(Object2IntMap<String> stringMap, String s)
+	{
+		int id = stringMap.getInt(s);
+		
+		if (id < 0)
+		{
+			id = stringMap.size();
+			stringMap.put(s, id);
+		}
+		
+		return id;
+	}
+	
+//	=================================== OPEN ===================================
+	
+	/** @return the cache memory-mapped from the file written by {@link #compile(TSVReader, InputStream, String)}. */
+	static public TSVCache open(String filename) throws IOException
+	{
+		Path path = Paths.get(filename);
+		
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0);
+			((Buffer)header).flip();
+			
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+				throw new IOException("Not a TSV cache file: "+path);
+			
+			int  stringSize = header.getInt();
+			long size       = header.getLong();
+			
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Too large to be memory-mapped ("+size+" bytes): "+path);
+			
+			IntBuffer sentences = channel.map(MapMode.READ_ONLY, HEADER_SIZE, size).asIntBuffer();
+			
+			// the string table follows the sentences
+			channel.position(HEADER_SIZE + size);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+			String[] strings = new String[stringSize];
+			for (int i=0; i<stringSize; i++) strings[i] = in.readUTF();
+			
+			return new TSVCache(strings, sentences);
+		}
+	}
+	
+	/** @return a new cursor at the first sentence; multiple cursors can read this cache at the same time. */
+	public Cursor cursor()
+	{
+		return new Cursor(sentences.duplicate());
+	}
+	
+//	=================================== CURSOR ===================================
+	
+	public class Cursor
+	{
+		private IntBuffer buffer;
+		
+		private Cursor(IntBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+		
+		/**
+		 * @return the rows of the next sentence as split by {@link TSVReader#readRows()},
+		 * where missing columns are {@code null}; {@code null} if no more sentence.
+		 */
+		public List<String[]> next()
+		{
+			if (!buffer.hasRemaining()) return null;
+			int i, j, id, n = buffer.get(), c = buffer.get();
+			List<String[]> rows = new ArrayList<>(n);
+			
+			for (i=0; i<n; i++)
+				rows.add(new String[c]);
+			
+			for (j=0; j<c; j++)
+			{
+				for (i=0; i<n; i++)
+				{
+					id = buffer.get();
+					if (id >= 0) rows.get(i)[j] = strings[id];
+				}
+			}
+			
+			return rows;
+		}
+	}
+}
@@ -27,7 +27,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -36,6 +38,10 @@ public abstract class TSVReader<N extends AbstractNLPNode<N>>
 {
 	static public String BLANK = StringConst.UNDERSCORE;
 	protected BufferedReader reader;
+	/** Reads the cached sentences instead of {@link #reader} if not {@code null}. */
+	protected TSVCache.Cursor cursor;
+	/** Caches of the input files; see {@link #open(String)}. */
+	protected Map<String,TSVCache> caches = new HashMap<>();
 	
 	public int form   = -1;
 	public int lemma  = -1;
@@ -74,11 +80,40 @@ public abstract class TSVReader<N extends AbstractNLPNode<N>>
 	
 	public void open(InputStream in)
 	{
+		cursor = null;
 		reader = IOUtils.createBufferedReader(in);		
 	}
 	
+	/** Reads the sentences from the cache. */
+	public void open(TSVCache cache)
+	{
+		close();
+		cursor = cache.cursor();
+	}
+	
+	/** Opens the cache of the file if added by {@link #addCache(String, TSVCache)}; otherwise, the file. */
+	public void open(String filename)
+	{
+		TSVCache cache = caches.get(filename);
+		if (cache != null) open(cache);
+		else open(IOUtils.createFileInputStream(filename));
+	}
+	
+	public void addCache(String filename, TSVCache cache)
+	{
+		caches.put(filename, cache);
+	}
+	
+	/** Adds the caches of the other reader, which can be read by both readers at the same time. */
+	public void addCaches(TSVReader<N> reader)
+	{
+		caches.putAll(reader.caches);
+	}
+	
 	public void close()
 	{
+		cursor = null;
+		
 		try
 		{
 			if (reader != null)
@@ -99,6 +134,21 @@ public abstract class TSVReader<N extends AbstractNLPNode<N>>
 	}
 	
 	public N[] next() throws IOException
+	{
+		if (cursor != null) return nextCached();
+		List<String[]> list = readRows();
+		return list == null ? null : toNodeList(list);
+	}
+	
+	/** @return the next sentence in the cache. */
+	protected N[] nextCached()
+	{
+		List<String[]> list = cursor.next();
+		return list == null ? null : toNodeList(list);
+	}
+	
+	/** @return the lines of the next sentence split by tabs if exists; otherwise, {@code null}. */
+	protected List<String[]> readRows() throws IOException
 	{
 		List<String[]> list = new ArrayList<>();
 		String line;
@@ -116,7 +166,7 @@ public abstract class TSVReader<N extends AbstractNLPNode<N>>
 			list.add(Splitter.splitTabs(line));
 		}
 		
-		return list.isEmpty() ? null : toNodeList(list);
+		return list.isEmpty() ? null : list;
 	}
 	
 	@SuppressWarnings("unchecked")
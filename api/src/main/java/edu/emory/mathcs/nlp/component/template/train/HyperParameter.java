@@ -30,6 +30,9 @@ public class HyperParameter
 	private float       decaying_rate;
 	private float       bias;
 	private int         feature_cutoff;
+	private int         feature_hash_size;
+	private int         thread_size;
+	private boolean     corpus_cache;
 	private Regularizer l1_regularizer;
 	private LOLS        lols;
 	
@@ -51,6 +54,19 @@ public class HyperParameter
 		this.feature_cutoff = cutoff;
 	}
 	
+//	========================== FEATURE HASHING ==========================
+
+	/** @return the number of buckets for feature hashing if {@code > 0}; otherwise, features are indexed by a feature map. */
+	public int getFeatureHashSize()
+	{
+		return feature_hash_size;
+	}
+
+	public void setFeatureHashSize(int size)
+	{
+		feature_hash_size = size;
+	}
+	
 //	========================== BATCH SIZE ==========================
 
 	public int getBatchSize()
@@ -63,6 +79,32 @@ public class HyperParameter
 		batch_size = size;
 	}
 	
+//	========================== THREAD SIZE ==========================
+
+	/** @return the number of threads training sentences concurrently; the shared weights are updated without locking if {@code > 1}. */
+	public int getThreadSize()
+	{
+		return thread_size;
+	}
+
+	public void setThreadSize(int size)
+	{
+		thread_size = size;
+	}
+	
+//	========================== CORPUS CACHE ==========================
+
+	/** @return {@code true} if the input files are compiled into binary caches once and every epoch reads the caches instead. */
+	public boolean isCorpusCache()
+	{
+		return corpus_cache;
+	}
+
+	public void setCorpusCache(boolean cache)
+	{
+		corpus_cache = cache;
+	}
+	
 //	========================== MAX EPOCH ==========================
 	
 	public int getMaxEpochs()
@@ -185,7 +227,10 @@ public class HyperParameter
 		
 		build.append(String.format("%s%s: %d\n", prefix, "Max epoch", max_epoch));
 		if (batch_size > 0) build.append(String.format("%s%s: %d\n", prefix, "Mini-batch", batch_size));
+		if (thread_size > 1) build.append(String.format("%s%s: %d\n", prefix, "Threads", thread_size));
+		if (corpus_cache) build.append(String.format("%s%s\n", prefix, "Corpus cache"));
 		if (feature_cutoff > 0) build.append(String.format("%s%s: %d\n", prefix, "Feature cutoff", feature_cutoff));
+		if (feature_hash_size > 0) build.append(String.format("%s%s: %d\n", prefix, "Feature hash", feature_hash_size));
 		build.append(String.format("%s%s: %s\n", prefix, "Learning rate", learning_rate));
 		if (decaying_rate > 0) build.append(String.format("%s%s: %s\n", prefix, "Decaying rate", decaying_rate));
 		if (bias > 0) build.append(String.format("%s%s: %s\n", prefix, "Bias", bias));
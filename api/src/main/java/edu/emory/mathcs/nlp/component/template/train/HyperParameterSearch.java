@@ -0,0 +1,333 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.train;
+
+import edu.emory.mathcs.nlp.common.collection.tuple.DoubleIntPair;
+import edu.emory.mathcs.nlp.common.random.XORShiftRandom;
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.component.template.util.NLPMode;
+import edu.emory.mathcs.nlp.learning.gridsearch.GridFunction;
+import edu.emory.mathcs.nlp.learning.optimization.reguralization.RegularizedDualAveraging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * Searches the grid of hyper-parameters by training the configurations concurrently in one process, where the configurations are pruned
+ * by successive halving: all configurations are trained for {@link #getMinEpochs()} epochs, only the best {@code 1/}{@link #getReductionFactor()}
+ * of them by the development score are trained {@link #getReductionFactor()} times longer, and so on until the max epoch of the configuration file.
+ * The training and development files are read once into {@link TSVCache}s, which are shared by all configurations.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class HyperParameterSearch<N extends AbstractNLPNode<N>, S extends NLPState<N>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(HyperParameterSearch.class);
+	private OnlineTrainer<N,S> trainer;
+	private List<Dimension>    dimensions;
+	private int                thread_size;
+	private int                reduction_factor;
+	private int                min_epochs;
+	
+	public HyperParameterSearch(OnlineTrainer<N,S> trainer)
+	{
+		this.trainer     = trainer;
+		dimensions       = new ArrayList<>();
+		thread_size      = 1;
+		reduction_factor = 3;
+		min_epochs       = 1;
+	}
+	
+//	=================================== SETTINGS ===================================
+	
+	public int getThreadSize()
+	{
+		return thread_size;
+	}
+	
+	/** @param size the number of configurations trained at the same time. */
+	public void setThreadSize(int size)
+	{
+		thread_size = Math.max(1, size);
+	}
+	
+	public int getReductionFactor()
+	{
+		return reduction_factor;
+	}
+	
+	public void setReductionFactor(int factor)
+	{
+		reduction_factor = Math.max(2, factor);
+	}
+	
+	public int getMinEpochs()
+	{
+		return min_epochs;
+	}
+	
+	/** @param epochs the number of epochs that every configuration is trained for before pruning. */
+	public void setMinEpochs(int epochs)
+	{
+		min_epochs = Math.max(1, epochs);
+	}
+	
+//	=================================== DIMENSIONS ===================================
+	
+	/**
+	 * Adds a dimension to the grid, whose values are taken from {@link GridFunction#next()} until it returns {@code false}.
+	 * @param setter sets the value to the hyper-parameters of each configuration.
+	 */
+	public void addDimension(String name, GridFunction grid, BiConsumer<HyperParameter,Float> setter)
+	{
+		List<Float> values = new ArrayList<>();
+		while (grid.next()) values.add(grid.getVal());
+		if (values.isEmpty()) throw new IllegalArgumentException("No value in the grid: "+name);
+		dimensions.add(new Dimension(name, values, setter));
+	}
+	
+	public void addLearningRates(GridFunction grid)
+	{
+		addDimension("learning_rate", grid, (hp, v) -> hp.setLearningRate(v));
+	}
+	
+	/** The rates of {@link RegularizedDualAveraging}, where no regularization is used if the rate is {@code 0}. */
+	public void addL1Regularizations(GridFunction grid)
+	{
+		addDimension("l1", grid, (hp, v) -> hp.setL1Regularizer(v > 0 ? new RegularizedDualAveraging(v) : null));
+	}
+	
+	public void addBiases(GridFunction grid)
+	{
+		addDimension("bias", grid, (hp, v) -> hp.setBias(v));
+	}
+	
+	public void addBatchSizes(GridFunction grid)
+	{
+		addDimension("batch_size", grid, (hp, v) -> hp.setBatchSize(Math.round(v)));
+	}
+	
+	/** @return all combinations of the values in the dimensions. */
+	public List<float[]> getConfigurations()
+	{
+		List<float[]> configurations = new ArrayList<>();
+		configurations.add(new float[dimensions.size()]);
+		
+		for (int d=0; d<dimensions.size(); d++)
+		{
+			List<float[]> next = new ArrayList<>();
+			
+			for (float[] c : configurations)
+			{
+				for (float value : dimensions.get(d).values)
+				{
+					float[] t = c.clone();
+					t[d] = value;
+					next.add(t);
+				}
+			}
+			
+			configurations = next;
+		}
+		
+		return configurations;
+	}
+	
+//	=================================== SEARCH ===================================
+	
+	/**
+	 * Trains all configurations of the grid and prunes them by successive halving.
+	 * @return the configuration with the best development score, whose component keeps the weights of its best epoch.
+	 */
+	public Trial search(NLPMode mode, List<String> trainFiles, List<String> developFiles, String configurationFile) throws Exception
+	{
+		GlobalLexica<N> lexica = trainer.createGlobalLexica(IOUtils.createFileInputStream(configurationFile));
+		List<Trial> trials = new ArrayList<>();
+		TSVReader<N> reader = null;
+		
+		for (float[] values : getConfigurations())
+		{
+			Trial trial = new Trial(values, trainer.initComponent(mode, IOUtils.createFileInputStream(configurationFile), null, null));
+			if (reader == null) reader = trainer.createTSVReader(trial.component.getConfiguration().getReaderFieldMap());
+			trials.add(trial);
+		}
+		
+		trainer.cache(reader, trainFiles);
+		trainer.cache(reader, developFiles);
+		for (Trial trial : trials) trial.reader.addCaches(reader);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(thread_size);
+		int maxEpochs = trials.get(0).component.getHyperParameter().getMaxEpochs();
+		int epochs = Math.min(min_epochs, maxEpochs);
+		LOG.info(String.format("Searching %d configurations with %d threads", trials.size(), thread_size));
+		
+		try
+		{
+			while (true)
+			{
+				train(executor, trials, trainFiles, developFiles, lexica, epochs);
+				Collections.sort(trials, Comparator.comparingDouble((Trial t) -> t.best_score).reversed());
+				if (epochs >= maxEpochs) break;
+				
+				if (trials.size() > 1)
+				{
+					List<Trial> pruned = trials.subList(Math.max(1, trials.size() / reduction_factor), trials.size());
+					for (Trial trial : pruned) LOG.info(String.format("Pruned: %s, best = %5.2f", trial, trial.best_score));
+					pruned.clear();
+				}
+				
+				epochs = (int)Math.min((long)epochs * reduction_factor, maxEpochs);
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		
+		Trial best = trials.get(0);
+		best.restore();
+		LOG.info(String.format("Best: %s, score = %5.2f, epoch = %d", best, best.best_score, best.best_epoch));
+		return best;
+	}
+	
+	/** Trains each trial until it reaches the epoch, where the trials are trained at the same time. */
+	private void train(ExecutorService executor, List<Trial> trials, List<String> trainFiles, List<String> developFiles, GlobalLexica<N> lexica, int epochs) throws Exception
+	{
+		List<Future<?>> futures = new ArrayList<>();
+		
+		for (Trial trial : trials)
+			futures.add(executor.submit(() -> {trial.train(trainFiles, developFiles, lexica, epochs); return null;}));
+		
+		for (Future<?> f : futures) f.get();
+	}
+	
+	static private class Dimension
+	{
+		String name;
+		List<Float> values;
+		BiConsumer<HyperParameter,Float> setter;
+		
+		public Dimension(String name, List<Float> values, BiConsumer<HyperParameter,Float> setter)
+		{
+			this.name   = name;
+			this.values = values;
+			this.setter = setter;
+		}
+	}
+	
+	/** A configuration in the grid trained by one thread at a time. */
+	public class Trial
+	{
+		private float[]              values;
+		private OnlineComponent<N,S> component;
+		private TSVReader<N>         reader;
+		private ModelSnapshot        best;
+		private Random               random;
+		private List<String>         train_files;
+		private int                  epoch;
+		private int                  best_epoch;
+		private double               best_score;
+		
+		public Trial(float[] values, OnlineComponent<N,S> component)
+		{
+			HyperParameter hp = component.getHyperParameter();
+			for (int d=0; d<values.length; d++) dimensions.get(d).setter.accept(hp, values[d]);
+			// the configurations are already trained in parallel
+			hp.setThreadSize(1);
+			component.setOptimizer(component.getConfiguration().getOnlineOptimizer(hp));
+			
+			this.values    = values;
+			this.component = component;
+			reader = trainer.createTSVReader(component.getConfiguration().getReaderFieldMap());
+			best   = new ModelSnapshot(false);
+			random = new XORShiftRandom(9);
+			best_epoch = -1;
+		}
+		
+		void train(List<String> trainFiles, List<String> developFiles, GlobalLexica<N> lexica, int epochs)
+		{
+			if (train_files == null) train_files = new ArrayList<>(trainFiles);
+			DoubleIntPair p;
+			
+			while (epoch < epochs)
+			{
+				epoch++;
+				trainer.trainEpoch(reader, train_files, component, lexica, random);
+				component.getFeatureTemplate().initFeatureCount();
+				p = trainer.evaluate(developFiles, component, lexica, reader);
+				LOG.info(String.format("%s:%5d: %s, N/S = %6d", this, epoch, component.getEval().toString(), p.i));
+				
+				if (best_score < p.d)
+				{
+					best_score = p.d;
+					best_epoch = epoch;
+					best.save(component);
+				}
+			}
+		}
+		
+		/** Restores the weights of the best epoch. */
+		private void restore()
+		{
+			if (best.isSaved()) best.restore(component);
+		}
+		
+		public float[] getValues()
+		{
+			return values;
+		}
+		
+		public OnlineComponent<N,S> getComponent()
+		{
+			return component;
+		}
+		
+		public double getBestScore()
+		{
+			return best_score;
+		}
+		
+		public int getBestEpoch()
+		{
+			return best_epoch;
+		}
+		
+		@Override
+		public String toString()
+		{
+			StringJoiner join = new StringJoiner(", ");
+			
+			for (int d=0; d<values.length; d++)
+				join.add(dimensions.get(d).name+" = "+values[d]);
+			
+			return "["+join.toString()+"]";
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.train;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.feature.FeatureTemplate;
+import edu.emory.mathcs.nlp.learning.optimization.OnlineOptimizer;
+import edu.emory.mathcs.nlp.learning.util.FeatureMap;
+import edu.emory.mathcs.nlp.learning.util.MajorVector;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * The mutable state of an online component, that is, the weights, the state vectors of the optimizer (see {@link OnlineOptimizer#getStateVectors()}),
+ * and the size of the feature map, copied to buffers that are reused by the following snapshots instead of serializing the whole component.
+ * Since features and labels are only added during training, the features added after the snapshot are removed when it is restored,
+ * whereas the labels added after the snapshot are kept with zero weights.
+ * If the feature map is copied, the snapshot can also be restored after the features are reduced
+ * (see {@link FeatureTemplate#reduce(WeightVector, float)}), where the indices of the features are remapped.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelSnapshot
+{
+	private boolean copy_feature_map;
+	private boolean saved;
+	
+	/** The sparse and dense weights of each vector in {@link OnlineOptimizer#getWeightVectors()} and {@link OnlineOptimizer#getStateVectors()}. */
+	private float[][] weights;
+	private int[]     label_sizes;
+	private int[]     feature_sizes;
+	
+	private int feature_size;
+	private List<Object2IntMap<String>> index_maps;
+	
+	/** @param copyFeatureMap if {@code true}, the index maps of the feature map are copied as well. */
+	public ModelSnapshot(boolean copyFeatureMap)
+	{
+		copy_feature_map = copyFeatureMap;
+	}
+	
+	/** Copies the state of the component to this snapshot. */
+	public void save(OnlineComponent<?,?> component)
+	{
+		List<MajorVector> vectors = getMajorVectors(component.getOptimizer());
+		FeatureMap map = component.getFeatureTemplate().getFeatureMap();
+		int i, size = vectors.size();
+		MajorVector v;
+		
+		if (weights == null || weights.length != size)
+		{
+			weights       = new float[size][];
+			label_sizes   = new int[size];
+			feature_sizes = new int[size];
+		}
+		
+		for (i=0; i<size; i++)
+		{
+			v = vectors.get(i);
+			weights[i] = v.copyWeights(weights[i]);
+			label_sizes  [i] = v.getLabelSize();
+			feature_sizes[i] = v.getFeatureSize();
+		}
+		
+		if (map != null)
+		{
+			feature_size = map.size();
+			if (copy_feature_map) index_maps = copy(map.getIndexMaps());
+		}
+		
+		saved = true;
+	}
+	
+	/**
+	 * Restores the state of the component to this snapshot.
+	 * The labels added since the snapshot cannot be removed from the component, so their weights are restored to zeros.
+	 */
+	public void restore(OnlineComponent<?,?> component)
+	{
+		List<MajorVector> vectors = getMajorVectors(component.getOptimizer());
+		FeatureMap map = component.getFeatureTemplate().getFeatureMap();
+		int labelSize;
+		MajorVector v;
+		
+		if (vectors.size() != weights.length)
+			throw new IllegalStateException("The snapshot has "+weights.length+" vectors whereas the component has "+vectors.size()+".");
+		
+		for (int i=0; i<vectors.size(); i++)
+		{
+			v = vectors.get(i);
+			labelSize = v.getLabelSize();
+			v.setWeights(weights[i], label_sizes[i], feature_sizes[i]);
+			if (labelSize > label_sizes[i]) v.expand(labelSize, feature_sizes[i]);
+		}
+		
+		if (map != null)
+		{
+			if (copy_feature_map)
+			{
+				map.getIndexMaps().clear();
+				map.getIndexMaps().addAll(copy(index_maps));
+				map.setSize(feature_size);
+			}
+			else
+				map.truncate(feature_size);
+		}
+	}
+	
+	/** @return {@code true} if {@link #save(OnlineComponent)} has been called. */
+	public boolean isSaved()
+	{
+		return saved;
+	}
+	
+	private List<MajorVector> getMajorVectors(OnlineOptimizer optimizer)
+	{
+		List<MajorVector> list = new ArrayList<>();
+		
+		for (WeightVector w : optimizer.getWeightVectors())
+		{
+			list.add(w.getSparseWeightVector());
+			list.add(w.getDenseWeightVector());
+		}
+		
+		for (WeightVector w : optimizer.getStateVectors())
+		{
+			list.add(w.getSparseWeightVector());
+			list.add(w.getDenseWeightVector());
+		}
+		
+		return list;
+	}
+	
+	/** The keys are shared with the original maps. */
+	private List<Object2IntMap<String>> copy(List<Object2IntMap<String>> maps)
+	{
+		List<Object2IntMap<String>> list = new ArrayList<>(maps.size());
+		for (Object2IntMap<String> map : maps) list.add(new Object2IntOpenHashMap<>(map));
+		return list;
+	}
+}
@@ -27,16 +27,20 @@ import edu.emory.mathcs.nlp.component.template.config.NLPConfig;
 import edu.emory.mathcs.nlp.component.template.eval.Eval;
 import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
 import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+import edu.emory.mathcs.nlp.component.template.reader.TSVCache;
 import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
 import edu.emory.mathcs.nlp.component.template.state.NLPState;
 import edu.emory.mathcs.nlp.component.template.util.NLPFlag;
 import edu.emory.mathcs.nlp.component.template.util.NLPMode;
 import edu.emory.mathcs.nlp.learning.optimization.OnlineOptimizer;
+import edu.emory.mathcs.nlp.learning.util.Quantization;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -46,10 +50,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provide instances and methods for training NLP components.
@@ -216,14 +224,13 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 		return p.d;
 	}
 	
-	@SuppressWarnings("unchecked")
 	public ObjectDoublePair<OnlineComponent<N,S>> train(TSVReader<N> reader, List<String> trainFiles, List<String> developFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica, int index) throws Exception
 	{
 		OnlineOptimizer optimizer = component.getOptimizer();
 		HyperParameter hp = component.getHyperParameter();
 		int bestEpoch = -1, bestNZW = -1, NZW, L, SF;
 		Random rand = new XORShiftRandom(9);
-		byte[] bestComponent = null;
+		ModelSnapshot best = new ModelSnapshot(false);
 		double bestScore = 0, score;
 		DoubleIntPair p;
 		String eval;
@@ -231,13 +238,18 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 		LOG.info(optimizer.toString()+"\n"+hp.toString("- "));
 		LOG.info("Training: "+index);
 		
+		if (hp.getThreadSize() > 1 && !isConcurrentTraining(component))
+			LOG.warn("Concurrent training is not supported by this component; training with a single thread");
+		
+		if (hp.isCorpusCache())
+		{
+			cache(reader, trainFiles);
+			cache(reader, developFiles);
+		}
+		
 		for (int epoch=1; epoch<=hp.getMaxEpochs(); epoch++)
 		{
-			// train
-			component.setFlag(NLPFlag.TRAIN);
-			Collections.shuffle(trainFiles, rand);
-			hp.getLOLS().updateGoldProbability();
-			iterate(reader, trainFiles, component, lexica, false);
+			trainEpoch(reader, trainFiles, component, lexica, rand);
 
 			// info
 			L   = optimizer.getLabelSize();
@@ -255,29 +267,122 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 				bestNZW   = NZW;
 				bestEpoch = epoch;
 				bestScore = score;
-				bestComponent = IOUtils.toByteArray(component);
+				best.save(component);
 			}
 		}
 		
-		if (bestComponent != null)
-			component = (OnlineComponent<N,S>)IOUtils.fromByteArray(bestComponent);
+		if (best.isSaved())
+			best.restore(component);
 		
 		LOG.info(String.format("%2d: Best: %5.2f, epoch = %d", index, bestScore, bestEpoch));
 		return new ObjectDoublePair<OnlineComponent<N,S>>(component, bestScore);
 	}
 	
+	/** Trains the component on the training files once, where the training files are shuffled in place. */
+	protected void trainEpoch(TSVReader<N> reader, List<String> trainFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica, Random rand)
+	{
+		component.setFlag(NLPFlag.TRAIN);
+		Collections.shuffle(trainFiles, rand);
+		component.getHyperParameter().getLOLS().updateGoldProbability();
+		iterate(reader, trainFiles, component, lexica, false);
+	}
+	
 	public DoubleIntPair evaluate(List<String> developFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica, TSVReader<N> reader)
 	{
 		component.setFlag(NLPFlag.EVALUATE);
 		Eval eval = component.getEval();
 		eval.clear();
-		double time = iterate(reader, developFiles, component, lexica, true);
+		double time = isConcurrentEvaluation(component, developFiles) ? evaluateConcurrently(reader, developFiles, component, lexica) : iterate(reader, developFiles, component, lexica, true);
 		return new DoubleIntPair(eval.score(), (int)Math.round(time));
 	}
 	
+	/** @return true if the development files can be evaluated by multiple threads (see {@link HyperParameter#getThreadSize()}). */
+	protected boolean isConcurrentEvaluation(OnlineComponent<N,S> component, List<String> developFiles)
+	{
+		return component.getHyperParameter().getThreadSize() > 1 && developFiles.size() > 1 && component.getConfiguration() != null;
+	}
+	
+	/**
+	 * Evaluates the files with multiple threads, where the files are dealt to the threads in turn and each thread reads its files with its own reader
+	 * and counts in its own evaluator (see {@link OnlineComponent#setThreadEval(Eval)}); the evaluators are merged to the evaluator of the component at the end.
+	 * Decoding does not change the model so that the score is the same as the sequential evaluation;
+	 * the processing times of the threads are added up as the sequential evaluation would measure them.
+	 * @return the number of tokens (or documents) processed per second.
+	 * @throws IllegalStateException if any thread fails, in which case no evaluator is merged.
+	 */
+	protected double evaluateConcurrently(TSVReader<N> reader, List<String> inputFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica)
+	{
+		int i, j, threads = Math.min(component.getHyperParameter().getThreadSize(), inputFiles.size());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<long[]>> futures = new ArrayList<>();
+		List<Eval> evals = new ArrayList<>();
+		long unit = 0, time = 0;
+		long[] p;
+		
+		for (i=0; i<threads; i++)
+		{
+			List<String> files = new ArrayList<>();
+			TSVReader<N> r = createTSVReader(component.getConfiguration().getReaderFieldMap());
+			Eval eval = component.createEvaluator();
+			
+			for (j=i; j<inputFiles.size(); j+=threads) files.add(inputFiles.get(j));
+			r.addCaches(reader);
+			evals.add(eval);
+			futures.add(executor.submit(() -> evaluate(r, files, component, lexica, eval)));
+		}
+		
+		try
+		{
+			for (Future<long[]> f : futures)
+			{
+				p = f.get();
+				unit += p[0];
+				time += p[1];
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while evaluating", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Failed to evaluate", e.getCause());
+		}
+		finally {executor.shutdownNow();}
+		
+		for (Eval eval : evals) component.getEval().merge(eval);
+		return 1000d * unit / Math.max(1, time);
+	}
+	
+	/** @return {the number of tokens (or documents), the processing time in milliseconds} evaluated by this worker. */
+	private long[] evaluate(TSVReader<N> reader, List<String> inputFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica, Eval eval)
+	{
+		component.setThreadEval(eval);
+		
+		try
+		{
+			return iterateFiles(reader, inputFiles, component, lexica, true);
+		}
+		finally
+		{
+			component.setThreadEval(null);
+		}
+	}
+	
 //	=================================== HELPERS ===================================
 	
 	protected double iterate(TSVReader<N> reader, List<String> inputFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica, boolean evaluate)
+	{
+		if (!evaluate && isConcurrentTraining(component))
+			return iterateConcurrently(reader, inputFiles, component, lexica);
+		
+		long[] p = iterateFiles(reader, inputFiles, component, lexica, evaluate);
+		return 1000d * p[0] / Math.max(1, p[1]);
+	}
+	
+	/** @return {the number of tokens (or documents), the processing time in milliseconds}. */
+	protected long[] iterateFiles(TSVReader<N> reader, List<String> inputFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica, boolean evaluate)
 	{
 		long st, et, time = 0, unit = 0;
 		List<N[]> document;
@@ -286,7 +391,7 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 		
 		for (String inputFile : inputFiles)
 		{
-			reader.open(IOUtils.createFileInputStream(inputFile));
+			reader.open(inputFile);
 			
 			try
 			{
@@ -320,7 +425,160 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 		}
 		
 		if (!evaluate) update(component, count, true);
-		return 1000d * unit / time;
+		return new long[]{unit, time};
+	}
+	
+	/**
+	 * Compiles each input file into a temporary {@link TSVCache},
+	 * which is read by {@link TSVReader#open(String)} instead of the file (see {@link HyperParameter#isCorpusCache()}).
+	 */
+	protected void cache(TSVReader<N> reader, List<String> inputFiles)
+	{
+		for (String inputFile : inputFiles)
+		{
+			try
+			{
+				File file = File.createTempFile("nlp4j-", "."+TSVCache.EXTENSION);
+				file.deleteOnExit();
+				int count = TSVCache.compile(reader, IOUtils.createFileInputStream(inputFile), file.getPath());
+				reader.addCache(inputFile, TSVCache.open(file.getPath()));
+				LOG.info(String.format("Cached: %s (%d sentences)", inputFile, count));
+			}
+			catch (IOException e) {LOG.warn("Reading without the cache: "+inputFile, e);}
+		}
+	}
+	
+	/** @return true if the sentences can be trained by multiple threads (see {@link HyperParameter#getThreadSize()}). */
+	protected boolean isConcurrentTraining(OnlineComponent<N,S> component)
+	{
+		return component.getHyperParameter().getThreadSize() > 1 && !component.isDocumentBased() && component.getOptimizer().supportsConcurrentTraining();
+	}
+	
+	/**
+	 * Trains the sentences with multiple threads that share the weights without locking (Hogwild!).
+	 * This thread reads the sentences into mini-batches; each worker takes one mini-batch at a time from a bounded queue,
+	 * processes its sentences, and updates the weights with its own gradients (see {@link OnlineOptimizer#updateMiniBatch()}).
+	 * @return the number of tokens processed per second.
+	 * @throws IllegalStateException if reading or any worker fails, in which case the epoch is only partly trained.
+	 */
+	protected double iterateConcurrently(TSVReader<N> reader, List<String> inputFiles, OnlineComponent<N,S> component, GlobalLexica<N> lexica)
+	{
+		OnlineOptimizer optimizer = component.getOptimizer();
+		HyperParameter hp = component.getHyperParameter();
+		int i, threads = hp.getThreadSize(), batchSize = Math.max(1, hp.getBatchSize());
+		
+		BlockingQueue<List<N[]>> queue = new ArrayBlockingQueue<>(threads * 2);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Long>> futures = new ArrayList<>();
+		long st = System.currentTimeMillis(), unit = 0;
+		List<N[]> batch = new ArrayList<>();
+		N[] nodes;
+		
+		optimizer.setConcurrentTraining(true);
+		
+		try
+		{
+			for (i=0; i<threads; i++) futures.add(executor.submit(() -> trainConcurrently(queue, component, lexica)));
+			
+			for (String inputFile : inputFiles)
+			{
+				reader.open(inputFile);
+				
+				try
+				{
+					while ((nodes = reader.next()) != null)
+					{
+						batch.add(nodes);
+						
+						if (batch.size() == batchSize)
+						{
+							put(queue, batch, futures);
+							batch = new ArrayList<>();
+						}
+					}
+				}
+				catch (IOException e) {e.printStackTrace();}
+				finally {reader.close();}
+			}
+			
+			if (!batch.isEmpty()) put(queue, batch, futures);
+			// an empty batch tells each worker to stop
+			for (i=0; i<threads; i++) put(queue, new ArrayList<>(), futures);
+			for (Future<Long> f : futures) unit += f.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while training", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Failed to train", e.getCause());
+		}
+		catch (RuntimeException e)
+		{
+			throw new IllegalStateException("Failed to train", e);
+		}
+		finally
+		{
+			// the workers blocked on the queue are interrupted; the lock is dropped only after all of them stop
+			executor.shutdownNow();
+			awaitTermination(executor);
+			optimizer.setConcurrentTraining(false);
+		}
+		
+		return 1000d * unit / Math.max(1, System.currentTimeMillis() - st);
+	}
+	
+	/** Puts the batch to the queue, checking the workers while the queue is full so that a failed worker does not block this thread forever. */
+	private void put(BlockingQueue<List<N[]>> queue, List<N[]> batch, List<Future<Long>> futures) throws InterruptedException, ExecutionException
+	{
+		while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+		{
+			for (Future<Long> f : futures)
+				if (f.isDone()) f.get();
+		}
+	}
+	
+	private void awaitTermination(ExecutorService executor)
+	{
+		boolean interrupted = false;
+		
+		while (true)
+		{
+			try
+			{
+				if (executor.awaitTermination(1, TimeUnit.SECONDS)) break;
+			}
+			catch (InterruptedException e) {interrupted = true;}
+		}
+		
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+	
+	/** @return the number of tokens trained by this worker. */
+	private long trainConcurrently(BlockingQueue<List<N[]>> queue, OnlineComponent<N,S> component, GlobalLexica<N> lexica) throws InterruptedException
+	{
+		OnlineOptimizer optimizer = component.getOptimizer();
+		List<N[]> batch;
+		long unit = 0;
+		
+		while (!(batch = queue.take()).isEmpty())
+		{
+			try
+			{
+				for (N[] nodes : batch)
+				{
+					lexica.process(nodes);
+					component.process(nodes);
+					unit += nodes.length - 1;
+				}
+			}
+			catch (Exception e) {e.printStackTrace();}
+			optimizer.updateMiniBatch();
+		}
+		
+		return unit;
 	}
 	
 	protected int update(OnlineComponent<N,S> component, int count, boolean last)
@@ -350,7 +608,6 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 		catch (IOException e) {e.printStackTrace();}
 	}
 	
-	@SuppressWarnings("unchecked")
 	public void reduceModel(TSVReader<N> reader, List<String> filenames, OnlineComponent<N,S> component, GlobalLexica<N> lexica, String modelFile, String reducedModelFile)
 	{
 		LOG.info("Reducing:");
@@ -369,11 +626,11 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 		float range = XMLUtils.getFloatTextContentFromFirstElementByTagName  (eReduce, "range");
 		int   iter  = XMLUtils.getIntegerTextContentFromFirstElementByTagName(eReduce, "iteration");
 		
-		byte[] backup;
+		ModelSnapshot backup = new ModelSnapshot(true);
 		
 		for (rate=start; ; rate+=inc)
 		{
-			backup = IOUtils.toByteArray(component);
+			backup.save(component);
 			component.getFeatureTemplate().reduce(component.getOptimizer().getWeightVector(), rate);
 			p = evaluate(filenames, component, lexica, reader);
 			LOG.info(String.format("%8.4f: %7d -> %s, N/S = %6d", rate, component.getFeatureTemplate().getSparseFeatureSize(), component.getEval().toString(), p.i));
@@ -385,11 +642,32 @@ public abstract class OnlineTrainer<N extends AbstractNLPNode<N>, S extends NLPS
 			}
 			else if (p.d < lowerBound)
 			{
-				component = (OnlineComponent<N,S>)IOUtils.fromByteArray(backup);
+				backup.restore(component);
 				rate -= inc;
 				inc /= 2;
 				iter--;
 			}
 		}
 	}
+	
+	/**
+	 * Quantizes the weights of the component (see {@link WeightVector#quantize(Quantization)}) and saves it to the file,
+	 * where the development files are evaluated before and after the quantization to report the difference in accuracy.
+	 * @return the score after the quantization minus the score before.
+	 */
+	public double quantizeModel(TSVReader<N> reader, List<String> filenames, OnlineComponent<N,S> component, GlobalLexica<N> lexica, Quantization quantization, String quantizedModelFile)
+	{
+		LOG.info("Quantizing: "+quantization);
+		DoubleIntPair p = evaluate(filenames, component, lexica, reader);
+		double score = p.d;
+		LOG.info(String.format("%7s: %s, N/S = %6d", "float32", component.getEval().toString(), p.i));
+		
+		for (WeightVector vector : component.getOptimizer().getWeightVectors())
+			vector.quantize(quantization);
+		
+		p = evaluate(filenames, component, lexica, reader);
+		LOG.info(String.format("%7s: %s, N/S = %6d, delta = %7.4f", quantization, component.getEval().toString(), p.i, p.d - score));
+		saveModel(component, IOUtils.createFileOutputStream(quantizedModelFile));
+		return p.d - score;
+	}
 }
@@ -0,0 +1,331 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import edu.emory.mathcs.nlp.common.constant.StringConst;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.feature.FeatureTemplate;
+import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.learning.util.ColumnMajorVector;
+import edu.emory.mathcs.nlp.learning.util.FeatureMap;
+import edu.emory.mathcs.nlp.learning.util.FrozenColumnMajorVector;
+import edu.emory.mathcs.nlp.learning.util.FrozenFeatureMap;
+import edu.emory.mathcs.nlp.learning.util.MajorVector;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+/**
+ * Reads and writes frozen models, a flat binary format for decoding that can be memory-mapped.
+ * A frozen model consists of the following sections (little-endian):
+ * <ul>
+ * <li>header: magic number, version, label size, feature size, feature map size, entry size, slot size, char size, skeleton size.</li>
+ * <li>skeleton: the serialized component without its feature map and sparse weights (a few kilobytes).</li>
+ * <li>weights: the sparse weights in the column-major order (aligned to 8 bytes).</li>
+ * <li>feature map: the slots, entries, and chars of {@link FrozenFeatureMap}.</li>
+ * </ul>
+ * Once mapped, the sparse weights and the feature map are read directly from the page cache,
+ * so loading takes no deserialization and processes mapping the same file share its pages.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class FrozenModel
+{
+	static public final String EXTENSION = "frz";
+	static private final int MAGIC   = 0x4E4C5046;	// NLPF
+	static private final int VERSION = 1;
+	
+	private FrozenModel() {}
+	
+	/** @return {@code true} if the specific file is a frozen model by its extension. */
+	static public boolean isFrozen(String pathname)
+	{
+		return pathname.endsWith(StringConst.PERIOD + EXTENSION);
+	}
+	
+//	=================================== WRITE ===================================
+	
+	/**
+	 * Writes the component as a frozen model; the component is restored as it was after writing.
+	 * @throws IllegalArgumentException if the sparse weights are not column-major or the component is already frozen.
+	 */
+	static public <N extends AbstractNLPNode<N>, S extends NLPState<N>>void write(OnlineComponent<N,S> component, String filename) throws IOException
+	{
+		FeatureTemplate<N,S> template = component.getFeatureTemplate();
+		WeightVector vector = component.getOptimizer().getWeightVector();
+		MajorVector sparse = vector.getSparseWeightVector();
+		FeatureMap map = template.getFeatureMap();
+		byte[] skeleton;
+		
+		if (!(sparse instanceof ColumnMajorVector) || sparse instanceof FrozenColumnMajorVector || map instanceof FrozenFeatureMap)
+			throw new IllegalArgumentException("Only trained components with column-major sparse weights can be frozen.");
+		
+		template.setFeatureMap(template.isFeatureHashing() ? null : new FeatureMap());
+		vector.setSparseWeightVector(new ColumnMajorVector());
+		
+		try
+		{
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bout);
+			out.writeObject(component);
+			out.close();
+			skeleton = bout.toByteArray();
+		}
+		finally
+		{
+			template.setFeatureMap(map);
+			vector.setSparseWeightVector(sparse);
+		}
+		
+		if (map == null) map = new FeatureMap();
+		List<Object2IntMap<String>> indexMaps = map.getIndexMaps();
+		int entrySize = 0, charSize = 0;
+		
+		for (Object2IntMap<String> m : indexMaps)
+			entrySize += m.size();
+		
+		String[] values  = new String[entrySize];
+		int[]    entries = new int[entrySize * FrozenFeatureMap.ENTRY_SIZE];
+		int[]    slots   = new int[FrozenFeatureMap.getSlotSize(entrySize)];
+		int type, entry = 0, i, mask = slots.length - 1;
+		
+		for (type=0; type<indexMaps.size(); type++)
+		{
+			for (Object2IntMap.Entry<String> e : indexMaps.get(type).object2IntEntrySet())
+			{
+				values[entry] = e.getKey();
+				i = entry * FrozenFeatureMap.ENTRY_SIZE;
+				entries[i  ] = type;
+				entries[i+1] = e.getIntValue();
+				entries[i+2] = charSize;
+				entries[i+3] = e.getKey().length();
+				charSize += e.getKey().length();
+				
+				for (i=FrozenFeatureMap.hash(type, e.getKey()) & mask; slots[i] != 0; i=(i+1) & mask);
+				slots[i] = ++entry;
+			}
+		}
+		
+		try (BufferWriter out = new BufferWriter(Paths.get(filename)))
+		{
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(sparse.getLabelSize());
+			out.putInt(sparse.getFeatureSize());
+			out.putInt(map.size());
+			out.putInt(entrySize);
+			out.putInt(slots.length);
+			out.putInt(charSize);
+			out.putInt(skeleton.length);
+			out.put(skeleton);
+			out.align();
+			
+			for (i=0; i<sparse.size(); i++)
+				out.putFloat(sparse.get(i));
+			
+			for (int slot : slots)
+				out.putInt(slot);
+			
+			for (int e : entries)
+				out.putInt(e);
+			
+			for (String value : values)
+				for (i=0; i<value.length(); i++) out.putChar(value.charAt(i));
+		}
+	}
+	
+//	=================================== READ ===================================
+	
+	/**
+	 * Reads a frozen model from a URI, the classpath, or the file system (see {@link edu.emory.mathcs.nlp.common.util.IOUtils#createArtifactInputStream(String)}).
+	 * Models in files are memory-mapped; models inside archives are copied to the heap.
+	 */
+	static public <N extends AbstractNLPNode<N>, S extends NLPState<N>>OnlineComponent<N,S> read(String pathname) throws IOException, ClassNotFoundException
+	{
+		if (pathname.contains(":"))
+		{
+			try
+			{
+				return read(Paths.get(new URI(pathname)));
+			}
+			catch (URISyntaxException | IllegalArgumentException e) {}
+		}
+		
+		URL url = Thread.currentThread().getContextClassLoader().getResource(pathname);
+		if (url == null) return read(Paths.get(pathname));
+		
+		try
+		{
+			if ("file".equals(url.getProtocol())) return read(Paths.get(url.toURI()));
+		}
+		catch (URISyntaxException e) {}
+		
+		try (InputStream in = url.openStream())
+		{
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			byte[] b = new byte[1 << 16];
+			int count;
+			
+			while ((count = in.read(b)) != -1)
+				bout.write(b, 0, count);
+			
+			return read(ByteBuffer.wrap(bout.toByteArray()));
+		}
+	}
+	
+	/** Memory-maps the frozen model; the model must be smaller than 2GB. */
+	static public <N extends AbstractNLPNode<N>, S extends NLPState<N>>OnlineComponent<N,S> read(Path path) throws IOException, ClassNotFoundException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			return read(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	static public <N extends AbstractNLPNode<N>, S extends NLPState<N>>OnlineComponent<N,S> read(ByteBuffer buffer) throws IOException, ClassNotFoundException
+	{
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.getInt() != MAGIC) throw new IOException("Not a frozen model.");
+		int version = buffer.getInt();
+		if (version != VERSION) throw new IOException("Unsupported frozen model version: "+version);
+		
+		int labelSize    = buffer.getInt();
+		int featureSize  = buffer.getInt();
+		int mapSize      = buffer.getInt();
+		int entrySize    = buffer.getInt();
+		int slotSize     = buffer.getInt();
+		int charSize     = buffer.getInt();
+		byte[] skeleton  = new byte[buffer.getInt()];
+		OnlineComponent<N,S> component;
+		
+		buffer.get(skeleton);
+		
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(skeleton)))
+		{
+			component = (OnlineComponent<N,S>)in.readObject();
+		}
+		
+		((Buffer)buffer).position(align(buffer.position()));
+		FloatBuffer weights = slice(buffer, labelSize * featureSize * Float.BYTES).asFloatBuffer();
+		IntBuffer   slots   = slice(buffer, slotSize * Integer.BYTES).asIntBuffer();
+		IntBuffer   entries = slice(buffer, entrySize * FrozenFeatureMap.ENTRY_SIZE * Integer.BYTES).asIntBuffer();
+		CharBuffer  chars   = slice(buffer, charSize * Character.BYTES).asCharBuffer();
+		
+		component.getOptimizer().getWeightVector().setSparseWeightVector(new FrozenColumnMajorVector(weights, labelSize, featureSize));
+		if (!component.getFeatureTemplate().isFeatureHashing())
+			component.getFeatureTemplate().setFeatureMap(new FrozenFeatureMap(slots, entries, chars, mapSize));
+
+		component.setFlag(NLPFlag.DECODE);
+		return component;
+	}
+	
+	/** @return the next {@code size} bytes of the buffer as a new buffer, and moves the position of the buffer past them. */
+	static private ByteBuffer slice(ByteBuffer buffer, int size)
+	{
+		ByteBuffer b = buffer.slice();
+		((Buffer)b).limit(size);
+		((Buffer)buffer).position(buffer.position() + size);
+		return b.order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	static private int align(int position)
+	{
+		return (position + 7) & ~7;
+	}
+	
+	/** Writes primitives in the little-endian order through a fixed-size buffer. */
+	static private class BufferWriter implements Closeable
+	{
+		private FileChannel channel;
+		private ByteBuffer  buffer;
+		private long        position;
+		
+		public BufferWriter(Path path) throws IOException
+		{
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			buffer  = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		
+		public void putInt(int i) throws IOException
+		{
+			ensure(Integer.BYTES).putInt(i);
+		}
+		
+		public void putFloat(float f) throws IOException
+		{
+			ensure(Float.BYTES).putFloat(f);
+		}
+		
+		public void putChar(char c) throws IOException
+		{
+			ensure(Character.BYTES).putChar(c);
+		}
+		
+		public void put(byte[] b) throws IOException
+		{
+			for (int i=0; i<b.length; i++) ensure(1).put(b[i]);
+		}
+		
+		/** Pads zeros so that the next section begins at a multiple of 8 bytes. */
+		public void align() throws IOException
+		{
+			while ((position + buffer.position()) % 8 != 0) ensure(1).put((byte)0);
+		}
+		
+		private ByteBuffer ensure(int size) throws IOException
+		{
+			if (buffer.remaining() < size) flush();
+			return buffer;
+		}
+		
+		private void flush() throws IOException
+		{
+			((Buffer)buffer).flip();
+			while (buffer.hasRemaining()) position += channel.write(buffer);
+			((Buffer)buffer).clear();
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			flush();
+			channel.close();
+		}
+	}
+}
@@ -27,7 +27,6 @@ import edu.emory.mathcs.nlp.component.tokenizer.token.Token;
 import edu.emory.mathcs.nlp.component.tokenizer.token.TokenIndex;
 
 import java.io.BufferedReader;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -98,36 +97,29 @@ public class EnglishTokenizer extends Tokenizer
 //	============================== Segmentize ==============================
 	
 	@Override
-	public <T extends Token>List<List<T>> segmentize(List<T> tokens)
+	protected Segmenter createSegmenter()
 	{
-		List<List<T>> sentences = new ArrayList<>();
-		int[] brackets = new int[R_BRACKETS.length];
-		int bIndex, i, size = tokens.size();
-		boolean isTerminal = false;
-		String token;
-		
-		for (i=0, bIndex=0; i<size; i++)
+		return new Segmenter()
 		{
-		    token = tokens.get(i).getWordForm();
-			countBrackets(token, brackets);
+			private int[]   brackets   = new int[R_BRACKETS.length];
+			private boolean isTerminal = false;
 			
-			if (isTerminal || isFinalMarksOnly(token))
+			@Override
+			public boolean isEndOfSentence(String token, String next)
 			{
-				if (i+1 < size && isFollowedByBracket(tokens.get(i + 1).getWordForm(), brackets))
+				countBrackets(token, brackets);
+				if (!isTerminal && !isFinalMarksOnly(token)) return false;
+				
+				if (next != null && isFollowedByBracket(next, brackets))
 				{
 					isTerminal = true;
-					continue;
+					return false;
 				}
 				
-				sentences.add(tokens.subList(bIndex, bIndex = i+1));
 				isTerminal = false;
+				return true;
 			}
-		}
-		
-		if (bIndex < size)
-			sentences.add(tokens.subList(bIndex, size));
-
-		return sentences;
+		};
 	}
 	
 	public Token[] getSubArray(List<Token> tokens, int beginIndex, int endIndex)
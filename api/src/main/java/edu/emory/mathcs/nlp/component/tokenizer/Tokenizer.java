@@ -37,9 +37,13 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -141,6 +145,35 @@ abstract public class Tokenizer
 		return segmentize(tokenize(s));
 	}
 	
+	public <T extends Token>List<List<T>> segmentize(List<T> tokens)
+	{
+		List<List<T>> sentences = new ArrayList<>();
+		Segmenter segmenter = createSegmenter();
+		int bIndex, i, size = tokens.size();
+		
+		for (i=0, bIndex=0; i<size; i++)
+		{
+			if (segmenter.isEndOfSentence(tokens.get(i).getWordForm(), i+1 < size ? tokens.get(i+1).getWordForm() : null))
+				sentences.add(tokens.subList(bIndex, bIndex = i+1));
+		}
+		
+		if (bIndex < size)
+			sentences.add(tokens.subList(bIndex, size));
+		
+		return sentences;
+	}
+	
+	/**
+	 * Segments the input into sentences while reading it, where each sentence is returned as soon as its boundary is found
+	 * so that only the current sentence and the next line are kept in memory.
+	 * The sentences and their offsets are the same as the ones from {@link #segmentize(InputStream)}.
+	 * @return an iterator of the sentences in the reader, which is closed when the iteration is over.
+	 */
+	public Iterator<List<Token>> sentences(Reader in)
+	{
+		return new SentenceIterator(in);
+	}
+	
 	/** @param flag 0: word-form, 1: simplified word-form, 2: decapitalized simplified word-form. */
 	public void tokenizeLine(InputStream in, PrintStream out, String delim, int flag)
 	{
@@ -176,7 +209,102 @@ abstract public class Tokenizer
 		catch (IOException e) {e.printStackTrace();}
 	}
 
-	abstract public <T extends Token>List<List<T>> segmentize(List<T> tokens);
+	/** @return a new segmenter that finds sentence boundaries one token at a time. */
+	abstract protected Segmenter createSegmenter();
+	
+	/** Finds sentence boundaries; called by {@link #segmentize(List)} and {@link #sentences(Reader)}. */
+	protected interface Segmenter
+	{
+		/**
+		 * @param token the word-form of the current token.
+		 * @param next the word-form of the next token if exists; otherwise, {@code null}.
+		 * @return {@code true} if the current token ends a sentence.
+		 */
+		boolean isEndOfSentence(String token, String next);
+	}
+	
+	private class SentenceIterator implements Iterator<List<Token>>
+	{
+		private BufferedReader reader;
+		private Segmenter      segmenter;
+		/** Tokens that have been read but not returned. */
+		private List<Token>    tokens;
+		/** The index of the next token in {@link #tokens} to be passed to the segmenter. */
+		private int            index;
+		private int            end;
+		private List<Token>    sentence;
+		
+		public SentenceIterator(Reader in)
+		{
+			reader    = (in instanceof BufferedReader) ? (BufferedReader)in : new BufferedReader(in);
+			segmenter = createSegmenter();
+			tokens    = new ArrayList<>();
+			end       = -1;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			if (sentence == null) sentence = nextSentence();
+			return sentence != null;
+		}
+		
+		@Override
+		public List<Token> next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			List<Token> s = sentence;
+			sentence = null;
+			return s;
+		}
+		
+		private List<Token> nextSentence()
+		{
+			try
+			{
+				while (true)
+				{
+					// the segmenter needs the next token, which may not have been read yet
+					for (; index < tokens.size() && (index+1 < tokens.size() || reader == null); index++)
+					{
+						if (segmenter.isEndOfSentence(tokens.get(index).getWordForm(), index+1 < tokens.size() ? tokens.get(index+1).getWordForm() : null))
+							return remove(++index);
+					}
+					
+					if (reader == null)
+						return tokens.isEmpty() ? null : remove(tokens.size());
+					
+					readLine();
+				}
+			}
+			catch (IOException e) {throw new UncheckedIOException(e);}
+		}
+		
+		private void readLine() throws IOException
+		{
+			String line = reader.readLine();
+			
+			if (line == null)
+			{
+				reader.close();
+				reader = null;
+				return;
+			}
+			
+			// the same offsets as tokenize(InputStream)
+			int start = (end < 0) ? 0 : end + System.getProperty("line.separator").length();
+			end = start + line.length();
+			tokens.addAll(tokenizeWhiteSpaces(line, start));
+		}
+		
+		private List<Token> remove(int size)
+		{
+			List<Token> s = new ArrayList<>(tokens.subList(0, size));
+			tokens.subList(0, size).clear();
+			index -= size;
+			return s;
+		}
+	}
 
 //	============================== Tokenize ==============================
 
@@ -22,11 +22,14 @@ import edu.emory.mathcs.nlp.common.util.Joiner;
 import edu.emory.mathcs.nlp.common.util.Language;
 import edu.emory.mathcs.nlp.component.morph.MorphologicalAnalyzer;
 import edu.emory.mathcs.nlp.component.template.NLPComponent;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
 import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
 import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
 import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
 import edu.emory.mathcs.nlp.component.tokenizer.Tokenizer;
 import edu.emory.mathcs.nlp.component.tokenizer.token.Token;
+import edu.emory.mathcs.nlp.decode.metrics.DecodeMetrics;
+import edu.emory.mathcs.nlp.decode.metrics.StageMetrics;
 
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import org.slf4j.Logger;
@@ -35,16 +38,24 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Array;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -60,6 +71,14 @@ import java.util.function.Function;
  * Applications should include {@link GlobalLexica} as the first component, and then other components as needed.
  * Note that if you do not initialize from a {@code DecodeConfig},
  * you must call {@link #setReaderFieldMap(Object2IntMap)} in order to use TSV files.
+ * <br>
+ * By default, sentences within a stream are decoded one at a time on the calling thread;
+ * calling {@link #setBatchSize(int)} with more than one sentence decodes them in batches (see {@link #decodeBatch(List)}).
+ * Calling {@link #setSentenceThreads(int)} with more than one thread decodes the batches on a worker pool
+ * while the calling thread keeps reading and tokenizing; the output is still written in the input order.
+ * <br>
+ * Calling {@link #setMetrics(DecodeMetrics)} records the latency and throughput of the tokenizer and each component per sentence;
+ * no metrics are recorded by default.
  *
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
@@ -73,6 +92,12 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 	volatile private List<NLPComponent<N>> components;
 	volatile private Tokenizer tokenizer;
 	private Object2IntMap<String> readerFieldMap;
+	
+	volatile private ExecutorService sentence_executor;
+	volatile private int sentence_threads = 1;
+	volatile private int queue_size = 256;
+	volatile private int batch_size = 1;
+	volatile private DecodeMetrics metrics;
 
 //	======================================== CONSTRUCTORS ========================================
 	
@@ -156,6 +181,58 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 		this.components = components;
 	}
 	
+	public int getSentenceThreads()
+	{
+		return sentence_threads;
+	}
+	
+	/**
+	 * Sets the number of worker threads that decode sentences within each stream.
+	 * @param threads if {@code threads <= 1}, sentences are decoded on the calling thread.
+	 */
+	synchronized public void setSentenceThreads(int threads)
+	{
+		if (sentence_executor != null) sentence_executor.shutdown();
+		sentence_threads  = Math.max(1, threads);
+		sentence_executor = (sentence_threads > 1) ? Executors.newFixedThreadPool(sentence_threads, r -> {Thread t = new Thread(r); t.setDaemon(true); return t;}) : null;
+	}
+	
+	public int getQueueSize()
+	{
+		return queue_size;
+	}
+	
+	/** Sets the maximum number of sentences in flight per stream when {@link #getSentenceThreads()} {@code > 1}. */
+	public void setQueueSize(int size)
+	{
+		queue_size = Math.max(1, size);
+	}
+	
+	public int getBatchSize()
+	{
+		return batch_size;
+	}
+	
+	/**
+	 * Sets the number of sentences within a stream that are decoded together (see {@link #decodeBatch(List)}).
+	 * @param size if {@code size <= 1}, sentences are decoded one at a time.
+	 */
+	public void setBatchSize(int size)
+	{
+		batch_size = Math.max(1, size);
+	}
+	
+	public DecodeMetrics getMetrics()
+	{
+		return metrics;
+	}
+	
+	/** @param metrics if {@code null}, no metrics are recorded. */
+	public void setMetrics(DecodeMetrics metrics)
+	{
+		this.metrics = metrics;
+	}
+	
 //	======================================== DECODE ========================================
 
 	public void decode(List<String> inputFiles, String outputExt, String format, int threads)
@@ -216,13 +293,11 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 	public List<N[]> decodeDocument(InputStream in) throws IOException
 	{
 		List<N[]> document = new ArrayList<>();
-		N[] nodes;
 		
-		for (List<Token> tokens : tokenizer.segmentize(in))
+		try (DecodePipeline pipeline = new DecodePipeline(document::add))
 		{
-			nodes = toNodeArray(tokens);
-			decode(nodes);
-			document.add(nodes);
+			Iterator<List<Token>> it = sentences(in);
+			while (it.hasNext()) pipeline.add(toNodeArray(it.next()));
 		}
 		
 		in.close();
@@ -237,13 +312,11 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 	public void decodeRaw(InputStream in, OutputStream out) throws IOException
 	{
 		PrintStream fout = IOUtils.createBufferedPrintStream(out);
-		N[] nodes;
 		
-		for (List<Token> tokens : tokenizer.segmentize(in))
+		try (DecodePipeline pipeline = new DecodePipeline(nodes -> fout.println(toString(nodes)+"\n")))
 		{
-			nodes = toNodeArray(tokens);
-			decode(nodes);
-			fout.println(toString(nodes)+"\n");
+			Iterator<List<Token>> it = sentences(in);
+			while (it.hasNext()) pipeline.add(toNodeArray(it.next()));
 		}
 		
 		in.close();
@@ -254,13 +327,12 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 	{
 		BufferedReader reader = IOUtils.createBufferedReader(in);
 		PrintStream fout = IOUtils.createBufferedPrintStream(out);
-		N[] nodes;
 		String line;
 		
-		while ((line = reader.readLine()) != null)
+		try (DecodePipeline pipeline = new DecodePipeline(nodes -> fout.println(toString(nodes)+"\n")))
 		{
-			nodes = decode(line);
-			fout.println(toString(nodes)+"\n");
+			while ((line = reader.readLine()) != null)
+				pipeline.add(toNodeArray(tokenize(line)));
 		}
 		
 		reader.close();
@@ -274,10 +346,10 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 		
 		reader.open(in);
 		
-		while ((nodes = reader.next()) != null)
+		try (DecodePipeline pipeline = new DecodePipeline(n -> fout.println(toString(n)+"\n")))
 		{
-			decode(nodes);
-			fout.println(toString(nodes)+"\n");
+			while ((nodes = reader.next()) != null)
+				pipeline.add(nodes);
 		}
 		
 		reader.close();
@@ -286,18 +358,134 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 	
 	public N[] decode(String sentence)
 	{
-		List<Token> tokens = tokenizer.tokenize(sentence);
+		List<Token> tokens = tokenize(sentence);
 		return decode(toNodeArray(tokens));
 	}
 	
 	public N[] decode(N[] nodes)
 	{
+		DecodeMetrics m = metrics;
+		if (m != null && m.isEnabled()) return decode(nodes, m);
+		
 		for (NLPComponent<N> component : components)
 			component.process(nodes);
 		
 		return nodes;
 	}
 	
+	/** Decodes the sentence while recording the metrics of each component. */
+	private N[] decode(N[] nodes, DecodeMetrics m)
+	{
+		int transitions;
+		long st;
+		
+		for (NLPComponent<N> component : components)
+		{
+			st = System.nanoTime();
+			
+			if (component instanceof OnlineComponent)
+				transitions = ((OnlineComponent<N,?>)component).processTransitions(nodes);
+			else
+			{
+				component.process(nodes);
+				transitions = 0;
+			}
+			
+			m.getStage(getStageName(component)).record(System.nanoTime() - st, nodes.length - 1, transitions);
+		}
+		
+		return nodes;
+	}
+	
+	/**
+	 * Decodes the independent sentences together, where each {@link OnlineComponent} steps through them in lock-step
+	 * and scores their states in batches (see {@link OnlineComponent#processBatch(List)}).
+	 * If the metrics are enabled, each sentence is recorded with the average latency of the batch and its own transitions.
+	 */
+	public List<N[]> decodeBatch(List<N[]> sentences)
+	{
+		DecodeMetrics m = metrics;
+		if (m != null && !m.isEnabled()) m = null;
+		int[] transitions;
+		long st = 0;
+		
+		for (NLPComponent<N> component : components)
+		{
+			if (m != null) st = System.nanoTime();
+			
+			if (component instanceof OnlineComponent)
+				transitions = ((OnlineComponent<N,?>)component).processBatch(sentences);
+			else
+			{
+				for (N[] nodes : sentences) component.process(nodes);
+				transitions = null;
+			}
+			
+			if (m != null && !sentences.isEmpty())
+			{
+				StageMetrics stage = m.getStage(getStageName(component));
+				long nanos = (System.nanoTime() - st) / sentences.size();
+				
+				for (int i=0; i<sentences.size(); i++)
+					stage.record(nanos, sentences.get(i).length - 1, transitions != null ? transitions[i] : 0);
+			}
+		}
+		
+		return sentences;
+	}
+	
+	/** @return the tokens of the sentence, whose tokenization is recorded if the metrics are enabled. */
+	private List<Token> tokenize(String sentence)
+	{
+		DecodeMetrics m = metrics;
+		if (m == null || !m.isEnabled()) return tokenizer.tokenize(sentence);
+		
+		long st = System.nanoTime();
+		List<Token> tokens = tokenizer.tokenize(sentence);
+		m.getStage(DecodeMetrics.TOKENIZER).record(System.nanoTime() - st, tokens.size(), 0);
+		return tokens;
+	}
+	
+	/** @return the sentences segmented from the input stream, whose tokenization is recorded if the metrics are enabled. */
+	private Iterator<List<Token>> sentences(InputStream in)
+	{
+		Iterator<List<Token>> it = tokenizer.sentences(IOUtils.createBufferedReader(in));
+		DecodeMetrics m = metrics;
+		if (m == null || !m.isEnabled()) return it;
+		StageMetrics stage = m.getStage(DecodeMetrics.TOKENIZER);
+		
+		// the tokenizer finds the next sentence in hasNext()
+		return new Iterator<List<Token>>()
+		{
+			private long nanos = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				long st = System.nanoTime();
+				boolean b = it.hasNext();
+				nanos += System.nanoTime() - st;
+				return b;
+			}
+			
+			@Override
+			public List<Token> next()
+			{
+				long st = System.nanoTime();
+				List<Token> tokens = it.next();
+				stage.record(nanos + System.nanoTime() - st, tokens.size(), 0);
+				nanos = 0;
+				return tokens;
+			}
+		};
+	}
+	
+	static private String getStageName(Object component)
+	{
+		String name = component.getClass().getSimpleName();
+		return name.isEmpty() ? component.getClass().getName() : name;
+	}
+	
 	public N[] toNodeArray(List<Token> tokens)
 	{
 		return toNodeArray(tokens, t -> create(t));
@@ -366,4 +554,93 @@ public abstract class AbstractNLPDecoder<N extends AbstractNLPNode<N>>
 			decode(in, out, format);
 		}
 	}
+	
+	/**
+	 * Decodes sentences in batches of {@link #getBatchSize()} sentences (see {@link #decodeBatch(List)}), on the sentence worker pool if any,
+	 * and passes them to the consumer in the order they are added. At most {@link #getQueueSize()} sentences are in flight;
+	 * {@link #add(AbstractNLPNode[])} blocks until the oldest batch is consumed.
+	 */
+	class DecodePipeline implements Closeable
+	{
+		private ExecutorService          executor;
+		private Deque<Future<List<N[]>>> queue;
+		private Consumer<N[]>            consumer;
+		private List<N[]>                batch;
+		private int                      batch_size;
+		private int                      in_flight;
+		
+		public DecodePipeline(Consumer<N[]> consumer)
+		{
+			this.executor   = sentence_executor;
+			this.consumer   = consumer;
+			this.queue      = new ArrayDeque<>();
+			this.batch_size = AbstractNLPDecoder.this.batch_size;
+			this.batch      = new ArrayList<>(batch_size);
+		}
+		
+		public void add(N[] nodes) throws IOException
+		{
+			batch.add(nodes);
+			if (batch.size() >= batch_size) flush();
+		}
+		
+		private void flush() throws IOException
+		{
+			if (batch.isEmpty()) return;
+			List<N[]> sentences = batch;
+			batch = new ArrayList<>(batch_size);
+			
+			if (executor == null)
+				process(sentences).forEach(consumer);
+			else
+			{
+				queue.add(executor.submit(() -> process(sentences)));
+				in_flight += sentences.size();
+				while (in_flight >= queue_size && !queue.isEmpty()) poll();
+			}
+		}
+		
+		private List<N[]> process(List<N[]> sentences)
+		{
+			if (sentences.size() == 1) decode(sentences.get(0));
+			else decodeBatch(sentences);
+			return sentences;
+		}
+		
+		private void poll() throws IOException
+		{
+			try
+			{
+				List<N[]> sentences = queue.poll().get();
+				in_flight -= sentences.size();
+				sentences.forEach(consumer);
+			}
+			catch (InterruptedException e)
+			{
+				cancel();
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			catch (ExecutionException e)
+			{
+				cancel();
+				throw new IOException(e.getCause());
+			}
+		}
+		
+		private void cancel()
+		{
+			for (Future<List<N[]>> f : queue) f.cancel(true);
+			queue.clear();
+			in_flight = 0;
+		}
+		
+		/** Decodes the remaining sentences and passes them to the consumer. */
+		@Override
+		public void close() throws IOException
+		{
+			flush();
+			while (!queue.isEmpty()) poll();
+		}
+	}
 }
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.decode.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the per-stage metrics recorded by the decoder (see {@link edu.emory.mathcs.nlp.decode.AbstractNLPDecoder#setMetrics(DecodeMetrics)}).
+ * The metrics can be read through {@link #getStages()}, {@link #toString()}, or JMX once {@link #register(String)} is called.
+ * Subclasses can override {@link #createStage(String)} to plug in their own accumulators.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class DecodeMetrics implements DecodeMetricsMXBean
+{
+	static public final String TOKENIZER = "Tokenizer";
+	static public final String DOMAIN    = "edu.emory.mathcs.nlp";
+	
+	private Map<String,StageMetrics> stage_map;
+	private List<StageMetrics>       stages;
+	private volatile boolean         enabled;
+	
+	public DecodeMetrics()
+	{
+		stage_map = new ConcurrentHashMap<>();
+		stages    = new CopyOnWriteArrayList<>();
+		enabled   = true;
+	}
+	
+	@Override
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+	
+	@Override
+	public void setEnabled(boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+	
+//	=================================== STAGES ===================================
+	
+	/** @return the metrics of the stage, which is created if it does not exist. */
+	public StageMetrics getStage(String name)
+	{
+		StageMetrics stage = stage_map.get(name);
+		return (stage != null) ? stage : addStage(name);
+	}
+	
+	synchronized private StageMetrics addStage(String name)
+	{
+		StageMetrics stage = stage_map.get(name);
+		
+		if (stage == null)
+		{
+			stage = createStage(name);
+			stages.add(stage);
+			stage_map.put(name, stage);
+		}
+		
+		return stage;
+	}
+	
+	protected StageMetrics createStage(String name)
+	{
+		return new StageMetrics(name);
+	}
+	
+	@Override
+	public List<StageSnapshot> getStages()
+	{
+		List<StageSnapshot> list = new ArrayList<>(stages.size());
+		for (StageMetrics stage : stages) list.add(stage.getSnapshot());
+		return list;
+	}
+	
+	@Override
+	public void clear()
+	{
+		for (StageMetrics stage : stages) stage.clear();
+	}
+	
+//	=================================== JMX ===================================
+	
+	/**
+	 * Registers this object to the platform MBean server as {@code edu.emory.mathcs.nlp:type=DecodeMetrics,name=<name>}.
+	 * @return the name of the registered bean.
+	 */
+	public ObjectName register(String name) throws JMException
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(DOMAIN+":type=DecodeMetrics,name="+ObjectName.quote(name));
+		server.registerMBean(this, objectName);
+		return objectName;
+	}
+	
+	public void unregister(ObjectName name) throws JMException
+	{
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (StageSnapshot stage : getStages())
+		{
+			if (build.length() > 0) build.append("\n");
+			build.append(stage.toString());
+		}
+		
+		return build.toString();
+	}
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.decode.metrics;
+
+import java.util.List;
+
+/**
+ * Management interface of {@link DecodeMetrics} (see {@link DecodeMetrics#register(String)}).
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public interface DecodeMetricsMXBean
+{
+	boolean isEnabled();
+	void    setEnabled(boolean enabled);
+	
+	/** @return the snapshots of all stages in the order they are first recorded. */
+	List<StageSnapshot> getStages();
+	
+	/** Clears the metrics of all stages. */
+	void clear();
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.decode.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds in the style of HdrHistogram, where each power of two is split into {@link #SUB_BUCKETS} linear buckets
+ * so that every recorded value is kept within the relative error of {@code 1/}{@link #SUB_BUCKETS} using a fixed number of counters.
+ * Values are recorded without locking so that multiple threads can record at the same time.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LatencyHistogram
+{
+	static private final int SUB_BITS = 5;
+	static public  final int SUB_BUCKETS = 1 << SUB_BITS;
+	
+	private AtomicLongArray counts;
+	private LongAdder       count;
+	private LongAdder       total;
+	private LongAccumulator max;
+	
+	public LatencyHistogram()
+	{
+		counts = new AtomicLongArray((Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS);
+		count  = new LongAdder();
+		total  = new LongAdder();
+		max    = new LongAccumulator(Long::max, 0);
+	}
+	
+	/** @param nanos negative values are recorded as 0. */
+	public void record(long nanos)
+	{
+		if (nanos < 0) nanos = 0;
+		counts.incrementAndGet(getIndex(nanos));
+		count.increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+	
+	public void clear()
+	{
+		for (int i=0; i<counts.length(); i++) counts.set(i, 0);
+		count.reset();
+		total.reset();
+		max.reset();
+	}
+	
+//	=================================== GETTERS ===================================
+	
+	public long getCount()
+	{
+		return count.sum();
+	}
+	
+	/** @return the sum of all recorded values. */
+	public long getTotal()
+	{
+		return total.sum();
+	}
+	
+	public long getMax()
+	{
+		return max.get();
+	}
+	
+	public double getMean()
+	{
+		long n = getCount();
+		return n == 0 ? 0 : (double)getTotal() / n;
+	}
+	
+	/**
+	 * @param percentile in {@code [0, 100]}.
+	 * @return the value at the percentile within the relative error of the buckets; 0 if no value is recorded.
+	 */
+	public long getPercentile(double percentile)
+	{
+		long n = 0, rank;
+		int i;
+		
+		for (i=0; i<counts.length(); i++) n += counts.get(i);
+		if (n == 0) return 0;
+		rank = Math.max(1, (long)Math.ceil(n * percentile / 100));
+		
+		for (i=0,n=0; i<counts.length(); i++)
+		{
+			n += counts.get(i);
+			if (n >= rank) return Math.min(getValue(i), getMax());
+		}
+		
+		return getMax();
+	}
+	
+//	=================================== BUCKETS ===================================
+	
+	/** Values below {@link #SUB_BUCKETS} take their own buckets; the others take the buckets of their top {@code SUB_BITS+1} bits. */
+	static int getIndex(long value)
+	{
+		if (value < SUB_BUCKETS) return (int)value;
+		int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BITS - 1;
+		return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+	}
+	
+	/** @return the middle value of the bucket. */
+	static long getValue(int index)
+	{
+		if (index < SUB_BUCKETS) return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long lower = (long)(index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		return lower + ((1L << shift) >> 1);
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.decode.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one decoding stage (e.g., tokenization, a component), recorded per sentence by multiple threads without locking.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class StageMetrics
+{
+	/** The upper bounds (inclusive) of the sentence-length buckets; longer sentences fall into the last bucket. */
+	static public final int[] LENGTH_BOUNDS = {8, 16, 32, 64, 128};
+	
+	private String           name;
+	private LatencyHistogram latency;
+	private LongAdder        tokens;
+	private LongAdder        transitions;
+	private LongAdder[]      length_counts;
+	private LongAdder[]      length_nanos;
+	
+	public StageMetrics(String name)
+	{
+		this.name     = name;
+		latency       = new LatencyHistogram();
+		tokens        = new LongAdder();
+		transitions   = new LongAdder();
+		length_counts = new LongAdder[LENGTH_BOUNDS.length+1];
+		length_nanos  = new LongAdder[LENGTH_BOUNDS.length+1];
+		
+		for (int i=0; i<length_counts.length; i++)
+		{
+			length_counts[i] = new LongAdder();
+			length_nanos [i] = new LongAdder();
+		}
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public LatencyHistogram getLatency()
+	{
+		return latency;
+	}
+	
+	/**
+	 * Records one sentence processed by this stage.
+	 * @param tokens the number of tokens in the sentence, excluding the artificial root.
+	 * @param transitions the number of transitions made for the sentence; 0 if not transition-based.
+	 */
+	public void record(long nanos, int tokens, int transitions)
+	{
+		int b = getLengthBucket(tokens);
+		latency.record(nanos);
+		this.tokens.add(tokens);
+		if (transitions > 0) this.transitions.add(transitions);
+		length_counts[b].increment();
+		length_nanos [b].add(nanos);
+	}
+	
+	public void clear()
+	{
+		latency.clear();
+		tokens.reset();
+		transitions.reset();
+		
+		for (int i=0; i<length_counts.length; i++)
+		{
+			length_counts[i].reset();
+			length_nanos [i].reset();
+		}
+	}
+	
+	static public int getLengthBucket(int tokens)
+	{
+		for (int i=0; i<LENGTH_BOUNDS.length; i++)
+			if (tokens <= LENGTH_BOUNDS[i]) return i;
+		
+		return LENGTH_BOUNDS.length;
+	}
+	
+	public StageSnapshot getSnapshot()
+	{
+		long[] counts = new long[length_counts.length];
+		long[] nanos  = new long[length_nanos .length];
+		
+		for (int i=0; i<counts.length; i++)
+		{
+			counts[i] = length_counts[i].sum();
+			nanos [i] = length_nanos [i].sum();
+		}
+		
+		return new StageSnapshot(name, latency, tokens.sum(), transitions.sum(), counts, nanos);
+	}
+}
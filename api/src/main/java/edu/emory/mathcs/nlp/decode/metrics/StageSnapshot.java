@@ -0,0 +1,184 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.decode.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable metrics of one decoding stage at a point in time (see {@link StageMetrics#getSnapshot()}).
+ * Latencies are in microseconds; throughputs are measured over the time spent in this stage, summed across threads,
+ * the same way as {@code N/S} of the trainer.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class StageSnapshot
+{
+	private String name;
+	private long   sentences;
+	private long   tokens;
+	private long   transitions;
+	private long   total_nanos;
+	private double mean, p50, p90, p99, max;
+	private long[] length_counts;
+	private double[] length_means;
+	
+	public StageSnapshot(String name, LatencyHistogram latency, long tokens, long transitions, long[] lengthCounts, long[] lengthNanos)
+	{
+		this(name, latency.getCount(), tokens, transitions, latency.getTotal(),
+			 toMicros(latency.getMean()), toMicros(latency.getPercentile(50)), toMicros(latency.getPercentile(90)), toMicros(latency.getPercentile(99)), toMicros(latency.getMax()),
+			 lengthCounts, getMeans(lengthCounts, lengthNanos));
+	}
+	
+	@ConstructorProperties({"name", "sentences", "tokens", "transitions", "totalNanos", "meanLatency", "p50Latency", "p90Latency", "p99Latency", "maxLatency", "lengthCounts", "lengthMeanLatencies"})
+	public StageSnapshot(String name, long sentences, long tokens, long transitions, long totalNanos, double mean, double p50, double p90, double p99, double max, long[] lengthCounts, double[] lengthMeans)
+	{
+		this.name          = name;
+		this.sentences     = sentences;
+		this.tokens        = tokens;
+		this.transitions   = transitions;
+		this.total_nanos   = totalNanos;
+		this.mean          = mean;
+		this.p50           = p50;
+		this.p90           = p90;
+		this.p99           = p99;
+		this.max           = max;
+		this.length_counts = lengthCounts;
+		this.length_means  = lengthMeans;
+	}
+	
+	static private double toMicros(double nanos)
+	{
+		return nanos / 1000;
+	}
+	
+	static private double[] getMeans(long[] counts, long[] nanos)
+	{
+		double[] means = new double[counts.length];
+		
+		for (int i=0; i<means.length; i++)
+			means[i] = counts[i] == 0 ? 0 : toMicros((double)nanos[i] / counts[i]);
+		
+		return means;
+	}
+	
+//	=================================== GETTERS ===================================
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public long getSentences()
+	{
+		return sentences;
+	}
+	
+	public long getTokens()
+	{
+		return tokens;
+	}
+	
+	public long getTransitions()
+	{
+		return transitions;
+	}
+	
+	public long getTotalNanos()
+	{
+		return total_nanos;
+	}
+	
+	public double getMeanLatency()
+	{
+		return mean;
+	}
+	
+	public double getP50Latency()
+	{
+		return p50;
+	}
+	
+	public double getP90Latency()
+	{
+		return p90;
+	}
+	
+	public double getP99Latency()
+	{
+		return p99;
+	}
+	
+	public double getMaxLatency()
+	{
+		return max;
+	}
+	
+	/** @return the number of sentences in each bucket of {@link StageMetrics#LENGTH_BOUNDS}. */
+	public long[] getLengthCounts()
+	{
+		return length_counts.clone();
+	}
+	
+	/** @return the mean latency of the sentences in each bucket of {@link StageMetrics#LENGTH_BOUNDS}. */
+	public double[] getLengthMeanLatencies()
+	{
+		return length_means.clone();
+	}
+	
+	public double getTokensPerSecond()
+	{
+		return perSecond(tokens);
+	}
+	
+	public double getSentencesPerSecond()
+	{
+		return perSecond(sentences);
+	}
+	
+	public double getTransitionsPerSentence()
+	{
+		return sentences == 0 ? 0 : (double)transitions / sentences;
+	}
+	
+	private double perSecond(long count)
+	{
+		return total_nanos == 0 ? 0 : 1e9 * count / total_nanos;
+	}
+	
+	@Override
+	public String toString()
+	{
+		StringBuilder build = new StringBuilder();
+		
+		build.append(String.format("%-22s S = %8d, T = %9d, T/S = %9.0f, S/S = %8.0f, mean = %9.1f, p50 = %9.1f, p90 = %9.1f, p99 = %9.1f, max = %10.1f (us)",
+			name, sentences, tokens, getTokensPerSecond(), getSentencesPerSecond(), mean, p50, p90, p99, max));
+		
+		if (transitions > 0)
+			build.append(String.format(", transitions/S = %5.1f", getTransitionsPerSentence()));
+		
+		int[] bounds = StageMetrics.LENGTH_BOUNDS;
+		String range;
+		
+		for (int i=0; i<length_counts.length; i++)
+		{
+			if (length_counts[i] == 0) continue;
+			range = (i == 0) ? "1" : Integer.toString(bounds[i-1]+1);
+			range += (i < bounds.length) ? "-"+bounds[i] : "+";
+			build.append(String.format("\n%-22s len %7s: S = %8d, mean = %9.1f (us)", "", range, length_counts[i], length_means[i]));
+		}
+		
+		return build.toString();
+	}
+}
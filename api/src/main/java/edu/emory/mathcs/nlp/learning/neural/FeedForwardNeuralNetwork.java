@@ -23,11 +23,15 @@ import edu.emory.mathcs.nlp.learning.optimization.reguralization.Regularizer;
 import edu.emory.mathcs.nlp.learning.util.FeatureVector;
 import edu.emory.mathcs.nlp.learning.util.Instance;
 import edu.emory.mathcs.nlp.learning.util.MajorVector;
-import edu.emory.mathcs.nlp.learning.util.SparseItem;
 import edu.emory.mathcs.nlp.learning.util.SparseVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -49,6 +53,8 @@ public abstract class FeedForwardNeuralNetwork extends OnlineOptimizer
 	protected WeightVector    w_h2o;
 	protected WeightVector[]  w_h2h;
 	protected WeightGenerator generator;
+	/** The activations and the errors of each thread, reused across instances (see {@link Workspace}). */
+	protected transient ThreadLocal<Workspace> workspaces;
 	
 //	============================== CONSTRUCTORS ==============================
 	
@@ -93,11 +99,34 @@ public abstract class FeedForwardNeuralNetwork extends OnlineOptimizer
 		
 		w_h2o = new WeightVector(createActivationFunctionH2O());
 		this.generator = generator;
+		initWorkspaces();
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		initWorkspaces();
+	}
+	
+	private void initWorkspaces()
+	{
+		workspaces = ThreadLocal.withInitial(() -> new Workspace(hidden_dimensions));
 	}
 	
 	/** @return the activation function between the last hidden layer to the output layer. */
 	protected abstract ActivationFunction createActivationFunctionH2O();
 	
+	/** @return the weights between the input and the first hidden layers, between hidden layers, and between the last hidden and the output layers. */
+	@Override
+	public List<WeightVector> getWeightVectors()
+	{
+		List<WeightVector> list = new ArrayList<>();
+		list.add(weight_vector);
+		list.addAll(Arrays.asList(w_h2h));
+		list.add(w_h2o);
+		return list;
+	}
+	
 //	=================================== OVERRIDE ===================================
 
 	@Override
@@ -114,6 +143,13 @@ public abstract class FeedForwardNeuralNetwork extends OnlineOptimizer
 		steps++;
 	}
 	
+	/** The hidden layers are expanded and dropped out per instance, which cannot be shared by concurrent threads. */
+	@Override
+	public boolean supportsConcurrentTraining()
+	{
+		return false;
+	}
+	
 	@Override
 	protected void expand(FeatureVector x)
 	{
@@ -125,10 +161,10 @@ public abstract class FeedForwardNeuralNetwork extends OnlineOptimizer
 		boolean b = weight_vector.expand(sparseDimension, denseDimension, labelSize, generator);
 		if (b && isL1Regularization()) l1_regularizer.expand(sparseDimension, denseDimension, labelSize);
 		
-		// hidden -> output
+		// hidden -> output: the only sparse feature of the last hidden layer is the bias
 		denseDimension = hidden_dimensions[hidden_dimensions.length-1];
 		labelSize      = getLabelSize();
-		w_h2o.expand(sparseDimension, denseDimension, labelSize, generator);
+		w_h2o.expand(1, denseDimension, labelSize, generator);
 	}
 	
 	@Override
@@ -141,79 +177,134 @@ public abstract class FeedForwardNeuralNetwork extends OnlineOptimizer
 	{
 		return forwardPropagation(x, NLPFlag.EVALUATE)[hidden_dimensions.length];
 	}
+	
+	/** The batch is propagated together, layer by layer, so that the weights of each layer are read once per block of instances (see {@link MajorVector#addScores(float[][], float[][])}). */
+	@Override
+	public float[][] scores(List<FeatureVector> xs)
+	{
+		Workspace ws = workspaces.get();
+		float[][] input = ws.getBatch(0, xs.size()), output;
+		int i;
+		
+		// input -> hidden
+		for (float[] h : input) Arrays.fill(h, 0);
+		weight_vector.addScores(xs, input);
+		
+		// hidden -> hidden
+		for (i=1; i<hidden_dimensions.length; i++)
+		{
+			output = ws.getBatch(i, xs.size());
+			propagate(ws, w_h2h[i-1], input, output);
+			input = output;
+		}
+		
+		// hidden -> output
+		output = new float[xs.size()][w_h2o.getLabelSize()];
+		propagate(ws, w_h2o, input, output);
+		return output;
+	}
+	
+	/** All labels are scored since the output activation (e.g., softmax) needs the scores of all labels. */
+	@Override
+	public float[] scores(FeatureVector x, int[] labels)
+	{
+		return scores(x);
+	}
+	
+	@Override
+	public float[][] scores(List<FeatureVector> xs, int[][] labels)
+	{
+		return scores(xs);
+	}
 
 //	============================== PROPAGATION ==============================
 	
-	/** @param flag 
-	 * @return [1st hidden layer(, next hidden layer)*, output_layer] from forward propagation. */
+	/**
+	 * The hidden layers are the buffers of the current thread, which are overwritten by the next propagation on the thread;
+	 * the output layer is a new array.
+	 * @param flag if {@link NLPFlag#TRAIN}, the units dropped out of the sampled thinned network are considered 0 (see {@link #sampleThinnedNetwork(Instance)}).
+	 * @return [1st hidden layer(, next hidden layer)*, output_layer] from forward propagation.
+	 */
 	public float[][] forwardPropagation(FeatureVector x, NLPFlag flag)
 	{
-		float[][] layers = new float[hidden_dimensions.length+1][];
+		boolean[][] thinned = (flag == NLPFlag.TRAIN) ? sampled_thinned_network : null;
+		Workspace ws = workspaces.get();
+		float[][] layers = ws.getLayers();
 		int i;
 		
-		switch (flag) {
-		case TRAIN:
-			// input -> hidden
-			FeatureVector r_x = applyDropout(x, 0, flag);
-			layers[0] = weight_vector.scores(r_x);
-			
-			// hidden -> hidden
-			for (i=1; i<hidden_dimensions.length; i++){
-				FeatureVector local_input = new FeatureVector(layers[i-1]);
-				augment(local_input);
-				FeatureVector r_local_input = applyDropout(local_input, i, flag);
-				layers[i] = w_h2h[i-1].scores(r_local_input);
-			}	
-			// hidden -> output
-			FeatureVector local_input = new FeatureVector(layers[hidden_dimensions.length-1]);
-			augment(local_input);
-			FeatureVector r_local_input = applyDropout(local_input, hidden_dimensions.length, flag);
-			layers[hidden_dimensions.length] = w_h2o.scores(r_local_input);
-			
-			break;
-		case EVALUATE:
-			
-		default:
-			// input -> hidden
-			layers[0] = weight_vector.scores(x);
-			
-			// hidden -> hidden
-			for (i=1; i<hidden_dimensions.length; i++){
-				FeatureVector local_input3 = new FeatureVector(layers[i-1]);
-				augment(local_input3);
-				layers[i] = w_h2h[i-1].scores(local_input3);
-			}	
-			// hidden -> output
-			FeatureVector local_input3 = new FeatureVector(layers[i-1]);
-			augment(local_input3);
-			layers[i] = w_h2o.scores(local_input3);
-			break;
-		}
+		// input -> hidden
+		Arrays.fill(layers[0], 0);
+		weight_vector.addScores(thinned != null ? ws.dropout(x, thinned[0]) : x, layers[0]);
 		
+		// hidden -> hidden
+		for (i=1; i<hidden_dimensions.length; i++)
+		{
+			Arrays.fill(layers[i], 0);
+			propagate(ws, w_h2h[i-1], layers[i-1], layers[i], thinned, i);
+		}
 		
+		// hidden -> output
+		layers[i] = new float[w_h2o.getLabelSize()];
+		propagate(ws, w_h2o, layers[i-1], layers[i], thinned, i);
 		return layers;
 	}
+	
+	/**
+	 * Adds the scores of the hidden layer augmented with the bias unit (see {@link #augment(FeatureVector)}) to the output layer.
+	 * @param thinned if not {@code null}, the units dropped out of {@code thinned[layer]} are considered 0.
+	 */
+	private void propagate(Workspace ws, WeightVector w, float[] input, float[] output, boolean[][] thinned, int layer)
+	{
+		boolean[] units = (thinned != null) ? thinned[layer] : null;
+		
+		if (units == null || units[0]) w.getSparseWeightVector().addScores(ws.getBias(bias), output);
+		w.getDenseWeightVector().addScores(units != null ? ws.dropout(input, units, layer-1) : input, output);
+		if (w.hasActivationFunction()) w.getActivationFunction().apply(output);
+	}
+	
+	/** @see #propagate(Workspace, WeightVector, float[], float[], boolean[][], int) */
+	private void propagate(Workspace ws, WeightVector w, float[][] input, float[][] output)
+	{
+		MajorVector sparse = w.getSparseWeightVector();
+		SparseVector bias = ws.getBias(this.bias);
+		
+		for (float[] scores : output)
+		{
+			Arrays.fill(scores, 0);
+			sparse.addScores(bias, scores);
+		}
+		
+		w.getDenseWeightVector().addScores(input, output);
+		if (w.hasActivationFunction()) for (float[] scores : output) w.getActivationFunction().apply(scores);
+	}
 
 	// back-propagation
 	public void backwardPropagation(Instance instance, float[][] layers)
 	{
+		Workspace ws = workspaces.get();
 		int i = layers.length - 2;
-		float[] errors;
+		float[] errors = ws.getErrors(i), gradients;
 		
 		// output -> hidden
-		errors = backwardPropagationO2H(instance, layers[i]);
+		backwardPropagationO2H(instance, layers[i], errors);
 		
 		// hidden -> hidden
 		for (i--; i>=0; i--)
-			errors = backwardPropagationH2H(w_h2h[i].getDenseWeightVector(), errors, layers[i], layers[i+1], i);
+		{
+			gradients = errors;
+			errors = ws.getErrors(i);
+			backwardPropagationH2H(w_h2h[i].getDenseWeightVector(), gradients, layers[i], errors, i);
+		}
 
 		// hidden -> input
 		backwardPropagationH2I(instance.getFeatureVector(), errors, layers[i+1]);
 	}
 	
-	protected abstract float[] backwardPropagationO2H(Instance instance, float[] input);
-	protected abstract float[] backwardPropagationH2H(MajorVector weights, float[] gradients, float[] input, float[] output, int layer);
-	protected abstract void    backwardPropagationH2I(FeatureVector input, float[] gradients, float[] output);
+	/** @param errors the errors of the input layer to be added, initialized to 0. */
+	protected abstract void backwardPropagationO2H(Instance instance, float[] input, float[] errors);
+	/** @param errors the errors of the input layer to be added, initialized to 0. */
+	protected abstract void backwardPropagationH2H(MajorVector weights, float[] gradients, float[] input, float[] errors, int layer);
+	protected abstract void backwardPropagationH2I(FeatureVector input, float[] gradients, float[] output);
 	
 	@Override
 	public String toString()
@@ -221,76 +312,166 @@ public abstract class FeedForwardNeuralNetwork extends OnlineOptimizer
 		return toString("FeedForward-Softmax", "hidden = "+Arrays.toString(hidden_dimensions));
 	}
 	
-	// dropout: sampling a thinned network
-	public void sampleThinnedNetwork(Instance instance){
-		sampled_thinned_network = new boolean[hidden_dimensions.length + 1][];
-		sampled_thinned_network[0] = new boolean[instance.getFeatureVector().getSparseVector().maxIndex() + 1 + instance.getFeatureVector().getDenseVector().length];
-		for(int index = 0; index < hidden_dimensions.length; index++){
-			sampled_thinned_network[index + 1] = new boolean[1 + hidden_dimensions[index]];
+	/**
+	 * Dropout: samples a thinned network in place, where the masks are reallocated only when the input layer grows.
+	 * {@code sampled_thinned_network[0]} covers the sparse and then the dense features of the instance,
+	 * and {@code sampled_thinned_network[i]} covers the bias and then the units of the {@code i}'th hidden layer.
+	 */
+	public void sampleThinnedNetwork(Instance instance)
+	{
+		FeatureVector x = instance.getFeatureVector();
+		int i, j, size = (x.hasSparseVector() ? x.getSparseVector().maxIndex() + 1 : 0) + (x.hasDenseVector() ? x.getDenseVector().length : 0);
+		ThreadLocalRandom rand = ThreadLocalRandom.current();
+		boolean[] units;
+		
+		if (sampled_thinned_network == null)
+		{
+			sampled_thinned_network = new boolean[hidden_dimensions.length + 1][];
+			sampled_thinned_network[0] = new boolean[0];
+			
+			for (i=0; i<hidden_dimensions.length; i++)
+				sampled_thinned_network[i+1] = new boolean[1 + hidden_dimensions[i]];
 		}
-		for(int index = 0; index < hidden_dimensions.length + 1; index++){
-			for(int unitIndex = 0; unitIndex < sampled_thinned_network[index].length; unitIndex++){
-				if(dropout_prob == null || index >= dropout_prob.length || Math.random() <= dropout_prob[index]){
-					sampled_thinned_network[index][unitIndex] = true;
-				}
-				else{
-					sampled_thinned_network[index][unitIndex] = false;
-				}
-				
+		
+		if (sampled_thinned_network[0].length < size)
+			sampled_thinned_network[0] = new boolean[Math.max(size, sampled_thinned_network[0].length * 2)];
+		
+		for (i=0; i<sampled_thinned_network.length; i++)
+		{
+			units = sampled_thinned_network[i];
+			if (i > 0) size = units.length;
+			
+			if (dropout_prob == null || i >= dropout_prob.length || dropout_prob[i] >= 1)
+				Arrays.fill(units, 0, size, true);
+			else
+			{
+				for (j=0; j<size; j++)
+					units[j] = rand.nextFloat() < dropout_prob[i];
 			}
 		}
 	}
 	
-	// dropout: applying the thinned network to input at each layer
-	private FeatureVector applyDropout(FeatureVector x, int layerIndex, NLPFlag flag) {
-		SparseVector srx = new SparseVector(x.getSparseVector());
-		float[] drx = x.getDenseVector().clone();
-		FeatureVector rx = new FeatureVector(srx, drx);
-		int index;
-		float[] denseVector;
-		switch (flag) {
-		case TRAIN:// considering inputs only from sampled thinned network
-			for(SparseItem si : rx.getSparseVector().getVector()){
-				int itemIndex = si.getIndex();
-				if(!sampled_thinned_network[layerIndex][itemIndex]){
-					si.setValue(0f);
-				}
-			}
-			index = rx.getSparseVector().maxIndex() + 1;
-			denseVector = rx.getDenseVector();
-			for(int subIndex = 0; subIndex < denseVector.length; subIndex++){
-				if(!sampled_thinned_network[layerIndex][index]){
-					denseVector[subIndex] = 0f;
-				}
-				index++;
-			}
-			break;
-		case EVALUATE:// average over all thinned networks by simply considering all units and multiplying the input with the dropout probability
-			for(SparseItem si : rx.getSparseVector().getVector()){
-				si.setValue(dropout_prob[layerIndex] * si.getValue());
+//	============================== WORKSPACE ==============================
+	
+	/**
+	 * The buffers of one thread, which are allocated once and reused by every propagation on the thread
+	 * instead of creating new feature vectors for each layer.
+	 */
+	static protected class Workspace
+	{
+		private final int[]         hidden_dimensions;
+		/** {@code batch[i][b]}: the {@code i}'th hidden layer of the {@code b}'th instance in a batch. */
+		private float[][][]         batch;
+		/** {@code layers[i] = batch[i][0]}; the last element is the output layer. */
+		private final float[][]     layers;
+		/** {@code thinned[i]}: the {@code i}'th hidden layer without the dropped out units. */
+		private final float[][]     thinned;
+		private final float[][]     errors;
+		private final SparseVector  bias;
+		private final SparseVector  sparse;
+		private final FeatureVector input;
+		private float[]             dense;
+		
+		public Workspace(int[] hiddenDimensions)
+		{
+			int size = hiddenDimensions.length;
+			hidden_dimensions = hiddenDimensions;
+			batch   = new float[size][0][];
+			layers  = new float[size+1][];
+			thinned = new float[size][];
+			errors  = new float[size][];
+			bias    = new SparseVector();
+			sparse  = new SparseVector();
+			input   = new FeatureVector();
+			dense   = new float[0];
+			ensureBatchSize(1);
+			
+			for (int i=0; i<size; i++)
+			{
+				layers [i] = batch[i][0];
+				thinned[i] = new float[hiddenDimensions[i]];
+				errors [i] = new float[hiddenDimensions[i]];
 			}
-			index = rx.getSparseVector().maxIndex() + 1;
-			denseVector = rx.getDenseVector();
-			for(int subIndex = 0; subIndex < denseVector.length; subIndex++){
-				denseVector[subIndex] = dropout_prob[layerIndex] * denseVector[subIndex];
-				index++;
+		}
+		
+		/** @return the hidden layers of a single instance followed by a slot for the output layer. */
+		public float[][] getLayers()
+		{
+			return layers;
+		}
+		
+		/** @return the {@code i}'th hidden layers of the first {@code size} instances in a batch. */
+		public float[][] getBatch(int i, int size)
+		{
+			ensureBatchSize(size);
+			return (batch[i].length == size) ? batch[i] : Arrays.copyOf(batch[i], size);
+		}
+		
+		private void ensureBatchSize(int size)
+		{
+			int i, b, capacity = batch[0].length;
+			if (size <= capacity) return;
+			size = Math.max(size, capacity * 2);
+			
+			for (i=0; i<batch.length; i++)
+			{
+				batch[i] = Arrays.copyOf(batch[i], size);
+				for (b=capacity; b<size; b++) batch[i][b] = new float[hidden_dimensions[i]];
 			}
-			break;
-
-		default: // same as evaluate in case you want to change anything ***
-			for(SparseItem si : rx.getSparseVector().getVector()){
-				si.setValue(dropout_prob[layerIndex] * si.getValue());
+		}
+		
+		/** @return the errors of the {@code i}'th hidden layer, initialized to 0. */
+		public float[] getErrors(int i)
+		{
+			Arrays.fill(errors[i], 0);
+			return errors[i];
+		}
+		
+		/** @return the bias unit of a hidden layer (see {@link OnlineOptimizer#augment(FeatureVector)}). */
+		public SparseVector getBias(float value)
+		{
+			bias.clear();
+			bias.addBias(value);
+			return bias;
+		}
+		
+		/** @return the input features retained by the units; the dense features take the units after the sparse features. */
+		public FeatureVector dropout(FeatureVector x, boolean[] units)
+		{
+			SparseVector v = x.getSparseVector();
+			int j, index, offset = 0;
+			sparse.clear();
+			
+			if (x.hasSparseVector())
+			{
+				for (j=0; j<v.size(); j++)
+				{
+					index = v.getIndex(j);
+					if (units[index]) sparse.add(index, v.getValue(j));
+				}
+				
+				offset = v.maxIndex() + 1;
 			}
-			index = rx.getSparseVector().maxIndex() + 1;
-			denseVector = rx.getDenseVector();
-			for(int subIndex = 0; subIndex < denseVector.length; subIndex++){
-				denseVector[subIndex] = dropout_prob[layerIndex] * denseVector[subIndex];
-				index++;
+			
+			if (x.hasDenseVector())
+			{
+				float[] d = x.getDenseVector();
+				if (dense.length != d.length) dense = new float[d.length];
+				for (j=0; j<d.length; j++) dense[j] = units[offset+j] ? d[j] : 0;
+				input.set(sparse, dense);
 			}
-			break;
+			else
+				input.set(sparse, null);
+			
+			return input;
 		}
 		
-		
-		return rx;
+		/** @return the {@code i}'th hidden layer retained by the units, where {@code units[0]} is for the bias. */
+		public float[] dropout(float[] layer, boolean[] units, int i)
+		{
+			float[] h = thinned[i];
+			for (int j=0; j<h.length; j++) h[j] = units[j+1] ? layer[j] : 0;
+			return h;
+		}
 	}
 }
@@ -21,9 +21,7 @@ import edu.emory.mathcs.nlp.learning.initialization.WeightGenerator;
 import edu.emory.mathcs.nlp.learning.util.FeatureVector;
 import edu.emory.mathcs.nlp.learning.util.Instance;
 import edu.emory.mathcs.nlp.learning.util.MajorVector;
-import edu.emory.mathcs.nlp.learning.util.SparseItem;
-
-import java.util.Arrays;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -73,58 +71,59 @@ public class FeedForwardNeuralNetworkSoftmax extends FeedForwardNeuralNetwork
 	 */
 
 	@Override
-	protected float[] backwardPropagationO2H(Instance instance, float[] input)
+	protected void backwardPropagationO2H(Instance instance, float[] input, float[] errors)
 	{
-		float[] output = Arrays.copyOf(instance.getScores(), getLabelSize());
+		boolean[] units = sampled_thinned_network[sampled_thinned_network.length-1];
+		MajorVector weights = w_h2o.getDenseWeightVector();
+		float[] output = instance.getScores();
 		float[] gradients = getGradientsRegression(instance);
-		for(int index = 0; index < gradients.length; index++){
-			gradients[index] = -1 * gradients[index];
-		}
-		float[] errors = new float[input.length];
 		int index;
 		
-		MajorVector weights = w_h2o.getDenseWeightVector();
-		
 		for (int y=0; y<gradients.length; y++)
 		{
+			gradients[y] = -1 * gradients[y];
+			
 			for (int xi=0; xi<input.length; xi++)
 			{
 				// notice the index is [1 + xi], 1 is for bias unit which is in sparce vector
-				if(sampled_thinned_network[sampled_thinned_network.length -1][1 + xi]){
+				if (units[1 + xi])
+				{
 					index = weights.indexOf(y, xi);
 					errors[xi] += gradients[y] * output[y] * weights.get(index);
 					weights.add(index, -1 * getLearningRate(index, false) * gradients[y] * input[xi]);
 				}
 			}
 		}
-
-		return errors;
 	}
 
 	@Override
-	protected float[] backwardPropagationH2H(MajorVector weights, float[] gradients, float[] input, float[] output, int layer)
+	protected void backwardPropagationH2H(MajorVector weights, float[] gradients, float[] input, float[] errors, int layer)
 	{
-		float[] errors = new float[input.length];
+		boolean[] inputUnits  = sampled_thinned_network[layer + 1];
+		boolean[] outputUnits = sampled_thinned_network[layer + 2];
 		int index;
 		
 		for (int y=0; y<gradients.length; y++)
 		{
+			if (!outputUnits[1 + y]) continue;
+			
 			for (int xi=0; xi<input.length; xi++)
 			{
-				if(sampled_thinned_network[layer + 1][1 + xi] && sampled_thinned_network[layer + 2][1 + y]){
+				if (inputUnits[1 + xi])
+				{
 					index = weights.indexOf(y, xi);
 					errors[xi] += gradients[y] * weights.get(index);
 					weights.add(index, -1 * getLearningRate(index, false) * gradients[y] * input[xi]);
 				}
 			}
 		}
-		
-		return errors;
 	}
 	
 	@Override
 	protected void backwardPropagationH2I(FeatureVector input, float[] gradients, float[] output)
 	{
+		boolean[] inputUnits  = sampled_thinned_network[0];
+		boolean[] outputUnits = sampled_thinned_network[1];
 		MajorVector weights;
 		int index;
 		
@@ -133,13 +132,16 @@ public class FeedForwardNeuralNetworkSoftmax extends FeedForwardNeuralNetwork
 		{
 			weights = weight_vector.getSparseWeightVector();
 			
-			for (SparseItem p : input.getSparseVector())
+			SparseVector x = input.getSparseVector();
+			
+			for (int i=0; i<x.size(); i++)
 			{
 				for (int y=0; y<gradients.length; y++)
 				{
-					if(sampled_thinned_network[0][p.getIndex()] && sampled_thinned_network[1][1 + y]){
-						index = weights.indexOf(y, p.getIndex());
-						weights.add(index, gradients[y] * p.getValue());
+					if (inputUnits[x.getIndex(i)] && outputUnits[1 + y])
+					{
+						index = weights.indexOf(y, x.getIndex(i));
+						weights.add(index, gradients[y] * x.getValue(i));
 					}
 				}
 			}
@@ -149,12 +151,16 @@ public class FeedForwardNeuralNetworkSoftmax extends FeedForwardNeuralNetwork
 		{
 			weights = weight_vector.getDenseWeightVector();
 			float[] x = input.getDenseVector();
+			int offset = input.getSparseVector().maxIndex() + 1;
 			
 			for (int y=0; y<gradients.length; y++)
 			{
+				if (!outputUnits[1 + y]) continue;
+				
 				for (int xi=0; xi<x.length; xi++)
 				{
-					if(sampled_thinned_network[0][input.getSparseVector().maxIndex() + 1 + xi] && sampled_thinned_network[1][1 + y]){
+					if (inputUnits[offset + xi])
+					{
 						index = weights.indexOf(y, xi);
 						weights.add(index, -1 * getLearningRate(index, false) * gradients[y] * x[xi]);
 					}
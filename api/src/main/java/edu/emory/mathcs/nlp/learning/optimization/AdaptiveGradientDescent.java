@@ -20,6 +20,9 @@ import edu.emory.mathcs.nlp.learning.optimization.reguralization.Regularizer;
 import edu.emory.mathcs.nlp.learning.util.MajorVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
@@ -40,6 +43,15 @@ public abstract class AdaptiveGradientDescent extends StochasticGradientDescent
 		diagonals = weight_vector.createZeroVector();
 	}
 	
+	/** The diagonals are not serialized, so that they are not included once the model is loaded. */
+	@Override
+	public List<WeightVector> getStateVectors()
+	{
+		List<WeightVector> list = new ArrayList<>(super.getStateVectors());
+		if (diagonals != null) list.add(diagonals);
+		return list;
+	}
+	
 	@Override
 	protected boolean expand(int sparseFeatureSize, int denseFeatureSize, int labelSize)
 	{
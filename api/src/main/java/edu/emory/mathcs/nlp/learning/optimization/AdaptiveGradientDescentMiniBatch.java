@@ -18,21 +18,25 @@ package edu.emory.mathcs.nlp.learning.optimization;
 import edu.emory.mathcs.nlp.learning.optimization.reguralization.Regularizer;
 import edu.emory.mathcs.nlp.learning.util.MajorVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2FloatOpenHashMap;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 
 /**
+ * Gradients are accumulated in a buffer per thread and applied to the shared weights by {@link #updateMiniBatch()},
+ * which is called by the same thread that trained the mini-batch.
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
 public abstract class AdaptiveGradientDescentMiniBatch extends AdaptiveGradientDescent
 {
 	private static final long serialVersionUID = -9070887527388228842L;
-	protected transient WeightVector gradients;
-	protected transient IntSet       sparse_updated_indices;
-	protected transient IntSet       dense_updated_indices;
-	protected transient int          batch_steps;
+	protected transient ThreadLocal<GradientBuffer> gradients;
+	/** The number of mini-batches updated so far, which is incremented by the training threads concurrently. */
+	protected transient AtomicInteger batch_steps;
 	
 	public AdaptiveGradientDescentMiniBatch(WeightVector vector, float learningRate, float bias)
 	{
@@ -42,78 +46,101 @@ public abstract class AdaptiveGradientDescentMiniBatch extends AdaptiveGradientD
 	public AdaptiveGradientDescentMiniBatch(WeightVector vector, float learningRate, float bias, Regularizer rda)
 	{
 		super(vector, learningRate, bias, rda);
-
-		batch_steps = 1;
-		gradients = vector.createZeroVector();
-		sparse_updated_indices = new IntOpenHashSet();
-		dense_updated_indices  = new IntOpenHashSet();
+		initBuffers();
 	}
 	
-	@Override
-	protected boolean expand(int sparseFeatureSize, int denseFeatureSize, int labelSize)
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
 	{
-		boolean b = super.expand(sparseFeatureSize, denseFeatureSize, labelSize);
-		if (b) gradients.expand(sparseFeatureSize, denseFeatureSize, labelSize);
-		return b;
+		in.defaultReadObject();
+		initBuffers();
+	}
+	
+	private void initBuffers()
+	{
+		batch_steps = new AtomicInteger(1);
+		gradients = ThreadLocal.withInitial(GradientBuffer::new);
 	}
 	
 	@Override
 	protected void updateWeight(int y, int xi, float gradient, boolean sparse)
  	{
-		MajorVector g = gradients.getMajorVector(sparse);
-		int index = g.indexOf(y, xi);
-
-		g.add(index, gradient);
- 		if (sparse)	sparse_updated_indices.add(index);
- 		else		dense_updated_indices .add(index);
+		gradients.get().add(y, xi, gradient, sparse);
  	}
-	
+
 	@Override
 	public void updateMiniBatch()
 	{
-		update(true);
-		update(false);
-		batch_steps++;
+		if (isConcurrentTraining())
+		{
+			Lock lock = concurrent_lock.readLock();
+			lock.lock();
+	
+			try
+			{
+				update(true);
+				update(false);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		else
+		{
+			update(true);
+			update(false);
+		}
+	
+		batch_steps.incrementAndGet();
 	}
 	
 	protected void update(boolean sparse)
 	{
-		IntSet s = sparse ? sparse_updated_indices : dense_updated_indices;
+		Long2FloatOpenHashMap g = gradients.get().get(sparse);
+		if (g.isEmpty()) return;
+	
 		MajorVector w = weight_vector.getMajorVector(sparse);
 		MajorVector d = diagonals    .getMajorVector(sparse);
-		MajorVector g = gradients    .getMajorVector(sparse);
-		
-		int[] indices = s.toIntArray();
-		Arrays.sort(indices);
-		
-		updateDiagonals(d, g, indices);
-		updateWeights  (w, g, indices, sparse);
-		clearGraidents (g, indices);
-		s.clear();
+	
+		// key = feature index (upper 32 bits) + label index (lower 32 bits)
+		long[] keys = g.keySet().toLongArray();
+		Arrays.sort(keys);
+	
+		for (long key : keys)
+			update(w, d, w.indexOf((int)key, (int)(key >>> 32)), g.get(key), sparse);
+	
+		g.clear();
 	}
 	
-	protected void updateDiagonals(MajorVector diagonals, MajorVector gradients, int[] indices)
+	protected void update(MajorVector weights, MajorVector diagonals, int index, float gradient, boolean sparse)
 	{
-		for (int index : indices)
-			diagonals.set(index, getDiagonal(diagonals.get(index), gradients.get(index)));
+		diagonals.set(index, getDiagonal(diagonals.get(index), gradient));
+	
+		if (isL1Regularization())
+			l1_regularizer.updateWeight(index, gradient, getLearningRate(index, sparse), batch_steps.get(), sparse);
+		else
+			weights.add(index, gradient * getLearningRate(index, sparse));
 	}
 	
-	protected void updateWeights(MajorVector weights, MajorVector gradients, int[] indices, boolean sparse)
+	protected abstract float getDiagonal(float previousDiagonal, float gradient);
+	
+	/**
+	 * Gradients of one thread keyed by their label and feature indices rather than by their positions in the weight vector,
+	 * which shift when new labels are added in the middle of a mini-batch.
+	 */
+	static protected class GradientBuffer
 	{
-		for (int index : indices)
+		private final Long2FloatOpenHashMap sparse = new Long2FloatOpenHashMap();
+		private final Long2FloatOpenHashMap dense  = new Long2FloatOpenHashMap();
+	
+		public Long2FloatOpenHashMap get(boolean sparse)
 		{
-			if (isL1Regularization())
-				l1_regularizer.updateWeight(index, gradients.get(index), getLearningRate(index, sparse), batch_steps, sparse);
-			else
-				weights.add(index, gradients.get(index) * getLearningRate(index, sparse));
+			return sparse ? this.sparse : dense;
 		}
-	}
 	
-	protected void clearGraidents(MajorVector gradients, int[] indices)
-	{
-		for (int index : indices)
-			gradients.set(index, 0);
+		public void add(int y, int xi, float gradient, boolean sparse)
+		{
+			get(sparse).addTo(((long)xi << 32) | y, gradient);
+		}
 	}
-	
-	protected abstract float getDiagonal(float previousDiagonal, float gradient);
 }
@@ -22,13 +22,19 @@ import edu.emory.mathcs.nlp.learning.util.FeatureVector;
 import edu.emory.mathcs.nlp.learning.util.Instance;
 import edu.emory.mathcs.nlp.learning.util.LabelMap;
 import edu.emory.mathcs.nlp.learning.util.MLUtils;
+import edu.emory.mathcs.nlp.learning.util.MajorVector;
 import edu.emory.mathcs.nlp.learning.util.SparseVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.StringJoiner;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -45,6 +51,9 @@ public abstract class OnlineOptimizer implements Serializable
 	protected transient float       learning_rate;
 	protected transient int         steps;
 	
+	// for concurrent training
+	protected transient ReadWriteLock concurrent_lock;
+	
 //	=================================== CONSTRUCTORS ===================================
 	
 	public OnlineOptimizer(WeightVector vector, float learningRate, float bias)
@@ -81,6 +90,21 @@ public abstract class OnlineOptimizer implements Serializable
 		weight_vector = vector;
 	}
 	
+	/** @return all weight vectors trained by this optimizer, starting with {@link #getWeightVector()}. */
+	public List<WeightVector> getWeightVectors()
+	{
+		return Collections.singletonList(weight_vector);
+	}
+	
+	/**
+	 * @return the vectors other than the weights that are updated by training (e.g., the diagonals of {@link AdaptiveGradientDescent}),
+	 * which are saved together with the weights by snapshots.
+	 */
+	public List<WeightVector> getStateVectors()
+	{
+		return isL1Regularization() ? l1_regularizer.getStateVectors() : Collections.emptyList();
+	}
+	
 	public float getLearningRate()
 	{
 		return learning_rate;
@@ -117,6 +141,28 @@ public abstract class OnlineOptimizer implements Serializable
 		return l1_regularizer != null;
 	}
 	
+//	=================================== CONCURRENCY ===================================
+	
+	/** @return true if {@link #train(Instance)} can be called by multiple threads at once (see {@link #setConcurrentTraining(boolean)}). */
+	public boolean supportsConcurrentTraining()
+	{
+		return true;
+	}
+	
+	/**
+	 * Lets multiple threads train instances at the same time in the style of Hogwild!, where the weights are updated without locking.
+	 * Only the expansion of the label map and the weight vectors is exclusive so that no thread reads the weights while they are resized.
+	 */
+	public void setConcurrentTraining(boolean concurrent)
+	{
+		concurrent_lock = concurrent ? new ReentrantReadWriteLock() : null;
+	}
+	
+	public boolean isConcurrentTraining()
+	{
+		return concurrent_lock != null;
+	}
+	
 //	=================================== LABEL & FEATURE ===================================
 
 	public void setLabelMap(LabelMap map)
@@ -169,8 +215,60 @@ public abstract class OnlineOptimizer implements Serializable
 	
 	public void train(Instance instance, boolean augment)
 	{
+		if (isConcurrentTraining())
+		{
+			trainConcurrently(instance, augment);
+			return;
+		}
+		
 		if (augment) augment(instance);
 		expand(instance.getFeatureVector());
+		trainInstance(instance);
+	}
+	
+	/**
+	 * Called by {@link #train(Instance, boolean)} when {@link #isConcurrentTraining()}.
+	 * The instance is trained under the read lock; the write lock is taken only if it introduces a new label or new features.
+	 */
+	protected void trainConcurrently(Instance instance, boolean augment)
+	{
+		Lock read  = concurrent_lock.readLock();
+		Lock write = concurrent_lock.writeLock();
+		read.lock();
+		
+		try
+		{
+			boolean newLabel = augment && instance.hasStringLabel() && getLabelIndex(instance.getStringLabel()) < 0;
+			if (augment && !newLabel) augment(instance);
+			
+			if (newLabel || !isExpanded(instance.getFeatureVector()))
+			{
+				read.unlock();
+				write.lock();
+				
+				try
+				{
+					if (newLabel) augment(instance);
+					expand(instance.getFeatureVector());
+				}
+				finally
+				{
+					read.lock();
+					write.unlock();
+				}
+			}
+			
+			trainInstance(instance);
+		}
+		finally
+		{
+			read.unlock();
+		}
+	}
+	
+	/** Scores the instance and updates the weights if the prediction is incorrect; the weight vector must already be expanded for the instance. */
+	protected void trainInstance(Instance instance)
+	{
 		if (instance.hasScores() && instance.getScores().length == getLabelSize()) addScores(instance.getFeatureVector(), instance.getScores());
 		else instance.setScores(scores(instance.getFeatureVector()));
 		int yhat = getPredictedLabel(instance);
@@ -215,6 +313,20 @@ public abstract class OnlineOptimizer implements Serializable
 		expand(sparseFeatureSize, denseFeatureSize, labelSize);
 	}
 	
+	/** @return true if the weight vector covers all labels and all features in the feature vector. */
+	protected boolean isExpanded(FeatureVector x)
+	{
+		int sparseFeatureSize = x.hasSparseVector() ? x.getSparseVector().maxIndex()+1 : 0;
+		int denseFeatureSize  = x.hasDenseVector()  ? x.getDenseVector().length : 0;
+		int labelSize = getLabelSize();
+		
+		MajorVector sparse = weight_vector.getSparseWeightVector();
+		MajorVector dense  = weight_vector.getDenseWeightVector();
+		
+		return sparse.getLabelSize() >= labelSize && sparse.getFeatureSize() >= sparseFeatureSize &&
+			   dense .getLabelSize() >= labelSize && dense .getFeatureSize() >= denseFeatureSize;
+	}
+	
 	protected boolean expand(int sparseFeatureSize, int denseFeatureSize, int labelSize)
 	{
 		boolean b = weight_vector.expand(sparseFeatureSize, denseFeatureSize, labelSize);
@@ -293,4 +405,29 @@ public abstract class OnlineOptimizer implements Serializable
 	{
 		weight_vector.addScores(x, scores);
 	}
+	
+	/**
+	 * Scores only the specific labels, which is faster than {@link #scores(FeatureVector)} when the prediction is restricted to a small subset of labels.
+	 * @param labels the indices of the labels to score; if {@code null}, all labels are scored.
+	 * @return the scores of all labels, where the labels not in {@code labels} may not be scored (see {@link WeightVector#scores(FeatureVector, int[])}).
+	 */
+	public float[] scores(FeatureVector x, int[] labels)
+	{
+		augment(x);
+		return weight_vector.scores(x, labels);
+	}
+	
+	/** @return the scores of all labels for each feature vector, where the batch is scored together (see {@link WeightVector#scores(List)}). */
+	public float[][] scores(List<FeatureVector> xs)
+	{
+		for (FeatureVector x : xs) augment(x);
+		return weight_vector.scores(xs);
+	}
+	
+	/** @return the scores of the labels in {@code labels[b]} for {@code xs.get(b)}, where the batch is scored together (see {@link #scores(FeatureVector, int[])}). */
+	public float[][] scores(List<FeatureVector> xs, int[][] labels)
+	{
+		for (FeatureVector x : xs) augment(x);
+		return weight_vector.scores(xs, labels);
+	}
 }
@@ -19,7 +19,7 @@ import edu.emory.mathcs.nlp.learning.optimization.reguralization.Regularizer;
 import edu.emory.mathcs.nlp.learning.util.FeatureVector;
 import edu.emory.mathcs.nlp.learning.util.Instance;
 import edu.emory.mathcs.nlp.learning.util.MajorVector;
-import edu.emory.mathcs.nlp.learning.util.SparseItem;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
 /**
@@ -45,10 +45,12 @@ public abstract class StochasticGradientDescent extends OnlineOptimizer
 		int gold = instance.getGoldLabel();
 		int yhat = instance.getPredictedLabel();
 		
-		for (SparseItem xi : x.getSparseVector())
+		SparseVector v = x.getSparseVector();
+		
+		for (int i=0; i<v.size(); i++)
 		{
-			updateWeight(gold, xi.getIndex(),  xi.getValue(), true);
-			updateWeight(yhat, xi.getIndex(), -xi.getValue(), true);
+			updateWeight(gold, v.getIndex(i),  v.getValue(i), true);
+			updateWeight(yhat, v.getIndex(i), -v.getValue(i), true);
 		}
 		
 		if (x.hasDenseVector())
@@ -63,9 +65,11 @@ public abstract class StochasticGradientDescent extends OnlineOptimizer
 	{
  		FeatureVector x = instance.getFeatureVector();
  		
-		for (SparseItem xi : x.getSparseVector())
+		SparseVector v = x.getSparseVector();
+		
+		for (int i=0; i<v.size(); i++)
 			for (int y=0; y<gradients.length; y++)
-				updateWeight(y, xi.getIndex(), gradients[y] * xi.getValue(), true);
+				updateWeight(y, v.getIndex(i), gradients[y] * v.getValue(i), true);
 		
 		if (x.hasDenseVector())
 		{
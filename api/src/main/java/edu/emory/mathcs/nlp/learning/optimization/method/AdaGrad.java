@@ -19,7 +19,7 @@ import edu.emory.mathcs.nlp.learning.optimization.AdaptiveGradientDescent;
 import edu.emory.mathcs.nlp.learning.optimization.reguralization.Regularizer;
 import edu.emory.mathcs.nlp.learning.util.FeatureVector;
 import edu.emory.mathcs.nlp.learning.util.Instance;
-import edu.emory.mathcs.nlp.learning.util.SparseItem;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
 /**
@@ -45,10 +45,12 @@ public class AdaGrad extends AdaptiveGradientDescent
 		int gold = instance.getGoldLabel();
 		int yhat = instance.getPredictedLabel();
 		
-		for (SparseItem xi : x.getSparseVector())
+		SparseVector v = x.getSparseVector();
+		
+		for (int i=0; i<v.size(); i++)
 		{
-			updateDiagonal(gold, xi.getIndex(), xi.getValue(), true);
-			updateDiagonal(yhat, xi.getIndex(), xi.getValue(), true);
+			updateDiagonal(gold, v.getIndex(i), v.getValue(i), true);
+			updateDiagonal(yhat, v.getIndex(i), v.getValue(i), true);
 		}
 		
 		if (x.hasDenseVector())
@@ -19,7 +19,7 @@ import edu.emory.mathcs.nlp.learning.activation.SoftmaxFunction;
 import edu.emory.mathcs.nlp.learning.optimization.AdaptiveGradientDescent;
 import edu.emory.mathcs.nlp.learning.util.FeatureVector;
 import edu.emory.mathcs.nlp.learning.util.Instance;
-import edu.emory.mathcs.nlp.learning.util.SparseItem;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
 /**
@@ -39,9 +39,11 @@ public class AdaGradRegression extends AdaptiveGradientDescent
 	{
 		FeatureVector x = instance.getFeatureVector();
 		
-		for (SparseItem xi : x.getSparseVector())
+		SparseVector v = x.getSparseVector();
+		
+		for (int i=0; i<v.size(); i++)
 			for (int y=0; y<gradients.length; y++)
-				updateDiagonal(y, xi.getIndex(), gradients[y] * xi.getValue(), true);
+				updateDiagonal(y, v.getIndex(i), gradients[y] * v.getValue(i), true);
 		
 		if (x.hasDenseVector())
 		{
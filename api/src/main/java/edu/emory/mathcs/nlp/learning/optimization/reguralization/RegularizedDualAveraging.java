@@ -18,6 +18,9 @@ package edu.emory.mathcs.nlp.learning.optimization.reguralization;
 import edu.emory.mathcs.nlp.learning.util.MajorVector;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
@@ -42,6 +45,12 @@ public class RegularizedDualAveraging extends Regularizer
 		return cumulative_penalty;
 	}
 	
+	@Override
+	public List<WeightVector> getStateVectors()
+	{
+		return Collections.singletonList(cumulative_penalty);
+	}
+	
 	@Override
 	public void setWeightVector(WeightVector vector)
 	{
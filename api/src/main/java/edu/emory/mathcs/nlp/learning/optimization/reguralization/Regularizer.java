@@ -18,6 +18,8 @@ package edu.emory.mathcs.nlp.learning.optimization.reguralization;
 import edu.emory.mathcs.nlp.learning.util.WeightVector;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -44,6 +46,12 @@ public abstract class Regularizer implements Serializable
 	
 	public abstract void setWeightVector(WeightVector vector);
 	
+	/** @return the vectors updated along with the weight vector (e.g., the cumulative penalties), which are saved by snapshots. */
+	public List<WeightVector> getStateVectors()
+	{
+		return Collections.emptyList();
+	}
+	
 	/** Expands the dimension of necessary vectors with respect to the weight vector. */
 	public abstract void expand(int sparseFeatureSize, int denseFeatureSize, int labelSize);
 	
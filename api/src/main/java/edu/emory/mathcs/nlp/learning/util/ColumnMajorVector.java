@@ -17,7 +17,7 @@ package edu.emory.mathcs.nlp.learning.util;
 
 import edu.emory.mathcs.nlp.learning.initialization.WeightGenerator;
 
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -25,6 +25,8 @@ import java.util.List;
 public class ColumnMajorVector extends MajorVector
 {
 	private static final long serialVersionUID = 6995117853244310932L;
+	/** The number of features whose weights are kept in cache while a batch of dense vectors is scored. */
+	static private final int BLOCK_SIZE = 64;
 	
 	@Override
 	public boolean expand(int labelSize, int featureSize, WeightGenerator generator)
@@ -47,25 +49,130 @@ public class ColumnMajorVector extends MajorVector
 	@Override
 	public void addScores(SparseVector x, float[] scores)
 	{
-		List<SparseItem> itemVector = x.getVector();
-		int featureSize = getFeatureSize();
-		itemVector.stream().filter(p -> p.getIndex() < featureSize)
-				.forEach(p -> {
-					int index = p.getIndex() * label_size;
-					for (int i = 0; i < scores.length; i++) {
-						scores[i] += get(index++) * p.getValue();
-					}
-				});
+		int j, index;
+		
+		for (j=0; j<x.size(); j++)
+		{
+			index = x.getIndex(j);
+			if (index < feature_size) addScores(index, x.getValue(j), scores);
+		}
 	}
 
 	@Override
 	public void addScores(float[] x, float[] scores)
 	{
-		int i, j, index = 0;
+		for (int j=0; j<x.length; j++)
+			addScores(j, x[j], scores);
+	}
+	
+	@Override
+	public void addScores(SparseVector x, float[] scores, int[] labels)
+	{
+		int j, index;
+		
+		for (j=0; j<x.size(); j++)
+		{
+			index = x.getIndex(j);
+			if (index < feature_size) addScores(index, x.getValue(j), scores, labels);
+		}
+	}
+	
+	@Override
+	public void addScores(float[] x, float[] scores, int[] labels)
+	{
+		for (int j=0; j<x.length; j++)
+			addScores(j, x[j], scores, labels);
+	}
+	
+	/** Features in the batch are sorted by their indices so that each column is read once for all vectors containing it. */
+	@Override
+	public void addScores(SparseVector[] x, float[][] scores)
+	{
+		addScores(x, scores, null);
+	}
+	
+	/**
+	 * The same as {@link #addScores(SparseVector[], float[][])} except that only the labels in {@code labels[b]} are scored for {@code x[b]}.
+	 * @param labels if {@code labels} or {@code labels[b]} is {@code null}, all labels are scored for {@code x[b]}.
+	 */
+	@Override
+	public void addScores(SparseVector[] x, float[][] scores, int[][] labels)
+	{
+		int b, j, e, index, size = 0, count = 0;
+		
+		for (b=0; b<x.length; b++)
+			if (x[b] != null) size += x[b].size();
+		
+		// key = feature index (upper 32 bits) + entry ID (lower 32 bits)
+		long[]  keys   = new long [size];
+		int[]   batch  = new int  [size];
+		float[] values = new float[size];
+		
+		for (b=0; b<x.length; b++)
+		{
+			if (x[b] == null) continue;
+			
+			for (j=0; j<x[b].size(); j++)
+			{
+				index = x[b].getIndex(j);
+				if (index >= feature_size) continue;
+				keys  [count] = ((long)index << 32) | count;
+				batch [count] = b;
+				values[count] = x[b].getValue(j);
+				count++;
+			}
+		}
+		
+		Arrays.sort(keys, 0, count);
+		
+		for (j=0; j<count; j++)
+		{
+			e = (int)keys[j];
+			b = batch[e];
+			
+			if (labels == null || labels[b] == null)
+				addScores((int)(keys[j] >>> 32), values[e], scores[b]);
+			else
+				addScores((int)(keys[j] >>> 32), values[e], scores[b], labels[b]);
+		}
+	}
+	
+	/** The features are processed in blocks of {@link #BLOCK_SIZE} columns across all vectors in the batch. */
+	@Override
+	public void addScores(float[][] x, float[][] scores)
+	{
+		int b, j, begin, end;
+		float[] xb;
+		
+		for (begin=0; begin<feature_size; begin+=BLOCK_SIZE)
+		{
+			for (b=0; b<x.length; b++)
+			{
+				if ((xb = x[b]) == null) continue;
+				end = Math.min(begin + BLOCK_SIZE, Math.min(feature_size, xb.length));
+				
+				for (j=begin; j<end; j++)
+					if (xb[j] != 0) addScores(j, xb[j], scores[b]);
+			}
+		}
+	}
+	
+	/** Adds the weights of the feature multiplied by its value to the scores of all labels. */
+	protected void addScores(int feature, float value, float[] scores)
+	{
+		int index = feature * label_size;
+		
+		for (int i=0; i<scores.length; i++)
+			scores[i] += weights[index++] * value;
+	}
+	
+	/** Adds the weights of the feature multiplied by its value to the scores of the specific labels. */
+	protected void addScores(int feature, float value, float[] scores, int[] labels)
+	{
+		int index = feature * label_size;
 		
-		for (j=0; j<x.length; j++)
-			for (i=0; i<scores.length; i++)
-				scores[i] += get(index++) * x[j];
+		for (int y : labels)
+			scores[y] += weights[index+y] * value;
 	}
 	
 	@Override
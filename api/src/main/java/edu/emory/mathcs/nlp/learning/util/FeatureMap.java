@@ -18,6 +18,7 @@ package edu.emory.mathcs.nlp.learning.util;
 import edu.emory.mathcs.nlp.common.util.DSUtils;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -90,6 +91,22 @@ public class FeatureMap implements Serializable
 		feature_size = size;
 	}
 	
+	/** Removes the features whose indices are greater than or equal to the size (e.g., added after a snapshot). */
+	public void truncate(int size)
+	{
+		ObjectIterator<Object2IntMap.Entry<String>> it;
+		
+		for (Object2IntMap<String> map : index_map)
+		{
+			it = map.object2IntEntrySet().iterator();
+			
+			while (it.hasNext())
+				if (it.next().getIntValue() >= size) it.remove();
+		}
+		
+		feature_size = size;
+	}
+	
 	public int getMaxIndex()
 	{
 		int max = -1;
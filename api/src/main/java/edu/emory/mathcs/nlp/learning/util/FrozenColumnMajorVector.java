@@ -0,0 +1,142 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.util;
+
+import edu.emory.mathcs.nlp.learning.initialization.WeightGenerator;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.FloatBuffer;
+
+/**
+ * Read-only column-major vector whose weights live in a {@link FloatBuffer} (e.g., a memory-mapped frozen model).
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class FrozenColumnMajorVector extends ColumnMajorVector
+{
+	private static final long serialVersionUID = -1837429946290377145L;
+	private transient FloatBuffer buffer;
+	
+	/** @param buffer weights in the column-major order; its capacity must be {@code labelSize * featureSize}. */
+	public FrozenColumnMajorVector(FloatBuffer buffer, int labelSize, int featureSize)
+	{
+		this.buffer = buffer;
+		setSizes(labelSize, featureSize);
+	}
+	
+	@Override
+	public boolean expand(int labelSize, int featureSize, WeightGenerator generator)
+	{
+		if (labelSize <= label_size && featureSize <= feature_size) return false;
+		throw readOnly();
+	}
+	
+	@Override
+	public float get(int index)
+	{
+		return buffer.get(index);
+	}
+	
+	@Override
+	public void set(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void add(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void add(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void multiply(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void multiply(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void fill(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	protected void addScores(int feature, float value, float[] scores)
+	{
+		int index = feature * label_size;
+		
+		for (int i=0; i<scores.length; i++)
+			scores[i] += buffer.get(index++) * value;
+	}
+	
+	@Override
+	protected void addScores(int feature, float value, float[] scores, int[] labels)
+	{
+		int index = feature * label_size;
+		
+		for (int y : labels)
+			scores[y] += buffer.get(index+y) * value;
+	}
+	
+	@Override
+	public MajorVector createZeroVector()
+	{
+		MajorVector vector = new ColumnMajorVector();
+		vector.expand(label_size, feature_size);
+		return vector;
+	}
+	
+	@Override
+	public int countNonZeroWeights()
+	{
+		int count = 0;
+		
+		for (int i=size()-1; i>=0; i--)
+			if (buffer.get(i) != 0) count++;
+		
+		return count;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "frozen: "+label_size+" x "+feature_size;
+	}
+	
+	private UnsupportedOperationException readOnly()
+	{
+		return new UnsupportedOperationException("A frozen vector is read-only.");
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		throw new NotSerializableException(getClass().getName());
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.util;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Read-only feature map backed by an open-addressing hash table in buffers (e.g., a memory-mapped frozen model).
+ * The table consists of three buffers:
+ * <ul>
+ * <li>{@code slots}: power-of-two table where each slot is either 0 (empty) or 1 + the ID of an entry.</li>
+ * <li>{@code entries}: 4 integers per entry, {@code [type, feature index, offset in chars, length]}.</li>
+ * <li>{@code chars}: UTF-16 characters of all feature values.</li>
+ * </ul>
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class FrozenFeatureMap extends FeatureMap
+{
+	private static final long serialVersionUID = 2293858361549386367L;
+	static public final int ENTRY_SIZE = 4;
+	
+	private transient IntBuffer  slots;
+	private transient IntBuffer  entries;
+	private transient CharBuffer chars;
+	private transient int        mask;
+	
+	/** @param size the total number of features (see {@link FeatureMap#size()}). */
+	public FrozenFeatureMap(IntBuffer slots, IntBuffer entries, CharBuffer chars, int size)
+	{
+		super(size);
+		this.slots   = slots;
+		this.entries = entries;
+		this.chars   = chars;
+		mask = slots.capacity() - 1;
+	}
+	
+	/** @return the hash code of the specific feature used to find its slot. */
+	static public int hash(int type, String value)
+	{
+		int h = (value.hashCode() + type) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	/** @return the number of slots for the specific number of entries (load factor &le; 0.5). */
+	static public int getSlotSize(int entrySize)
+	{
+		return Integer.highestOneBit(Math.max(1, entrySize) * 2 - 1) << 1;
+	}
+	
+	@Override
+	public int add(int type, String value)
+	{
+		int index = index(type, value);
+		if (index >= 0) return index;
+		throw new UnsupportedOperationException("A frozen feature map is read-only.");
+	}
+	
+	@Override
+	public int index(int type, String value)
+	{
+		int i = hash(type, value) & mask, e;
+		
+		while ((e = slots.get(i)) != 0)
+		{
+			e = (e - 1) * ENTRY_SIZE;
+			
+			if (entries.get(e) == type && matches(entries.get(e+2), entries.get(e+3), value))
+				return entries.get(e+1);
+			
+			i = (i + 1) & mask;
+		}
+		
+		return -1;
+	}
+	
+	private boolean matches(int offset, int length, String value)
+	{
+		if (length != value.length()) return false;
+		
+		for (int i=0; i<length; i++)
+			if (chars.get(offset+i) != value.charAt(i)) return false;
+		
+		return true;
+	}
+	
+	@Override
+	public int getMaxIndex()
+	{
+		int max = -1;
+		
+		for (int e=entries.capacity()-ENTRY_SIZE; e>=0; e-=ENTRY_SIZE)
+			max = Math.max(max, entries.get(e+1));
+		
+		return max;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "frozen: "+(entries.capacity() / ENTRY_SIZE)+" features";
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		throw new NotSerializableException(getClass().getName());
+	}
+}
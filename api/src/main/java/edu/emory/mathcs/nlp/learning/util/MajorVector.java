@@ -18,15 +18,29 @@ package edu.emory.mathcs.nlp.learning.util;
 import edu.emory.mathcs.nlp.learning.initialization.WeightGenerator;
 import org.magicwerk.brownies.collections.primitive.FloatGapList;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
+ * Weights are stored in a dense {@code float[]} whose capacity grows geometrically;
+ * models serialized with the previous {@link FloatGapList} storage are still readable.
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
 public abstract class MajorVector implements Serializable
 {
 	private static final long serialVersionUID = 4837958224356746566L;
-	protected FloatGapList weights;
+	/** {@code weights} is either a {@code float[]} or a {@link FloatGapList} (legacy models). */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("weights"     , Object.class),
+		new ObjectStreamField("feature_size", int.class),
+		new ObjectStreamField("label_size"  , int.class)};
+	
+	/** The first {@link #size()} elements are the weights; the rest is spare capacity. */
+	protected float[] weights;
 	protected int feature_size;
 	protected int label_size;	
 	
@@ -34,7 +48,7 @@ public abstract class MajorVector implements Serializable
 
 	public MajorVector()
 	{
-		weights = new FloatGapList();
+		weights = new float[0];
 		setSizes(0, 0);
 	}
 	
@@ -72,10 +86,15 @@ public abstract class MajorVector implements Serializable
 		// expand columns
 		if (oldColumnSize < newColumnSize)
 		{
-			int i, j, diff = newColumnSize - oldColumnSize, size = oldRowSize * newColumnSize;
+			int i, j, size = oldRowSize * newColumnSize;
+			ensureCapacity(size);
+			
+			// shift rows from the last one so that no row is overwritten before it is moved
+			for (i=oldRowSize-1; i>0; i--)
+				System.arraycopy(weights, i*oldColumnSize, weights, i*newColumnSize, oldColumnSize);
 			
 			for (i=oldColumnSize; i<size; i+=newColumnSize)
-				for (j=0; j<diff; j++) weights.add(i+j, generator == null ? 0 : generator.next());
+				for (j=0; j<newColumnSize-oldColumnSize; j++) weights[i+j] = generator == null ? 0 : generator.next();
 			
 			setColumnSize(newColumnSize);
 			expanded = true;
@@ -85,7 +104,8 @@ public abstract class MajorVector implements Serializable
 		if (oldRowSize < newRowSize)
 		{
 			int i, size = newRowSize * newColumnSize;
-			for (i=weights.size(); i<size; i++) weights.add(generator == null ? 0 : generator.next());
+			ensureCapacity(size);
+			for (i=oldRowSize*newColumnSize; i<size; i++) weights[i] = generator == null ? 0 : generator.next();
 			
 			setRowSize(newRowSize);
 			expanded = true;
@@ -94,6 +114,13 @@ public abstract class MajorVector implements Serializable
 		return expanded;
 	}
 	
+	/** Grows the backing array by at least half of its length so that repeated expansions take amortized linear time. */
+	private void ensureCapacity(int capacity)
+	{
+		if (weights.length < capacity)
+			weights = Arrays.copyOf(weights, Math.max(capacity, weights.length + (weights.length >> 1)));
+	}
+	
 	protected abstract void setRowSize   (int size);
 	protected abstract void setColumnSize(int size);
 	
@@ -101,42 +128,42 @@ public abstract class MajorVector implements Serializable
 
 	public float get(int index)
 	{
-		return weights.get(index);
+		return weights[index];
 	}
 
 	public void set(int index, float value)
 	{
-		weights.set(index, value);
+		weights[index] = value;
 	}
 	
 	public void add(int index, float value)
 	{
-		set(index, get(index) + value);
+		weights[index] += value;
 	}
 	
 	public void add(float value)
 	{
-		for (int i=0; i<size(); i++) add(i, value);
+		for (int i=size()-1; i>=0; i--) weights[i] += value;
 	}
 	
 	public void multiply(int index, float value)
 	{
-		set(index, get(index) * value);
+		weights[index] *= value;
 	}
 	
 	public void multiply(float value)
 	{
-		for (int i=0; i<size(); i++) multiply(i, value);
+		for (int i=size()-1; i>=0; i--) weights[i] *= value;
 	}
 	
 	public void fill(float value)
 	{
-		for (int i=0; i<size(); i++) set(i, value);
+		Arrays.fill(weights, 0, size(), value);
 	}
 	
 	public int size()
 	{
-		return weights.size();
+		return feature_size * label_size;
 	}
 	
 //	=================================== X/Y OPERATIONS ===================================
@@ -173,6 +200,61 @@ public abstract class MajorVector implements Serializable
 	public abstract void addScores(SparseVector x, float[] scores);
 	public abstract void addScores(float[] x, float[] scores);
 	
+	/**
+	 * Adds the scores of only the specific labels, which reads only their weights; the scores of the other labels are not touched.
+	 * @param labels the indices of the labels to score.
+	 */
+	public abstract void addScores(SparseVector x, float[] scores, int[] labels);
+	
+	/** @see #addScores(SparseVector, float[], int[]) */
+	public abstract void addScores(float[] x, float[] scores, int[] labels);
+	
+	/**
+	 * Adds the scores of a batch of sparse vectors, where {@code scores[b]} takes the scores of {@code x[b]}.
+	 * Subclasses may reorder the computation so that the weights of each feature are read once per batch.
+	 * @param x {@code x[b]} can be {@code null}.
+	 */
+	public void addScores(SparseVector[] x, float[][] scores)
+	{
+		for (int b=0; b<x.length; b++)
+			if (x[b] != null) addScores(x[b], scores[b]);
+	}
+	
+	/**
+	 * Adds the scores of a batch of dense vectors, where {@code scores[b]} takes the scores of {@code x[b]}.
+	 * @param x {@code x[b]} can be {@code null}.
+	 */
+	public void addScores(float[][] x, float[][] scores)
+	{
+		for (int b=0; b<x.length; b++)
+			if (x[b] != null) addScores(x[b], scores[b]);
+	}
+	
+	/**
+	 * Adds the scores of a batch of sparse vectors, where {@code scores[b]} takes the scores of the labels in {@code labels[b]} for {@code x[b]}.
+	 * @param labels if {@code labels[b]} is {@code null}, all labels are scored for {@code x[b]}.
+	 */
+	public void addScores(SparseVector[] x, float[][] scores, int[][] labels)
+	{
+		for (int b=0; b<x.length; b++)
+		{
+			if (x[b] == null) continue;
+			if (labels[b] == null) addScores(x[b], scores[b]);
+			else addScores(x[b], scores[b], labels[b]);
+		}
+	}
+	
+	/** @see #addScores(SparseVector[], float[][], int[][]) */
+	public void addScores(float[][] x, float[][] scores, int[][] labels)
+	{
+		for (int b=0; b<x.length; b++)
+		{
+			if (x[b] == null) continue;
+			if (labels[b] == null) addScores(x[b], scores[b]);
+			else addScores(x[b], scores[b], labels[b]);
+		}
+	}
+	
 //	=================================== UTILITIES ===================================
 	
 	protected abstract MajorVector createInstance();
@@ -183,11 +265,7 @@ public abstract class MajorVector implements Serializable
 		MajorVector vector = createInstance();
 
 		vector.setSizes(label_size, feature_size);
-		vector.weights = new FloatGapList();
-
-		for (int i=0; i<weights.size(); i++)
-			vector.weights.add(0);
-		
+		vector.weights = new float[size()];
 		return vector;
 	}
 	
@@ -196,8 +274,8 @@ public abstract class MajorVector implements Serializable
 	{
 		int count = 0;
 		
-		for (int i=0; i<size(); i++)
-			if (get(i) != 0) count++;
+		for (int i=size()-1; i>=0; i--)
+			if (weights[i] != 0) count++;
 		
 		return count;
 	}
@@ -208,9 +286,52 @@ public abstract class MajorVector implements Serializable
 		label_size   = labelSize;
 	}
 	
+//	=================================== SNAPSHOT ===================================
+	
+	/**
+	 * Copies the weights to the buffer, which is reused if it is large enough so that repeated snapshots do not allocate.
+	 * @return the buffer whose first {@link #size()} elements are the weights.
+	 */
+	public float[] copyWeights(float[] buffer)
+	{
+		if (buffer == null || buffer.length < size()) buffer = new float[weights.length];
+		System.arraycopy(weights, 0, buffer, 0, size());
+		return buffer;
+	}
+	
+	/** Replaces the weights with the first {@code labelSize * featureSize} elements of the array (see {@link #copyWeights(float[])}). */
+	public void setWeights(float[] array, int labelSize, int featureSize)
+	{
+		int size = labelSize * featureSize;
+		if (weights.length < size) weights = new float[size];
+		System.arraycopy(array, 0, weights, 0, size);
+		setSizes(labelSize, featureSize);
+	}
+	
+//	=================================== SERIALIZATION ===================================
+	
+	/** Subclasses keeping their weights elsewhere (e.g., {@link QuantizedColumnMajorVector}) leave {@link #weights} shorter than {@link #size()}, which is written as it is. */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("weights"     , weights.length <= size() ? weights : Arrays.copyOf(weights, size()));
+		fields.put("feature_size", feature_size);
+		fields.put("label_size"  , label_size);
+		out.writeFields();
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField fields = in.readFields();
+		Object w = fields.get("weights", null);
+		weights = (w instanceof FloatGapList) ? ((FloatGapList)w).toArray() : (float[])w;
+		feature_size = fields.get("feature_size", 0);
+		label_size   = fields.get("label_size"  , 0);
+	}
+	
 	@Override
 	public String toString()
 	{
-		return weights.toString();
+		return Arrays.toString(Arrays.copyOf(weights, size()));
 	}
 }
@@ -0,0 +1,26 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.util;
+
+/**
+ * The formats of quantized weights (see {@link QuantizedWeights}).
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public enum Quantization
+{
+	int8,	// 8-bit integers with a scale per label
+	fp16;	// IEEE 754 half-precision floats
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.util;
+
+import edu.emory.mathcs.nlp.learning.initialization.WeightGenerator;
+
+/**
+ * Read-only column-major vector whose weights are quantized for decoding (see {@link QuantizedWeights}).
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class QuantizedColumnMajorVector extends ColumnMajorVector
+{
+	private static final long serialVersionUID = 5518069230842571623L;
+	private QuantizedWeights quantized;
+	
+	/** @param vector the column-major vector to be quantized, which is not modified. */
+	public QuantizedColumnMajorVector(MajorVector vector, Quantization quantization)
+	{
+		quantized = new QuantizedWeights(vector, quantization);
+		setSizes(vector.getLabelSize(), vector.getFeatureSize());
+	}
+	
+	public QuantizedWeights getQuantizedWeights()
+	{
+		return quantized;
+	}
+	
+	@Override
+	public boolean expand(int labelSize, int featureSize, WeightGenerator generator)
+	{
+		if (labelSize <= label_size && featureSize <= feature_size) return false;
+		throw readOnly();
+	}
+	
+	@Override
+	public float get(int index)
+	{
+		return quantized.get(index, index % label_size);
+	}
+	
+	@Override
+	public void set(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void add(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void add(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void multiply(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void multiply(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void fill(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	protected void addScores(int feature, float value, float[] scores)
+	{
+		quantized.addScores(feature * label_size, value, scores);
+	}
+	
+	@Override
+	protected void addScores(int feature, float value, float[] scores, int[] labels)
+	{
+		quantized.addScores(feature * label_size, value, scores, labels);
+	}
+	
+	@Override
+	public MajorVector createZeroVector()
+	{
+		MajorVector vector = new ColumnMajorVector();
+		vector.expand(label_size, feature_size);
+		return vector;
+	}
+	
+	@Override
+	public int countNonZeroWeights()
+	{
+		return quantized.countNonZeroWeights();
+	}
+	
+	/** The weights are dequantized to the buffer. */
+	@Override
+	public float[] copyWeights(float[] buffer)
+	{
+		if (buffer == null || buffer.length < size()) buffer = new float[size()];
+		for (int i=size()-1; i>=0; i--) buffer[i] = get(i);
+		return buffer;
+	}
+	
+	@Override
+	public void setWeights(float[] array, int labelSize, int featureSize)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return quantized.getQuantization()+": "+label_size+" x "+feature_size;
+	}
+	
+	private UnsupportedOperationException readOnly()
+	{
+		return new UnsupportedOperationException("A quantized vector is read-only.");
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.util;
+
+import edu.emory.mathcs.nlp.learning.initialization.WeightGenerator;
+
+/**
+ * Read-only row-major vector whose weights are quantized for decoding (see {@link QuantizedWeights}).
+ * Each label is scored by summing the raw values of its row, which is multiplied by the scale of the label once.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class QuantizedRowMajorVector extends RowMajorVector
+{
+	private static final long serialVersionUID = -7342386617063128859L;
+	private QuantizedWeights quantized;
+	
+	/** @param vector the row-major vector to be quantized, which is not modified. */
+	public QuantizedRowMajorVector(MajorVector vector, Quantization quantization)
+	{
+		quantized = new QuantizedWeights(vector, quantization);
+		setSizes(vector.getLabelSize(), vector.getFeatureSize());
+	}
+	
+	public QuantizedWeights getQuantizedWeights()
+	{
+		return quantized;
+	}
+	
+	@Override
+	public boolean expand(int labelSize, int featureSize, WeightGenerator generator)
+	{
+		if (labelSize <= label_size && featureSize <= feature_size) return false;
+		throw readOnly();
+	}
+	
+	@Override
+	public float get(int index)
+	{
+		return quantized.get(index, index / feature_size);
+	}
+	
+	@Override
+	public void set(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void add(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void add(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void multiply(int index, float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void multiply(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void fill(float value)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public void addScores(SparseVector x, float[] scores)
+	{
+		for (int i=0; i<scores.length; i++)
+			scores[i] += quantized.getScale(i) * quantized.dot(i * feature_size, x, feature_size);
+	}
+	
+	@Override
+	public void addScores(float[] x, float[] scores)
+	{
+		for (int i=0; i<scores.length; i++)
+			scores[i] += quantized.getScale(i) * quantized.dot(i * feature_size, x);
+	}
+	
+	@Override
+	public void addScores(SparseVector x, float[] scores, int[] labels)
+	{
+		for (int y : labels)
+			scores[y] += quantized.getScale(y) * quantized.dot(y * feature_size, x, feature_size);
+	}
+	
+	@Override
+	public void addScores(float[] x, float[] scores, int[] labels)
+	{
+		for (int y : labels)
+			scores[y] += quantized.getScale(y) * quantized.dot(y * feature_size, x);
+	}
+	
+	/** The vectors are scored one at a time since the blocked product of {@link RowMajorVector} reads the float weights. */
+	@Override
+	public void addScores(float[][] x, float[][] scores)
+	{
+		for (int b=0; b<x.length; b++)
+			if (x[b] != null) addScores(x[b], scores[b]);
+	}
+	
+	@Override
+	public MajorVector createZeroVector()
+	{
+		MajorVector vector = new RowMajorVector();
+		vector.expand(label_size, feature_size);
+		return vector;
+	}
+	
+	@Override
+	public int countNonZeroWeights()
+	{
+		return quantized.countNonZeroWeights();
+	}
+	
+	/** The weights are dequantized to the buffer. */
+	@Override
+	public float[] copyWeights(float[] buffer)
+	{
+		if (buffer == null || buffer.length < size()) buffer = new float[size()];
+		for (int i=size()-1; i>=0; i--) buffer[i] = get(i);
+		return buffer;
+	}
+	
+	@Override
+	public void setWeights(float[] array, int labelSize, int featureSize)
+	{
+		throw readOnly();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return quantized.getQuantization()+": "+label_size+" x "+feature_size;
+	}
+	
+	private UnsupportedOperationException readOnly()
+	{
+		return new UnsupportedOperationException("A quantized vector is read-only.");
+	}
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.util;
+
+import java.io.Serializable;
+
+/**
+ * Weights of a major vector stored in the same order as the vector but in fewer bits (see {@link Quantization}).
+ * For {@link Quantization#int8}, each weight is rounded to a multiple of the scale of its label, {@code max(|w|) / 127} over the weights of the label,
+ * such that the largest weight of every label keeps its full range; for {@link Quantization#fp16}, each weight is rounded to the nearest half-precision float.
+ * The raw values are summed before they are multiplied by the scale of the label whenever the weights of one label are read together (see {@link #dot(int, float[])}).
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class QuantizedWeights implements Serializable
+{
+	private static final long serialVersionUID = 2290573466327601948L;
+	private final Quantization quantization;
+	/** The weights for {@link Quantization#int8}; otherwise, {@code null}. */
+	private final byte[]  bytes;
+	/** The weights for {@link Quantization#fp16}; otherwise, {@code null}. */
+	private final short[] halves;
+	/** {@code scales[y]}: the scale of the {@code y}'th label for {@link Quantization#int8}; otherwise, {@code null}. */
+	private final float[] scales;
+	
+	/** Quantizes the weights of the vector, which is not modified. */
+	public QuantizedWeights(MajorVector vector, Quantization quantization)
+	{
+		int y, xi, labelSize = vector.getLabelSize(), featureSize = vector.getFeatureSize();
+		this.quantization = quantization;
+		
+		switch (quantization)
+		{
+		case int8:
+			bytes  = new byte[vector.size()];
+			halves = null;
+			scales = new float[labelSize];
+			float max, scale;
+			
+			for (y=0; y<labelSize; y++)
+			{
+				for (xi=0, max=0; xi<featureSize; xi++)
+					max = Math.max(max, Math.abs(vector.get(y, xi)));
+				
+				scales[y] = scale = max / Byte.MAX_VALUE;
+				if (scale == 0) continue;
+				
+				for (xi=0; xi<featureSize; xi++)
+					bytes[vector.indexOf(y, xi)] = (byte)Math.round(vector.get(y, xi) / scale);
+			}
+			break;
+		case fp16:
+			bytes  = null;
+			halves = new short[vector.size()];
+			scales = null;
+			
+			for (y=0; y<labelSize; y++)
+				for (xi=0; xi<featureSize; xi++)
+					halves[vector.indexOf(y, xi)] = toHalf(vector.get(y, xi));
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported quantization: "+quantization);
+		}
+	}
+	
+	public Quantization getQuantization()
+	{
+		return quantization;
+	}
+	
+	/** @return the weight at the index, which belongs to the label. */
+	public float get(int index, int label)
+	{
+		return (bytes != null) ? bytes[index] * scales[label] : toFloat(halves[index]);
+	}
+	
+	/** @return the scale of the label, by which the raw values of the label are multiplied (see {@link #dot(int, float[])}). */
+	public float getScale(int label)
+	{
+		return (scales != null) ? scales[label] : 1;
+	}
+	
+	public int countNonZeroWeights()
+	{
+		int i, count = 0;
+		
+		if (bytes != null)
+		{
+			for (i=bytes.length-1; i>=0; i--)
+				if (bytes[i] != 0) count++;
+		}
+		else
+		{
+			// both +0 and -0 are zeros
+			for (i=halves.length-1; i>=0; i--)
+				if ((halves[i] & 0x7fff) != 0) count++;
+		}
+		
+		return count;
+	}
+
+//	=================================== SCORES ===================================
+	
+	/** Adds the weights of consecutive labels from the index multiplied by the value, where the label of {@code begin+y} is {@code y} (column-major). */
+	public void addScores(int begin, float value, float[] scores)
+	{
+		int y, index = begin;
+		
+		if (bytes != null)
+		{
+			for (y=0; y<scores.length; y++)
+				scores[y] += bytes[index++] * scales[y] * value;
+		}
+		else
+		{
+			for (y=0; y<scores.length; y++)
+				scores[y] += toFloat(halves[index++]) * value;
+		}
+	}
+	
+	/** The same as {@link #addScores(int, float, float[])} except that only the specific labels are scored. */
+	public void addScores(int begin, float value, float[] scores, int[] labels)
+	{
+		if (bytes != null)
+		{
+			for (int y : labels)
+				scores[y] += bytes[begin+y] * scales[y] * value;
+		}
+		else
+		{
+			for (int y : labels)
+				scores[y] += toFloat(halves[begin+y]) * value;
+		}
+	}
+	
+	/** @return the sum of the raw values of consecutive weights from the index multiplied by {@code x} (row-major), which is not scaled yet (see {@link #getScale(int)}). */
+	public float dot(int begin, float[] x)
+	{
+		float sum = 0;
+		int j;
+		
+		if (bytes != null)
+		{
+			for (j=0; j<x.length; j++)
+				sum += bytes[begin+j] * x[j];
+		}
+		else
+		{
+			for (j=0; j<x.length; j++)
+				sum += toFloat(halves[begin+j]) * x[j];
+		}
+		
+		return sum;
+	}
+	
+	/** The same as {@link #dot(int, float[])} except that only the features whose indices are less than {@code featureSize} are considered. */
+	public float dot(int begin, SparseVector x, int featureSize)
+	{
+		float sum = 0;
+		int j, index;
+		
+		for (j=0; j<x.size(); j++)
+		{
+			index = x.getIndex(j);
+			if (index < featureSize) sum += ((bytes != null) ? bytes[begin+index] : toFloat(halves[begin+index])) * x.getValue(j);
+		}
+		
+		return sum;
+	}
+
+//	=================================== HALF-PRECISION ===================================
+	
+	/** @return the nearest half-precision float of the value (ties to even), which becomes infinity if it exceeds the range. */
+	static public short toHalf(float value)
+	{
+		int bits = Float.floatToIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int abs  = bits & 0x7fffffff;
+		
+		// NaN or infinity
+		if (abs >= 0x7f800000)
+			return (short)(sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 : 0));
+		
+		// overflow (including values that round up to 2^16)
+		if (abs >= 0x477ff000)
+			return (short)(sign | 0x7c00);
+		
+		// normal
+		if (abs >= 0x38800000)
+		{
+			int half = (abs - 0x38000000) >>> 13;
+			int rest = abs & 0x1fff;
+			if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0)) half++;
+			return (short)(sign | half);
+		}
+		
+		// subnormal: the mantissa with its implicit bit is shifted to the units of 2^-24
+		if (abs < 0x33000000)
+			return (short)sign;
+		
+		int exponent = abs >>> 23;
+		int mantissa = (abs & 0x7fffff) | 0x800000;
+		int shift    = 126 - exponent;
+		int half     = mantissa >>> shift;
+		int rest     = mantissa & ((1 << shift) - 1);
+		int middle   = 1 << (shift - 1);
+		if (rest > middle || (rest == middle && (half & 1) != 0)) half++;
+		return (short)(sign | half);
+	}
+	
+	static public float toFloat(short half)
+	{
+		int sign     = (half & 0x8000) << 16;
+		int exponent = (half >>> 10) & 0x1f;
+		int mantissa = half & 0x3ff;
+		
+		if (exponent == 0)
+		{
+			float f = mantissa * 0x1p-24f;
+			return (sign != 0) ? -f : f;
+		}
+		
+		if (exponent == 0x1f)
+			return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+		
+		return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+	}
+}
@@ -23,7 +23,7 @@ import edu.emory.mathcs.nlp.learning.initialization.WeightGenerator;
 public class RowMajorVector extends MajorVector
 {
 	private static final long serialVersionUID = -3004240061242740599L;
-
+	
 	@Override
 	public boolean expand(int labelSize, int featureSize, WeightGenerator generator)
 	{
@@ -45,16 +45,16 @@ public class RowMajorVector extends MajorVector
 	@Override
 	public void addScores(SparseVector x, float[] scores)
 	{
-		int i, index;
+		int i, j, index;
 		
 		for (i=0; i<scores.length; i++)
 		{
 			index = i * feature_size;
 			
-			for (SparseItem p : x)
+			for (j=0; j<x.size(); j++)
 			{
-				if (p.getIndex() < getFeatureSize())
-					scores[i] += get(index+p.getIndex()) * p.getValue();
+				if (x.getIndex(j) < feature_size)
+					scores[i] += weights[index+x.getIndex(j)] * x.getValue(j);
 			}
 		}
 	}
@@ -63,10 +63,109 @@ public class RowMajorVector extends MajorVector
 	public void addScores(float[] x, float[] scores)
 	{
 		int i, j, index = 0;
+		float s;
 		
 		for (i=0; i<scores.length; i++)
+		{
+			s = scores[i];
+			
 			for (j=0; j<x.length; j++)
-				scores[i] += get(index++) * x[j];
+				s += weights[index++] * x[j];
+			
+			scores[i] = s;
+		}
+	}
+	
+	/**
+	 * Scores four vectors at a time so that each row of weights is read once per four vectors,
+	 * where every score is summed in the same order as {@link #addScores(float[], float[])}.
+	 */
+	@Override
+	public void addScores(float[][] x, float[][] scores)
+	{
+		int b = 0;
+		
+		while (b < x.length)
+		{
+			if (b+4 <= x.length && isBlock(x, scores, b))
+			{
+				addScores(x[b], x[b+1], x[b+2], x[b+3], scores[b], scores[b+1], scores[b+2], scores[b+3]);
+				b += 4;
+			}
+			else
+			{
+				if (x[b] != null) addScores(x[b], scores[b]);
+				b++;
+			}
+		}
+	}
+	
+	/** @return true if the four vectors from {@code x[b]} cover all features and their scores cover all labels. */
+	private boolean isBlock(float[][] x, float[][] scores, int b)
+	{
+		for (int i=b; i<b+4; i++)
+			if (x[i] == null || x[i].length != feature_size || scores[i].length != label_size) return false;
+		
+		return true;
+	}
+	
+	private void addScores(float[] x0, float[] x1, float[] x2, float[] x3, float[] scores0, float[] scores1, float[] scores2, float[] scores3)
+	{
+		float s0, s1, s2, s3, w;
+		int i, j, index = 0;
+		
+		for (i=0; i<label_size; i++)
+		{
+			s0 = scores0[i];
+			s1 = scores1[i];
+			s2 = scores2[i];
+			s3 = scores3[i];
+			
+			for (j=0; j<feature_size; j++)
+			{
+				w = weights[index++];
+				s0 += w * x0[j];
+				s1 += w * x1[j];
+				s2 += w * x2[j];
+				s3 += w * x3[j];
+			}
+			
+			scores0[i] = s0;
+			scores1[i] = s1;
+			scores2[i] = s2;
+			scores3[i] = s3;
+		}
+	}
+	
+	@Override
+	public void addScores(SparseVector x, float[] scores, int[] labels)
+	{
+		int j, index;
+		
+		for (int y : labels)
+		{
+			index = y * feature_size;
+			
+			for (j=0; j<x.size(); j++)
+			{
+				if (x.getIndex(j) < feature_size)
+					scores[y] += weights[index+x.getIndex(j)] * x.getValue(j);
+			}
+		}
+	}
+	
+	@Override
+	public void addScores(float[] x, float[] scores, int[] labels)
+	{
+		int j, index;
+		
+		for (int y : labels)
+		{
+			index = y * feature_size;
+			
+			for (j=0; j<x.length; j++)
+				scores[y] += weights[index+j] * x[j];
+		}
 	}
 	
 	@Override
@@ -15,23 +15,31 @@
  */
 package edu.emory.mathcs.nlp.learning.util;
 
-import edu.emory.mathcs.nlp.common.constant.StringConst;
-import edu.emory.mathcs.nlp.common.util.Joiner;
-
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+import edu.emory.mathcs.nlp.common.constant.StringConst;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
 
 /**
+ * Indices and values are kept in parallel primitive arrays so that adding a feature does not create an object;
+ * {@link #clear()} resets the vector for reuse while keeping its capacity.
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
 public class SparseVector implements Serializable, Iterable<SparseItem>
 {
 	private static final long serialVersionUID = -1427072719834760188L;
-	private List<SparseItem> vector;
-	private int max_index;
+	static private final int INIT_CAPACITY = 16;
+	
+	private int[]   indices;
+	private float[] values;
+	private int     size;
+	private int     max_index;
 	
 	public SparseVector()
 	{
@@ -51,35 +59,66 @@ public class SparseVector implements Serializable, Iterable<SparseItem>
 	public SparseVector(SparseVector v, int beginIndex, int endIndex)
 	{
 		this(0);
-		for (int i=beginIndex; i<endIndex; i++) add(v.get(i));
+		for (int i=beginIndex; i<endIndex; i++) add(v.getIndex(i), v.getValue(i));
 	}
 	
 	public SparseVector(float bias)
 	{
-		vector = new ArrayList<>();
+		indices = new int  [INIT_CAPACITY];
+		values  = new float[INIT_CAPACITY];
 		addBias(bias);
 		max_index = 0;
 	}
 	
+	/** @return a new item containing the index and the value at the specific position; use {@link #getIndex(int)} and {@link #getValue(int)} to avoid the allocation. */
 	public SparseItem get(int index)
 	{
-		return vector.get(index);
+		checkRange(index);
+		return new SparseItem(indices[index], values[index]);
+	}
+	
+	/** @return the feature index at the specific position of this vector. */
+	public int getIndex(int index)
+	{
+		checkRange(index);
+		return indices[index];
+	}
+	
+	/** @return the feature value at the specific position of this vector. */
+	public float getValue(int index)
+	{
+		checkRange(index);
+		return values[index];
+	}
+	
+	public void setValue(int index, float value)
+	{
+		checkRange(index);
+		values[index] = value;
 	}
 	
 	public void add(int index)
 	{
-		add(new SparseItem(index));
+		add(index, 1f);
 	}
 	
 	public void add(int index, float value)
 	{
-		add(new SparseItem(index, value));
+		if (size == indices.length)
+		{
+			indices = Arrays.copyOf(indices, size * 2);
+			values  = Arrays.copyOf(values , size * 2);
+		}
+		
+		indices[size] = index;
+		values [size] = value;
+		size++;
+		max_index = Math.max(max_index, index);
 	}
 	
 	public void add(SparseItem item)
 	{
-		vector.add(item);
-		max_index = Math.max(max_index, item.getIndex());
+		add(item.getIndex(), item.getValue());
 	}
 	
 	public void addBias(float bias)
@@ -87,19 +126,42 @@ public class SparseVector implements Serializable, Iterable<SparseItem>
 		if (bias > 0) add(0, bias);
 	}
 	
+	/** Removes all features from this vector but keeps the allocated capacity. */
+	public void clear()
+	{
+		size = 0;
+		max_index = 0;
+	}
+	
 	public boolean isEmpty()
 	{
-		return vector.isEmpty();
+		return size == 0;
 	}
 	
 	public int size()
 	{
-		return vector.size();
+		return size;
 	}
 
+	/** Sorts the features by their indices, where the index and value arrays are swapped together without creating items. */
 	public void sort()
 	{
-		Collections.sort(vector);
+		it.unimi.dsi.fastutil.Arrays.quickSort(0, size, new AbstractIntComparator()
+		{
+			private static final long serialVersionUID = 7417233390924318766L;
+			
+			@Override
+			public int compare(int i, int j)
+			{
+				return Integer.compare(indices[i], indices[j]);
+			}
+		}, this::swap);
+	}
+	
+	private void swap(int i, int j)
+	{
+		int   index = indices[i]; indices[i] = indices[j]; indices[j] = index;
+		float value = values [i]; values [i] = values [j]; values [j] = value;
 	}
 	
 	public int maxIndex()
@@ -107,20 +169,52 @@ public class SparseVector implements Serializable, Iterable<SparseItem>
 		return max_index;
 	}
 	
+	private void checkRange(int index)
+	{
+		if (index >= size) throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+	}
+	
+	/** @return a new list of the items in this vector, which does not reflect later changes; use {@link #getIndex(int)} and {@link #getValue(int)} to avoid the allocation. */
 	public List<SparseItem> getVector()
 	{
-		return vector;
+		List<SparseItem> list = new ArrayList<>(size);
+		for (int i=0; i<size; i++) list.add(new SparseItem(indices[i], values[i]));
+		return list;
 	}
 	
+	/** Iterates through new items; use {@link #getIndex(int)} and {@link #getValue(int)} in performance critical loops. */
 	@Override
 	public Iterator<SparseItem> iterator()
 	{
-		return vector.iterator();
+		return new Iterator<SparseItem>()
+		{
+			int i = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return i < size;
+			}
+
+			@Override
+			public SparseItem next()
+			{
+				if (i >= size) throw new NoSuchElementException();
+				SparseItem item = new SparseItem(indices[i], values[i]);
+				i++;
+				return item;
+			}
+		};
 	}
 
 	@Override
 	public String toString()
 	{
-		return Joiner.join(vector, StringConst.SPACE);
+		StringJoiner join = new StringJoiner(StringConst.SPACE);
+		
+		for (int i=0; i<size; i++)
+			join.add(indices[i]+":"+values[i]);
+		
+		return join.toString();
 	}
 }
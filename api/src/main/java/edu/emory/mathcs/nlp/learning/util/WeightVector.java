@@ -29,6 +29,8 @@ import java.util.List;
 public class WeightVector implements Serializable
 {
 	private static final long serialVersionUID = -3283251983046316463L;
+	/** Labels are scored individually only if they are at most this portion of all labels; otherwise, the contiguous weights of all labels are read faster. */
+	static private final float SUBSET_RATIO = 0.5f;
 	private ActivationFunction activation_function;
 	private MajorVector sparse_weight_vector;	// column major
 	private MajorVector dense_weight_vector;	// row major
@@ -122,6 +124,21 @@ public class WeightVector implements Serializable
 		return vector;
 	}
 	
+	/**
+	 * Replaces the sparse and dense weights with their quantized copies (see {@link QuantizedWeights}),
+	 * after which this vector can be used for scoring but not for training.
+	 */
+	public void quantize(Quantization quantization)
+	{
+		sparse_weight_vector = quantize(sparse_weight_vector, quantization);
+		dense_weight_vector  = quantize(dense_weight_vector , quantization);
+	}
+	
+	private MajorVector quantize(MajorVector vector, Quantization quantization)
+	{
+		return (vector instanceof ColumnMajorVector) ? new QuantizedColumnMajorVector(vector, quantization) : new QuantizedRowMajorVector(vector, quantization);
+	}
+	
 	public int countNonZeroWeights()
 	{
 		return sparse_weight_vector.countNonZeroWeights() + dense_weight_vector.countNonZeroWeights();
@@ -135,10 +152,10 @@ public class WeightVector implements Serializable
 		SparsePrediction p;
 		float f;
 		
-		for (SparseItem t : v)
+		for (int i=0; i<v.size(); i++)
 		{
-			f = sparse_weight_vector.get(gold, t.getIndex()) - sparse_weight_vector.get(yhat, t.getIndex());
-			p = new SparsePrediction(t.getIndex(), f);
+			f = sparse_weight_vector.get(gold, v.getIndex(i)) - sparse_weight_vector.get(yhat, v.getIndex(i));
+			p = new SparsePrediction(v.getIndex(i), f);
 			if (f > 0) pos.add(p);
 		}
 		
@@ -171,4 +188,98 @@ public class WeightVector implements Serializable
 		if (x.hasDenseVector())      dense_weight_vector .addScores(x.getDenseVector() , scores);
 		if (hasActivationFunction()) activation_function .apply(scores);
 	}
+	
+	/**
+	 * @param labels the indices of the labels to score; if {@code null}, all labels are scored.
+	 * @return the scores of the specific labels given the feature vector, where the scores of the other labels are 0.
+	 */
+	public float[] scores(FeatureVector x, int[] labels)
+	{
+		float[] scores = new float[getLabelSize()];
+		addScores(x, scores, labels);
+		return scores;
+	}
+	
+	/**
+	 * All labels are scored if the labels are more than {@link #SUBSET_RATIO} of all labels
+	 * or this vector has an activation function, which may need the scores of all labels (e.g., softmax).
+	 */
+	public void addScores(FeatureVector x, float[] scores, int[] labels)
+	{
+		if (!isSubset(labels))
+		{
+			addScores(x, scores);
+			return;
+		}
+		
+		if (x.hasSparseVector()) sparse_weight_vector.addScores(x.getSparseVector(), scores, labels);
+		if (x.hasDenseVector())  dense_weight_vector .addScores(x.getDenseVector() , scores, labels);
+	}
+	
+	/** @return the scores of all labels for each feature vector, where the batch is scored together (see {@link MajorVector#addScores(SparseVector[], float[][])}). */
+	public float[][] scores(List<FeatureVector> xs)
+	{
+		float[][] scores = new float[xs.size()][getLabelSize()];
+		addScores(xs, scores);
+		return scores;
+	}
+	
+	public void addScores(List<FeatureVector> xs, float[][] scores)
+	{
+		addScores(xs, scores, null);
+	}
+	
+	/**
+	 * @param labels {@code labels[b]} are the indices of the labels to score for {@code xs.get(b)} (see {@link #addScores(FeatureVector, float[], int[])});
+	 * if {@code labels} is {@code null}, all labels are scored for every feature vector.
+	 * @return the scores of the specific labels for each feature vector, where the batch is scored together.
+	 */
+	public float[][] scores(List<FeatureVector> xs, int[][] labels)
+	{
+		float[][] scores = new float[xs.size()][getLabelSize()];
+		addScores(xs, scores, labels);
+		return scores;
+	}
+	
+	public void addScores(List<FeatureVector> xs, float[][] scores, int[][] labels)
+	{
+		SparseVector[] sparse = new SparseVector[xs.size()];
+		float[][]      dense  = new float[xs.size()][];
+		int[][]        subset = null;
+		boolean hasSparse = false, hasDense = false;
+		FeatureVector x;
+		
+		for (int b=0; b<xs.size(); b++)
+		{
+			x = xs.get(b);
+			if (x.hasSparseVector()) {sparse[b] = x.getSparseVector(); hasSparse = true;}
+			if (x.hasDenseVector())  {dense [b] = x.getDenseVector();  hasDense  = true;}
+			
+			if (labels != null && isSubset(labels[b]))
+			{
+				if (subset == null) subset = new int[xs.size()][];
+				subset[b] = labels[b];
+			}
+		}
+		
+		if (subset == null)
+		{
+			if (hasSparse) sparse_weight_vector.addScores(sparse, scores);
+			if (hasDense)  dense_weight_vector .addScores(dense , scores);
+		}
+		else
+		{
+			if (hasSparse) sparse_weight_vector.addScores(sparse, scores, subset);
+			if (hasDense)  dense_weight_vector .addScores(dense , scores, subset);
+		}
+		
+		if (hasActivationFunction())
+			for (float[] s : scores) activation_function.apply(s);
+	}
+	
+	/** @return true if only the specific labels should be scored (see {@link #addScores(FeatureVector, float[], int[])}). */
+	private boolean isSubset(int[] labels)
+	{
+		return labels != null && labels.length <= SUBSET_RATIO * getLabelSize() && !hasActivationFunction();
+	}
 }
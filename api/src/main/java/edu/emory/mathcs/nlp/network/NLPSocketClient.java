@@ -1,5 +1,5 @@
 /**
- * Copyright 2016, Emory University
+// * Copyright 2015, Emory University
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,59 +17,195 @@ package edu.emory.mathcs.nlp.network;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.IOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Sends decoding requests to {@link NLPSocketServer} over a pool of persistent connections.
+ * Requests are pipelined: each connection carries any number of requests in flight, and a reader thread per connection
+ * completes them as their responses arrive. This client is thread-safe.
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
-public class NLPSocketClient
+public class NLPSocketClient implements Closeable
 {
 	private final String SERVER_ADDRESS;
 	private final int    SERVER_PORT;
 	
+	private final Connection[]  connections;
+	private final AtomicInteger request_id;
+	private final AtomicInteger next_connection;
+	
 	public NLPSocketClient(String address, int port)
 	{
-		SERVER_ADDRESS = address;
-		SERVER_PORT    = port;
+		this(address, port, 1);
+	}
+	
+	/** @param poolSize the number of connections opened to the server, which are created on demand and reopened if they fail. */
+	public NLPSocketClient(String address, int port, int poolSize)
+	{
+		SERVER_ADDRESS  = address;
+		SERVER_PORT     = port;
+		connections     = new Connection[poolSize];
+		request_id      = new AtomicInteger();
+		next_connection = new AtomicInteger();
 	}
 	
+	/** @return the decoded output of the text; see {@link #decodeAsync(String, String)}. */
 	public String decode(String text, String format)
 	{
-		StringBuilder build = new StringBuilder();
+		return decodeAsync(text, format).join();
+	}
+	
+	/**
+	 * Sends the request without waiting for the previous ones to be answered.
+	 * @param format {@code raw}, {@code line}, or {@code tsv}.
+	 * @return the decoded output, which completes exceptionally if the server fails to decode the text or the connection fails.
+	 */
+	public CompletableFuture<String> decodeAsync(String text, String format)
+	{
+		CompletableFuture<String> future = new CompletableFuture<>();
 		
 		try
 		{
-			String data = format+":"+text+NLPSocketServer.END;
-			Socket socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
-			InputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
-			OutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
-			
-			out.write(data.getBytes());
-			out.flush();
+			getConnection().send(request_id.incrementAndGet(), format, text, future);
+		}
+		catch (Exception e) {future.completeExceptionally(e);}
+		
+		return future;
+	}
+	
+	@Override
+	public synchronized void close()
+	{
+		for (int i=0; i<connections.length; i++)
+		{
+			if (connections[i] != null)
+			{
+				connections[i].close(new IOException("The client is closed"));
+				connections[i] = null;
+			}
+		}
+	}
+	
+	private synchronized Connection getConnection() throws IOException
+	{
+		int i = Math.floorMod(next_connection.getAndIncrement(), connections.length);
+		
+		if (connections[i] == null || connections[i].isClosed())
+			connections[i] = new Connection(new Socket(SERVER_ADDRESS, SERVER_PORT));
+		
+		return connections[i];
+	}
+	
+	private class Connection implements Runnable
+	{
+		private final Map<Integer,CompletableFuture<String>> requests;
+		private final Socket           socket;
+		private final DataInputStream  in;
+		private final DataOutputStream out;
+		private volatile boolean closed;
+		
+		public Connection(Socket socket) throws IOException
+		{
+			socket.setTcpNoDelay(true);
+			this.socket = socket;
+			requests = new ConcurrentHashMap<>();
+			in  = new DataInputStream (new BufferedInputStream (socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
 			
-			byte[] buffer = new byte[2048];
-			int i;
+			Thread reader = new Thread(this, "nlp-socket-client-"+SERVER_PORT);
+			reader.setDaemon(true);
+			reader.start();
+		}
+		
+		public boolean isClosed()
+		{
+			return closed;
+		}
+		
+		public void send(int id, String format, String text, CompletableFuture<String> future) throws IOException
+		{
+			ByteBuffer b = NLPSocketProtocol.createRequest(id, format, text);
+			requests.put(id, future);
 			
-			while ((i = in.read(buffer, 0, buffer.length)) >= 0)
+			try
 			{
-				build.append(new String(buffer, 0, i));
-				if (build.toString().endsWith(NLPSocketServer.END)) break;
+				synchronized (out)
+				{
+					out.write(b.array(), 0, b.limit());
+					out.flush();
+				}
 			}
+			catch (IOException e)
+			{
+				requests.remove(id);
+				close(e);
+				throw e;
+			}
+			
+			// the connection may have failed before the request was registered
+			if (closed && requests.remove(id) != null) throw new IOException("The connection is closed");
+		}
+		
+		/** Reads responses until the connection is closed. */
+		@Override
+		public void run()
+		{
+			CompletableFuture<String> future;
+			int id, length;
+			byte[] output;
+			byte status;
 			
-			socket.close();
+			try
+			{
+				while (true)
+				{
+					length = in.readInt();
+					if (length < 5 || length > NLPSocketProtocol.MAX_FRAME_SIZE) throw new IOException("Invalid frame length: "+length);
+					output = new byte[length - 5];
+					id     = in.readInt();
+					status = in.readByte();
+					in.readFully(output);
+					
+					if ((future = requests.remove(id)) == null) continue;
+					String s = new String(output, StandardCharsets.UTF_8);
+					
+					if (status == NLPSocketProtocol.STATUS_OK)
+						future.complete(s);
+					else
+						future.completeExceptionally(new IllegalStateException(s));
+				}
+			}
+			catch (IOException e) {close(e);}
 		}
-		catch (Exception e) {e.printStackTrace();}
 		
-		return build.toString();
+		public void close(IOException e)
+		{
+			closed = true;
+			NLPSocketProtocol.close(socket);
+			
+			for (Integer id : requests.keySet())
+			{
+				CompletableFuture<String> future = requests.remove(id);
+				if (future != null) future.completeExceptionally(e);
+			}
+		}
 	}
 	
 	static public void main(String[] args)
 	{
-		NLPSocketClient client = new NLPSocketClient("127.0.0.1", 8000);
-		System.out.println(client.decode("UN peacekeepers abuse children", "raw"));
+		try (NLPSocketClient client = new NLPSocketClient("127.0.0.1", 8000))
+		{
+			System.out.println(client.decode("UN peacekeepers abuse children", "raw"));
+		}
 	}
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames exchanged by {@link NLPSocketServer} and {@link NLPSocketClient} over a persistent connection.
+ * All integers are big-endian; each frame starts with the number of bytes that follow it.
+ * <pre>
+ * request : [int length][int request ID][short format length][format (UTF-8)][text (UTF-8)]
+ * response: [int length][int request ID][byte status][output (UTF-8) if {@link #STATUS_OK}; error message otherwise]
+ * </pre>
+ * A client may send multiple requests without waiting for their responses; responses can arrive in any order
+ * and are matched to the requests by their IDs.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public final class NLPSocketProtocol
+{
+	static public final int  MAX_FRAME_SIZE = 1 << 26;
+	static public final byte STATUS_OK      = 0;
+	static public final byte STATUS_ERROR   = 1;
+	
+	private NLPSocketProtocol() {}
+	
+	static public ByteBuffer createRequest(int id, String format, String text)
+	{
+		byte[] f = format.getBytes(StandardCharsets.UTF_8);
+		byte[] t = text  .getBytes(StandardCharsets.UTF_8);
+		int length = 6 + f.length + t.length;
+		
+		if (length > MAX_FRAME_SIZE) throw new IllegalArgumentException("The request exceeds "+MAX_FRAME_SIZE+" bytes: "+length);
+		ByteBuffer b = ByteBuffer.allocate(4 + length);
+		b.putInt(length).putInt(id).putShort((short)f.length).put(f).put(t);
+		((Buffer)b).flip();
+		return b;
+	}
+	
+	/** @throws IllegalArgumentException if the response exceeds {@link #MAX_FRAME_SIZE}. */
+	static public ByteBuffer createResponse(int id, byte status, byte[] output)
+	{
+		if (output.length > MAX_FRAME_SIZE - 5) throw new IllegalArgumentException("The response exceeds "+MAX_FRAME_SIZE+" bytes: "+(5L + output.length));
+		ByteBuffer b = ByteBuffer.allocate(9 + output.length);
+		b.putInt(5 + output.length).putInt(id).put(status).put(output);
+		((Buffer)b).flip();
+		return b;
+	}
+	
+	/** @return the length of the frame starting at the current position of the buffer if the frame has been completely read; otherwise, {@code -1}. */
+	static public int getFrameLength(ByteBuffer b)
+	{
+		if (b.remaining() < 4) return -1;
+		int length = b.getInt(b.position());
+		
+		if (length < 0 || length > MAX_FRAME_SIZE)
+			throw new IllegalStateException("Invalid frame length: "+length);
+		
+		return (b.remaining() - 4 < length) ? -1 : length;
+	}
+	
+	/**
+	 * @param length the length of the request frame starting at the current position of the buffer (see {@link #getFrameLength(ByteBuffer)}).
+	 * @return the length of the format in the request.
+	 * @throws IllegalStateException if the frame is shorter than its header or the format does not fit in the frame.
+	 */
+	static public int getFormatLength(ByteBuffer b, int length)
+	{
+		if (length < 6)
+			throw new IllegalStateException("Invalid request length: "+length);
+		
+		int formatLength = b.getShort(b.position() + 8);
+		
+		if (formatLength < 0 || formatLength > length - 6)
+			throw new IllegalStateException("Invalid format length: "+formatLength);
+		
+		return formatLength;
+	}
+	
+	/** @return the string of the next {@code length} bytes in the buffer. */
+	static public String getString(ByteBuffer b, int length)
+	{
+		String s = new String(b.array(), b.arrayOffset() + b.position(), length, StandardCharsets.UTF_8);
+		((Buffer)b).position(b.position() + length);
+		return s;
+	}
+	
+	/** Closes the resource without throwing an exception. */
+	static void close(Closeable c)
+	{
+		try
+		{
+			c.close();
+		}
+		catch (IOException e) {}
+	}
+}
@@ -16,94 +16,322 @@
 package edu.emory.mathcs.nlp.network;
 
 import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.decode.AbstractNLPDecoder;
 import edu.emory.mathcs.nlp.decode.NLPDecoder;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
+ * Serves decoding requests over persistent connections (see {@link NLPSocketProtocol} for the frame format).
+ * A single selector thread reads and writes all connections; requests are decoded by a fixed pool of worker threads.
+ * At most {@code threads + queueSize} requests are accepted at a time; once they are all taken, the server stops
+ * reading from connections with further requests so that their clients are slowed down by TCP flow control.
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
-public class NLPSocketServer
+public class NLPSocketServer implements Closeable
 {
-	static public final String END = "!E@N#D$"; 
-	private NLPDecoder decoder;
+	static private final int BUFFER_SIZE = 8192;
 	
-	@SuppressWarnings("resource")
-	public NLPSocketServer(InputStream configuration, int port, int threads) throws Exception
+	private final AbstractNLPDecoder<?> decoder;
+	private final ServerSocketChannel   server;
+	private final Selector              selector;
+	private final ExecutorService       executor;
+	private final Semaphore             permits;
+	
+	/** Connections that have responses to write (added by workers). */
+	private final Queue<Connection> writable;
+	/** Connections whose next request is waiting for a permit (selector thread only). */
+	private final Set<Connection>   blocked;
+	private volatile boolean running;
+	
+	public NLPSocketServer(InputStream configuration, int port, int threads) throws IOException
+	{
+		this(new NLPDecoder(configuration), port, threads, threads * 4);
+	}
+	
+	/**
+	 * @param port the port to listen to; {@code 0} picks an ephemeral port (see {@link #getPort()}).
+	 * @param threads the number of worker threads decoding requests.
+	 * @param queueSize the number of requests waiting for the workers before the server stops reading.
+	 */
+	public NLPSocketServer(AbstractNLPDecoder<?> decoder, int port, int threads, int queueSize) throws IOException
+	{
+		this.decoder = decoder;
+		executor = Executors.newFixedThreadPool(threads);
+		permits  = new Semaphore(threads + queueSize);
+		writable = new ConcurrentLinkedQueue<>();
+		blocked  = new LinkedHashSet<>();
+		selector = Selector.open();
+		server   = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		running = true;
+	}
+	
+	public int getPort()
+	{
+		return server.socket().getLocalPort();
+	}
+	
+	/** Serves requests on this thread until {@link #close()} is called. */
+	public void run()
 	{
-		ExecutorService executor = Executors.newFixedThreadPool(threads);
-		ServerSocket server = new ServerSocket(port);
-		Socket client;
+		Iterator<SelectionKey> it;
+		SelectionKey key;
+		Connection c;
 		
-		decoder = new NLPDecoder(configuration);
-		System.out.println("Listening...");
+		while (running)
+		{
+			try
+			{
+				selector.select();
+				while ((c = writable.poll()) != null) c.write();
+				resume();
+				it = selector.selectedKeys().iterator();
+				
+				while (it.hasNext())
+				{
+					key = it.next();
+					it.remove();
+					if (!key.isValid()) continue;
+					
+					if (key.isAcceptable())
+						accept();
+					else
+					{
+						c = (Connection)key.attachment();
+						if (key.isValid() && key.isWritable()) c.write();
+						if (key.isValid() && key.isReadable()) c.read();
+					}
+				}
+			}
+			catch (IOException e) {if (running) e.printStackTrace();}
+		}
+		
+		executor.shutdown();
+		for (SelectionKey k : selector.keys()) NLPSocketProtocol.close(k.channel());
+		NLPSocketProtocol.close(selector);
+	}
+	
+	@Override
+	public void close()
+	{
+		running = false;
+		NLPSocketProtocol.close(server);
+		selector.wakeup();
+	}
+	
+	private void accept() throws IOException
+	{
+		SocketChannel channel = server.accept();
+		if (channel == null) return;
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection c = new Connection(channel);
+		c.key = channel.register(selector, SelectionKey.OP_READ, c);
+	}
+	
+	/** Submits the waiting requests of blocked connections while permits are available. */
+	private void resume()
+	{
+		Connection c;
 		
-		while (true)
+		while (!blocked.isEmpty() && permits.availablePermits() > 0)
 		{
-			client = server.accept();
-			executor.submit(new NLPTask(client));
+			c = blocked.iterator().next();
+			blocked.remove(c);
+			c.process();
+		}
+	}
+	
+	private byte[] decode(String format, String text)
+	{
+		switch (format)
+		{
+		case AbstractNLPDecoder.FORMAT_RAW :
+		case AbstractNLPDecoder.FORMAT_LINE:
+		case AbstractNLPDecoder.FORMAT_TSV : return decoder.decodeByteArray(text, format);
+		default: throw new IllegalArgumentException("Unknown format: "+format);
 		}
-
-//		executor.shutdown();
-//		server.close();
 	}
 	
-	class NLPTask implements Runnable 
+	private class Connection
 	{
-		OutputStream out;
-		InputStream  in;
-		Socket client;
+		private final SocketChannel     channel;
+		private final Queue<ByteBuffer> responses;
+		private final AtomicInteger     in_flight;
+		private SelectionKey key;
+		private ByteBuffer   in;
+		private ByteBuffer   out;
+		private boolean      eof;
+		
+		public Connection(SocketChannel channel)
+		{
+			this.channel = channel;
+			responses = new ConcurrentLinkedQueue<>();
+			in_flight = new AtomicInteger();
+			in        = ByteBuffer.allocate(BUFFER_SIZE);
+		}
 		
-		public NLPTask(Socket client)
+		/** Called by the selector thread. */
+		public void read()
 		{
 			try
 			{
-				in  = new DataInputStream (new BufferedInputStream (client.getInputStream()));
-				out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
-				this.client = client;
-//				System.out.println(client.getInetAddress().toString());
+				if (!in.hasRemaining()) in = grow(in);
+				
+				if (channel.read(in) < 0)
+				{
+					eof = true;
+					key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+				}
+				
+				process();
 			}
-			catch (IOException e) {e.printStackTrace();}
+			catch (IOException | IllegalStateException e) {close();}
 		}
 		
-		@Override
-		public void run()
+		/** Submits the complete requests in the input buffer as long as permits are available. */
+		public void process()
 		{
-			StringBuilder build = new StringBuilder();
-			byte[] buffer = new byte[2048];
-			String s, format;
-			int i, idx;
+			boolean full = false;
+			int id, length, formatLength;
+			String format;
+			((Buffer)in).flip();
 			
 			try
 			{
-				while ((i = in.read(buffer, 0, buffer.length)) >= 0)
+				while ((length = NLPSocketProtocol.getFrameLength(in)) >= 0)
 				{
-					build.append(new String(buffer, 0, i));
+					// the header is validated before a permit is taken so that a malformed frame closes this connection only
+					formatLength = NLPSocketProtocol.getFormatLength(in, length);
 					
-					if (build.toString().endsWith(END))
+					if (!permits.tryAcquire())
 					{
-						idx = build.indexOf(":");
-						format = build.substring(0, idx);
-						s = build.substring(idx+1, build.length()-END.length());
-						out.write(decoder.decodeByteArray(s, format));
-						out.close();
-						in.close();
+						blocked.add(this);
+						full = true;
 						break;
 					}
+					
+					in.getInt();
+					id = in.getInt();
+					in.getShort();
+					format = NLPSocketProtocol.getString(in, formatLength);
+					submit(id, format, NLPSocketProtocol.getString(in, length - 6 - formatLength));
+				}
+			}
+			catch (IllegalStateException e)
+			{
+				close();
+				return;
+			}
+			
+			in.compact();
+			if (in.capacity() > BUFFER_SIZE && in.position() <= BUFFER_SIZE) in = shrink(in);
+			
+			if (key.isValid() && !eof)
+				key.interestOps(full ? key.interestOps() & ~SelectionKey.OP_READ : key.interestOps() | SelectionKey.OP_READ);
+			
+			closeIfDone();
+		}
+		
+		private void submit(int id, String format, String text)
+		{
+			in_flight.incrementAndGet();
+			
+			executor.execute(() ->
+			{
+				ByteBuffer response;
+				
+				try
+				{
+					response = NLPSocketProtocol.createResponse(id, NLPSocketProtocol.STATUS_OK, decode(format, text));
+				}
+				catch (Exception e)
+				{
+					// includes outputs exceeding the frame size; the error message is short enough to fit
+					String message = e.getMessage() != null ? e.getMessage() : e.toString();
+					response = NLPSocketProtocol.createResponse(id, NLPSocketProtocol.STATUS_ERROR, message.getBytes(StandardCharsets.UTF_8));
+				}
+				
+				responses.add(response);
+				in_flight.decrementAndGet();
+				permits.release();
+				writable.add(this);
+				selector.wakeup();
+			});
+		}
+		
+		/** Called by the selector thread; writes as many responses as the socket accepts. */
+		public void write()
+		{
+			try
+			{
+				while (out != null || (out = responses.poll()) != null)
+				{
+					channel.write(out);
+					if (out.hasRemaining()) break;
+					out = null;
 				}
+				
+				if (key.isValid())
+					key.interestOps(out == null ? key.interestOps() & ~SelectionKey.OP_WRITE : key.interestOps() | SelectionKey.OP_WRITE);
+				
+				closeIfDone();
 			}
-			catch (IOException e) {e.printStackTrace();}
+			catch (IOException e) {close();}
+		}
+		
+		/** Closes this connection once the client has stopped sending and all responses are written. */
+		private void closeIfDone()
+		{
+			if (eof && in_flight.get() == 0 && !blocked.contains(this) && out == null && responses.isEmpty())
+				close();
+		}
+		
+		private void close()
+		{
+			blocked.remove(this);
+			key.cancel();
+			NLPSocketProtocol.close(channel);
+		}
+		
+		private ByteBuffer grow(ByteBuffer b)
+		{
+			ByteBuffer nb = ByteBuffer.allocate(Math.min(b.capacity() * 2, NLPSocketProtocol.MAX_FRAME_SIZE + 4));
+			((Buffer)b).flip();
+			nb.put(b);
+			return nb;
+		}
+		
+		/** Releases the memory taken by a large request once it has been drained from the buffer. */
+		private ByteBuffer shrink(ByteBuffer b)
+		{
+			ByteBuffer nb = ByteBuffer.allocate(BUFFER_SIZE);
+			((Buffer)b).flip();
+			nb.put(b);
+			return nb;
 		}
 	}
 	
@@ -112,6 +340,9 @@ public class NLPSocketServer
 		final String configFile = args[0];
 		final int port = Integer.parseInt(args[1]);
 		final int threads = Integer.parseInt(args[2]);
-		new NLPSocketServer(IOUtils.createFileInputStream(configFile), port, threads);
+		
+		NLPSocketServer server = new NLPSocketServer(IOUtils.createFileInputStream(configFile), port, threads);
+		System.out.println("Listening...");
+		server.run();
 	}
 }
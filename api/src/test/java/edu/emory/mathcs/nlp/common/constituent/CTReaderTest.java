@@ -59,4 +59,26 @@ public class CTReaderTest
 		
 		reader.close();
 	}
+	
+	@Test
+	public void testTokens() throws Exception
+	{
+		// a word across the boundary of the buffer
+		StringBuilder word = new StringBuilder();
+		for (int i=0; i<70000; i++) word.append((char)('a' + i % 26));
+		
+		String s = "(TOP (S (NP-SBJ (PRP I))\r(VP (VBD ran))\r\n(. .)))\n\n\t( (S (NN "+word+")) )";
+		CTReader reader = new CTReader(IOUtils.createByteArrayInputStream(s));
+		
+		CTTree tree = reader.nextTree();
+		assertEquals(3, tree.getTokenList().size());
+		assertEquals("ran", tree.getToken(1).getWordForm());
+		assertEquals("VBD", tree.getToken(1).getConstituentTag());
+		assertEquals("NP", tree.getRoot().getChild(0).getChild(0).getConstituentTag());
+		
+		tree = reader.nextTree();
+		assertEquals(word.toString(), tree.getToken(0).getWordForm());
+		assertEquals(null, reader.nextTree());
+		reader.close();
+	}
 }
\ No newline at end of file
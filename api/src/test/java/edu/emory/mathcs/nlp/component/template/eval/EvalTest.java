@@ -0,0 +1,54 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.eval;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.component.dep.DEPEval;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class EvalTest
+{
+	@Test
+	public void testMerge()
+	{
+		AccuracyEval a1 = new AccuracyEval(), a2 = new AccuracyEval();
+		a1.add(3, 4);
+		a2.add(5, 6);
+		a1.merge(a2);
+		assertEquals( 8, a1.correct());
+		assertEquals(10, a1.total());
+		
+		F1Eval f1 = new F1Eval(), f2 = new F1Eval(), f3 = new F1Eval();
+		f1.add(2, 3, 4);
+		f2.add(4, 5, 6);
+		f3.add(6, 8, 10);
+		f1.merge(f2);
+		assertEquals(f3.toString(), f1.toString());
+		
+		DEPEval d1 = new DEPEval(), d2 = new DEPEval(), d3 = new DEPEval();
+		d1.add(1, 2, 3);
+		d2.add(4, 5, 6);
+		d3.add(5, 7, 9);
+		d1.merge(d2);
+		assertEquals(d3.total(), d1.total());
+		assertEquals(d3.toString(), d1.toString());
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.feature;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.component.pos.POSState;
+import edu.emory.mathcs.nlp.component.template.config.NLPConfig;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.reader.NLPReader;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.component.template.train.HyperParameter;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class FeatureTemplateTest
+{
+	@Test
+	public void testFeatureHashing()
+	{
+		HyperParameter hp = new HyperParameter();
+		hp.setFeatureHashSize(1 << 10);
+		FeatureTemplate<NLPNode,NLPState<NLPNode>> template = new FeatureTemplate<>(null, hp);
+		
+		assertTrue(template.isFeatureHashing());
+		assertNull(template.getFeatureMap());
+		assertEquals(1 << 10, template.getSparseFeatureSize());
+		
+		SparseVector x = new SparseVector();
+		template.add(x, 0, "A", 1, false);
+		template.add(x, 0, "A", 1, false);
+		template.add(x, 1, "A", 1, false);
+		template.add(x, 0, null, 1, false);
+		
+		assertEquals(3, x.size());
+		assertEquals(x.getIndex(0), x.getIndex(1));
+		assertFalse(x.getIndex(0) == x.getIndex(2));
+		
+		for (int i=0; i<x.size(); i++)
+		{
+			assertTrue(x.getIndex(i) > 0);
+			assertTrue(x.getIndex(i) < template.getHashSize());
+		}
+		
+		// cutoff
+		template.setCutoff(1);
+		x = new SparseVector();
+		template.add(x, 2, "B", 1, true);
+		assertEquals(0, x.size());
+		template.add(x, 2, "B", 1, true);
+		assertEquals(1, x.size());
+		
+		// the counts are shared by the training threads; exactly one occurrence falls under the cutoff
+		template.initFeatureCount();
+		final int index = template.getHashIndex(17, false);
+		int[] passed = IntStream.range(0, 4).parallel().map(t ->
+		{
+			int count = 0;
+			for (int i=0; i<10000; i++) if (template.getHashIndex(17, true) == index) count++;
+			return count;
+		}).toArray();
+		assertEquals(40000 - 1, IntStream.of(passed).sum());
+		
+		// a single bucket is reserved for the bias
+		String xml = "<configuration><optimizer><feature_hash>1</feature_hash></optimizer></configuration>";
+		NLPConfig<NLPNode> config = new NLPConfig<>(new ByteArrayInputStream(xml.getBytes()));
+		
+		try
+		{
+			config.getHyperParameter();
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			assertTrue(e.getMessage().startsWith("The feature hash size"));
+		}
+	}
+	
+	@Test
+	public void testFeatureExtractors() throws Exception
+	{
+		NLPReader reader = new NLPReader(1, 2, 3, 4, 5, 6, 7, 8);
+		reader.open(IOUtils.createFileInputStream("src/test/resources/dat/sample-dev.tsv"));
+		NLPNode[] nodes = reader.next();
+		reader.close();
+		
+		FeatureTemplate<NLPNode,NLPState<NLPNode>> template = new FeatureTemplate<>(null, new HyperParameter());
+		POSState<NLPNode> state = new POSState<>(nodes);
+		
+		for (int w=-1; w<nodes.length; w++)
+		{
+			template.add(new FeatureItem(Source.i, Relation.h, w, Field.lemma, null));
+			template.add(new FeatureItem(Source.i, null, w, Field.word_form_simplified_lowercase, null), new FeatureItem(Source.i, null, w+1, Field.part_of_speech_tag, null));
+			template.add(new FeatureItem(Source.i, null, w, Field.prefix, 2), new FeatureItem(Source.i, null, w, Field.suffix, 3));
+			template.add(new FeatureItem(Source.i, null, w, Field.word_shape, null), new FeatureItem(Source.i, Relation.lmd, w, Field.dependency_label, null));
+			template.add(new FeatureItem(Source.i, null, w, Field.valency, Direction.all));
+		}
+		
+		FeatureExtractor<NLPNode>[][] extractors = template.getFeatureExtractors();
+		assertEquals(template.getFeatureList().size(), extractors.length);
+		
+		for (int i=0; i<extractors.length; i++)
+			assertEquals(template.getFeature(state, template.getFeatureList().get(i)), template.getFeature(state, extractors[i]));
+		
+		// recompiled after a feature is added
+		template.add(new FeatureItem(Source.i, null, 0, Field.word_form, null));
+		assertEquals(extractors.length+1, template.getFeatureExtractors().length);
+		assertNotNull(template.getFeatureExtractors()[extractors.length][0].apply(nodes[1]));
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class EmbeddingStoreTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void testStore() throws Exception
+	{
+		Map<String,float[]> map = new HashMap<>();
+		Random rand = new Random(1);
+		
+		for (int i=0; i<1000; i++)
+		{
+			float[] v = new float[50];
+			for (int j=0; j<v.length; j++) v[j] = rand.nextFloat() - 0.5f;
+			map.put("w"+i+(i % 7 == 0 ? "é" : ""), v);
+		}
+		
+		File file = folder.newFile("embeddings."+EmbeddingStore.EXTENSION);
+		EmbeddingStore.write(map, file.getPath());
+		
+		test(map, EmbeddingStore.create(map));
+		test(map, EmbeddingStore.open(file.getPath()));
+		test(map, EmbeddingStore.open(file.toURI().toString()));
+		
+		// copied to the heap from an archive
+		File jar = folder.newFile("embeddings.jar");
+		
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar)))
+		{
+			out.putNextEntry(new ZipEntry(file.getName()));
+			Files.copy(file.toPath(), out);
+			out.closeEntry();
+		}
+		
+		test(map, EmbeddingStore.open("jar:"+jar.toURI()+"!/"+file.getName()));
+		
+		try
+		{
+			EmbeddingStore.open(new File(folder.getRoot(), "unknown."+EmbeddingStore.EXTENSION).getPath());
+			fail();
+		}
+		catch (IOException e) {}
+	}
+	
+	private void test(Map<String,float[]> map, EmbeddingStore store)
+	{
+		assertEquals(map.size(), store.size());
+		assertEquals(50, store.getDimension());
+		assertEquals(-1, store.getID("unknown"));
+		assertEquals(-1, store.getID(null));
+		float[] buffer = new float[110];
+		
+		for (Map.Entry<String,float[]> e : map.entrySet())
+		{
+			int id = store.getID(e.getKey());
+			assertEquals(e.getKey(), store.getWord(id));
+			assertArrayEquals(e.getValue(), store.get(id), 0);
+			
+			store.copy(id, buffer, 60);
+			for (int j=0; j<50; j++) assertEquals(e.getValue()[j], buffer[60+j], 0);
+		}
+	}
+}
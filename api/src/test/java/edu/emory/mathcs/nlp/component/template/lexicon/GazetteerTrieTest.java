@@ -0,0 +1,127 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.common.collection.tree.PrefixNode;
+import edu.emory.mathcs.nlp.common.collection.tree.PrefixTree;
+import edu.emory.mathcs.nlp.common.collection.tuple.ObjectIntIntTriple;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class GazetteerTrieTest
+{
+	@Test
+	public void testGetAll() throws Exception
+	{
+		PrefixTree<String,Set<String>> tree = new PrefixTree<>();
+		add(tree, "a b"    , "X");
+		add(tree, "a b c"  , "Y");
+		add(tree, "b c d"  , "Z");
+		add(tree, "c d"    , "X", "Z");
+		add(tree, "b"      , "Y");
+		add(tree, "d a b e", "X");
+		
+		GazetteerTrie trie = GazetteerTrie.compile(tree);
+		String[] array = "_ a b c d a b e b".split(" ");
+		List<ObjectIntIntTriple<String[]>> list = trie.getAll(array, 1, s -> s);
+		
+		assertEquals("[(Y,1,3), (Z,2,4), (X+Z,3,4), (X,4,7), (X,5,6), (Y,6,6), (Y,8,8)]", toString(list));
+		assertEquals(toString(tree.getAll(array, 1, s -> s, false, false)), toString(list));
+		assertEquals(-1, trie.getTokenID("z"));
+		
+		trie = copy(trie);
+		assertEquals(toString(list), toString(trie.getAll(array, 1, s -> s)));
+	}
+	
+	@Test
+	public void testRandom() throws Exception
+	{
+		PrefixTree<String,Set<String>> tree = new PrefixTree<>();
+		Random rand = new Random(1);
+		String[] array;
+		
+		for (int i=0; i<2000; i++)
+		{
+			array = new String[1 + rand.nextInt(4)];
+			for (int j=0; j<array.length; j++) array[j] = Integer.toString(rand.nextInt(20));
+			add(tree, String.join(" ", array), Integer.toString(rand.nextInt(5)));
+		}
+		
+		GazetteerTrie trie = copy(GazetteerTrie.compile(tree));
+		
+		for (int i=0; i<500; i++)
+		{
+			array = new String[1 + rand.nextInt(30)];
+			for (int j=0; j<array.length; j++) array[j] = Integer.toString(rand.nextInt(25));
+			assertEquals(toString(tree.getAll(array, 0, s -> s, false, false)), toString(trie.getAll(array, 0, s -> s)));
+		}
+	}
+	
+	private void add(PrefixTree<String,Set<String>> tree, String entry, String... types)
+	{
+		String[] array = entry.split(" ");
+		PrefixNode<String,Set<String>> node = tree.add(array, 0, array.length, s -> s);
+		if (!node.hasValue()) node.setValue(new TreeSet<>());
+		node.getValue().addAll(Arrays.asList(types));
+	}
+	
+	private GazetteerTrie copy(GazetteerTrie trie) throws Exception
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		out.writeObject(trie);
+		out.close();
+		
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		trie = (GazetteerTrie)in.readObject();
+		in.close();
+		return trie;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T>String toString(List<ObjectIntIntTriple<T>> list)
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (ObjectIntIntTriple<T> t : list)
+		{
+			build.append(", (");
+			build.append(String.join("+", t.o instanceof String[] ? Arrays.asList((String[])t.o) : (Set<String>)t.o));
+			build.append(",");
+			build.append(t.i1);
+			build.append(",");
+			build.append(t.i2);
+			build.append(")");
+		}
+		
+		return "[" + (build.length() > 0 ? build.substring(2) : "") + "]";
+	}
+}
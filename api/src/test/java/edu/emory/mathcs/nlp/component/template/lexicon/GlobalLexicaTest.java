@@ -0,0 +1,107 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.component.template.feature.Field;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class GlobalLexicaTest
+{
+	@Test
+	public void testLexiconBundles()
+	{
+		Map<String,List<String>> classes = new HashMap<>();
+		classes.put("the", Arrays.asList("DT"));
+		classes.put("dog", Arrays.asList("NN", "VB"));
+		
+		Map<String,Set<String>> clusters = new HashMap<>();
+		clusters.put("dog" , new HashSet<>(Arrays.asList("01", "011")));
+		clusters.put("runs", new HashSet<>(Arrays.asList("10")));
+		
+		Map<String,float[]> embeddings = new HashMap<>();
+		embeddings.put("The", new float[]{1, 2});
+		embeddings.put("0.0", new float[]{3, 4});
+		
+		Set<String> stopwords = new HashSet<>(Arrays.asList("the"));
+		
+		GlobalLexica<NLPNode> lexica = new GlobalLexica<>();
+		lexica.setAmbiguityClasses(new GlobalLexicon<>(classes   , Field.word_form_simplified_lowercase, "classes"));
+		lexica.setWordClusters    (new GlobalLexicon<>(clusters  , Field.word_form_simplified_lowercase, "clusters"));
+		lexica.setWordEmbeddings  (new GlobalLexicon<>(embeddings, Field.word_form_undigitalized       , "embeddings"));
+		lexica.setStopWords       (new GlobalLexicon<>(stopwords , Field.word_form_simplified_lowercase, "stopwords"));
+		
+		LexiconBundle[] bundles = lexica.getLexiconBundles();
+		assertEquals(2, bundles.length);
+		assertEquals(Field.word_form_simplified_lowercase, bundles[0].getField());
+		assertEquals(Field.word_form_undigitalized       , bundles[1].getField());
+		assertEquals(3, bundles[0].size());
+		
+		NLPNode[] expected = createNodes("The dog runs 1.5 fast");
+		NLPNode[] actual   = createNodes("The dog runs 1.5 fast");
+		
+		lexica.processAmbiguityClasses(expected);
+		lexica.processWordClusters(expected);
+		lexica.processWordEmbeddings(expected);
+		lexica.processStopWords(expected);
+		lexica.process(actual);
+		
+		for (int i=1; i<expected.length; i++)
+		{
+			assertEquals(expected[i].getAmbiguityClasses(), actual[i].getAmbiguityClasses());
+			assertEquals(expected[i].getWordClusters()    , actual[i].getWordClusters());
+			assertArrayEquals(expected[i].getWordEmbedding(), actual[i].getWordEmbedding(), 0);
+			assertEquals(expected[i].isStopWord()         , actual[i].isStopWord());
+		}
+		
+		assertEquals(-1, bundles[0].getID("fast"));
+		
+		// the bundles are recompiled when a lexicon is changed
+		lexica.setStopWords(null);
+		assertEquals(2, lexica.getLexiconBundles().length);
+		actual = createNodes("the");
+		lexica.process(actual);
+		assertEquals(false, actual[1].isStopWord());
+		assertNull(actual[1].getWordEmbedding());
+	}
+	
+	private NLPNode[] createNodes(String s)
+	{
+		String[] forms = s.split(" ");
+		NLPNode[] nodes = new NLPNode[forms.length+1];
+		nodes[0] = new NLPNode().toRoot();
+		
+		for (int i=0; i<forms.length; i++)
+			nodes[i+1] = new NLPNode(i+1, forms[i]);
+		
+		return nodes;
+	}
+}
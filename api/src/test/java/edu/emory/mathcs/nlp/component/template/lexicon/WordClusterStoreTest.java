@@ -0,0 +1,109 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.lexicon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class WordClusterStoreTest
+{
+	@Test
+	public void testPath()
+	{
+		long path = WordClusterStore.toPath("0110");
+		assertEquals(0b10110, path);
+		assertEquals(4, WordClusterStore.getLength(path));
+		assertEquals("0110", WordClusterStore.toString(path));
+		assertEquals("01"  , WordClusterStore.toString(WordClusterStore.getPrefix(path, 2)));
+		assertEquals("0"   , WordClusterStore.toString(WordClusterStore.getPrefix(path, 1)));
+		
+		String bits = "10000000000000000000000000000000000000000000000000000000000001";
+		assertEquals(bits, WordClusterStore.toString(WordClusterStore.toPath(bits)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPath()
+	{
+		WordClusterStore.toPath("0120");
+	}
+	
+	@Test
+	public void testPrefixes() throws Exception
+	{
+		Map<String,String> paths = new HashMap<>();
+		paths.put("dog"  , "0110");
+		paths.put("cat"  , "0110");
+		paths.put("runs" , "10110");
+		paths.put("the"  , "1");
+		
+		WordClusterStore store = WordClusterStore.create(paths);
+		assertEquals(4, store.size());
+		assertEquals(3, store.getClusterSize());
+		assertEquals(Arrays.asList("01", "0110")         , store.getPrefixes("dog"));
+		assertEquals(Arrays.asList("10", "1011", "10110"), store.getPrefixes("runs"));
+		assertEquals(Arrays.asList("1")                  , store.getPrefixes("the"));
+		assertSame(store.getPrefixes("dog"), store.getPrefixes("cat"));
+		assertNull(store.getPrefixes("fast"));
+		assertNull(store.getPrefixes((String)null));
+		
+		// legacy lexica map each word to the set of its prefixes
+		Map<String,Set<String>> legacy = new HashMap<>();
+		for (Map.Entry<String,String> e : paths.entrySet()) legacy.put(e.getKey(), new HashSet<>(store.getPrefixes(e.getKey())));
+		WordClusterStore converted = WordClusterStore.createFromPrefixes(legacy);
+		
+		for (String word : paths.keySet())
+			assertEquals(store.getPrefixes(word), converted.getPrefixes(word));
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		out.writeObject(store);
+		out.close();
+		
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		WordClusterStore copy = (WordClusterStore)in.readObject();
+		in.close();
+		
+		for (String word : paths.keySet())
+		{
+			assertEquals(store.getPrefixes(word), copy.getPrefixes(word));
+			assertEquals(store.getPath(store.getID(word)), copy.getPath(copy.getID(word)));
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPrefixes()
+	{
+		Map<String,Set<String>> legacy = new HashMap<>();
+		legacy.put("dog", new HashSet<>(Arrays.asList("01", "0110", "11")));
+		WordClusterStore.createFromPrefixes(legacy);
+	}
+}
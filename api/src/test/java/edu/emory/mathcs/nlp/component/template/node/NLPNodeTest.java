@@ -19,6 +19,7 @@ import org.junit.Test;
 
 import edu.emory.mathcs.nlp.common.util.IOUtils;
 import edu.emory.mathcs.nlp.common.util.NLPUtils;
+import edu.emory.mathcs.nlp.common.util.StringUtils;
 import edu.emory.mathcs.nlp.component.template.reader.NLPReader;
 
 import org.junit.Assert;
@@ -83,5 +84,33 @@ public class NLPNodeTest
 		
 		System.out.println(NLPUtils.join(nodes, " ", AbstractNLPNode::getWordForm));
 	}
+	
+	@Test
+	public void testWordForms()
+	{
+		String[] forms = {"Hello", "1,234.5", "http://emory.edu", "ABC-12", "Hello"};
+		NLPNode node = new NLPNode();
+		WordFormCache.clear();
+		
+		for (String form : forms)
+		{
+			node.setWordForm(form);
+			String simplified = StringUtils.toSimplifiedForm(form);
+			
+			Assert.assertEquals(StringUtils.toLowerCase(form)       , node.getWordFormLowercase());
+			Assert.assertEquals(simplified                          , node.getWordFormSimplified());
+			Assert.assertEquals(StringUtils.toUndigitalizedForm(form), node.getWordFormUndigitalized());
+			Assert.assertEquals(StringUtils.toLowerCase(simplified) , node.getWordFormSimplifiedLowercase());
+			Assert.assertTrue(node.isSimplifiedWordForm(simplified));
+		}
+		
+		Assert.assertEquals(4, WordFormCache.size());
+		
+		// the cache is cleared once it is full
+		WordFormCache.setCapacity(2);
+		for (String form : forms) WordFormCache.get(form, WordFormCache.LOWERCASE);
+		Assert.assertTrue(WordFormCache.size() <= 2);
+		WordFormCache.setCapacity(WordFormCache.DEFAULT_CAPACITY);
+	}
 
 }
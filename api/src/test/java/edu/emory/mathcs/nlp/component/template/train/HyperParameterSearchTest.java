@@ -0,0 +1,148 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.train;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.component.dep.DEPParser;
+import edu.emory.mathcs.nlp.component.dep.DEPState;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.reader.NLPReader;
+import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
+import edu.emory.mathcs.nlp.component.template.util.NLPMode;
+import edu.emory.mathcs.nlp.learning.gridsearch.LinearFunction;
+import edu.emory.mathcs.nlp.learning.optimization.OnlineOptimizer;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class HyperParameterSearchTest
+{
+	static private final String CONFIGURATION_FILE = "src/main/resources/edu/emory/mathcs/nlp/configuration/config-train-sample.xml";
+	
+	@Test
+	public void testConfigurations()
+	{
+		HyperParameterSearch<NLPNode,DEPState<NLPNode>> search = new HyperParameterSearch<>(createTrainer());
+		search.addLearningRates(new LinearFunction(0.01f, 0.02f, 1));
+		search.addBatchSizes(new LinearFunction(1, 3, 2));
+		
+		List<float[]> configurations = search.getConfigurations();
+		assertEquals(6, configurations.size());
+		assertArrayEquals(new float[]{0.01f, 1}, configurations.get(0), 0);
+		assertArrayEquals(new float[]{0.01f, 2}, configurations.get(1), 0);
+		assertArrayEquals(new float[]{0.02f, 3}, configurations.get(5), 0);
+	}
+	
+	@Test
+	public void testTrials()
+	{
+		OnlineTrainer<NLPNode,DEPState<NLPNode>> trainer = createTrainer();
+		HyperParameterSearch<NLPNode,DEPState<NLPNode>> search = new HyperParameterSearch<>(trainer);
+		search.addLearningRates(new LinearFunction(0.01f, 0.02f, 1));
+		search.addBiases(new LinearFunction(0, 1, 1));
+		search.addBatchSizes(new LinearFunction(1, 2, 1));
+		
+		// each trial trains with the hyper-parameters of its configuration
+		for (float[] values : search.getConfigurations())
+		{
+			HyperParameterSearch<NLPNode,DEPState<NLPNode>>.Trial trial = search.new Trial(values, trainer.initComponent(NLPMode.dep, IOUtils.createFileInputStream(CONFIGURATION_FILE), null, null));
+			HyperParameter hp = trial.getComponent().getHyperParameter();
+			OnlineOptimizer optimizer = trial.getComponent().getOptimizer();
+			
+			assertEquals(values[0], hp.getLearningRate(), 0);
+			assertEquals(values[1], hp.getBias(), 0);
+			assertEquals((int)values[2], hp.getBatchSize());
+			assertEquals(1, hp.getThreadSize());
+			assertEquals(values[0], optimizer.getLearningRate(), 0);
+			assertEquals(values[1], optimizer.getBias(), 0);
+		}
+	}
+	
+	@Test
+	public void testSearch() throws Exception
+	{
+		OnlineTrainer<NLPNode,DEPState<NLPNode>> trainer = createTrainer();
+		HyperParameterSearch<NLPNode,DEPState<NLPNode>> search = new HyperParameterSearch<>(trainer);
+		search.addLearningRates(new LinearFunction(0.01f, 0.03f, 2));
+		search.addBiases(new LinearFunction(0, 1, 1));
+		search.setThreadSize(2);
+		
+		List<String> trainFiles   = Collections.singletonList("src/test/resources/dat/sample-trn.tsv");
+		List<String> developFiles = Collections.singletonList("src/test/resources/dat/sample-dev.tsv");
+		HyperParameterSearch<NLPNode,DEPState<NLPNode>>.Trial best = search.search(NLPMode.dep, trainFiles, developFiles, CONFIGURATION_FILE);
+		
+		assertTrue(best.getBestScore() > 0);
+		assertTrue(1 <= best.getBestEpoch() && best.getBestEpoch() <= 5);
+		
+		// the best weights are restored
+		OnlineComponent<NLPNode,DEPState<NLPNode>> component = best.getComponent();
+		TSVReader<NLPNode> reader = trainer.createTSVReader(component.getConfiguration().getReaderFieldMap());
+		GlobalLexica<NLPNode> lexica = trainer.createGlobalLexica(IOUtils.createFileInputStream(CONFIGURATION_FILE));
+		assertEquals(best.getBestScore(), trainer.evaluate(developFiles, component, lexica, reader).d, 0);
+		assertEquals(best.getValues()[0], component.getOptimizer().getLearningRate(), 0);
+		assertEquals(best.getValues()[1], component.getOptimizer().getBias(), 0);
+		
+		// the bias changes the predictions whereas adagrad is invariant to the scale of the learning rate
+		double[] scores = new double[2];
+		
+		for (int i=0; i<scores.length; i++)
+		{
+			HyperParameterSearch<NLPNode,DEPState<NLPNode>>.Trial trial = search.new Trial(new float[]{0.02f, i}, trainer.initComponent(NLPMode.dep, IOUtils.createFileInputStream(CONFIGURATION_FILE), null, null));
+			trial.train(trainFiles, developFiles, lexica, 1);
+			scores[i] = trial.getBestScore();
+		}
+		
+		assertNotEquals(scores[0], scores[1], 0);
+	}
+	
+	private OnlineTrainer<NLPNode,DEPState<NLPNode>> createTrainer()
+	{
+		return new OnlineTrainer<NLPNode,DEPState<NLPNode>>()
+		{
+			@Override
+			public OnlineComponent<NLPNode,DEPState<NLPNode>> createComponent(NLPMode mode, InputStream config)
+			{
+				return new DEPParser<>(config);
+			}
+			
+			@Override
+			public TSVReader<NLPNode> createTSVReader(Object2IntMap<String> map)
+			{
+				return new NLPReader(map);
+			}
+			
+			@Override
+			public GlobalLexica<NLPNode> createGlobalLexica(InputStream config)
+			{
+				return new GlobalLexica<>(config);
+			}
+		};
+	}
+}
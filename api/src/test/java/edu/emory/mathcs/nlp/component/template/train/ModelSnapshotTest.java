@@ -0,0 +1,166 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.train;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.component.pos.POSState;
+import edu.emory.mathcs.nlp.component.pos.POSTagger;
+import edu.emory.mathcs.nlp.component.template.feature.FeatureTemplate;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.learning.optimization.method.AdaGrad;
+import edu.emory.mathcs.nlp.learning.optimization.method.Perceptron;
+import edu.emory.mathcs.nlp.learning.optimization.reguralization.RegularizedDualAveraging;
+import edu.emory.mathcs.nlp.learning.util.FeatureMap;
+import edu.emory.mathcs.nlp.learning.util.MajorVector;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelSnapshotTest
+{
+	@Test
+	public void testTraining()
+	{
+		POSTagger<NLPNode> component = createComponent();
+		FeatureMap map = component.getFeatureTemplate().getFeatureMap();
+		MajorVector w = component.getOptimizer().getWeightVector().getSparseWeightVector();
+		ModelSnapshot snapshot = new ModelSnapshot(false);
+		assertFalse(snapshot.isSaved());
+		
+		snapshot.save(component);
+		String weights = w.toString();
+		assertTrue(snapshot.isSaved());
+		
+		// features added and weights updated after the snapshot
+		int index = map.add(1, "c");
+		component.getOptimizer().getWeightVector().expand(map.size(), 0, 2);
+		w.set(1, index, 5);
+		w.set(0, 1, 7);
+		
+		snapshot.restore(component);
+		assertEquals(weights, w.toString());
+		assertEquals(3, map.size());
+		assertEquals(-1, map.index(1, "c"));
+		assertEquals( 2, map.index(1, "b"));
+		
+		// the buffers are reused
+		w.set(0, 2, 9);
+		snapshot.save(component);
+		w.set(0, 2, 0);
+		snapshot.restore(component);
+		assertEquals(9, w.get(0, 2), 0);
+	}
+	
+	@Test
+	public void testReduction()
+	{
+		POSTagger<NLPNode> component = createComponent();
+		FeatureMap map = component.getFeatureTemplate().getFeatureMap();
+		WeightVector w = component.getOptimizer().getWeightVector();
+		ModelSnapshot snapshot = new ModelSnapshot(true);
+		
+		snapshot.save(component);
+		String weights = w.getSparseWeightVector().toString();
+		
+		// the feature "a" has the same weights for both labels
+		assertEquals(2, component.getFeatureTemplate().reduce(w, 1));
+		assertEquals(-1, map.index(0, "a"));
+		assertEquals( 1, map.index(1, "b"));
+		
+		snapshot.restore(component);
+		assertEquals(weights, w.getSparseWeightVector().toString());
+		assertEquals(3, map.size());
+		assertEquals(1, map.index(0, "a"));
+		assertEquals(2, map.index(1, "b"));
+	}
+	
+	@Test
+	public void testLabels()
+	{
+		POSTagger<NLPNode> component = createComponent();
+		MajorVector w = component.getOptimizer().getWeightVector().getSparseWeightVector();
+		ModelSnapshot snapshot = new ModelSnapshot(false);
+		snapshot.save(component);
+		
+		// the label added after the snapshot is kept with zero weights
+		component.getOptimizer().addLabel("Z");
+		component.getOptimizer().getWeightVector().expand(3, 0, 3);
+		w.set(0, 1, 5);
+		w.set(2, 1, 7);
+		
+		snapshot.restore(component);
+		assertEquals(3, w.getLabelSize());
+		assertEquals(3, w.getFeatureSize());
+		assertEquals(1, w.get(0, 1), 0);
+		assertEquals(3, w.get(1, 2), 0);
+		assertEquals(0, w.get(2, 1), 0);
+	}
+	
+	@Test
+	public void testStateVectors()
+	{
+		POSTagger<NLPNode> component = createComponent();
+		AdaGrad optimizer = new AdaGrad(component.getOptimizer().getWeightVector(), 0.01f, 0, new RegularizedDualAveraging(0.001f));
+		optimizer.addLabel("X");
+		optimizer.addLabel("Y");
+		component.setOptimizer(optimizer);
+		
+		MajorVector d = optimizer.diagonals.getSparseWeightVector();
+		MajorVector c = ((RegularizedDualAveraging)optimizer.getL1Regularizer()).getCumulativePenaltyVector().getSparseWeightVector();
+		d.expand(2, 3);
+		c.expand(2, 3);
+		d.set(0, 1, 2);
+		
+		ModelSnapshot snapshot = new ModelSnapshot(false);
+		snapshot.save(component);
+		
+		// the diagonals of adagrad and the cumulative penalties of RDA are restored with the weights
+		d.set(0, 1, 4);
+		c.set(1, 2, 3);
+		optimizer.getWeightVector().getSparseWeightVector().set(0, 1, 6);
+		
+		snapshot.restore(component);
+		assertEquals(2, d.get(0, 1), 0);
+		assertEquals(0, c.get(1, 2), 0);
+		assertEquals(1, optimizer.getWeightVector().getSparseWeightVector().get(0, 1), 0);
+	}
+	
+	/** The component with the features "a" and "b" and the labels "X" and "Y". */
+	private POSTagger<NLPNode> createComponent()
+	{
+		POSTagger<NLPNode> component = new POSTagger<>();
+		component.setFeatureTemplate(new FeatureTemplate<NLPNode,POSState<NLPNode>>(null, new HyperParameter()));
+		component.setOptimizer(new Perceptron(new WeightVector(), 0.01f, 0));
+		component.getOptimizer().addLabel("X");
+		component.getOptimizer().addLabel("Y");
+		
+		FeatureMap map = component.getFeatureTemplate().getFeatureMap();
+		map.add(0, "a");
+		map.add(1, "b");
+		
+		MajorVector w = component.getOptimizer().getWeightVector().getSparseWeightVector();
+		w.expand(2, map.size());
+		w.set(0, 1, 1); w.set(1, 1, 1);
+		w.set(0, 2, 1); w.set(1, 2, 3);
+		return component;
+	}
+}
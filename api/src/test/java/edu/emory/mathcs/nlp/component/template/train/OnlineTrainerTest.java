@@ -0,0 +1,163 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.train;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.common.random.XORShiftRandom;
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.component.dep.DEPParser;
+import edu.emory.mathcs.nlp.component.dep.DEPState;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.reader.NLPReader;
+import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
+import edu.emory.mathcs.nlp.component.template.util.NLPFlag;
+import edu.emory.mathcs.nlp.component.template.util.NLPMode;
+import edu.emory.mathcs.nlp.learning.optimization.method.AdaGradMiniBatch;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class OnlineTrainerTest
+{
+	static private final String CONFIGURATION_FILE = "src/main/resources/edu/emory/mathcs/nlp/configuration/config-train-sample.xml";
+	
+	@Test
+	public void testEvaluateConcurrently()
+	{
+		OnlineTrainer<NLPNode,DEPState<NLPNode>> trainer = createTrainer();
+		OnlineComponent<NLPNode,DEPState<NLPNode>> component = trainer.initComponent(NLPMode.dep, IOUtils.createFileInputStream(CONFIGURATION_FILE), null, null);
+		GlobalLexica<NLPNode> lexica = trainer.createGlobalLexica(IOUtils.createFileInputStream(CONFIGURATION_FILE));
+		TSVReader<NLPNode> reader = trainer.createTSVReader(component.getConfiguration().getReaderFieldMap());
+		List<String> developFiles = Arrays.asList("src/test/resources/dat/sample-dev.tsv", "src/test/resources/dat/sample-dev.tsv");
+		
+		trainer.trainEpoch(reader, new ArrayList<>(Arrays.asList("src/test/resources/dat/sample-trn.tsv")), component, lexica, new XORShiftRandom(9));
+		
+		// the concurrent evaluation gives the same score as the sequential one
+		double score = trainer.evaluate(developFiles, component, lexica, reader).d;
+		assertTrue(score > 0);
+		component.getHyperParameter().setThreadSize(2);
+		assertEquals(score, trainer.evaluate(developFiles, component, lexica, reader).d, 0);
+		
+		// the failure of a thread is propagated instead of merging the evaluators of the other threads
+		try
+		{
+			trainer.evaluate(Arrays.asList(developFiles.get(0), "src/test/resources/dat/none.tsv"), component, lexica, reader);
+			fail();
+		}
+		catch (IllegalStateException e) {}
+	}
+	
+	@Test(timeout = 60000)
+	public void testTrainConcurrently() throws Exception
+	{
+		OnlineTrainer<NLPNode,DEPState<NLPNode>> trainer = createTrainer();
+		GlobalLexica<NLPNode> lexica = trainer.createGlobalLexica(IOUtils.createFileInputStream(CONFIGURATION_FILE));
+		List<String> trainFiles = Arrays.asList("src/test/resources/dat/sample-trn.tsv", "src/test/resources/dat/sample-trn.tsv");
+		
+		// the reader fails
+		OnlineComponent<NLPNode,DEPState<NLPNode>> component = createConcurrentComponent(trainer, false);
+		NLPReader reader = new NLPReader(component.getConfiguration().getReaderFieldMap())
+		{
+			int count = 0;
+			
+			@Override
+			public NLPNode[] next() throws IOException
+			{
+				if (++count > 2) throw new IllegalArgumentException();
+				return super.next();
+			}
+		};
+		
+		assertTrainFails(trainer, reader, trainFiles, component, lexica);
+		
+		// the workers fail
+		component = createConcurrentComponent(trainer, true);
+		assertTrainFails(trainer, trainer.createTSVReader(component.getConfiguration().getReaderFieldMap()), trainFiles, component, lexica);
+	}
+	
+	private void assertTrainFails(OnlineTrainer<NLPNode,DEPState<NLPNode>> trainer, TSVReader<NLPNode> reader, List<String> trainFiles, OnlineComponent<NLPNode,DEPState<NLPNode>> component, GlobalLexica<NLPNode> lexica)
+	{
+		try
+		{
+			trainer.iterateConcurrently(reader, trainFiles, component, lexica);
+			fail();
+		}
+		catch (IllegalStateException e) {}
+		
+		assertFalse(component.getOptimizer().isConcurrentTraining());
+	}
+	
+	private OnlineComponent<NLPNode,DEPState<NLPNode>> createConcurrentComponent(OnlineTrainer<NLPNode,DEPState<NLPNode>> trainer, boolean failUpdate)
+	{
+		OnlineComponent<NLPNode,DEPState<NLPNode>> component = trainer.initComponent(NLPMode.dep, IOUtils.createFileInputStream(CONFIGURATION_FILE), null, null);
+		component.getHyperParameter().setThreadSize(2);
+		component.setFlag(NLPFlag.TRAIN);
+		
+		component.setOptimizer(new AdaGradMiniBatch(new WeightVector(), 0.02f, 0)
+		{
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			public void updateMiniBatch()
+			{
+				if (failUpdate) throw new IllegalArgumentException();
+				super.updateMiniBatch();
+			}
+		});
+		
+		return component;
+	}
+	
+	private OnlineTrainer<NLPNode,DEPState<NLPNode>> createTrainer()
+	{
+		return new OnlineTrainer<NLPNode,DEPState<NLPNode>>()
+		{
+			@Override
+			public OnlineComponent<NLPNode,DEPState<NLPNode>> createComponent(NLPMode mode, InputStream config)
+			{
+				return new DEPParser<>(config);
+			}
+			
+			@Override
+			public TSVReader<NLPNode> createTSVReader(Object2IntMap<String> map)
+			{
+				return new NLPReader(map);
+			}
+			
+			@Override
+			public GlobalLexica<NLPNode> createGlobalLexica(InputStream config)
+			{
+				return new GlobalLexica<>(config);
+			}
+		};
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.emory.mathcs.nlp.common.util.NLPUtils;
+import edu.emory.mathcs.nlp.component.pos.POSState;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.tokenizer.EnglishTokenizer;
+import edu.emory.mathcs.nlp.decode.NLPDecoder;
+import edu.emory.mathcs.nlp.learning.util.FeatureMap;
+import edu.emory.mathcs.nlp.learning.util.MajorVector;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class FrozenModelTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void test() throws Exception
+	{
+		OnlineComponent<NLPNode,POSState<NLPNode>> component = (OnlineComponent<NLPNode,POSState<NLPNode>>)NLPUtils.<NLPNode,POSState<NLPNode>>getComponent(Paths.get("target/english/edu/emory/mathcs/nlp/models/en-pos.xz"));
+		File file = folder.newFile("en-pos."+FrozenModel.EXTENSION);
+		FrozenModel.write(component, file.getPath());
+		OnlineComponent<NLPNode,POSState<NLPNode>> frozen = (OnlineComponent<NLPNode,POSState<NLPNode>>)NLPUtils.<NLPNode,POSState<NLPNode>>getComponent(file.toPath());
+		
+		// feature map
+		FeatureMap fOld = component.getFeatureTemplate().getFeatureMap();
+		FeatureMap fNew = frozen   .getFeatureTemplate().getFeatureMap();
+		List<Object2IntMap<String>> maps = fOld.getIndexMaps();
+		assertEquals(fOld.size(), fNew.size());
+		
+		for (int type=0; type<maps.size(); type++)
+			for (Object2IntMap.Entry<String> e : maps.get(type).object2IntEntrySet())
+				assertEquals(e.getIntValue(), fNew.index(type, e.getKey()));
+		
+		assertEquals(-1, fNew.index(0, "#unseen#"));
+		assertEquals(-1, fNew.index(maps.size(), "#unseen#"));
+		
+		// weights
+		MajorVector wOld = component.getOptimizer().getWeightVector().getSparseWeightVector();
+		MajorVector wNew = frozen   .getOptimizer().getWeightVector().getSparseWeightVector();
+		assertEquals(wOld.getLabelSize()  , wNew.getLabelSize());
+		assertEquals(wOld.getFeatureSize(), wNew.getFeatureSize());
+		
+		for (int i=0; i<wOld.size(); i++)
+			assertEquals(wOld.get(i), wNew.get(i), 0);
+		
+		// predictions
+		final String s = "The Emory NLP group released a new version of its toolkit on Monday, and frozen models load in milliseconds.";
+		NLPDecoder decoder = new NLPDecoder();
+		decoder.setTokenizer(new EnglishTokenizer());
+		decoder.setComponents(Collections.singletonList(component));
+		NLPNode[] nOld = decoder.decode(s);
+		decoder.setComponents(Collections.singletonList(frozen));
+		NLPNode[] nNew = decoder.decode(s);
+		
+		for (int i=1; i<nOld.length; i++)
+			assertEquals(nOld[i].getPartOfSpeechTag(), nNew[i].getPartOfSpeechTag());
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.component.template.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.component.template.feature.Field;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexicon;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.reader.NLPReader;
+import edu.emory.mathcs.nlp.component.template.reader.TSVCache;
+import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class TSVCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void test() throws Exception
+	{
+		final String filename = "src/test/resources/dat/sample-dev.tsv";
+		final String cachename = folder.newFile("sample-dev."+TSVCache.EXTENSION).getPath();
+		
+		Map<String,List<String>> classes = new HashMap<>();
+		classes.put("the", Arrays.asList("DT"));
+		classes.put("students", Arrays.asList("NNS"));
+		
+		GlobalLexica<NLPNode> lexica = new GlobalLexica<>();
+		lexica.setAmbiguityClasses(new GlobalLexicon<>(classes, Field.word_form_simplified_lowercase, "classes"));
+		
+		TSVReader<NLPNode> reader = new NLPReader(1, 2, 3, 4, 5, 6, 7, 8);
+		int count = TSVCache.compile(reader, IOUtils.createFileInputStream(filename), cachename);
+		TSVCache cache = TSVCache.open(cachename);
+		
+		TSVReader<NLPNode> expected = new NLPReader(1, 2, 3, 4, 5, 6, 7, 8);
+		expected.open(IOUtils.createFileInputStream(filename));
+		reader.addCache(filename, cache);
+		reader.open(filename);
+		NLPNode[] e, a;
+		int sentences = 0;
+		
+		while ((e = expected.next()) != null)
+		{
+			a = reader.next();
+			assertEquals(e.length, a.length);
+			lexica.process(e);
+			
+			for (int i=1; i<e.length; i++) assertEquals(e[i].toString(), a[i].toString());
+			
+			lexica.process(a);
+			for (int i=1; i<e.length; i++) assertEquals(e[i].getAmbiguityClasses(), a[i].getAmbiguityClasses());
+			sentences++;
+		}
+		
+		assertNull(reader.next());
+		assertEquals(count, sentences);
+		expected.close();
+		reader.close();
+	}
+}
@@ -21,10 +21,14 @@ import edu.emory.mathcs.nlp.component.tokenizer.EnglishTokenizer;
 import edu.emory.mathcs.nlp.component.tokenizer.Tokenizer;
 import edu.emory.mathcs.nlp.component.tokenizer.token.Token;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -182,6 +186,36 @@ public class EnglishTokenizerTest
 		test(t, s, r);
 	}
 	
+	@Test
+	public void testSentences()
+	{
+		Tokenizer t = new EnglishTokenizer();
+		String nl = System.getProperty("line.separator");
+		String s = "He said \"Hello.\" Then he left!" + nl + nl + "(This is a test." + nl + ") Mr. Smith went" + nl + "to Washington... Did he? Yes" + nl + "no end";
+		
+		List<List<Token>> expected = t.segmentize(new ByteArrayInputStream(s.getBytes()));
+		List<List<Token>> actual = new ArrayList<>();
+		Iterator<List<Token>> it = t.sentences(new StringReader(s));
+		while (it.hasNext()) actual.add(it.next());
+		
+		assertEquals(expected.size(), actual.size());
+		
+		for (int i=0; i<expected.size(); i++)
+		{
+			assertEquals(getTokenStrings(expected.get(i)), getTokenStrings(actual.get(i)));
+			
+			for (int j=0; j<expected.get(i).size(); j++)
+			{
+				assertEquals(expected.get(i).get(j).getStartOffset(), actual.get(i).get(j).getStartOffset());
+				assertEquals(expected.get(i).get(j).getEndOffset()  , actual.get(i).get(j).getEndOffset());
+			}
+		}
+		
+		assertEquals("[(, This, is, a, test, ., )]", getTokenStrings(actual.get(2)).toString());
+		assertEquals("[Yes, no, end]", getTokenStrings(actual.get(actual.size()-1)).toString());
+		assertFalse(t.sentences(new StringReader("")).hasNext());
+	}
+	
 	private List<String> getTokenStrings(List<Token> tokens)
 	{
 		List<String> tokenStrings = new ArrayList<String>();
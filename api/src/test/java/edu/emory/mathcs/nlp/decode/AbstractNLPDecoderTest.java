@@ -23,6 +23,9 @@ import edu.emory.mathcs.nlp.component.template.node.NLPNode;
 import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
 
 import edu.emory.mathcs.nlp.component.tokenizer.EnglishTokenizer;
+import edu.emory.mathcs.nlp.component.tokenizer.token.Token;
+import edu.emory.mathcs.nlp.decode.metrics.DecodeMetrics;
+import edu.emory.mathcs.nlp.decode.metrics.StageSnapshot;
 import org.junit.Test;
 import org.tukaani.xz.XZInputStream;
 
@@ -35,8 +38,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 /**
@@ -95,4 +101,151 @@ public class AbstractNLPDecoderTest {
         NLPNode[] results = decoder.decode("My dog has fleas.");
         assertNotNull(results[1].getPartOfSpeechTag());
     }
+
+    @Test
+    public void decodeBatch() throws Exception {
+        List<NLPComponent<NLPNode>> components = new ArrayList<>();
+        GlobalLexica<NLPNode> lexica = new GlobalLexica<>();
+        lexica.setAmbiguityClasses(readLexiconItemFromStream(openTestResourceFromTarget("edu/emory/mathcs/nlp/lexica/en-ambiguity-classes-simplified-lowercase.xz"),
+                Field.word_form_simplified_lowercase, "edu/emory/mathcs/nlp/lexica/en-ambiguity-classes-simplified-lowercase.xz"));
+        components.add(lexica);
+        components.add(edu.emory.mathcs.nlp.common.util.NLPUtils.getComponent(getPathForTestResource("edu/emory/mathcs/nlp/models/en-pos.xz")));
+        NLPDecoder decoder = new NLPDecoder();
+        decoder.setComponents(components);
+        decoder.setTokenizer(new EnglishTokenizer());
+
+        String text = "My dog has fleas. The quick brown fox jumps over the lazy dog. "
+                + "Emory University is located in Atlanta, Georgia. She sells sea shells by the sea shore. "
+                + "Time flies like an arrow; fruit flies like a banana.";
+        List<NLPNode[]> sequential = new ArrayList<>();
+        List<NLPNode[]> batch = new ArrayList<>();
+        for (List<Token> tokens : decoder.getTokenizer().segmentize(text)) {
+            sequential.add(decoder.decode(decoder.toNodeArray(tokens)));
+            batch.add(decoder.toNodeArray(tokens));
+        }
+
+        decoder.decodeBatch(batch);
+        assertEquals(sequential.size(), batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            for (int j = 1; j < batch.get(i).length; j++) {
+                assertEquals(sequential.get(i)[j].getPartOfSpeechTag(), batch.get(i)[j].getPartOfSpeechTag());
+            }
+        }
+    }
+
+    @Test
+    public void decodeStreamInBatches() throws Exception {
+        List<NLPComponent<NLPNode>> components = new ArrayList<>();
+        GlobalLexica<NLPNode> lexica = new GlobalLexica<>();
+        lexica.setAmbiguityClasses(readLexiconItemFromStream(openTestResourceFromTarget("edu/emory/mathcs/nlp/lexica/en-ambiguity-classes-simplified-lowercase.xz"),
+                Field.word_form_simplified_lowercase, "edu/emory/mathcs/nlp/lexica/en-ambiguity-classes-simplified-lowercase.xz"));
+        components.add(lexica);
+        components.add(edu.emory.mathcs.nlp.common.util.NLPUtils.getComponent(getPathForTestResource("edu/emory/mathcs/nlp/models/en-pos.xz")));
+        NLPDecoder decoder = new NLPDecoder();
+        decoder.setComponents(components);
+        decoder.setTokenizer(new EnglishTokenizer());
+
+        String text = "My dog has fleas. The quick brown fox jumps over the lazy dog. "
+                + "Emory University is located in Atlanta, Georgia. She sells sea shells by the sea shore. "
+                + "Time flies like an arrow; fruit flies like a banana.";
+        decoder.setBatchSize(1);
+        String expected = decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW);
+
+        // the last batch is partial
+        decoder.setBatchSize(2);
+        assertEquals(expected, decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW));
+
+        decoder.setSentenceThreads(2);
+        decoder.setQueueSize(3);
+        assertEquals(expected, decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW));
+        decoder.setSentenceThreads(1);
+    }
+
+    @Test
+    public void decodeWithMetrics() throws Exception {
+        List<NLPComponent<NLPNode>> components = new ArrayList<>();
+        GlobalLexica<NLPNode> lexica = new GlobalLexica<>();
+        lexica.setAmbiguityClasses(readLexiconItemFromStream(openTestResourceFromTarget("edu/emory/mathcs/nlp/lexica/en-ambiguity-classes-simplified-lowercase.xz"),
+                Field.word_form_simplified_lowercase, "edu/emory/mathcs/nlp/lexica/en-ambiguity-classes-simplified-lowercase.xz"));
+        components.add(lexica);
+        components.add(edu.emory.mathcs.nlp.common.util.NLPUtils.getComponent(getPathForTestResource("edu/emory/mathcs/nlp/models/en-pos.xz")));
+        NLPDecoder decoder = new NLPDecoder();
+        decoder.setComponents(components);
+        decoder.setTokenizer(new EnglishTokenizer());
+
+        String text = "My dog has fleas. The quick brown fox jumps over the lazy dog.";
+        String expected = decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW);
+        DecodeMetrics metrics = new DecodeMetrics();
+        decoder.setMetrics(metrics);
+        assertEquals(expected, decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW));
+
+        List<StageSnapshot> stages = metrics.getStages();
+        assertEquals(3, stages.size());
+        assertEquals(DecodeMetrics.TOKENIZER, stages.get(0).getName());
+        assertEquals("GlobalLexica", stages.get(1).getName());
+        assertEquals("POSTagger", stages.get(2).getName());
+
+        for (StageSnapshot stage : stages) {
+            assertEquals(2, stage.getSentences());
+            assertEquals(15, stage.getTokens());
+        }
+
+        // one transition per token
+        assertEquals(0, stages.get(1).getTransitions());
+        assertEquals(15, stages.get(2).getTransitions());
+
+        // the transitions are recorded per sentence in batches as well
+        metrics.clear();
+        decoder.setBatchSize(2);
+        assertEquals(expected, decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW));
+        assertEquals(2, metrics.getStages().get(2).getSentences());
+        assertEquals(15, metrics.getStages().get(2).getTransitions());
+        decoder.setBatchSize(1);
+
+        metrics.setEnabled(false);
+        decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW);
+        assertEquals(2, metrics.getStages().get(2).getSentences());
+        metrics.clear();
+        assertEquals(0, metrics.getStages().get(2).getSentences());
+    }
+
+    @Test
+    public void decodeSentencesInParallel() throws Exception {
+        StringBuilder build = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            build.append("Sentence number ").append(i).append(" has ").append(i % 7).append(" words. ");
+        }
+        String text = build.toString();
+
+        // tags each token with its sentence length after a random delay so that sentences finish out of order
+        Random random = new Random(0);
+        NLPComponent<NLPNode> component = new NLPComponent<NLPNode>() {
+            @Override
+            public void process(NLPNode[] nodes) {
+                try {
+                    Thread.sleep(random.nextInt(3));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 1; i < nodes.length; i++) {
+                    nodes[i].setPartOfSpeechTag(Integer.toString(nodes.length));
+                }
+            }
+
+            @Override
+            public void process(List<NLPNode[]> document) {
+                for (NLPNode[] nodes : document) process(nodes);
+            }
+        };
+
+        NLPDecoder decoder = new NLPDecoder();
+        decoder.setTokenizer(new EnglishTokenizer());
+        decoder.setComponents(Collections.singletonList(component));
+        String sequential = decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW);
+
+        decoder.setSentenceThreads(4);
+        decoder.setQueueSize(16);
+        assertEquals(sequential, decoder.decode(text, AbstractNLPDecoder.FORMAT_RAW));
+        assertEquals(500, decoder.decodeDocument(text).size());
+    }
 }
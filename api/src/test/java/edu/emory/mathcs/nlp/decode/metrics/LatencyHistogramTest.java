@@ -0,0 +1,80 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.decode.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LatencyHistogramTest
+{
+	@Test
+	public void testBuckets()
+	{
+		long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE};
+		int prev = -1, index;
+		
+		for (long value : values)
+		{
+			index = LatencyHistogram.getIndex(value);
+			assertTrue(prev < index);
+			assertTrue(Math.abs(LatencyHistogram.getValue(index) - value) <= value / LatencyHistogram.SUB_BUCKETS);
+			prev = index;
+		}
+	}
+	
+	@Test
+	public void testPercentiles()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long i=1; i<=1000; i++) histogram.record(i * 1000);
+		
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500500000, histogram.getTotal());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(500500, histogram.getMean(), 0);
+		
+		assertEquals(500000, histogram.getPercentile(50), 500000 / LatencyHistogram.SUB_BUCKETS);
+		assertEquals(990000, histogram.getPercentile(99), 990000 / LatencyHistogram.SUB_BUCKETS);
+		assertEquals(1000000, histogram.getPercentile(100));
+		
+		histogram.clear();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+	
+	@Test
+	public void testStageMetrics()
+	{
+		StageMetrics stage = new StageMetrics("test");
+		stage.record(2000, 5, 10);
+		stage.record(4000, 200, 0);
+		
+		StageSnapshot s = stage.getSnapshot();
+		assertEquals(2, s.getSentences());
+		assertEquals(205, s.getTokens());
+		assertEquals(10, s.getTransitions());
+		assertEquals(3, s.getMeanLatency(), 0);
+		assertEquals(205 * 1e9 / 6000, s.getTokensPerSecond(), 1e-6);
+		assertEquals(1, s.getLengthCounts()[0]);
+		assertEquals(1, s.getLengthCounts()[StageMetrics.LENGTH_BOUNDS.length]);
+		assertEquals(4, s.getLengthMeanLatencies()[StageMetrics.LENGTH_BOUNDS.length], 0);
+	}
+}
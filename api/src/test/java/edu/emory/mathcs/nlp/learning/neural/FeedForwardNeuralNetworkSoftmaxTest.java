@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.neural;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.learning.activation.ActivationFunction;
+import edu.emory.mathcs.nlp.learning.activation.SigmoidFunction;
+import edu.emory.mathcs.nlp.learning.initialization.RandomWeightGenerator;
+import edu.emory.mathcs.nlp.learning.util.FeatureVector;
+import edu.emory.mathcs.nlp.learning.util.Instance;
+import edu.emory.mathcs.nlp.learning.util.MajorVector;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
+
+/**
+ * The expected values are taken from the implementation that created new feature vectors for every layer.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class FeedForwardNeuralNetworkSoftmaxTest
+{
+	static private final float DELTA = 1e-6f;
+	
+	@Test
+	public void testTrain()
+	{
+		// the weight generator is seeded and the dropout is disabled
+		FeedForwardNeuralNetworkSoftmax nn = new FeedForwardNeuralNetworkSoftmax(new int[]{3, 2}, new ActivationFunction[]{new SigmoidFunction(), new SigmoidFunction()}, 0.1f, 1f, new RandomWeightGenerator(-0.5f, 0.5f));
+		String[]  labels = {"A", "B", "C", "B"};
+		float[][] xs = {{0.5f, -1f, 0.25f, 1f}, {-0.5f, 1f, 0.75f, 0f}, {1f, 0.5f, -0.25f, -1f}, {0.25f, 0.5f, -1f, 0.5f}};
+		Instance instance;
+		
+		for (int i=0; i<labels.length; i++)
+		{
+			instance = new Instance(labels[i], xs[i]);
+			nn.train(instance);
+			assertEquals(0, instance.getPredictedLabel());
+		}
+		
+		FeatureVector x = new FeatureVector(new float[]{0.5f, 0.5f, -0.5f, 0.25f});
+		nn.augment(x);
+		float[] expected = {0.37844396f, 0.1682567f, 0.21143146f};
+		assertArrayEquals(expected, nn.scores(x), DELTA);
+		
+		List<FeatureVector> batch = Arrays.asList(x, x);
+		for (float[] scores : nn.scores(batch)) assertArrayEquals(expected, scores, DELTA);
+		
+		// input -> hidden, hidden -> hidden, hidden -> output
+		float[][][] weights =
+		{
+			{{-0.14886609f, 0.08739782f, 0.13846172f}, {0.03939161f, -0.2498664f, -0.23358709f, -0.14569263f, 0.2671386f, -0.19289406f, -0.23457557f, 0.27272248f, -0.40572968f, -0.47923714f, 0.18531482f, 0.27403027f}},
+			{{-0.37499088f, -0.48221534f}, {-0.38279748f, -0.46886984f, -0.28344676f, 0.021160949f, -0.41840762f, 0.0532192f}},
+			{{0.41037446f, -0.27549154f, -0.062634945f}, {0.22431543f, -0.0775798f, -0.32010803f, 0.008554596f, -0.019649345f, -0.19821276f}}
+		};
+		
+		List<WeightVector> vectors = nn.getWeightVectors();
+		assertEquals(weights.length, vectors.size());
+		
+		for (int i=0; i<weights.length; i++)
+		{
+			assertArrayEquals(weights[i][0], toArray(vectors.get(i).getSparseWeightVector()), DELTA);
+			assertArrayEquals(weights[i][1], toArray(vectors.get(i).getDenseWeightVector()) , DELTA);
+		}
+	}
+	
+	private float[] toArray(MajorVector vector)
+	{
+		return Arrays.copyOf(vector.copyWeights(null), vector.size());
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.learning.optimization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.learning.optimization.method.AdaGradMiniBatch;
+import edu.emory.mathcs.nlp.learning.util.Instance;
+import edu.emory.mathcs.nlp.learning.util.MLUtils;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class OnlineOptimizerTest
+{
+	static private final int LABEL_SIZE   = 8;
+	static private final int FEATURE_SIZE = 400;
+	
+	@Test
+	public void testConcurrentTraining() throws Exception
+	{
+		OnlineOptimizer op = new AdaGradMiniBatch(new WeightVector(), 0.02f, 0);
+		final int threads = 4, batchSize = 5;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		
+		op.setConcurrentTraining(true);
+		
+		for (int epoch=0; epoch<5; epoch++)
+		{
+			for (int t=0; t<threads; t++)
+			{
+				final List<Instance> instances = createInstances(500, epoch * threads + t);
+				
+				futures.add(executor.submit(() ->
+				{
+					int count = 0;
+					
+					for (Instance instance : instances)
+					{
+						op.train(instance);
+						if (++count % batchSize == 0) op.updateMiniBatch();
+					}
+					
+					op.updateMiniBatch();
+				}));
+			}
+			
+			for (Future<?> f : futures) f.get();
+			futures.clear();
+		}
+		
+		executor.shutdown();
+		op.setConcurrentTraining(false);
+		assertEquals(LABEL_SIZE, op.getLabelSize());
+		
+		// no mini-batch update is lost by the threads
+		assertEquals(1 + 5 * threads * (500 / batchSize + 1), ((AdaptiveGradientDescentMiniBatch)op).batch_steps.get());
+		
+		int correct = 0;
+		List<Instance> instances = createInstances(1000, -1);
+		
+		for (Instance instance : instances)
+		{
+			String label = op.getLabel(MLUtils.argmax(op.scores(instance.getFeatureVector())));
+			if (instance.isStringLabel(label)) correct++;
+		}
+		
+		assertTrue(correct > 0.95 * instances.size());
+	}
+	
+	/** Each instance has features indicating its label and random noise features. */
+	private List<Instance> createInstances(int size, long seed)
+	{
+		List<Instance> instances = new ArrayList<>();
+		Random rand = new Random(seed);
+		SparseVector x;
+		int y, i;
+		
+		for (int n=0; n<size; n++)
+		{
+			y = rand.nextInt(LABEL_SIZE);
+			x = new SparseVector();
+			
+			for (i=0; i<3; i++) x.add(y * 10 + rand.nextInt(10));
+			for (i=0; i<5; i++) x.add(LABEL_SIZE * 10 + rand.nextInt(FEATURE_SIZE - LABEL_SIZE * 10));
+			x.sort();
+			instances.add(new Instance("L"+y, x));
+		}
+		
+		return instances;
+	}
+}
@@ -17,6 +17,8 @@ package edu.emory.mathcs.nlp.learning.util;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.List;
+
 import org.junit.Test;
 
 import edu.emory.mathcs.nlp.learning.util.SparseVector;
@@ -40,6 +42,31 @@ public class FeatureVectorTest
 		assertEquals("2:1.0 1:0.2 4:0.3 3:1.0", x.toString());
 		x.sort();
 		assertEquals("1:0.2 2:1.0 3:1.0 4:0.3", x.toString());
+		assertEquals(4, x.maxIndex());
+		
+		x.clear();
+		assertEquals(0, x.size());
+		
+		for (int i=0; i<40; i++) x.add(i, i);
+		assertEquals(40, x.size());
+		assertEquals(39, x.maxIndex());
+		assertEquals(39, x.getIndex(39));
+		assertEquals(39f, x.getValue(39), 0);
+		
+		// the values are moved with their indices
+		x.clear();
+		for (int i=0; i<100; i++) x.add((i * 37) % 100, (i * 37) % 100);
+		x.sort();
+		
+		for (int i=0; i<100; i++)
+		{
+			assertEquals(i, x.getIndex(i));
+			assertEquals(i, x.getValue(i), 0);
+		}
+		
+		List<SparseItem> items = x.getVector();
+		assertEquals(100, items.size());
+		assertEquals(99, items.get(99).getIndex());
 	}
 	
 	@Test
@@ -20,11 +20,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Arrays;
 
 import org.junit.Test;
 
 import edu.emory.mathcs.nlp.learning.util.ColumnMajorVector;
+import edu.emory.mathcs.nlp.learning.util.MajorVector;
+import edu.emory.mathcs.nlp.learning.util.Quantization;
+import edu.emory.mathcs.nlp.learning.util.QuantizedColumnMajorVector;
+import edu.emory.mathcs.nlp.learning.util.QuantizedRowMajorVector;
+import edu.emory.mathcs.nlp.learning.util.QuantizedWeights;
 import edu.emory.mathcs.nlp.learning.util.RowMajorVector;
 import edu.emory.mathcs.nlp.learning.util.SparseVector;
 
@@ -120,4 +129,230 @@ public class MajorVectorTest
 		v.addScores(new float[]{1,1,1,1,1}, scores);
 		assertArrayEquals(new float[]{15f, 40f, 65f, 90f}, scores, 0);
 	}
+	
+	@Test
+	public void testBatchScores()
+	{
+		MajorVector v = new ColumnMajorVector();
+		v.expand(3, 200);
+		for (int i=0; i<v.size(); i++) v.set(i, i % 7 - 3);
+		
+		SparseVector[] sparse = new SparseVector[4];
+		float[][] dense = new float[4][];
+		
+		for (int b=0; b<sparse.length; b++)
+		{
+			if (b == 2) continue;
+			sparse[b] = new SparseVector();
+			dense [b] = new float[200];
+			
+			for (int i=b; i<250; i+=b+3)
+			{
+				sparse[b].add(i, b+1);
+				if (i < 200) dense[b][i] = b+1;
+			}
+		}
+		
+		float[][] sparseScores = new float[4][3];
+		float[][] denseScores  = new float[4][3];
+		v.addScores(sparse, sparseScores);
+		v.addScores(dense , denseScores);
+		
+		for (int b=0; b<sparse.length; b++)
+		{
+			float[] scores = new float[3];
+			if (b != 2) v.addScores(sparse[b], scores);
+			assertArrayEquals(scores, sparseScores[b], 0);
+			
+			scores = new float[3];
+			if (b != 2) v.addScores(dense[b], scores);
+			assertArrayEquals(scores, denseScores[b], 0);
+		}
+	}
+	
+	@Test
+	public void testRowMajorBatchScores()
+	{
+		MajorVector v = new RowMajorVector();
+		v.expand(5, 30);
+		for (int i=0; i<v.size(); i++) v.set(i, (i % 11 - 5) * 0.37f);
+
+		float[][] x = new float[11][];
+
+		for (int b=0; b<x.length; b++)
+		{
+			if (b == 5) continue;
+			x[b] = new float[b == 9 ? 20 : 30];
+			for (int i=0; i<x[b].length; i++) x[b][i] = (i * 7 + b) % 13 * 0.11f;
+		}
+
+		float[][] scores = new float[x.length][5];
+		v.addScores(x, scores);
+
+		for (int b=0; b<x.length; b++)
+		{
+			float[] s = new float[5];
+			if (x[b] != null) v.addScores(x[b], s);
+			assertArrayEquals(s, scores[b], 0);
+		}
+	}
+
+	@Test
+	public void testLabelScores()
+	{
+		for (MajorVector v : new MajorVector[]{new ColumnMajorVector(), new RowMajorVector()})
+		{
+			v.expand(6, 20);
+			for (int i=0; i<v.size(); i++) v.set(i, i % 5 - 2);
+			
+			SparseVector[] sparse = new SparseVector[3];
+			float[][] dense = new float[3][20];
+			int[][] labels = {{1,4}, null, {0,2,5}};
+			
+			for (int b=0; b<sparse.length; b++)
+			{
+				sparse[b] = new SparseVector();
+				for (int i=b; i<25; i+=b+2) sparse[b].add(i, b+1);
+				for (int i=0; i<20; i++) dense[b][i] = (i+b) % 3;
+			}
+			
+			float[][] sparseScores = new float[3][6];
+			float[][] denseScores  = new float[3][6];
+			v.addScores(sparse, sparseScores, labels);
+			v.addScores(dense , denseScores , labels);
+			
+			for (int b=0; b<sparse.length; b++)
+			{
+				float[] sparseAll = new float[6], denseAll = new float[6];
+				v.addScores(sparse[b], sparseAll);
+				v.addScores(dense [b], denseAll);
+				
+				float[] sparseOne = new float[6], denseOne = new float[6];
+				if (labels[b] != null) v.addScores(sparse[b], sparseOne, labels[b]);
+				if (labels[b] != null) v.addScores(dense [b], denseOne , labels[b]);
+				
+				for (int y=0; y<6; y++)
+				{
+					boolean scored = labels[b] == null || Arrays.binarySearch(labels[b], y) >= 0;
+					assertEquals(scored ? sparseAll[y] : 0, sparseScores[b][y], 0);
+					assertEquals(scored ? denseAll [y] : 0, denseScores [b][y], 0);
+					
+					if (labels[b] != null)
+					{
+						assertEquals(sparseScores[b][y], sparseOne[y], 0);
+						assertEquals(denseScores [b][y], denseOne [y], 0);
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testSerialization() throws Exception
+	{
+		MajorVector v = new ColumnMajorVector();
+		
+		for (int i=1; i<=10; i++)
+		{
+			v.expand(i, i*3);
+			v.set(i-1, i*3-1, i);
+		}
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		out.writeObject(v);
+		out.close();
+		
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		MajorVector w = (MajorVector)in.readObject();
+		in.close();
+		
+		assertEquals(v.getLabelSize()  , w.getLabelSize());
+		assertEquals(v.getFeatureSize(), w.getFeatureSize());
+		assertEquals(v.toString(), w.toString());
+		
+		for (int i=1; i<=10; i++)
+			assertEquals(i, w.get(i-1, i*3-1), 0);
+		
+		assertEquals(10, w.countNonZeroWeights());
+	}
+	
+	@Test
+	public void testQuantizedScores() throws Exception
+	{
+		MajorVector[] vectors = {new ColumnMajorVector(), new RowMajorVector()};
+		SparseVector x = new SparseVector();
+		float[] d = new float[20];
+		int i;
+		
+		for (i=0; i<20; i+=3) x.add(i, 0.5f + i);
+		for (i=0; i<20; i++)  d[i] = (i % 7 - 3) * 0.25f;
+		
+		for (MajorVector v : vectors)
+		{
+			v.expand(4, 20);
+			for (i=0; i<v.size(); i++) v.set(i, (i % 13 - 6) * 0.173f);
+			// a label with all zero weights
+			for (i=0; i<20; i++) v.set(3, i, 0);
+			
+			float[] gold = new float[4];
+			v.addScores(x, gold);
+			v.addScores(d, gold);
+			
+			for (Quantization q : Quantization.values())
+			{
+				MajorVector w = (v instanceof ColumnMajorVector) ? new QuantizedColumnMajorVector(v, q) : new QuantizedRowMajorVector(v, q);
+				float tolerance = (q == Quantization.int8) ? 0.01f : 0.001f;
+				assertEquals(v.getLabelSize()  , w.getLabelSize());
+				assertEquals(v.getFeatureSize(), w.getFeatureSize());
+				
+				for (i=0; i<v.size(); i++)
+					assertEquals(v.get(i), w.get(i), 1.04f / 127);
+				
+				float[] scores = new float[4];
+				w.addScores(x, scores);
+				w.addScores(d, scores);
+				for (i=0; i<4; i++) assertEquals(gold[i], scores[i], Math.abs(gold[i]) * tolerance + tolerance);
+				assertEquals(0, scores[3], 0);
+				
+				int[] labels = {0, 2};
+				float[] subset = new float[4];
+				w.addScores(x, subset, labels);
+				w.addScores(d, subset, labels);
+				assertEquals(scores[0], subset[0], 1e-4);
+				assertEquals(0        , subset[1], 0);
+				assertEquals(scores[2], subset[2], 1e-4);
+				assertEquals(v.countNonZeroWeights(), w.countNonZeroWeights());
+				
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				ObjectOutputStream out = new ObjectOutputStream(bout);
+				out.writeObject(w);
+				out.close();
+				
+				ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+				MajorVector r = (MajorVector)in.readObject();
+				in.close();
+				
+				assertEquals(w.toString(), r.toString());
+				for (i=0; i<v.size(); i++) assertEquals(w.get(i), r.get(i), 0);
+			}
+		}
+	}
+	
+	@Test
+	public void testHalfPrecision()
+	{
+		float[] values = {0, 1, -1, 0.5f, 65504, -65504, 6.1035156e-5f, 5.9604645e-8f, 0.33325195f};
+		
+		for (float f : values)
+			assertEquals(f, QuantizedWeights.toFloat(QuantizedWeights.toHalf(f)), 0);
+		
+		assertEquals(Float.POSITIVE_INFINITY, QuantizedWeights.toFloat(QuantizedWeights.toHalf(65520)), 0);
+		assertEquals(0, QuantizedWeights.toFloat(QuantizedWeights.toHalf(2.9802322e-8f)), 0);
+		assertEquals(1, QuantizedWeights.toFloat(QuantizedWeights.toHalf(1.0004883f)), 0);
+		assertEquals(1.0009766f, QuantizedWeights.toFloat(QuantizedWeights.toHalf(1.0005f)), 0);
+		
+		for (int h=0; h<0x7c00; h++)
+			assertEquals(h, QuantizedWeights.toHalf(QuantizedWeights.toFloat((short)h)));
+	}
 }
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.Test;
+
+import edu.emory.mathcs.nlp.component.tokenizer.EnglishTokenizer;
+import edu.emory.mathcs.nlp.decode.NLPDecoder;
+
+/**
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPSocketServerTest
+{
+	@Test
+	public void testPipelining() throws Exception
+	{
+		NLPDecoder decoder = new NLPDecoder();
+		decoder.setTokenizer(new EnglishTokenizer());
+		decoder.setComponents(Collections.emptyList());
+		
+		// a small queue makes the server push back on the clients
+		NLPSocketServer server = new NLPSocketServer(decoder, 0, 2, 1);
+		Thread thread = new Thread(server::run);
+		thread.start();
+		
+		try (NLPSocketClient client = new NLPSocketClient("127.0.0.1", server.getPort(), 2))
+		{
+			List<CompletableFuture<String>> futures = new ArrayList<>();
+			
+			for (int i=0; i<200; i++)
+				futures.add(client.decodeAsync("Sentence "+i+" arrives.", "raw"));
+			
+			for (int i=0; i<futures.size(); i++)
+				assertEquals(decoder.decode("Sentence "+i+" arrives.", "raw"), futures.get(i).join());
+			
+			// larger than the initial buffer of the server
+			StringBuilder build = new StringBuilder();
+			for (int i=0; i<5000; i++) build.append("word").append(i).append(' ');
+			String text = build.toString();
+			assertEquals(decoder.decode(text, "line"), client.decode(text, "line"));
+			
+			try
+			{
+				client.decode(text, "xml");
+				fail();
+			}
+			catch (CompletionException e)
+			{
+				assertTrue(e.getCause().getMessage().contains("xml"));
+			}
+			
+			// the connections are still usable after an error
+			assertEquals(decoder.decode("Hello world", "raw"), client.decode("Hello world", "raw"));
+		}
+		finally
+		{
+			server.close();
+			thread.join();
+		}
+	}
+	
+	@Test
+	public void testMalformedFrames() throws Exception
+	{
+		NLPDecoder decoder = new NLPDecoder();
+		decoder.setTokenizer(new EnglishTokenizer());
+		decoder.setComponents(Collections.emptyList());
+		
+		NLPSocketServer server = new NLPSocketServer(decoder, 0, 1, 1);
+		Thread thread = new Thread(server::run);
+		thread.start();
+		
+		try
+		{
+			// more malformed frames than permits: none of them may take a permit
+			for (int i=0; i<3; i++)
+			{
+				assertClosed(server, new byte[]{0, 0, 0, 3, 0, 0, 0});				// shorter than the header
+				assertClosed(server, new byte[]{0, 0, 0, 7, 0, 0, 0, 1, -1, -1, 'x'});	// negative format length
+				assertClosed(server, new byte[]{0, 0, 0, 7, 0, 0, 0, 1, 0, 2, 'x'});	// format longer than the frame
+			}
+			
+			try (NLPSocketClient client = new NLPSocketClient("127.0.0.1", server.getPort(), 1))
+			{
+				for (int i=0; i<5; i++)
+					assertEquals(decoder.decode("Hello world "+i, "raw"), client.decode("Hello world "+i, "raw"));
+			}
+		}
+		finally
+		{
+			server.close();
+			thread.join();
+		}
+	}
+	
+	@Test
+	public void testLargeResponse() throws Exception
+	{
+		NLPDecoder decoder = new NLPDecoder()
+		{
+			@Override
+			public byte[] decodeByteArray(String s, String format)
+			{
+				return s.equals("large") ? new byte[NLPSocketProtocol.MAX_FRAME_SIZE] : super.decodeByteArray(s, format);
+			}
+		};
+		decoder.setTokenizer(new EnglishTokenizer());
+		decoder.setComponents(Collections.emptyList());
+		
+		NLPSocketServer server = new NLPSocketServer(decoder, 0, 1, 1);
+		Thread thread = new Thread(server::run);
+		thread.start();
+		
+		try (NLPSocketClient client = new NLPSocketClient("127.0.0.1", server.getPort(), 1))
+		{
+			try
+			{
+				client.decode("large", "raw");
+				fail();
+			}
+			catch (CompletionException e)
+			{
+				assertTrue(e.getCause().getMessage().contains(Integer.toString(NLPSocketProtocol.MAX_FRAME_SIZE)));
+			}
+			
+			// the connection is not dropped by the client
+			assertEquals(decoder.decode("Hello world", "raw"), client.decode("Hello world", "raw"));
+		}
+		finally
+		{
+			server.close();
+			thread.join();
+		}
+	}
+	
+	/** Sends the frame and checks that the server closes the connection without a response. */
+	private void assertClosed(NLPSocketServer server, byte[] frame) throws Exception
+	{
+		try (Socket socket = new Socket("127.0.0.1", server.getPort()))
+		{
+			socket.setSoTimeout(10000);
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.write(frame);
+			out.flush();
+			
+			InputStream in = socket.getInputStream();
+			assertEquals(-1, in.read());
+		}
+	}
+}
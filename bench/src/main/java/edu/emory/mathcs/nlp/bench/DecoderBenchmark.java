@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.emory.mathcs.nlp.common.util.Language;
+import edu.emory.mathcs.nlp.component.morph.MorphologicalAnalyzer;
+import edu.emory.mathcs.nlp.component.template.NLPComponent;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.decode.NLPDecoder;
+
+/**
+ * Measures {@link NLPDecoder#decode(edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode[])} end-to-end
+ * over {@link PipelineState#SENTENCE_SIZE} sentences, where the pipeline grows from part-of-speech tagging to dependency parsing.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DecoderBenchmark
+{
+	@Param({"pos", "pos+ner", "pos+ner+dep"})
+	public String pipeline;
+	
+	private NLPDecoder decoder;
+	private List<NLPNode[]> sentences;
+	
+	@Setup
+	public void setup(PipelineState state)
+	{
+		List<NLPComponent<NLPNode>> components = new ArrayList<>();
+		components.add(state.lexica);
+		components.add(state.pos_tagger);
+		components.add(new MorphologicalAnalyzer<>(Language.ENGLISH));
+		if (pipeline.contains(PipelineState.NER)) components.add(state.ner_tagger);
+		if (pipeline.contains(PipelineState.DEP)) components.add(state.dep_parser);
+		
+		decoder = new NLPDecoder();
+		decoder.setComponents(components);
+	}
+	
+	/** Decoding annotates the nodes in place, so every invocation starts from unannotated copies. */
+	@Setup(Level.Invocation)
+	public void copySentences(PipelineState state)
+	{
+		sentences = SyntheticCorpus.toRawSentences(state.sentences);
+	}
+	
+	@Benchmark
+	public void decode(Blackhole bh)
+	{
+		for (NLPNode[] nodes : sentences)
+			bh.consume(decoder.decode(nodes));
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.emory.mathcs.nlp.component.template.feature.FeatureTemplate;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+
+/**
+ * Measures {@link FeatureTemplate#createFeatureVector(NLPState, boolean)} for every state of {@link PipelineState#SENTENCE_SIZE} sentences.
+ * The states follow the gold transitions, which adds a small constant cost per state.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FeatureExtractionBenchmark
+{
+	@Param({PipelineState.POS, PipelineState.NER, PipelineState.DEP})
+	public String component;
+	
+	private FeatureTemplate<NLPNode,NLPState<NLPNode>> template;
+	
+	@Setup
+	public void setup(PipelineState pipeline)
+	{
+		template = pipeline.getComponent(component).getFeatureTemplate();
+	}
+	
+	@Benchmark
+	public void createFeatureVector(PipelineState pipeline, Blackhole bh)
+	{
+		for (NLPNode[] nodes : pipeline.sentences)
+			pipeline.forEachState(component, nodes, state -> bh.consume(template.createFeatureVector(state, false)));
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+
+/**
+ * Measures {@link GlobalLexica#process(List)} over {@link PipelineState#SENTENCE_SIZE} sentences with all five lexica.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GlobalLexicaBenchmark
+{
+	private GlobalLexica<NLPNode> lexica;
+	private List<NLPNode[]> sentences;
+	
+	@Setup
+	public void setup()
+	{
+		SyntheticCorpus corpus = new SyntheticCorpus(PipelineState.VOCABULARY_SIZE, PipelineState.SEED);
+		lexica = corpus.createGlobalLexica();
+		sentences = SyntheticCorpus.toRawSentences(corpus.createSentences(PipelineState.SENTENCE_SIZE, false));
+	}
+	
+	@Benchmark
+	public List<NLPNode[]> process()
+	{
+		lexica.process(sentences);
+		return sentences;
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bench;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.emory.mathcs.nlp.component.dep.DEPParser;
+import edu.emory.mathcs.nlp.component.dep.DEPState;
+import edu.emory.mathcs.nlp.component.ner.NERState;
+import edu.emory.mathcs.nlp.component.ner.NERTagger;
+import edu.emory.mathcs.nlp.component.pos.POSState;
+import edu.emory.mathcs.nlp.component.pos.POSTagger;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.learning.util.LabelMap;
+
+/**
+ * Synthetic corpus, lexica, and models shared by the benchmarks; built once per fork.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+@State(Scope.Benchmark)
+public class PipelineState
+{
+	static public final String POS = "pos";
+	static public final String NER = "ner";
+	static public final String DEP = "dep";
+	
+	static public final long SEED            = 1;
+	static public final int  VOCABULARY_SIZE = 5000;
+	static public final int  TRAIN_SIZE      = 2000;
+	static public final int  TRAIN_EPOCHS    = 2;
+	static public final int  SENTENCE_SIZE   = 100;
+	
+	public SyntheticCorpus       corpus;
+	public GlobalLexica<NLPNode> lexica;
+	public POSTagger<NLPNode>    pos_tagger;
+	public NERTagger<NLPNode>    ner_tagger;
+	public DEPParser<NLPNode>    dep_parser;
+	
+	/** Gold sentences already processed by {@link #lexica}. */
+	public List<NLPNode[]> sentences;
+	
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		corpus = new SyntheticCorpus(VOCABULARY_SIZE, SEED);
+		lexica = corpus.createGlobalLexica();
+		
+		SyntheticModels models = new SyntheticModels(corpus, lexica, TRAIN_SIZE, TRAIN_EPOCHS);
+		pos_tagger = models.trainPOSTagger();
+		ner_tagger = models.trainNERTagger();
+		dep_parser = models.trainDEPParser();
+		
+		sentences = corpus.createSentences(SENTENCE_SIZE, true);
+		for (NLPNode[] nodes : sentences) lexica.process(nodes);
+	}
+	
+	/** @param name {@link #POS}, {@link #NER}, or {@link #DEP}. */
+	@SuppressWarnings("unchecked")
+	public OnlineComponent<NLPNode,NLPState<NLPNode>> getComponent(String name)
+	{
+		switch (name)
+		{
+		case POS: return (OnlineComponent<NLPNode,NLPState<NLPNode>>)(OnlineComponent<NLPNode,?>)pos_tagger;
+		case NER: return (OnlineComponent<NLPNode,NLPState<NLPNode>>)(OnlineComponent<NLPNode,?>)ner_tagger;
+		case DEP: return (OnlineComponent<NLPNode,NLPState<NLPNode>>)(OnlineComponent<NLPNode,?>)dep_parser;
+		default : throw new IllegalArgumentException(name+" is not a valid component name.");
+		}
+	}
+	
+	/** @param name {@link #POS}, {@link #NER}, or {@link #DEP}. */
+	public NLPState<NLPNode> createState(String name, NLPNode[] nodes)
+	{
+		switch (name)
+		{
+		case POS: return new POSState<>(nodes);
+		case NER: return new NERState<>(nodes);
+		case DEP: return new DEPState<>(nodes);
+		default : throw new IllegalArgumentException(name+" is not a valid component name.");
+		}
+	}
+	
+	/**
+	 * Walks through the states of the gold sentence by applying the gold transitions, so every run visits the same states
+	 * regardless of the model; the gold annotation is restored afterwards.
+	 */
+	public void forEachState(String name, NLPNode[] nodes, Consumer<NLPState<NLPNode>> consumer)
+	{
+		LabelMap labels = getComponent(name).getOptimizer().getLabelMap();
+		NLPState<NLPNode> state = createState(name, nodes);
+		float[] scores = new float[labels.size()];
+		int[] top2 = {0, -1};
+		
+		state.saveOracle();
+		
+		while (!state.isTerminate())
+		{
+			consumer.accept(state);
+			top2[0] = labels.index(state.getOracle());
+			state.next(labels, top2, scores);
+		}
+		
+		state.resetOracle();
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.emory.mathcs.nlp.component.dep.DEPState;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.feature.FeatureTemplate;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.learning.util.FeatureVector;
+import edu.emory.mathcs.nlp.learning.util.SparseVector;
+import edu.emory.mathcs.nlp.learning.util.WeightVector;
+
+/**
+ * Measures {@link WeightVector#scores(FeatureVector)} and {@link WeightVector#scores(List)} over the feature vectors of every state of {@link PipelineState#SENTENCE_SIZE} sentences,
+ * extracted once at setup, and {@link WeightVector#scores(FeatureVector, int[])} over the candidate labels of each state (all labels except for the dependency parser).
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScoringBenchmark
+{
+	@Param({PipelineState.POS, PipelineState.NER, PipelineState.DEP})
+	public String component;
+	
+	private WeightVector weights;
+	private List<FeatureVector> vectors;
+	private List<int[]> candidates;
+	
+	@Setup
+	public void setup(PipelineState pipeline)
+	{
+		OnlineComponent<NLPNode,NLPState<NLPNode>> c = pipeline.getComponent(component);
+		FeatureTemplate<NLPNode,NLPState<NLPNode>> template = c.getFeatureTemplate();
+		weights = c.getOptimizer().getWeightVector();
+		vectors = new ArrayList<>();
+		candidates = new ArrayList<>();
+		
+		for (NLPNode[] nodes : pipeline.sentences)
+		{
+			pipeline.forEachState(component, nodes, state ->
+			{
+				// decoding reuses the sparse vector of each thread, so it is copied
+				FeatureVector x = template.createFeatureVector(state, false);
+				float[] dense = x.hasDenseVector() ? x.getDenseVector().clone() : null;
+				vectors.add(new FeatureVector(new SparseVector(x.getSparseVector()), dense));
+				candidates.add(getCandidateLabels(pipeline, state));
+			});
+		}
+	}
+	
+	@Benchmark
+	public void scores(Blackhole bh)
+	{
+		for (FeatureVector x : vectors)
+			bh.consume(weights.scores(x));
+	}
+	
+	private int[] getCandidateLabels(PipelineState pipeline, NLPState<NLPNode> state)
+	{
+		if (!component.equals(PipelineState.DEP)) return null;
+		DEPState<NLPNode> s = (DEPState<NLPNode>)state;
+		return pipeline.dep_parser.getLabelCandidates().getArray(s.getStack(), s.getInput());
+	}
+	
+	@Benchmark
+	public float[][] scoresBatch()
+	{
+		return weights.scores(vectors);
+	}
+	
+	@Benchmark
+	public void scoresCandidates(Blackhole bh)
+	{
+		for (int i=0; i<vectors.size(); i++)
+			bh.consume(weights.scores(vectors.get(i), candidates.get(i)));
+	}
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import edu.emory.mathcs.nlp.common.collection.tree.PrefixTree;
+import edu.emory.mathcs.nlp.component.template.feature.Field;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexicon;
+import edu.emory.mathcs.nlp.component.template.lexicon.WordClusterStore;
+import edu.emory.mathcs.nlp.component.template.node.FeatMap;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.util.BILOU;
+
+/**
+ * Generates a vocabulary, annotated sentences, raw text, and lexica from a fixed seed
+ * so that benchmarks run offline and measure the same input across runs.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class SyntheticCorpus
+{
+	static public final String[] POS_TAGS = {"DT", "NN", "NNS", "VB", "VBD", "JJ", "IN", "RB", "PRP", "CC", "NNP"};
+	static public final String   NAMED_ENTITY = "ORG";
+	static public final int      EMBEDDING_SIZE = 50;
+	
+	private String[] word_forms;
+	private String[] pos_tags;
+	private long     seed;
+	
+	public SyntheticCorpus(int vocabularySize, long seed)
+	{
+		Random rand = new Random(seed);
+		word_forms = new String[vocabularySize];
+		pos_tags   = new String[vocabularySize];
+		this.seed  = seed;
+		
+		for (int i=0; i<vocabularySize; i++)
+		{
+			pos_tags  [i] = POS_TAGS[i % POS_TAGS.length];
+			word_forms[i] = createWord(rand, "NNP".equals(pos_tags[i]));
+		}
+	}
+	
+	private String createWord(Random rand, boolean capitalize)
+	{
+		StringBuilder build = new StringBuilder();
+		int i, len = 2 + rand.nextInt(8);
+		
+		for (i=0; i<len; i++)
+			build.append((char)('a' + rand.nextInt(26)));
+		
+		if (capitalize) build.setCharAt(0, Character.toUpperCase(build.charAt(0)));
+		return build.toString();
+	}
+	
+	public int getVocabularySize()
+	{
+		return word_forms.length;
+	}
+	
+//	============================== SENTENCES ==============================
+	
+	/**
+	 * @param annotate if {@code true}, the nodes carry gold lemmas, part-of-speech tags, named entity tags, and dependency heads;
+	 * otherwise, only word forms are set.
+	 * @return the same sentences for the same size on every call.
+	 */
+	public List<NLPNode[]> createSentences(int size, boolean annotate)
+	{
+		List<NLPNode[]> sentences = new ArrayList<>(size);
+		Random rand = new Random(seed + size);
+		
+		for (int i=0; i<size; i++)
+			sentences.add(createSentence(rand, annotate));
+		
+		return sentences;
+	}
+	
+	private NLPNode[] createSentence(Random rand, boolean annotate)
+	{
+		NLPNode[] nodes = new NLPNode[6 + rand.nextInt(20)];
+		String form, pos;
+		int i, w;
+		
+		nodes[0] = new NLPNode().toRoot();
+		
+		for (i=1; i<nodes.length; i++)
+		{
+			if (i+1 == nodes.length)
+			{
+				form = ".";
+				pos  = ".";
+			}
+			else
+			{
+				w    = rand.nextInt(word_forms.length);
+				form = word_forms[w];
+				pos  = pos_tags[w];
+				if (i == 1) form = Character.toUpperCase(form.charAt(0)) + form.substring(1);
+			}
+			
+			nodes[i] = new NLPNode();
+			
+			if (annotate)
+				nodes[i].set(i, form, form.toLowerCase(), pos, getNamedEntityTag(pos), new FeatMap(), null, null);
+			else
+				nodes[i].set(i, form, null, null, null, new FeatMap(), null, null);
+		}
+		
+		if (annotate)
+		{
+			nodes[1].setDependencyHead(nodes[0], "root");
+			
+			for (i=2; i<nodes.length; i++)
+				nodes[i].setDependencyHead(nodes[i-1], getDependencyLabel(nodes[i].getPartOfSpeechTag()));
+		}
+		
+		return nodes;
+	}
+	
+	private String getNamedEntityTag(String pos)
+	{
+		return "NNP".equals(pos) ? BILOU.toBILOUTag(BILOU.U, NAMED_ENTITY) : BILOU.O.toString();
+	}
+	
+	private String getDependencyLabel(String pos)
+	{
+		switch (pos)
+		{
+		case "DT": return "det";
+		case "JJ": return "amod";
+		case "IN": return "prep";
+		case "." : return "punct";
+		default  : return "dep";
+		}
+	}
+	
+	/** @return the word forms of the sentences as raw text. */
+	public String createText(int size)
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (NLPNode[] nodes : createSentences(size, false))
+		{
+			for (int i=1; i<nodes.length; i++)
+			{
+				if (i > 1 && i+1 < nodes.length) build.append(' ');
+				build.append(nodes[i].getWordForm());
+			}
+			
+			build.append('\n');
+		}
+		
+		return build.toString();
+	}
+	
+	/** @return copies of the nodes containing only their IDs and word forms. */
+	static public List<NLPNode[]> toRawSentences(List<NLPNode[]> sentences)
+	{
+		List<NLPNode[]> raw = new ArrayList<>(sentences.size());
+		NLPNode[] nodes;
+		
+		for (NLPNode[] gold : sentences)
+		{
+			nodes = new NLPNode[gold.length];
+			nodes[0] = new NLPNode().toRoot();
+			
+			for (int i=1; i<nodes.length; i++)
+				nodes[i] = new NLPNode(i, gold[i].getWordForm());
+			
+			raw.add(nodes);
+		}
+		
+		return raw;
+	}
+	
+//	============================== LEXICA ==============================
+	
+	public GlobalLexica<NLPNode> createGlobalLexica()
+	{
+		Map<String,List<String>> ambiguityClasses = new HashMap<>();
+		Map<String,String> wordClusters = new HashMap<>();
+		Map<String,float[]> wordEmbeddings = new HashMap<>();
+		PrefixTree<String,Set<String>> gazetteers = new PrefixTree<>();
+		Set<String> stopWords = new HashSet<>();
+		Random rand = new Random(seed);
+		List<String> classes;
+		String form, lower;
+		float[] embedding;
+		int i, j;
+		
+		for (i=0; i<word_forms.length; i++)
+		{
+			form  = word_forms[i];
+			lower = form.toLowerCase();
+			
+			classes = new ArrayList<>();
+			classes.add(pos_tags[i]);
+			if (rand.nextBoolean()) classes.add(POS_TAGS[rand.nextInt(POS_TAGS.length)]);
+			ambiguityClasses.put(lower, classes);
+			
+			// a 12-bit path, where the sentinel bit keeps the leading zeros
+			wordClusters.put(lower, Integer.toBinaryString(rand.nextInt(1 << 12) | (1 << 12)).substring(1));
+			
+			embedding = new float[EMBEDDING_SIZE];
+			for (j=0; j<embedding.length; j++) embedding[j] = (float)rand.nextGaussian();
+			wordEmbeddings.put(form, embedding);
+			
+			if ("NNP".equals(pos_tags[i]))
+			{
+				Set<String> tags = new HashSet<>();
+				tags.add(NAMED_ENTITY);
+				gazetteers.set(new String[]{form}, tags, s -> s);
+			}
+			
+			if ("DT".equals(pos_tags[i]) || "IN".equals(pos_tags[i]) || "CC".equals(pos_tags[i]))
+				stopWords.add(lower);
+		}
+		
+		GlobalLexica<NLPNode> lexica = new GlobalLexica<>();
+		lexica.setAmbiguityClasses(new GlobalLexicon<>(ambiguityClasses, Field.word_form_simplified_lowercase, "ambiguity_classes"));
+		lexica.setWordClusters(new GlobalLexicon<>(WordClusterStore.create(wordClusters), Field.word_form_simplified_lowercase, "word_clusters"));
+		lexica.setWordEmbeddings(new GlobalLexicon<>(wordEmbeddings, Field.word_form_undigitalized, "word_embeddings"));
+		lexica.setNamedEntityGazetteers(new GlobalLexicon<>(gazetteers, Field.word_form_simplified, "named_entity_gazetteers"));
+		lexica.setStopWords(new GlobalLexicon<>(stopWords, Field.word_form_simplified_lowercase, "stop_words"));
+		return lexica;
+	}
+}
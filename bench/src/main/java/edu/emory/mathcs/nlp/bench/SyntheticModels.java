@@ -0,0 +1,119 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bench;
+
+import java.io.InputStream;
+import java.util.List;
+
+import edu.emory.mathcs.nlp.component.dep.DEPParser;
+import edu.emory.mathcs.nlp.component.ner.NERTagger;
+import edu.emory.mathcs.nlp.component.pos.POSTagger;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.config.NLPConfig;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.node.NLPNode;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.component.template.train.HyperParameter;
+import edu.emory.mathcs.nlp.component.template.util.NLPFlag;
+
+/**
+ * Trains small models on a {@link SyntheticCorpus} using the bundled training configurations.
+ * The models are meaningless linguistically but have the same feature templates, optimizers, and weight layouts as the released ones.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class SyntheticModels
+{
+	static public final String CONFIG_POS = "edu/emory/mathcs/nlp/configuration/config-train-pos.xml";
+	static public final String CONFIG_NER = "edu/emory/mathcs/nlp/configuration/config-train-ner.xml";
+	static public final String CONFIG_DEP = "edu/emory/mathcs/nlp/configuration/config-train-dep.xml";
+	
+	private SyntheticCorpus corpus;
+	private GlobalLexica<NLPNode> lexica;
+	private int sentence_size;
+	private int epochs;
+	
+	/**
+	 * @param sentenceSize the number of training sentences.
+	 * @param epochs the number of training epochs per model.
+	 */
+	public SyntheticModels(SyntheticCorpus corpus, GlobalLexica<NLPNode> lexica, int sentenceSize, int epochs)
+	{
+		this.corpus = corpus;
+		this.lexica = lexica;
+		this.sentence_size = sentenceSize;
+		this.epochs = epochs;
+	}
+	
+	public POSTagger<NLPNode> trainPOSTagger()
+	{
+		return train(new POSTagger<>(getConfiguration(CONFIG_POS)));
+	}
+	
+	public NERTagger<NLPNode> trainNERTagger()
+	{
+		return train(new NERTagger<>(getConfiguration(CONFIG_NER)));
+	}
+	
+	public DEPParser<NLPNode> trainDEPParser()
+	{
+		return train(new DEPParser<>(getConfiguration(CONFIG_DEP)));
+	}
+	
+	/** @return the component in the decoding mode after training. */
+	public <C extends OnlineComponent<NLPNode,S>, S extends NLPState<NLPNode>>C train(C component)
+	{
+		NLPConfig<NLPNode> config = component.getConfiguration();
+		HyperParameter hp = config.getHyperParameter();
+		int count = 0;
+		
+		component.setHyperParameter(hp);
+		component.setOptimizer(config.getOnlineOptimizer(hp));
+		component.initFeatureTemplate();
+		component.setFlag(NLPFlag.TRAIN);
+		
+		for (int epoch=0; epoch<epochs; epoch++)
+		{
+			// training removes the gold annotation, so the sentences are regenerated for every epoch
+			List<NLPNode[]> sentences = corpus.createSentences(sentence_size, true);
+			
+			for (NLPNode[] nodes : sentences)
+			{
+				lexica.process(nodes);
+				component.process(nodes);
+				
+				if (++count == hp.getBatchSize())
+				{
+					component.getOptimizer().updateMiniBatch();
+					count = 0;
+				}
+			}
+			
+			if (count > 0)
+			{
+				component.getOptimizer().updateMiniBatch();
+				count = 0;
+			}
+		}
+		
+		component.setFlag(NLPFlag.DECODE);
+		return component;
+	}
+	
+	private InputStream getConfiguration(String resource)
+	{
+		return SyntheticModels.class.getClassLoader().getResourceAsStream(resource);
+	}
+}
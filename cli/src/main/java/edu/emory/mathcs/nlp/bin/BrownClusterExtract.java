@@ -17,53 +17,48 @@ package edu.emory.mathcs.nlp.bin;
 
 import edu.emory.mathcs.nlp.common.util.IOUtils;
 import edu.emory.mathcs.nlp.common.util.Splitter;
+import edu.emory.mathcs.nlp.component.template.lexicon.WordClusterStore;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * Compiles the paths of Brown clusters ({@code path word count} per line) into a {@link WordClusterStore}.
+ * If the input file is a legacy lexicon ({@code *.xz}) that maps each word to the set of its prefixes, it is converted instead.
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
 public class BrownClusterExtract
 {
-	static public Map<String,Set<String>> getBrownClusters(InputStream in) throws IOException
+	static public WordClusterStore getBrownClusters(InputStream in) throws IOException
 	{
 		BufferedReader reader = IOUtils.createBufferedReader(in);
-		Map<String,Set<String>> map = new HashMap<>();
-		Set<String> v;
+		Map<String,String> map = new HashMap<>();
 		String line;
 		String[] t;
-		int i, len;
 		
 		while ((line = reader.readLine()) != null)
 		{
 			t = Splitter.splitTabs(line);
-			v = new HashSet<String>();
-			len = t[0].length();
-			
-			for (i=2; ; i+=2)
-			{
-				if (len <= i)
-				{
-					v.add(t[0].substring(0, len));
-					break;
-				}
-				else
-					v.add(t[0].substring(0, i));
-				
-			}
-			
-			map.put(t[1], v);
+			map.put(t[1], t[0]);
 		}
 		
-		return map;
+		return WordClusterStore.create(map);
+	}
+	
+	@SuppressWarnings("unchecked")
+	static public WordClusterStore convert(String legacyFile) throws Exception
+	{
+		try (ObjectInputStream in = IOUtils.createObjectXZBufferedInputStream(legacyFile))
+		{
+			return WordClusterStore.createFromPrefixes((Map<String,Set<String>>)in.readObject());
+		}
 	}
 	
 	static public void main(String[] args)
@@ -73,10 +68,11 @@ public class BrownClusterExtract
 		
 		try
 		{
-			Map<String,Set<String>> tree = getBrownClusters(new FileInputStream(INPUT_FILE));
+			WordClusterStore store = INPUT_FILE.endsWith(".xz") ? convert(INPUT_FILE) : getBrownClusters(new FileInputStream(INPUT_FILE));
 			ObjectOutputStream out = IOUtils.createObjectXZBufferedOutputStream(OUTPUT_FILE);
-			out.writeObject(tree);
+			out.writeObject(store);
 			out.close();
+			System.out.println(store);
 		}
 		catch (Exception e) {e.printStackTrace();}
 	}
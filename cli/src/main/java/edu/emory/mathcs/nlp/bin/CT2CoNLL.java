@@ -15,40 +15,104 @@
  */
 package edu.emory.mathcs.nlp.bin;
 
+import edu.emory.mathcs.nlp.bin.util.BinUtils;
 import edu.emory.mathcs.nlp.common.constituent.CTReader;
 import edu.emory.mathcs.nlp.common.constituent.CTTree;
 import edu.emory.mathcs.nlp.common.util.CharTokenizer;
+import edu.emory.mathcs.nlp.common.util.FileUtils;
 import edu.emory.mathcs.nlp.common.util.IOUtils;
 import edu.emory.mathcs.nlp.common.util.Splitter;
+import org.kohsuke.args4j.Option;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
 public class CT2CoNLL
 {
+	@Option(name="-i", usage="input path (required)", required=true, metaVar="<filepath>")
+	public String input_path;
+	@Option(name="-ie", usage="input file extension (default: *)", required=false, metaVar="<string>")
+	public String input_ext = "*";
+	@Option(name="-oe", usage="output file extension (default: conll)", required=false, metaVar="<string>")
+	public String output_ext = "conll";
+	@Option(name="-threads", usage="number of threads converting files, or trees if there is only one file (default: 1)", required=false, metaVar="<integer>")
+	protected int threads = 1;
+	
+	public CT2CoNLL() {}
+	
+	public CT2CoNLL(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		List<String> filelist = FileUtils.getFileList(input_path, input_ext, false);
+		Collections.sort(filelist);
+		transform(filelist, output_ext, threads);
+	}
+	
+	/**
+	 * Converts the files on a worker pool, where each file is converted by one worker.
+	 * If there is only one file, its trees are converted on the worker pool instead.
+	 * The trees are written to each output file in the order of the input file.
+	 */
+	public void transform(List<String> inputFiles, String outputExt, int threads) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		List<Future<?>> futures = new ArrayList<>();
+		
+		try
+		{
+			if (inputFiles.size() == 1)
+				transform(inputFiles.get(0), inputFiles.get(0)+"."+outputExt, threads > 1 ? executor : null);
+			else
+			{
+				for (String inputFile : inputFiles)
+					futures.add(executor.submit(() -> {transform(inputFile, inputFile+"."+outputExt); return null;}));
+				
+				for (Future<?> f : futures) f.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
 	public void transform(String inputFile, String outputFile) throws Exception
+	{
+		transform(inputFile, outputFile, null);
+	}
+	
+	/** @param executor converts the trees if not {@code null}; otherwise, the trees are converted by this thread. */
+	public void transform(String inputFile, String outputFile, ExecutorService executor) throws Exception
 	{
 		CTReader reader = new CTReader(IOUtils.createFileInputStream(inputFile));
-		PrintStream fout = IOUtils.createBufferedPrintStream(outputFile);
-		CharTokenizer tok = new CharTokenizer('\n');
+		List<Future<List<String[]>>> trees = new ArrayList<>();
 		List<String[]> ts = new ArrayList<>();
 		int[] max = {0,0,0,0};
-		int tokenID;
 		CTTree tree;
 		
 		while ((tree = reader.nextTree()) != null)
 		{
-			tokenID = 0;
-			
-			for (String line : tok.tokenize(tree.toString()))
+			CTTree t = tree;
+			trees.add(executor != null ? executor.submit(() -> transform(t)) : CompletableFuture.completedFuture(transform(t)));
+		}
+		
+		reader.close();
+		
+		for (Future<List<String[]>> f : trees)
+		{
+			for (String[] t : f.get())
 			{
-				String[] t = transform(line, tokenID++);
 				ts.add(t);
-			
+				
 				for (int i=0; i<t.length; i++)
 					max[i] = Math.max(max[i], t[i].length());
 			}
@@ -56,16 +120,36 @@ public class CT2CoNLL
 			ts.add(null);
 		}
 		
+		PrintStream fout = IOUtils.createBufferedPrintStream(outputFile);
+		StringBuilder build = new StringBuilder();
+		
 		for (String[] t : ts)
 		{
 			if (t == null) fout.println();
-			else fout.printf(format(max)+"\n", t[0], t[1], t[2], t[3]);
+			else
+			{
+				build.setLength(0);
+				for (int i=0; i<t.length; i++) pad(build, t[i], max[i]+2);
+				fout.print(build.append('\n'));
+			}
 		}
 		
-		reader.close();
 		fout.close();
 	}
 	
+	/** @return the rows of the tokens in the tree. */
+	public List<String[]> transform(CTTree tree)
+	{
+		CharTokenizer tok = new CharTokenizer('\n');
+		List<String[]> ts = new ArrayList<>();
+		int tokenID = 0;
+		
+		for (String line : tok.tokenize(tree.toString()))
+			ts.add(transform(line, tokenID++));
+		
+		return ts;
+	}
+	
 	public String[] transform(String line, int tokenID)
 	{
 		int beginIndex = line.lastIndexOf('(');
@@ -78,19 +162,15 @@ public class CT2CoNLL
 		return new String[]{Integer.toString(tokenID), t[1], t[0], line};
 	}
 	
-	public String format(int[] max)
+	/** Appends the string right-aligned to the width, the same as {@code String.format("%<width>s", s)}. */
+	private void pad(StringBuilder build, String s, int width)
 	{
-		StringBuilder build = new StringBuilder();
-		for (int m : max) build.append("%"+(m+2)+"s");
-		return build.toString();
+		for (int i=s.length(); i<width; i++) build.append(' ');
+		build.append(s);
 	}
 	
 	static public void main(String[] args) throws Exception
 	{
-		final String inputFile  = args[0];
-		final String outputFile = inputFile+".conll";
-		
-		CT2CoNLL c2n = new CT2CoNLL();
-		c2n.transform(inputFile, outputFile);
+		new CT2CoNLL(args);
 	}
 }
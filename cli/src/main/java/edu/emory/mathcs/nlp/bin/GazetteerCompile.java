@@ -0,0 +1,73 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bin;
+
+import edu.emory.mathcs.nlp.bin.util.BinUtils;
+import edu.emory.mathcs.nlp.common.collection.tree.PrefixTree;
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.component.template.lexicon.GazetteerTrie;
+import org.kohsuke.args4j.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+
+/**
+ * Compiles named entity gazetteers in a {@link PrefixTree} (see {@link NERPrefixTreeExtract}) into a {@link GazetteerTrie},
+ * which can be used in place of the prefix tree in the configuration file.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class GazetteerCompile
+{
+	private static final Logger LOG = LoggerFactory.getLogger(GazetteerCompile.class);
+	@Option(name="-i", usage="input prefix tree file (required)", required=true, metaVar="<filename>")
+	protected String input_file;
+	@Option(name="-o", usage="output gazetteer file; compressed by xz if it ends with .xz (required)", required=true, metaVar="<filename>")
+	protected String output_file;
+	
+	@SuppressWarnings("unchecked")
+	public void compile(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		PrefixTree<String,Set<String>> tree;
+		
+		LOG.info("Loading the prefix tree: "+input_file);
+		ObjectInputStream in = IOUtils.createArtifactObjectInputStream(input_file);
+		tree = (PrefixTree<String,Set<String>>)in.readObject();
+		in.close();
+		
+		LOG.info("Compiling the gazetteers");
+		GazetteerTrie trie = GazetteerTrie.compile(tree);
+		LOG.info("States: "+trie.size());
+		
+		LOG.info("Saving the gazetteers: "+output_file);
+		ObjectOutputStream out = output_file.endsWith(".xz") ? IOUtils.createObjectXZBufferedOutputStream(output_file) : new ObjectOutputStream(new BufferedOutputStream(IOUtils.createFileOutputStream(output_file)));
+		out.writeObject(trie);
+		out.close();
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new GazetteerCompile().compile(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
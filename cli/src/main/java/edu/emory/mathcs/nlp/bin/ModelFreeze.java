@@ -0,0 +1,64 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bin;
+
+import edu.emory.mathcs.nlp.bin.util.BinUtils;
+import edu.emory.mathcs.nlp.common.constant.StringConst;
+import edu.emory.mathcs.nlp.common.util.NLPUtils;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.component.template.util.FrozenModel;
+import org.kohsuke.args4j.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+
+/**
+ * Exports a trained model to the frozen format (see {@link FrozenModel}) for decoding.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelFreeze
+{
+	private static final Logger LOG = LoggerFactory.getLogger(ModelFreeze.class);
+	@Option(name="-m", usage="model file (required)", required=true, metaVar="<filename>")
+	protected String model_file;
+	@Option(name="-o", usage="output frozen model file (default: <model file>."+FrozenModel.EXTENSION+")", required=false, metaVar="<filename>")
+	protected String frozen_file = null;
+	
+	@SuppressWarnings("unchecked")
+	public <N extends AbstractNLPNode<N>, S extends NLPState<N>>void freeze(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		if (frozen_file == null) frozen_file = model_file + StringConst.PERIOD + FrozenModel.EXTENSION;
+		
+		LOG.info("Loading the model");
+		OnlineComponent<N,S> component = (OnlineComponent<N,S>)NLPUtils.<N,S>getComponent(Paths.get(model_file));
+		
+		LOG.info("Freezing the model: "+frozen_file);
+		FrozenModel.write(component, frozen_file);
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new ModelFreeze().freeze(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
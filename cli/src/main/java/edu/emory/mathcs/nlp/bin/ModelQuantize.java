@@ -0,0 +1,63 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bin;
+
+import edu.emory.mathcs.nlp.bin.util.BinUtils;
+import edu.emory.mathcs.nlp.common.util.FileUtils;
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.component.template.OnlineComponent;
+import edu.emory.mathcs.nlp.component.template.lexicon.GlobalLexica;
+import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+import edu.emory.mathcs.nlp.component.template.reader.TSVReader;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.component.template.train.OnlineTrainer;
+import edu.emory.mathcs.nlp.learning.util.Quantization;
+import org.kohsuke.args4j.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Quantizes the weights of a trained model for decoding (see {@link Quantization}),
+ * and reports the accuracy on the development files before and after the quantization.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelQuantize extends ModelReduce
+{
+	private static final Logger LOG = LoggerFactory.getLogger(ModelQuantize.class);
+	@Option(name="-q", usage="quantization: int8|fp16 (default: int8)", required=false, metaVar="<string>")
+	protected String quantization = Quantization.int8.name();
+	
+	public <N extends AbstractNLPNode<N>, S extends NLPState<N>>void quantize(String[] args)
+	{
+		BinUtils.initArgs(args, this);
+		OnlineTrainer<N,S> trainer = createOnlineTrainer();
+		
+		List<String> developFiles  = FileUtils.getFileList(develop_path, develop_ext);
+		GlobalLexica<N> lexica = trainer.createGlobalLexica(IOUtils.createFileInputStream(configuration_file));
+		
+		LOG.info("Loading the model");
+		OnlineComponent<N,S> component = readComponent(IOUtils.createFileInputStream(previous_model_file), IOUtils.createFileInputStream(configuration_file));
+		TSVReader<N> reader = trainer.createTSVReader(component.getConfiguration().getReaderFieldMap());
+		trainer.quantizeModel(reader, developFiles, component, lexica, Quantization.valueOf(quantization), model_file);
+	}
+	
+	static public void main(String[] args)
+	{
+		new ModelQuantize().quantize(args);
+	}
+}
@@ -20,6 +20,7 @@ import edu.emory.mathcs.nlp.common.util.FileUtils;
 import edu.emory.mathcs.nlp.common.util.IOUtils;
 import edu.emory.mathcs.nlp.decode.AbstractNLPDecoder;
 import edu.emory.mathcs.nlp.decode.NLPDecoder;
+import edu.emory.mathcs.nlp.decode.metrics.DecodeMetrics;
 import org.kohsuke.args4j.Option;
 
 import java.util.Collections;
@@ -40,8 +41,16 @@ public class NLPDecode
 	public String output_ext = "nlp";
 	@Option(name="-format", usage="format of the input data (raw|line|tsv; default: raw)", required=false, metaVar="<string>")
 	private String format = AbstractNLPDecoder.FORMAT_RAW;
-	@Option(name="-threads", usage="number of threads (default: 2)", required=false, metaVar="<integer>")
+	@Option(name="-threads", usage="number of files decoded in parallel (default: 2)", required=false, metaVar="<integer>")
 	protected int threads = 2;
+	@Option(name="-sthreads", usage="number of threads decoding sentences within each file (default: 1)", required=false, metaVar="<integer>")
+	protected int sentence_threads = 1;
+	@Option(name="-queue", usage="max number of sentences in flight per file when -sthreads > 1 (default: 256)", required=false, metaVar="<integer>")
+	protected int queue_size = 256;
+	@Option(name="-batch", usage="number of sentences within each file decoded together (default: 1)", required=false, metaVar="<integer>")
+	protected int batch_size = 1;
+	@Option(name="-metrics", usage="if set, the latency and throughput of each component are printed to the standard error when decoding is done", required=false)
+	protected boolean metrics = false;
 	private NLPDecoder decoder;
 
 //	======================================== CONSTRUCTORS ========================================
@@ -53,9 +62,28 @@ public class NLPDecode
 		Collections.sort(filelist);
 		
 		decoder = new NLPDecoder(IOUtils.createFileInputStream(configuration_file));
+		decoder.setSentenceThreads(sentence_threads);
+		decoder.setQueueSize(queue_size);
+		decoder.setBatchSize(batch_size);
+		if (metrics) initMetrics();
 		decoder.decode(filelist, output_ext, format, threads);
 	}
 	
+	/** The metrics are printed once all decoding threads are finished. */
+	private void initMetrics()
+	{
+		DecodeMetrics m = new DecodeMetrics();
+		decoder.setMetrics(m);
+		
+		try
+		{
+			m.register(NLPDecode.class.getSimpleName());
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(m.toString())));
+	}
+	
 	static public void main(String[] args)
 	{
 		new NLPDecode(args);
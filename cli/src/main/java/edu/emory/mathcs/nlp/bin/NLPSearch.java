@@ -0,0 +1,114 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bin;
+
+import edu.emory.mathcs.nlp.bin.util.BinUtils;
+import edu.emory.mathcs.nlp.common.util.FileUtils;
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.common.util.Splitter;
+import edu.emory.mathcs.nlp.component.template.node.AbstractNLPNode;
+import edu.emory.mathcs.nlp.component.template.state.NLPState;
+import edu.emory.mathcs.nlp.component.template.train.HyperParameterSearch;
+import edu.emory.mathcs.nlp.component.template.train.OnlineTrainer;
+import edu.emory.mathcs.nlp.component.template.util.NLPMode;
+import edu.emory.mathcs.nlp.learning.gridsearch.ExpFunction;
+import edu.emory.mathcs.nlp.learning.gridsearch.GridFunction;
+import edu.emory.mathcs.nlp.learning.gridsearch.LinearFunction;
+import org.kohsuke.args4j.Option;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Searches hyper-parameters by training multiple configurations in one process (see {@link HyperParameterSearch}).
+ * Each grid is given as either {@code lin:min:max:steps} ({@link LinearFunction}) or {@code exp:min:max:base} ({@link ExpFunction}).
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPSearch
+{
+	@Option(name="-c", usage="confinguration file (required)", required=true, metaVar="<filename>")
+	protected String configuration_file;
+	@Option(name="-m", usage="output model file of the best configuration (optional)", required=false, metaVar="<filename>")
+	protected String model_file = null;
+	@Option(name="-t", usage="training path (required)", required=true, metaVar="<filepath>")
+	protected String train_path;
+	@Option(name="-d", usage="development path (required)", required=true, metaVar="<filepath>")
+	protected String develop_path;
+	@Option(name="-te", usage="training file extension (default: *)", required=false, metaVar="<string>")
+	protected String train_ext = "*";
+	@Option(name="-de", usage="development file extension (default: *)", required=false, metaVar="<string>")
+	protected String develop_ext = "*";
+	@Option(name="-mode", usage="mode (required: pos|ner|dep)", required=true, metaVar="<string>")
+	protected String mode = null;
+	@Option(name="-lr", usage="grid of learning rates (optional)", required=false, metaVar="<grid>")
+	protected String learning_rates = null;
+	@Option(name="-l1", usage="grid of l1 regularization rates (optional)", required=false, metaVar="<grid>")
+	protected String l1_regularizations = null;
+	@Option(name="-bias", usage="grid of biases (optional)", required=false, metaVar="<grid>")
+	protected String biases = null;
+	@Option(name="-batch", usage="grid of batch sizes (optional)", required=false, metaVar="<grid>")
+	protected String batch_sizes = null;
+	@Option(name="-threads", usage="number of configurations trained at the same time (default: 1)", required=false, metaVar="<integer>")
+	protected int threads = 1;
+	@Option(name="-eta", usage="only the best 1/eta configurations are trained eta times longer (default: 3)", required=false, metaVar="<integer>")
+	protected int eta = 3;
+	@Option(name="-epochs", usage="number of epochs before the first pruning (default: 1)", required=false, metaVar="<integer>")
+	protected int min_epochs = 1;
+	
+	public <N extends AbstractNLPNode<N>, S extends NLPState<N>>void search(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		List<String> trainFiles   = FileUtils.getFileList(train_path  , train_ext);
+		List<String> developFiles = FileUtils.getFileList(develop_path, develop_ext);
+		OnlineTrainer<N,S> trainer = new NLPTrain().createOnlineTrainer();
+		HyperParameterSearch<N,S> search = new HyperParameterSearch<>(trainer);
+		
+		Collections.sort(trainFiles);
+		Collections.sort(developFiles);
+		
+		if (learning_rates     != null) search.addLearningRates    (createGrid(learning_rates));
+		if (l1_regularizations != null) search.addL1Regularizations(createGrid(l1_regularizations));
+		if (biases             != null) search.addBiases           (createGrid(biases));
+		if (batch_sizes        != null) search.addBatchSizes       (createGrid(batch_sizes));
+		
+		search.setThreadSize(threads);
+		search.setReductionFactor(eta);
+		search.setMinEpochs(min_epochs);
+		
+		HyperParameterSearch<N,S>.Trial best = search.search(NLPMode.valueOf(mode), trainFiles, developFiles, configuration_file);
+		if (model_file != null) trainer.saveModel(best.getComponent(), IOUtils.createFileOutputStream(model_file));
+	}
+	
+	/** @param grid {@code lin:min:max:steps} or {@code exp:min:max:base}. */
+	static public GridFunction createGrid(String grid)
+	{
+		String[] t = Splitter.splitColons(grid);
+		if (t.length != 4) throw new IllegalArgumentException("Invalid grid: "+grid);
+		float min = Float.parseFloat(t[1]), max = Float.parseFloat(t[2]);
+		
+		switch (t[0])
+		{
+		case "lin": return new LinearFunction(min, max, Integer.parseInt(t[3]));
+		case "exp": return new ExpFunction(min, max, Float.parseFloat(t[3]));
+		default   : throw new IllegalArgumentException("Invalid grid: "+grid);
+		}
+	}
+	
+	static public void main(String[] args) throws Exception
+	{
+		new NLPSearch().search(args);
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.mathcs.nlp.bin;
+
+import edu.emory.mathcs.nlp.bin.util.BinUtils;
+import edu.emory.mathcs.nlp.common.util.IOUtils;
+import edu.emory.mathcs.nlp.common.util.Splitter;
+import edu.emory.mathcs.nlp.component.template.lexicon.EmbeddingStore;
+import org.kohsuke.args4j.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.Map;
+
+/**
+ * Converts word embeddings into the memory-mapped format (see {@link EmbeddingStore}), which can be used
+ * in place of the serialized map in the configuration file as long as the output file ends with {@code .emb}.
+ * The input is either the text output of word2vec (see {@link Word2Vec2Map}) or a serialized map of embeddings.
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class Word2Vec2Store
+{
+	private static final Logger LOG = LoggerFactory.getLogger(Word2Vec2Store.class);
+	@Option(name="-i", usage="input file (required)", required=true, metaVar="<filename>")
+	protected String input_file;
+	@Option(name="-o", usage="output file (default: <input file>.emb)", required=false, metaVar="<filename>")
+	protected String output_file = null;
+	@Option(name="-map", usage="if set, the input is a serialized map of embeddings; otherwise, the text output of word2vec", required=false)
+	protected boolean is_map = false;
+	
+	@SuppressWarnings("unchecked")
+	public void convert(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		if (output_file == null) output_file = input_file + "." + EmbeddingStore.EXTENSION;
+		int size;
+		
+		LOG.info("Converting: "+input_file);
+		
+		if (is_map)
+		{
+			ObjectInputStream in = IOUtils.createArtifactObjectInputStream(input_file);
+			Map<String,float[]> map = (Map<String,float[]>)in.readObject();
+			in.close();
+			EmbeddingStore.write(map, output_file);
+			size = map.size();
+		}
+		else
+			size = convert(IOUtils.createArtifactInputStream(input_file), output_file);
+		
+		LOG.info("Embeddings: "+size+" -> "+output_file);
+	}
+	
+	/** Reads one embedding at a time; the words skipped by {@link Word2Vec2Map} are skipped as well. */
+	static public int convert(InputStream in, String outputFile) throws IOException
+	{
+		BufferedReader reader = IOUtils.createBufferedReader(in);
+		String[] t;
+		float[] v;
+		
+		t =  Splitter.splitSpace(reader.readLine());
+		final int V = Integer.parseInt(t[0]);
+		final int D = Integer.parseInt(t[1]);
+		
+		try (EmbeddingStore.Writer writer = new EmbeddingStore.Writer(outputFile, D))
+		{
+			v = new float[D];
+			
+			for (int i=0; i<V; i++)
+			{
+				t = Splitter.splitSpace(reader.readLine());
+				if (Word2Vec2Map.skip(t[0])) continue;
+				
+				for (int j=0; j<D; j++)
+					v[j] = Float.parseFloat(t[j+1]);
+				
+				writer.add(t[0], v);
+			}
+			
+			reader.close();
+			return writer.size();
+		}
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new Word2Vec2Store().convert(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}